@@ -69,6 +69,10 @@ android {
             sourceCompatibility = JavaVersion.VERSION_11
             targetCompatibility = JavaVersion.VERSION_11
         }
+        // Las pruebas locales usan un servidor sustituto; Log y Handler no hacen nada
+        testOptions {
+            unitTests.isReturnDefaultValues = true
+        }
     }
 
     dependencies {
@@ -78,7 +82,7 @@ android {
         implementation(libs.firebase.inappmessaging)
         implementation(libs.cardview)
         annotationProcessor(libs.compiler)
-        implementation(libs.logging.interceptor)
+        implementation(libs.okhttp)
         implementation(libs.appcompat)
         implementation(libs.constraintlayout)
         implementation(libs.lifecycle.viewmodel.ktx)
@@ -87,9 +91,9 @@ android {
         implementation(libs.navigation.ui)
         implementation(libs.retrofit)
         implementation(libs.converter.gson)
-        implementation(libs.picasso)
         implementation(libs.kotlinx.coroutines.android)
         testImplementation(libs.junit)
+        testImplementation(libs.mockwebserver)
         androidTestImplementation(libs.ext.junit)
         androidTestImplementation(libs.espresso.core)
     }
@@ -0,0 +1,24 @@
+package com.proyecto.facilgimapp;
+
+import android.app.Application;
+
+import com.proyecto.facilgimapp.util.SettingsStore;
+
+/**
+ * Clase Application de FacilGimApp.
+ * <p>
+ * Lanza la carga en segundo plano de las preferencias y de la sesión
+ * ({@link SettingsStore}) en cuanto arranca el proceso. La primera actividad no la espera:
+ * lee el idioma y el tema de la copia compacta que el almacén lee al crearse.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class FacilGimApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        SettingsStore.get(this);
+    }
+}
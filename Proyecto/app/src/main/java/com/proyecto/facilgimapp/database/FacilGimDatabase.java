@@ -0,0 +1,192 @@
+package com.proyecto.facilgimapp.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Base de datos SQLite local de la aplicación.
+ * <p>
+ * Replica en el dispositivo los tipos de entrenamiento, el catálogo de ejercicios,
+ * los entrenamientos del usuario, sus relaciones entrenamiento–ejercicio y las series,
+ * para que las pantallas puedan abrirse sin conexión. Las claves foráneas usadas en las
+ * consultas habituales (usuario, entrenamiento y relación) están indexadas. La tabla
+ * {@code sincronizacion} guarda, junto a la réplica, el token de la última sincronización
+ * incremental de cada consulta.
+ * </p>
+ * <p>
+ * También contiene la cola persistente de escrituras pendientes ({@code outbox}) que
+ * usa {@link com.proyecto.facilgimapp.repository.MutationOutbox}. A diferencia de la
+ * réplica, esta tabla no se puede regenerar desde el servidor y se conserva en las
+ * actualizaciones de esquema. Lo mismo ocurre con el estado de las subidas de imágenes
+ * por trozos ({@code subida}), que permite reanudarlas tras cerrar la aplicación.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class FacilGimDatabase extends SQLiteOpenHelper {
+    private static final String DB_NAME    = "facilgim.db";
+    private static final int    DB_VERSION = 6;
+
+    static final String T_TIPO      = "tipo_entrenamiento";
+    static final String T_EJERCICIO = "ejercicio";
+    static final String T_WORKOUT   = "entrenamiento";
+    static final String T_RELACION  = "entrenamiento_ejercicio";
+    static final String T_SERIE     = "serie";
+    static final String T_OUTBOX    = "outbox";
+    static final String T_SUBIDA    = "subida";
+    static final String T_SYNC      = "sincronizacion";
+
+    private static FacilGimDatabase instance;
+
+    private FacilGimDatabase(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    /**
+     * Devuelve la instancia única de la base de datos, asociada al contexto de la aplicación.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de FacilGimDatabase.
+     */
+    public static synchronized FacilGimDatabase get(Context context) {
+        if (instance == null) {
+            instance = new FacilGimDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createReplicaTables(db);
+        createOutboxTable(db);
+        createUploadTable(db);
+    }
+
+    private static void createReplicaTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_TIPO + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "nombre TEXT)");
+
+        db.execSQL("CREATE TABLE " + T_EJERCICIO + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "nombre TEXT, "
+                + "imagen_url TEXT, "
+                + "en_catalogo INTEGER NOT NULL DEFAULT 0)");
+
+        db.execSQL("CREATE TABLE " + T_WORKOUT + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "usuario_id INTEGER NOT NULL, "
+                + "nombre TEXT, "
+                + "fecha TEXT, "
+                + "descripcion TEXT, "
+                + "duracion INTEGER NOT NULL DEFAULT 0, "
+                + "tipo_id INTEGER, "
+                + "tipo_nombre TEXT)");
+        db.execSQL("CREATE INDEX idx_entrenamiento_usuario_fecha ON "
+                + T_WORKOUT + " (usuario_id, fecha)");
+
+        db.execSQL("CREATE TABLE " + T_RELACION + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "entrenamiento_id INTEGER NOT NULL, "
+                + "ejercicio_id INTEGER, "
+                + "orden INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_relacion_entrenamiento ON "
+                + T_RELACION + " (entrenamiento_id, orden)");
+
+        db.execSQL("CREATE TABLE " + T_SERIE + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "relacion_id INTEGER NOT NULL, "
+                + "numero_serie INTEGER, "
+                + "repeticiones INTEGER, "
+                + "peso REAL, "
+                + "completada INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_serie_relacion ON "
+                + T_SERIE + " (relacion_id, numero_serie)");
+
+        // Sin las filas de la réplica el token no vale: se recrea con ella
+        db.execSQL("CREATE TABLE " + T_SYNC + " ("
+                + "clave TEXT PRIMARY KEY, "
+                + "token TEXT NOT NULL)");
+    }
+
+    private static void createOutboxTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_OUTBOX + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "operacion TEXT NOT NULL, "
+                + "entidad TEXT NOT NULL, "
+                + "destino_id INTEGER, "
+                + "payload TEXT, "
+                + "intentos INTEGER NOT NULL DEFAULT 0, "
+                + "siguiente_intento INTEGER NOT NULL DEFAULT 0, "
+                + "fallida INTEGER NOT NULL DEFAULT 0, "
+                + "clave_idempotencia TEXT, "
+                + "usuario_id INTEGER, "
+                + "avisada INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_outbox_entidad ON " + T_OUTBOX + " (entidad)");
+        db.execSQL("CREATE UNIQUE INDEX idx_outbox_clave ON " + T_OUTBOX + " (clave_idempotencia)");
+        db.execSQL("CREATE INDEX idx_outbox_usuario ON " + T_OUTBOX + " (usuario_id)");
+    }
+
+    /** Añade a una cola de la versión 2-4 el estado de fallo y la clave de idempotencia. */
+    private static void upgradeOutboxTable(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + T_OUTBOX + " ADD COLUMN fallida INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + T_OUTBOX + " ADD COLUMN clave_idempotencia TEXT");
+        db.execSQL("CREATE UNIQUE INDEX idx_outbox_clave ON " + T_OUTBOX + " (clave_idempotencia)");
+    }
+
+    /**
+     * Añade a una cola de la versión 2-5 el usuario de cada entrada y si ya se avisó de su
+     * fallo. Las entradas existentes quedan sin dueño hasta que las adopte el siguiente
+     * usuario que inicie sesión.
+     */
+    private static void addOutboxOwner(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + T_OUTBOX + " ADD COLUMN usuario_id INTEGER");
+        db.execSQL("ALTER TABLE " + T_OUTBOX + " ADD COLUMN avisada INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("CREATE INDEX idx_outbox_usuario ON " + T_OUTBOX + " (usuario_id)");
+    }
+
+    private static void createUploadTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_SUBIDA + " ("
+                + "clave TEXT PRIMARY KEY, "
+                + "subida_id TEXT, "
+                + "fichero TEXT NOT NULL, "
+                + "nombre TEXT NOT NULL, "
+                + "tipo TEXT NOT NULL, "
+                + "total INTEGER NOT NULL, "
+                + "confirmado INTEGER NOT NULL DEFAULT 0, "
+                + "ejercicio TEXT NOT NULL, "
+                + "actualizado INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    /**
+     * Los datos de la réplica se recrean y se vuelven a sincronizar; la cola de
+     * escrituras pendientes y las subidas en curso se crean si no existían y nunca se borran
+     * (a la cola solo se le añaden columnas).
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + T_SYNC);
+        db.execSQL("DROP TABLE IF EXISTS " + T_SERIE);
+        db.execSQL("DROP TABLE IF EXISTS " + T_RELACION);
+        db.execSQL("DROP TABLE IF EXISTS " + T_WORKOUT);
+        db.execSQL("DROP TABLE IF EXISTS " + T_EJERCICIO);
+        db.execSQL("DROP TABLE IF EXISTS " + T_TIPO);
+        createReplicaTables(db);
+        if (oldVersion < 2) {
+            createOutboxTable(db);
+        } else {
+            if (oldVersion < 5) upgradeOutboxTable(db);
+            if (oldVersion < 6) addOutboxOwner(db);
+        }
+        if (oldVersion < 3) {
+            createUploadTable(db);
+        }
+    }
+}
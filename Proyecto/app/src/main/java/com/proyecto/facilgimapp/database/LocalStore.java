@@ -0,0 +1,577 @@
+package com.proyecto.facilgimapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_EJERCICIO;
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_RELACION;
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_SERIE;
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_SYNC;
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_TIPO;
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_WORKOUT;
+
+/**
+ * Acceso a la réplica local de los datos del servidor.
+ * <p>
+ * Cada método {@code save*} sustituye, dentro de una transacción, el conjunto de filas
+ * que corresponde a la consulta remota equivalente (p. ej. todos los entrenamientos de un
+ * usuario), y cada método {@code load*} reconstruye los DTO tal como los devolvería la API.
+ * Cada {@code save*} deja además una marca de copia guardada, de modo que una consulta que
+ * el servidor devolvió vacía se lee como lista vacía y solo una que nunca se ha guardado
+ * se lee como {@code null}.
+ * Los métodos realizan E/S de disco y no deben llamarse desde el hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class LocalStore {
+    private static LocalStore instance;
+
+    private final FacilGimDatabase helper;
+
+    private LocalStore(Context context) {
+        helper = FacilGimDatabase.get(context);
+    }
+
+    /**
+     * Devuelve la instancia única del almacén local.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de LocalStore.
+     */
+    public static synchronized LocalStore get(Context context) {
+        if (instance == null) {
+            instance = new LocalStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // ===== TIPOS DE ENTRENAMIENTO =====
+
+    /**
+     * Sustituye la lista local de tipos de entrenamiento.
+     *
+     * @param types Tipos devueltos por el servidor.
+     */
+    public void saveTypes(List<TipoEntrenamientoDTO> types) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(T_TIPO, null, null);
+            ContentValues cv = new ContentValues();
+            for (TipoEntrenamientoDTO t : types) {
+                cv.clear();
+                cv.put("id", t.getId());
+                cv.put("nombre", t.getNombre());
+                db.insertWithOnConflict(T_TIPO, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            markSaved(db, "tipos");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Recupera los tipos de entrenamiento guardados.
+     *
+     * @return Lista de tipos (vacía si no hay ninguno), o {@code null} si nunca se han
+     *         sincronizado.
+     */
+    public List<TipoEntrenamientoDTO> loadTypes() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor c = db.query(T_TIPO, new String[]{"id", "nombre"},
+                null, null, null, null, "id")) {
+            if (!c.moveToFirst()) return emptyIfSaved(db, "tipos");
+            List<TipoEntrenamientoDTO> list = new ArrayList<>(c.getCount());
+            do {
+                list.add(new TipoEntrenamientoDTO(c.getInt(0), c.getString(1)));
+            } while (c.moveToNext());
+            return list;
+        }
+    }
+
+    // ===== EJERCICIOS =====
+
+    /**
+     * Sustituye el catálogo local de ejercicios.
+     *
+     * @param exercises Ejercicios devueltos por el servidor.
+     */
+    public void saveExercises(List<EjercicioDTO> exercises) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Los ejercicios que ya no están en el catálogo se conservan para las relaciones
+            ContentValues reset = new ContentValues();
+            reset.put("en_catalogo", 0);
+            db.update(T_EJERCICIO, reset, null, null);
+            for (EjercicioDTO e : exercises) {
+                putExercise(db, e, true);
+            }
+            markSaved(db, "ejercicios");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Recupera el catálogo de ejercicios guardado, en el mismo orden que el servidor (por ID).
+     *
+     * @return Lista de ejercicios (vacía si el catálogo está vacío), o {@code null} si nunca
+     *         se ha sincronizado.
+     */
+    public List<EjercicioDTO> loadExercises() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor c = db.query(T_EJERCICIO, new String[]{"id", "nombre", "imagen_url"},
+                "en_catalogo = 1", null, null, null, "id")) {
+            if (!c.moveToFirst()) return emptyIfSaved(db, "ejercicios");
+            List<EjercicioDTO> list = new ArrayList<>(c.getCount());
+            do {
+                list.add(readExercise(c, 0));
+            } while (c.moveToNext());
+            return list;
+        }
+    }
+
+    private static void putExercise(SQLiteDatabase db, EjercicioDTO e, boolean inCatalog) {
+        if (e == null || e.getIdEjercicio() == null) return;
+        ContentValues cv = new ContentValues();
+        cv.put("id", e.getIdEjercicio());
+        cv.put("nombre", e.getNombre());
+        cv.put("imagen_url", e.getImagenUrl());
+        if (inCatalog) {
+            cv.put("en_catalogo", 1);
+            db.insertWithOnConflict(T_EJERCICIO, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+        } else if (db.update(T_EJERCICIO, cv, "id = ?",
+                new String[]{String.valueOf(e.getIdEjercicio())}) == 0) {
+            db.insert(T_EJERCICIO, null, cv);
+        }
+    }
+
+    private static EjercicioDTO readExercise(Cursor c, int from) {
+        EjercicioDTO e = new EjercicioDTO();
+        e.setIdEjercicio(c.getInt(from));
+        e.setNombre(c.getString(from + 1));
+        e.setImagenUrl(c.getString(from + 2));
+        return e;
+    }
+
+    // ===== ENTRENAMIENTOS =====
+
+    /**
+     * Sustituye los entrenamientos locales de un usuario, junto con sus relaciones y series.
+     *
+     * @param userId   ID del usuario propietario.
+     * @param workouts Entrenamientos devueltos por el servidor.
+     */
+    public void saveWorkoutsForUser(int userId, List<EntrenamientoDTO> workouts) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String[] args = {String.valueOf(userId)};
+            db.delete(T_SERIE, "relacion_id IN (SELECT r.id FROM " + T_RELACION + " r JOIN "
+                    + T_WORKOUT + " w ON r.entrenamiento_id = w.id WHERE w.usuario_id = ?)", args);
+            db.delete(T_RELACION, "entrenamiento_id IN (SELECT id FROM " + T_WORKOUT
+                    + " WHERE usuario_id = ?)", args);
+            db.delete(T_WORKOUT, "usuario_id = ?", args);
+
+            ContentValues cv = new ContentValues();
+            for (EntrenamientoDTO w : workouts) {
+                putWorkout(db, cv, userId, w);
+            }
+            markSaved(db, "entrenamientos:" + userId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Aplica a los entrenamientos locales de un usuario los cambios de una sincronización
+     * incremental y guarda el token de la sincronización, todo en una transacción.
+     *
+     * @param userId   ID del usuario propietario.
+     * @param changed  Entrenamientos creados o modificados, con sus relaciones y series.
+     * @param deleted  IDs de los entrenamientos eliminados.
+     * @param syncKey  Clave del token (ver {@link #loadSyncToken(String)}).
+     * @param token    Token devuelto por el servidor.
+     */
+    public void applyWorkoutChanges(int userId, List<EntrenamientoDTO> changed, List<Integer> deleted,
+                                    String syncKey, String token) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues cv = new ContentValues();
+            for (EntrenamientoDTO w : changed) {
+                if (w.getId() == null) continue;
+                deleteWorkoutRows(db, w.getId());
+                putWorkout(db, cv, userId, w);
+            }
+            for (Integer id : deleted) {
+                if (id != null) deleteWorkoutRows(db, id);
+            }
+            markSaved(db, "entrenamientos:" + userId);
+            putSyncToken(db, syncKey, token);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Sustituye los entrenamientos locales de un usuario por una copia completa y guarda
+     * el token de la sincronización, todo en una transacción.
+     *
+     * @param userId   ID del usuario propietario.
+     * @param workouts Entrenamientos devueltos por el servidor.
+     * @param syncKey  Clave del token (ver {@link #loadSyncToken(String)}).
+     * @param token    Token devuelto por el servidor.
+     */
+    public void replaceWorkoutsForUser(int userId, List<EntrenamientoDTO> workouts,
+                                       String syncKey, String token) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            saveWorkoutsForUser(userId, workouts);
+            putSyncToken(db, syncKey, token);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void putWorkout(SQLiteDatabase db, ContentValues cv, int userId, EntrenamientoDTO w) {
+        if (w.getId() == null) return;
+        cv.clear();
+        cv.put("id", w.getId());
+        cv.put("usuario_id", userId);
+        cv.put("nombre", w.getNombre());
+        cv.put("fecha", w.getFechaEntrenamiento() != null
+                ? w.getFechaEntrenamiento().toString() : null);
+        cv.put("descripcion", w.getDescripcion());
+        cv.put("duracion", w.getDuracion());
+        TipoEntrenamientoDTO tipo = w.getTipoEntrenamiento();
+        if (tipo != null) {
+            cv.put("tipo_id", tipo.getId());
+            cv.put("tipo_nombre", tipo.getNombre());
+        }
+        db.insertWithOnConflict(T_WORKOUT, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+        if (w.getEntrenamientosEjercicios() != null) {
+            putRelations(db, w.getId(), w.getEntrenamientosEjercicios());
+        }
+    }
+
+    /**
+     * Recupera los entrenamientos guardados de un usuario, con sus relaciones y series.
+     *
+     * @param userId ID del usuario propietario.
+     * @return Lista de entrenamientos (vacía si el usuario no tiene ninguno), o {@code null}
+     *         si nunca se han sincronizado.
+     */
+    public List<EntrenamientoDTO> loadWorkoutsForUser(int userId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<EntrenamientoDTO> list = queryWorkouts(db, userId, null);
+        return list.isEmpty() ? emptyIfSaved(db, "entrenamientos:" + userId) : list;
+    }
+
+    /**
+     * Recupera una página de los entrenamientos guardados de un usuario, ordenados por ID,
+     * con sus relaciones y series.
+     *
+     * @param userId ID del usuario propietario.
+     * @param page   Número de página, empezando en 0.
+     * @param size   Tamaño de página.
+     * @return la página (vacía si no hay tantos entrenamientos), o {@code null} si nunca
+     *         se han sincronizado.
+     */
+    public PageDTO<EntrenamientoDTO> loadWorkoutsPage(int userId, int page, int size) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long total = DatabaseUtils.queryNumEntries(db, T_WORKOUT, "usuario_id = ?",
+                new String[]{String.valueOf(userId)});
+        if (total == 0 && emptyIfSaved(db, "entrenamientos:" + userId) == null) return null;
+        List<EntrenamientoDTO> content = queryWorkouts(db, userId, (long) page * size + "," + size);
+        return new PageDTO<>(content, page, size, total);
+    }
+
+    /** Entrenamientos de un usuario ordenados por ID, con sus relaciones; {@code limit} como en SQL. */
+    private static List<EntrenamientoDTO> queryWorkouts(SQLiteDatabase db, int userId, String limit) {
+        List<EntrenamientoDTO> list;
+        try (Cursor c = db.query(T_WORKOUT,
+                new String[]{"id", "nombre", "fecha", "descripcion", "duracion", "tipo_id", "tipo_nombre"},
+                "usuario_id = ?", new String[]{String.valueOf(userId)},
+                null, null, "id", limit)) {
+            if (!c.moveToFirst()) return new ArrayList<>();
+            list = new ArrayList<>(c.getCount());
+            UsuarioDTO owner = new UsuarioDTO();
+            owner.setIdUsuario(userId);
+            do {
+                EntrenamientoDTO w = new EntrenamientoDTO();
+                w.setId(c.getInt(0));
+                w.setNombre(c.getString(1));
+                if (!c.isNull(2)) w.setFechaEntrenamiento(LocalDate.parse(c.getString(2)));
+                w.setDescripcion(c.getString(3));
+                w.setDuracion(c.getInt(4));
+                if (!c.isNull(5)) w.setTipoEntrenamiento(new TipoEntrenamientoDTO(c.getInt(5), c.getString(6)));
+                w.setUsuario(owner);
+                list.add(w);
+            } while (c.moveToNext());
+        }
+        for (EntrenamientoDTO w : list) {
+            w.setEntrenamientosEjercicios(queryRelations(db, w.getId()));
+        }
+        return list;
+    }
+
+    // ===== RELACIONES ENTRENAMIENTO–EJERCICIO =====
+
+    /**
+     * Sustituye las relaciones locales de un entrenamiento, junto con sus series.
+     *
+     * @param workoutId ID del entrenamiento.
+     * @param relations Relaciones devueltas por el servidor.
+     */
+    public void saveRelations(int workoutId, List<EntrenamientoEjercicioDTO> relations) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String[] args = {String.valueOf(workoutId)};
+            db.delete(T_SERIE, "relacion_id IN (SELECT id FROM " + T_RELACION
+                    + " WHERE entrenamiento_id = ?)", args);
+            db.delete(T_RELACION, "entrenamiento_id = ?", args);
+            putRelations(db, workoutId, relations);
+            markSaved(db, "relaciones:" + workoutId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Recupera las relaciones guardadas de un entrenamiento, ordenadas por {@code orden}.
+     *
+     * @param workoutId ID del entrenamiento.
+     * @return Lista de relaciones (vacía si el entrenamiento no tiene ninguna), o
+     *         {@code null} si nunca se han guardado.
+     */
+    public List<EntrenamientoEjercicioDTO> loadRelations(int workoutId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<EntrenamientoEjercicioDTO> list = queryRelations(db, workoutId);
+        return list.isEmpty() ? emptyIfSaved(db, "relaciones:" + workoutId) : list;
+    }
+
+    private static void putRelations(SQLiteDatabase db, int workoutId,
+                                     List<EntrenamientoEjercicioDTO> relations) {
+        ContentValues cv = new ContentValues();
+        for (EntrenamientoEjercicioDTO r : relations) {
+            cv.clear();
+            if (r.getId() != null) cv.put("id", r.getId());
+            cv.put("entrenamiento_id", workoutId);
+            if (r.getEjercicio() != null) {
+                cv.put("ejercicio_id", r.getEjercicio().getIdEjercicio());
+                putExercise(db, r.getEjercicio(), false);
+            }
+            cv.put("orden", r.getOrden());
+            long relId = db.insertWithOnConflict(T_RELACION, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            if (r.getSeries() != null && relId != -1) {
+                putSeries(db, (int) relId, r.getSeries());
+            }
+        }
+    }
+
+    private static List<EntrenamientoEjercicioDTO> queryRelations(SQLiteDatabase db, int workoutId) {
+        List<EntrenamientoEjercicioDTO> list = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT r.id, r.orden, e.id, e.nombre, e.imagen_url FROM "
+                        + T_RELACION + " r LEFT JOIN " + T_EJERCICIO + " e ON r.ejercicio_id = e.id"
+                        + " WHERE r.entrenamiento_id = ? ORDER BY r.orden",
+                new String[]{String.valueOf(workoutId)})) {
+            while (c.moveToNext()) {
+                EntrenamientoEjercicioDTO r = new EntrenamientoEjercicioDTO();
+                r.setId(c.getInt(0));
+                r.setOrden(c.getInt(1));
+                if (!c.isNull(2)) r.setEjercicio(readExercise(c, 2));
+                list.add(r);
+            }
+        }
+        for (EntrenamientoEjercicioDTO r : list) {
+            r.setSeries(querySeries(db, r.getId()));
+        }
+        return list;
+    }
+
+    /**
+     * Elimina un entrenamiento de la réplica local junto con sus relaciones y series.
+     *
+     * @param workoutId ID del entrenamiento.
+     */
+    public void deleteWorkout(int workoutId) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            deleteWorkoutRows(db, workoutId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void deleteWorkoutRows(SQLiteDatabase db, int workoutId) {
+        String[] args = {String.valueOf(workoutId)};
+        db.delete(T_SERIE, "relacion_id IN (SELECT id FROM " + T_RELACION
+                + " WHERE entrenamiento_id = ?)", args);
+        db.delete(T_RELACION, "entrenamiento_id = ?", args);
+        db.delete(T_WORKOUT, "id = ?", args);
+    }
+
+    // ===== SINCRONIZACIÓN INCREMENTAL =====
+
+    /**
+     * Token de la última sincronización incremental de una consulta.
+     *
+     * @param syncKey Clave de la consulta (p. ej. {@code "entrenamientos:7"}).
+     * @return el token, o {@code null} si nunca se ha sincronizado.
+     */
+    public String loadSyncToken(String syncKey) {
+        try (Cursor c = helper.getReadableDatabase().query(T_SYNC, new String[]{"token"},
+                "clave = ?", new String[]{syncKey}, null, null, null)) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    private static void putSyncToken(SQLiteDatabase db, String syncKey, String token) {
+        ContentValues cv = new ContentValues();
+        cv.put("clave", syncKey);
+        cv.put("token", token);
+        db.insertWithOnConflict(T_SYNC, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // ===== MARCAS DE COPIA GUARDADA =====
+
+    /** Prefijo de las marcas en la tabla de sincronización, para no chocar con los tokens. */
+    private static final String SAVED_PREFIX = "copia:";
+
+    /** Anota que la consulta {@code listKey} se ha guardado al menos una vez. */
+    private static void markSaved(SQLiteDatabase db, String listKey) {
+        putSyncToken(db, SAVED_PREFIX + listKey, "");
+    }
+
+    /**
+     * Resultado de una consulta sin filas.
+     *
+     * @return lista vacía si la consulta se guardó alguna vez, o {@code null} si nunca.
+     */
+    private static <T> List<T> emptyIfSaved(SQLiteDatabase db, String listKey) {
+        try (Cursor c = db.query(T_SYNC, new String[]{"clave"}, "clave = ?",
+                new String[]{SAVED_PREFIX + listKey}, null, null, null)) {
+            return c.moveToFirst() ? Collections.emptyList() : null;
+        }
+    }
+
+    // ===== SERIES =====
+
+    /**
+     * Sustituye las series locales de una relación entrenamiento–ejercicio.
+     *
+     * @param relationId ID de la relación.
+     * @param series     Series devueltas por el servidor.
+     */
+    public void saveSeries(int relationId, List<SerieDTO> series) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(T_SERIE, "relacion_id = ?", new String[]{String.valueOf(relationId)});
+            putSeries(db, relationId, series);
+            markSaved(db, "series:" + relationId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Recupera las series guardadas de una relación, ordenadas por número de serie.
+     *
+     * @param relationId ID de la relación.
+     * @return Lista de series (vacía si la relación no tiene ninguna), o {@code null} si
+     *         nunca se han guardado.
+     */
+    public List<SerieDTO> loadSeries(int relationId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<SerieDTO> list = querySeries(db, relationId);
+        return list.isEmpty() ? emptyIfSaved(db, "series:" + relationId) : list;
+    }
+
+    /**
+     * Actualiza en la réplica local los valores de una serie ya existente.
+     *
+     * @param id  ID de la serie.
+     * @param dto Nuevos valores de la serie.
+     */
+    public void updateSeries(int id, SerieDTO dto) {
+        ContentValues cv = new ContentValues();
+        cv.put("numero_serie", dto.getNumeroSerie());
+        cv.put("repeticiones", dto.getRepeticiones());
+        cv.put("peso", dto.getPeso());
+        cv.put("completada", dto.isCompletada() ? 1 : 0);
+        helper.getWritableDatabase().update(T_SERIE, cv, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Elimina una serie de la réplica local.
+     *
+     * @param id ID de la serie.
+     */
+    public void deleteSeries(int id) {
+        helper.getWritableDatabase().delete(T_SERIE, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    private static void putSeries(SQLiteDatabase db, int relationId, List<SerieDTO> series) {
+        ContentValues cv = new ContentValues();
+        for (SerieDTO s : series) {
+            cv.clear();
+            if (s.getId() != null) cv.put("id", s.getId());
+            cv.put("relacion_id", relationId);
+            cv.put("numero_serie", s.getNumeroSerie());
+            cv.put("repeticiones", s.getRepeticiones());
+            cv.put("peso", s.getPeso());
+            cv.put("completada", s.isCompletada() ? 1 : 0);
+            db.insertWithOnConflict(T_SERIE, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+        }
+    }
+
+    private static List<SerieDTO> querySeries(SQLiteDatabase db, int relationId) {
+        List<SerieDTO> list = new ArrayList<>();
+        try (Cursor c = db.query(T_SERIE,
+                new String[]{"id", "numero_serie", "repeticiones", "peso", "completada"},
+                "relacion_id = ?", new String[]{String.valueOf(relationId)},
+                null, null, "numero_serie")) {
+            while (c.moveToNext()) {
+                SerieDTO s = new SerieDTO(
+                        c.getInt(0),
+                        c.isNull(1) ? null : c.getInt(1),
+                        c.isNull(2) ? null : c.getInt(2),
+                        c.isNull(3) ? null : c.getDouble(3));
+                s.setCompletada(c.getInt(4) == 1);
+                list.add(s);
+            }
+        }
+        return list;
+    }
+}
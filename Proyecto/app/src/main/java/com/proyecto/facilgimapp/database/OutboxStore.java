@@ -0,0 +1,357 @@
+package com.proyecto.facilgimapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_OUTBOX;
+
+/**
+ * Acceso a la cola persistente de escrituras pendientes de enviar al servidor.
+ * <p>
+ * Las entradas se leen en orden de inserción. Una entrada que agota sus reintentos se
+ * marca como fallida: deja de enviarse (y de bloquear a las siguientes) pero se conserva
+ * hasta que el usuario la reintente o la descarte.
+ * </p>
+ * <p>
+ * Cada entrada guarda el ID del usuario que la hizo, y las consultas que deciden qué
+ * enviar o de qué avisar se limitan a ese usuario: las escrituras de otro usuario quedan
+ * aparcadas hasta que vuelva a iniciar sesión. Los métodos realizan E/S de disco y no
+ * deben llamarse desde el hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class OutboxStore {
+    private static OutboxStore instance;
+
+    private final FacilGimDatabase helper;
+
+    /**
+     * Escritura pendiente tal como está guardada en la cola.
+     */
+    public static class Entry {
+        public final long id;
+        public final String operation;
+        public final String entity;
+        public final Integer targetId;
+        public final String payload;
+        public final int attempts;
+        public final long nextAttemptAt;
+        /** Si ha agotado los reintentos y espera a que el usuario decida. */
+        public final boolean failed;
+        /** Clave que envía el servidor para no aplicar dos veces la escritura, o {@code null}. */
+        public final String idempotencyKey;
+        /** ID del usuario que hizo la escritura. */
+        public final int ownerId;
+
+        Entry(long id, String operation, String entity, Integer targetId,
+              String payload, int attempts, long nextAttemptAt,
+              boolean failed, String idempotencyKey, int ownerId) {
+            this.id = id;
+            this.operation = operation;
+            this.entity = entity;
+            this.targetId = targetId;
+            this.payload = payload;
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+            this.failed = failed;
+            this.idempotencyKey = idempotencyKey;
+            this.ownerId = ownerId;
+        }
+    }
+
+    private OutboxStore(Context context) {
+        helper = FacilGimDatabase.get(context);
+    }
+
+    /**
+     * Devuelve la instancia única de la cola.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de OutboxStore.
+     */
+    public static synchronized OutboxStore get(Context context) {
+        if (instance == null) {
+            instance = new OutboxStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Añade una escritura al final de la cola.
+     *
+     * @param ownerId   ID del usuario que hace la escritura.
+     * @param operation Tipo de operación.
+     * @param entity    Clave de la entidad afectada, usada para agrupar ediciones.
+     * @param targetId  ID de la entidad en el servidor, o {@code null} si aún no existe.
+     * @param payload   Cuerpo JSON de la petición, o {@code null} si no lleva cuerpo.
+     * @return el ID asignado a la entrada.
+     */
+    public long insert(int ownerId, String operation, String entity, Integer targetId, String payload) {
+        return insert(ownerId, operation, entity, targetId, payload, null);
+    }
+
+    /**
+     * Añade una escritura al final de la cola con una clave de idempotencia, que se
+     * envía en cada intento para que el servidor no la aplique dos veces.
+     *
+     * @param ownerId        ID del usuario que hace la escritura.
+     * @param operation      Tipo de operación.
+     * @param entity         Clave de la entidad afectada.
+     * @param targetId       ID de la entidad en el servidor, o {@code null} si aún no existe.
+     * @param payload        Cuerpo JSON de la petición, o {@code null} si no lleva cuerpo.
+     * @param idempotencyKey Clave única de la escritura, o {@code null}.
+     * @return el ID asignado a la entrada.
+     */
+    public long insert(int ownerId, String operation, String entity, Integer targetId,
+                       String payload, String idempotencyKey) {
+        ContentValues cv = new ContentValues();
+        cv.put("usuario_id", ownerId);
+        cv.put("operacion", operation);
+        cv.put("entidad", entity);
+        cv.put("destino_id", targetId);
+        cv.put("payload", payload);
+        cv.put("clave_idempotencia", idempotencyKey);
+        return helper.getWritableDatabase().insert(T_OUTBOX, null, cv);
+    }
+
+    /**
+     * Busca la entrada con una clave de idempotencia.
+     *
+     * @param idempotencyKey Clave de la escritura.
+     * @return la entrada, o {@code null} si no está en la cola.
+     */
+    public Entry findByKey(String idempotencyKey) {
+        List<Entry> list = query("clave_idempotencia = ?", new String[]{idempotencyKey}, "1");
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Devuelve, en orden, las entradas pendientes de una entidad.
+     *
+     * @param entity Clave de la entidad.
+     * @return lista de entradas, vacía si no hay ninguna.
+     */
+    public List<Entry> pendingFor(String entity) {
+        return query("entidad = ?", new String[]{entity}, null);
+    }
+
+    /**
+     * IDs de destino de las entradas de un tipo de operación, hayan fallado o no
+     * (p. ej. los entrenamientos con un borrado pendiente).
+     *
+     * @param operation Tipo de operación.
+     * @return conjunto de IDs, vacío si no hay ninguna entrada.
+     */
+    public Set<Integer> targetsOf(String operation) {
+        Set<Integer> ids = new HashSet<>();
+        try (Cursor c = helper.getReadableDatabase().query(T_OUTBOX, new String[]{"destino_id"},
+                "operacion = ? AND destino_id IS NOT NULL", new String[]{operation},
+                null, null, null)) {
+            while (c.moveToNext()) ids.add(c.getInt(0));
+        }
+        return ids;
+    }
+
+    /**
+     * Asigna a un usuario las entradas sin dueño, guardadas antes de que la cola lo
+     * registrara.
+     *
+     * @param ownerId ID del usuario.
+     */
+    public void adoptUnowned(int ownerId) {
+        ContentValues cv = new ContentValues();
+        cv.put("usuario_id", ownerId);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, "usuario_id IS NULL", null);
+    }
+
+    /**
+     * Devuelve la entrada más antigua de un usuario que no ha fallado.
+     *
+     * @param ownerId ID del usuario.
+     * @return la primera entrada por enviar, o {@code null} si no queda ninguna.
+     */
+    public Entry head(int ownerId) {
+        List<Entry> list = query("fallida = 0 AND usuario_id = ?", owner(ownerId), "1");
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Número de escrituras de un usuario que han agotado sus reintentos.
+     *
+     * @param ownerId ID del usuario.
+     * @return entradas fallidas en la cola.
+     */
+    public long failedCount(int ownerId) {
+        return count("fallida = 1 AND usuario_id = ?", ownerId);
+    }
+
+    /**
+     * Número de escrituras fallidas de un usuario de las que aún no se le ha avisado.
+     *
+     * @param ownerId ID del usuario.
+     * @return entradas fallidas sin avisar.
+     */
+    public long unacknowledgedFailedCount(int ownerId) {
+        return count("fallida = 1 AND avisada = 0 AND usuario_id = ?", ownerId);
+    }
+
+    /**
+     * Marca como avisadas las escrituras fallidas de un usuario.
+     *
+     * @param ownerId ID del usuario.
+     */
+    public void acknowledgeFailed(int ownerId) {
+        ContentValues cv = new ContentValues();
+        cv.put("avisada", 1);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, "fallida = 1 AND usuario_id = ?",
+                owner(ownerId));
+    }
+
+    /**
+     * Número de escrituras pendientes.
+     *
+     * @return tamaño de la cola.
+     */
+    public long size() {
+        try (Cursor c = helper.getReadableDatabase()
+                .rawQuery("SELECT COUNT(*) FROM " + T_OUTBOX, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Sustituye el cuerpo de una entrada (al agrupar ediciones sucesivas).
+     *
+     * @param id      ID de la entrada.
+     * @param payload Nuevo cuerpo JSON.
+     */
+    public void updatePayload(long id, String payload) {
+        ContentValues cv = new ContentValues();
+        cv.put("payload", payload);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Registra un intento fallido y la fecha del siguiente.
+     *
+     * @param id            ID de la entrada.
+     * @param attempts      Número de intentos realizados.
+     * @param nextAttemptAt Instante (epoch ms) a partir del cual se puede reintentar.
+     */
+    public void reschedule(long id, int attempts, long nextAttemptAt) {
+        ContentValues cv = new ContentValues();
+        cv.put("intentos", attempts);
+        cv.put("siguiente_intento", nextAttemptAt);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Aparta una entrada que ha agotado sus reintentos.
+     *
+     * @param id ID de la entrada.
+     */
+    public void markFailed(long id) {
+        ContentValues cv = new ContentValues();
+        cv.put("fallida", 1);
+        cv.put("avisada", 0);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Devuelve a la cola una entrada fallida, con los intentos a cero.
+     *
+     * @param id ID de la entrada.
+     */
+    public void retry(long id) {
+        helper.getWritableDatabase().update(T_OUTBOX, retryValues(), "id = ?",
+                new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Devuelve a la cola las entradas fallidas de un usuario, con los intentos a cero.
+     *
+     * @param ownerId ID del usuario.
+     */
+    public void retryFailed(int ownerId) {
+        helper.getWritableDatabase().update(T_OUTBOX, retryValues(),
+                "fallida = 1 AND usuario_id = ?", owner(ownerId));
+    }
+
+    /**
+     * Descarta las entradas fallidas de un usuario.
+     *
+     * @param ownerId ID del usuario.
+     */
+    public void removeFailed(int ownerId) {
+        helper.getWritableDatabase().delete(T_OUTBOX, "fallida = 1 AND usuario_id = ?",
+                owner(ownerId));
+    }
+
+    private static ContentValues retryValues() {
+        ContentValues cv = new ContentValues();
+        cv.put("fallida", 0);
+        cv.put("avisada", 0);
+        cv.put("intentos", 0);
+        cv.put("siguiente_intento", 0);
+        return cv;
+    }
+
+    /** Permite reintentar inmediatamente todas las entradas (p. ej. al recuperar la red). */
+    public void resetSchedule() {
+        ContentValues cv = new ContentValues();
+        cv.put("siguiente_intento", 0);
+        helper.getWritableDatabase().update(T_OUTBOX, cv, null, null);
+    }
+
+    /**
+     * Elimina una entrada de la cola.
+     *
+     * @param id ID de la entrada.
+     */
+    public void remove(long id) {
+        helper.getWritableDatabase().delete(T_OUTBOX, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    private long count(String selection, int ownerId) {
+        try (Cursor c = helper.getReadableDatabase().rawQuery(
+                "SELECT COUNT(*) FROM " + T_OUTBOX + " WHERE " + selection, owner(ownerId))) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    private static String[] owner(int ownerId) {
+        return new String[]{String.valueOf(ownerId)};
+    }
+
+    private List<Entry> query(String selection, String[] args, String limit) {
+        List<Entry> list = new ArrayList<>();
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor c = db.query(T_OUTBOX,
+                new String[]{"id", "operacion", "entidad", "destino_id", "payload", "intentos",
+                        "siguiente_intento", "fallida", "clave_idempotencia", "usuario_id"},
+                selection, args, null, null, "id", limit)) {
+            while (c.moveToNext()) {
+                list.add(new Entry(
+                        c.getLong(0),
+                        c.getString(1),
+                        c.getString(2),
+                        c.isNull(3) ? null : c.getInt(3),
+                        c.getString(4),
+                        c.getInt(5),
+                        c.getLong(6),
+                        c.getInt(7) != 0,
+                        c.getString(8),
+                        c.isNull(9) ? -1 : c.getInt(9)));
+            }
+        }
+        return list;
+    }
+}
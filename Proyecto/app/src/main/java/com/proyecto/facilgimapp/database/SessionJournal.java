@@ -0,0 +1,519 @@
+package com.proyecto.facilgimapp.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diario en disco de la sesión de entrenamiento en curso.
+ * <p>
+ * Cada cambio que hace el usuario (serie añadida, repeticiones o peso editados, serie
+ * completada o eliminada) se añade como un registro binario de pocos bytes al final de
+ * un fichero, desde un hilo propio. Si el proceso muere a mitad del entrenamiento,
+ * {@link #restore(RestoreCallback)} relee el fichero de una pasada en ese mismo hilo y
+ * reconstruye las series y la hora de inicio. El fichero solo se relee la primera vez:
+ * a partir de ahí el hilo del diario mantiene el estado en memoria y las siguientes
+ * llamadas (p. ej. la del login y la de la pantalla de la sesión) lo obtienen de ahí.
+ * Cuando los registros acumulados superan con holgura a las series vivas, el fichero se
+ * reescribe solo con el estado actual.
+ * </p>
+ * <p>
+ * Las series se identifican por una clave entera que asigna {@link #setAdded(int)}.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class SessionJournal {
+    private static final String TAG = "SessionJournal";
+    private static final String FILE_NAME = "session.journal";
+
+    private static final byte START     = 'S';
+    private static final byte ADDED     = 'A';
+    private static final byte REPS      = 'R';
+    private static final byte WEIGHT    = 'W';
+    private static final byte COMPLETED = 'C';
+    private static final byte REMOVED   = 'D';
+
+    /** Registros mínimos antes de plantearse compactar. */
+    private static final int MIN_COMPACT_RECORDS = 256;
+
+    /**
+     * Sesión recuperada del diario.
+     */
+    public static class Snapshot {
+        /** Entrenamiento con el que se inició la sesión. */
+        public final EntrenamientoDTO workout;
+        /** IDs de los ejercicios de la sesión, en orden. */
+        public final int[] exerciseIds;
+        /** Instante (epoch ms) en que empezó la sesión. */
+        public final long startedAt;
+        /** Series de cada ejercicio, por ID de ejercicio y en orden de creación. */
+        public final Map<Integer, List<SerieDTO>> series = new HashMap<>();
+        /** Clave en el diario de cada serie recuperada (por identidad). */
+        public final Map<SerieDTO, Integer> keys = new IdentityHashMap<>();
+
+        Snapshot(EntrenamientoDTO workout, int[] exerciseIds, long startedAt) {
+            this.workout = workout;
+            this.exerciseIds = exerciseIds;
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Recibe en el hilo principal la sesión recuperada.
+     */
+    public interface RestoreCallback {
+        /**
+         * @param snapshot la sesión sin terminar, o {@code null} si no hay ninguna o no se
+         *                 puede leer.
+         */
+        void onRestored(@Nullable Snapshot snapshot);
+    }
+
+    /** Estado vivo de una serie, tal como lo ve el hilo del diario. */
+    private static class SetState {
+        final int exerciseId;
+        Integer reps;
+        Double weight;
+        boolean completed;
+
+        SetState(int exerciseId) {
+            this.exerciseId = exerciseId;
+        }
+    }
+
+    private static SessionJournal instance;
+
+    private final File file;
+    private final Gson gson = RetrofitClient.getGson();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** Siguiente clave de serie; solo se usa desde el hilo principal. */
+    private int nextKey;
+
+    // Estado accedido únicamente desde el hilo del diario
+    private DataOutputStream out;
+    /** Si el estado en memoria ya refleja el fichero (se ha releído o se ha empezado de cero). */
+    private boolean loaded;
+    private byte[] header;
+    private String workoutJson;
+    private int[] exerciseIds;
+    private long startedAt;
+    private final LinkedHashMap<Integer, SetState> sets = new LinkedHashMap<>();
+    private int records;
+
+    private SessionJournal(Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Devuelve la instancia única del diario.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de SessionJournal.
+     */
+    public static synchronized SessionJournal get(Context context) {
+        if (instance == null) {
+            instance = new SessionJournal(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si hay una sesión sin terminar en disco.
+     *
+     * @return {@code true} si existe un diario.
+     */
+    public boolean hasActiveSession() {
+        return file.exists();
+    }
+
+    /**
+     * Recupera la sesión sin terminar, si la hay, y deja el diario listo para seguir
+     * añadiendo cambios. No bloquea: la sesión se obtiene en el hilo del diario, después
+     * de los registros pendientes, y se entrega en el hilo principal. Solo la primera
+     * llamada lee el fichero; las siguientes reciben una copia del estado en memoria.
+     *
+     * @param callback Receptor de la sesión recuperada.
+     */
+    public void restore(RestoreCallback callback) {
+        writer.execute(() -> {
+            Snapshot snapshot = null;
+            try {
+                if (!loaded) {
+                    loaded = true;
+                    replay();
+                }
+                snapshot = snapshot();
+            } catch (Exception e) {
+                Log.e(TAG, "No se pudo recuperar la sesión", e);
+                closeQuietly();
+                header = null;
+                sets.clear();
+            }
+            Snapshot restored = snapshot;
+            mainHandler.post(() -> {
+                if (restored != null) {
+                    int max = -1;
+                    for (Integer key : restored.keys.values()) max = Math.max(max, key);
+                    nextKey = max + 1;
+                }
+                callback.onRestored(restored);
+            });
+        });
+    }
+
+    /**
+     * Empieza un diario nuevo, descartando cualquier sesión anterior.
+     *
+     * @param workout     Entrenamiento de la sesión.
+     * @param exerciseIds IDs de los ejercicios de la sesión.
+     * @param startedAt   Instante (epoch ms) de inicio.
+     */
+    public void start(EntrenamientoDTO workout, int[] exerciseIds, long startedAt) {
+        String json = gson.toJson(workout);
+        nextKey = 0;
+        writer.execute(() -> {
+            loaded = true;
+            setHeader(json, exerciseIds, startedAt);
+            sets.clear();
+            rewrite();
+        });
+    }
+
+    /**
+     * Registra una serie nueva.
+     *
+     * @param exerciseId ID del ejercicio al que pertenece.
+     * @return la clave con la que identificar la serie en el resto de registros.
+     */
+    public int setAdded(int exerciseId) {
+        int key = nextKey++;
+        writer.execute(() -> {
+            sets.put(key, new SetState(exerciseId));
+            append(ADDED, key, exerciseId, 0, false);
+        });
+        return key;
+    }
+
+    /**
+     * Registra un cambio de repeticiones.
+     *
+     * @param key  Clave de la serie.
+     * @param reps Repeticiones.
+     */
+    public void repsChanged(int key, int reps) {
+        writer.execute(() -> {
+            SetState s = sets.get(key);
+            if (s == null) return;
+            s.reps = reps;
+            append(REPS, key, reps, 0, false);
+        });
+    }
+
+    /**
+     * Registra un cambio de peso.
+     *
+     * @param key    Clave de la serie.
+     * @param weight Peso.
+     */
+    public void weightChanged(int key, double weight) {
+        writer.execute(() -> {
+            SetState s = sets.get(key);
+            if (s == null) return;
+            s.weight = weight;
+            append(WEIGHT, key, 0, weight, false);
+        });
+    }
+
+    /**
+     * Registra que una serie se ha marcado o desmarcado como completada.
+     *
+     * @param key       Clave de la serie.
+     * @param completed Nuevo estado.
+     */
+    public void completedChanged(int key, boolean completed) {
+        writer.execute(() -> {
+            SetState s = sets.get(key);
+            if (s == null) return;
+            s.completed = completed;
+            append(COMPLETED, key, 0, 0, completed);
+        });
+    }
+
+    /**
+     * Registra que se ha eliminado una serie.
+     *
+     * @param key Clave de la serie.
+     */
+    public void setRemoved(int key) {
+        writer.execute(() -> {
+            if (sets.remove(key) == null) return;
+            append(REMOVED, key, 0, 0, false);
+        });
+    }
+
+    /** Cierra y borra el diario: la sesión ya se ha guardado o se ha abandonado. */
+    public void finish() {
+        writer.execute(() -> {
+            closeQuietly();
+            loaded = true;
+            header = null;
+            workoutJson = null;
+            sets.clear();
+            records = 0;
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "No se pudo borrar " + file);
+            }
+        });
+    }
+
+    private void append(byte type, int key, int value, double weight, boolean flag) {
+        if (out == null) return;
+        try {
+            out.writeByte(type);
+            out.writeInt(key);
+            switch (type) {
+                case ADDED:
+                case REPS:
+                    out.writeInt(value);
+                    break;
+                case WEIGHT:
+                    out.writeDouble(weight);
+                    break;
+                case COMPLETED:
+                    out.writeBoolean(flag);
+                    break;
+                default:
+                    break;
+            }
+            // Basta con llegar al sistema operativo para sobrevivir a la muerte del proceso
+            out.flush();
+            records++;
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo escribir en el diario", e);
+            closeQuietly();
+            return;
+        }
+        if (records > MIN_COMPACT_RECORDS && records > 8 * (sets.size() + 1)) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Escribe el estado actual en un fichero nuevo y lo cambia por el anterior de forma atómica.
+     */
+    private void rewrite() {
+        if (header == null) return;
+        closeQuietly();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream o = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            o.write(header);
+            for (Map.Entry<Integer, SetState> e : sets.entrySet()) {
+                int key = e.getKey();
+                SetState s = e.getValue();
+                o.writeByte(ADDED);
+                o.writeInt(key);
+                o.writeInt(s.exerciseId);
+                if (s.reps != null) {
+                    o.writeByte(REPS);
+                    o.writeInt(key);
+                    o.writeInt(s.reps);
+                }
+                if (s.weight != null) {
+                    o.writeByte(WEIGHT);
+                    o.writeInt(key);
+                    o.writeDouble(s.weight);
+                }
+                if (s.completed) {
+                    o.writeByte(COMPLETED);
+                    o.writeInt(key);
+                    o.writeBoolean(true);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo compactar el diario", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "No se pudo reemplazar " + file);
+            return;
+        }
+        records = 0;
+        openForAppend();
+    }
+
+    private void openForAppend() {
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        } catch (FileNotFoundException e) {
+            Log.e(TAG, "No se pudo abrir el diario", e);
+            out = null;
+        }
+    }
+
+    private void closeQuietly() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+        out = null;
+    }
+
+    private void setHeader(String json, int[] exerciseIds, long startedAt) {
+        this.workoutJson = json;
+        this.exerciseIds = exerciseIds;
+        this.startedAt = startedAt;
+        header = encodeHeader(json, exerciseIds, startedAt);
+    }
+
+    private static byte[] encodeHeader(String json, int[] exerciseIds, long startedAt) {
+        byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream o = new DataOutputStream(bytes)) {
+            o.writeByte(START);
+            o.writeLong(startedAt);
+            o.writeInt(exerciseIds.length);
+            for (int id : exerciseIds) o.writeInt(id);
+            o.writeInt(jsonBytes.length);
+            o.write(jsonBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee el diario de una pasada y deja su estado en memoria. Un último registro a medias
+     * (proceso muerto mientras se escribía) simplemente se ignora.
+     */
+    private void replay() throws IOException {
+        closeQuietly();
+        sets.clear();
+        header = null;
+        workoutJson = null;
+        records = 0;
+        if (!file.exists()) return;
+
+        long startedAt;
+        int[] exerciseIds;
+        String json;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            try {
+                if (in.readByte() != START) {
+                    discard();
+                    return;
+                }
+                startedAt = in.readLong();
+                exerciseIds = new int[in.readInt()];
+                for (int i = 0; i < exerciseIds.length; i++) exerciseIds[i] = in.readInt();
+                byte[] jsonBytes = new byte[in.readInt()];
+                in.readFully(jsonBytes);
+                json = new String(jsonBytes, StandardCharsets.UTF_8);
+            } catch (EOFException e) {
+                discard();
+                return;
+            }
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    int key = in.readInt();
+                    SetState s = sets.get(key);
+                    switch (type) {
+                        case ADDED:
+                            sets.put(key, new SetState(in.readInt()));
+                            break;
+                        case REPS:
+                            int reps = in.readInt();
+                            if (s != null) s.reps = reps;
+                            break;
+                        case WEIGHT:
+                            double weight = in.readDouble();
+                            if (s != null) s.weight = weight;
+                            break;
+                        case COMPLETED:
+                            boolean completed = in.readBoolean();
+                            if (s != null) s.completed = completed;
+                            break;
+                        case REMOVED:
+                            sets.remove(key);
+                            break;
+                        default:
+                            throw new EOFException("Registro desconocido: " + type);
+                    }
+                    records++;
+                }
+            } catch (EOFException endOfJournal) {
+                // Fin del diario (o cola truncada)
+            }
+        }
+
+        setHeader(json, exerciseIds, startedAt);
+        // Se reescribe para descartar una posible cola truncada antes de seguir añadiendo
+        rewrite();
+    }
+
+    /**
+     * Construye la sesión a partir del estado en memoria, con objetos nuevos para que
+     * quien la reciba pueda modificarlos.
+     *
+     * @return la sesión, o {@code null} si no hay ninguna en curso.
+     */
+    private Snapshot snapshot() {
+        if (header == null) return null;
+        Snapshot snapshot = new Snapshot(
+                gson.fromJson(workoutJson, EntrenamientoDTO.class), exerciseIds.clone(), startedAt);
+        for (Map.Entry<Integer, SetState> e : sets.entrySet()) {
+            SetState s = e.getValue();
+            SerieDTO serie = new SerieDTO();
+            serie.setRepeticiones(s.reps);
+            serie.setPeso(s.weight);
+            serie.setCompletada(s.completed);
+            List<SerieDTO> list = snapshot.series.get(s.exerciseId);
+            if (list == null) {
+                list = new ArrayList<>();
+                snapshot.series.put(s.exerciseId, list);
+            }
+            list.add(serie);
+            snapshot.keys.put(serie, e.getKey());
+        }
+        return snapshot;
+    }
+
+    private void discard() {
+        if (!file.delete()) Log.w(TAG, "No se pudo borrar " + file);
+    }
+}
@@ -0,0 +1,158 @@
+package com.proyecto.facilgimapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.proyecto.facilgimapp.database.FacilGimDatabase.T_SUBIDA;
+
+/**
+ * Acceso al estado persistente de las subidas de imágenes por trozos.
+ * <p>
+ * Cada subida se identifica por una clave derivada de su contenido, de modo que volver a
+ * enviar la misma imagen reanuda la subida existente. Se guarda el último desplazamiento
+ * confirmado por el servidor. Los métodos realizan E/S de disco y no deben llamarse desde
+ * el hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class UploadStore {
+    private static UploadStore instance;
+
+    private final FacilGimDatabase helper;
+
+    /**
+     * Subida tal como está guardada.
+     */
+    public static class Entry {
+        public final String key;
+        /** ID de la subida en el servidor, o {@code null} si aún no se ha creado. */
+        public final String uploadId;
+        /** Ruta de la copia local del contenido a subir. */
+        public final String path;
+        public final String fileName;
+        public final String contentType;
+        public final long total;
+        /** Bytes confirmados por el servidor. */
+        public final long confirmed;
+        /** JSON del ejercicio al que se asocia la imagen al terminar. */
+        public final String exerciseJson;
+
+        public Entry(String key, String uploadId, String path, String fileName,
+                     String contentType, long total, long confirmed, String exerciseJson) {
+            this.key = key;
+            this.uploadId = uploadId;
+            this.path = path;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.total = total;
+            this.confirmed = confirmed;
+            this.exerciseJson = exerciseJson;
+        }
+    }
+
+    private UploadStore(Context context) {
+        helper = FacilGimDatabase.get(context);
+    }
+
+    /**
+     * Devuelve la instancia única del almacén.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de UploadStore.
+     */
+    public static synchronized UploadStore get(Context context) {
+        if (instance == null) {
+            instance = new UploadStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Busca una subida por su clave.
+     *
+     * @param key Clave de la subida.
+     * @return la subida, o {@code null} si no existe.
+     */
+    public Entry find(String key) {
+        List<Entry> list = query("clave = ?", new String[]{key});
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Todas las subidas pendientes, de la más antigua a la más reciente.
+     *
+     * @return lista de subidas, vacía si no hay ninguna.
+     */
+    public List<Entry> all() {
+        return query(null, null);
+    }
+
+    /**
+     * Guarda una subida, sustituyendo la que tuviera la misma clave.
+     *
+     * @param entry Subida a guardar.
+     */
+    public void save(Entry entry) {
+        ContentValues cv = new ContentValues();
+        cv.put("clave", entry.key);
+        cv.put("subida_id", entry.uploadId);
+        cv.put("fichero", entry.path);
+        cv.put("nombre", entry.fileName);
+        cv.put("tipo", entry.contentType);
+        cv.put("total", entry.total);
+        cv.put("confirmado", entry.confirmed);
+        cv.put("ejercicio", entry.exerciseJson);
+        cv.put("actualizado", System.currentTimeMillis());
+        helper.getWritableDatabase().replace(T_SUBIDA, null, cv);
+    }
+
+    /**
+     * Registra el ID en el servidor y los bytes confirmados.
+     *
+     * @param key       Clave de la subida.
+     * @param uploadId  ID de la subida en el servidor, o {@code null} para volver a crearla.
+     * @param confirmed Bytes confirmados.
+     */
+    public void updateProgress(String key, String uploadId, long confirmed) {
+        ContentValues cv = new ContentValues();
+        cv.put("subida_id", uploadId);
+        cv.put("confirmado", confirmed);
+        cv.put("actualizado", System.currentTimeMillis());
+        helper.getWritableDatabase().update(T_SUBIDA, cv, "clave = ?", new String[]{key});
+    }
+
+    /**
+     * Elimina una subida.
+     *
+     * @param key Clave de la subida.
+     */
+    public void remove(String key) {
+        helper.getWritableDatabase().delete(T_SUBIDA, "clave = ?", new String[]{key});
+    }
+
+    private List<Entry> query(String selection, String[] args) {
+        List<Entry> list = new ArrayList<>();
+        try (Cursor c = helper.getReadableDatabase().query(T_SUBIDA,
+                new String[]{"clave", "subida_id", "fichero", "nombre", "tipo", "total",
+                        "confirmado", "ejercicio"},
+                selection, args, null, null, "actualizado")) {
+            while (c.moveToNext()) {
+                list.add(new Entry(
+                        c.getString(0),
+                        c.getString(1),
+                        c.getString(2),
+                        c.getString(3),
+                        c.getString(4),
+                        c.getLong(5),
+                        c.getLong(6),
+                        c.getString(7)));
+            }
+        }
+        return list;
+    }
+}
@@ -1,8 +1,13 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.proyecto.facilgimapp.model.entity.Ejercicio;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -68,4 +73,47 @@ public class EjercicioDTO {
         ejercicio.setImagenUrl(imagenUrl);
         return ejercicio;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link EjercicioDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<EjercicioDTO> {
+        @Override
+        public void write(JsonWriter out, EjercicioDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idEjercicio", value.idEjercicio);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "imagenUrl", value.imagenUrl);
+            out.endObject();
+        }
+
+        @Override
+        public EjercicioDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            EjercicioDTO result = new EjercicioDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idEjercicio":
+                        result.idEjercicio = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "imagenUrl":
+                        result.imagenUrl = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
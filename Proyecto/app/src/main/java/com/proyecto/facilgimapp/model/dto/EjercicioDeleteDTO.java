@@ -1,6 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
 
 /**
  * DTO (Data Transfer Object) utilizado para eliminar un ejercicio.
@@ -28,4 +34,39 @@ public class EjercicioDeleteDTO {
     public void setNombre(String nombre) {
         this.nombre = nombre;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link EjercicioDeleteDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<EjercicioDeleteDTO> {
+        @Override
+        public void write(JsonWriter out, EjercicioDeleteDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "nombre", value.nombre);
+            out.endObject();
+        }
+
+        @Override
+        public EjercicioDeleteDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            EjercicioDeleteDTO result = new EjercicioDeleteDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
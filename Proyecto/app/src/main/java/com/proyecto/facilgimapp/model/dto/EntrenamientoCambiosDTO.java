@@ -0,0 +1,107 @@
+package com.proyecto.facilgimapp.model.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cambios en los entrenamientos de un usuario desde un token de sincronización: los
+ * entrenamientos creados o modificados (completos, con sus relaciones y series), los IDs
+ * de los eliminados y el token que marca hasta dónde llegan estos cambios.
+ * <p>
+ * Si la petición no llevaba token, {@code modificados} contiene todos los entrenamientos
+ * del usuario y {@code eliminados} viene vacío.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class EntrenamientoCambiosDTO {
+    @SerializedName("modificados")
+    private List<EntrenamientoDTO> modificados;
+
+    @SerializedName("eliminados")
+    private List<Integer> eliminados;
+
+    @SerializedName("token")
+    private String token;
+
+    public EntrenamientoCambiosDTO() { }
+
+    public EntrenamientoCambiosDTO(List<EntrenamientoDTO> modificados, List<Integer> eliminados, String token) {
+        this.modificados = modificados;
+        this.eliminados = eliminados;
+        this.token = token;
+    }
+
+    public List<EntrenamientoDTO> getModificados() {
+        return modificados != null ? modificados : Collections.emptyList();
+    }
+    public void setModificados(List<EntrenamientoDTO> modificados) {
+        this.modificados = modificados;
+    }
+
+    public List<Integer> getEliminados() {
+        return eliminados != null ? eliminados : Collections.emptyList();
+    }
+    public void setEliminados(List<Integer> eliminados) {
+        this.eliminados = eliminados;
+    }
+
+    public String getToken() {
+        return token;
+    }
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Adaptador Gson en streaming para {@link EntrenamientoCambiosDTO}: lee y escribe los
+     * campos directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<EntrenamientoCambiosDTO> {
+        private final TypeAdapter<EntrenamientoDTO> entrenamientoAdapter = new EntrenamientoDTO.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, EntrenamientoCambiosDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.writeList(out, "modificados", value.modificados, entrenamientoAdapter);
+            JsonStreams.writeList(out, "eliminados", value.eliminados, JsonStreams.INTEGER);
+            JsonStreams.write(out, "token", value.token);
+            out.endObject();
+        }
+
+        @Override
+        public EntrenamientoCambiosDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            EntrenamientoCambiosDTO result = new EntrenamientoCambiosDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "modificados":
+                        result.modificados = JsonStreams.readList(in, entrenamientoAdapter);
+                        break;
+                    case "eliminados":
+                        result.eliminados = JsonStreams.readList(in, JsonStreams.INTEGER);
+                        break;
+                    case "token":
+                        result.token = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.proyecto.facilgimapp.model.entity.Entrenamiento;
+import com.proyecto.facilgimapp.util.JsonStreams;
+import com.proyecto.facilgimapp.util.LocalDateAdapter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -117,4 +123,76 @@ public class EntrenamientoDTO implements Serializable {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         return this.fechaEntrenamiento.format(formatter);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link EntrenamientoDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<EntrenamientoDTO> {
+        private final TypeAdapter<LocalDate> dateAdapter = new LocalDateAdapter();
+        private final TypeAdapter<TipoEntrenamientoDTO> tipoAdapter = new TipoEntrenamientoDTO.GsonAdapter();
+        private final TypeAdapter<UsuarioDTO> usuarioAdapter = new UsuarioDTO.GsonAdapter();
+        private final TypeAdapter<EntrenamientoEjercicioDTO> relacionAdapter = new EntrenamientoEjercicioDTO.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, EntrenamientoDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idEntrenamiento", value.id);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "fechaEntrenamiento", value.fechaEntrenamiento, dateAdapter);
+            JsonStreams.write(out, "descripcion", value.descripcion);
+            out.name("duracion").value(value.duracion);
+            JsonStreams.write(out, "tipoEntrenamiento", value.tipoEntrenamiento, tipoAdapter);
+            JsonStreams.write(out, "usuario", value.usuario, usuarioAdapter);
+            JsonStreams.writeList(out, "ejerciciosId", value.ejerciciosId, JsonStreams.INTEGER);
+            JsonStreams.writeList(out, "entrenamientosEjercicios", value.entrenamientosEjercicios, relacionAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public EntrenamientoDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            EntrenamientoDTO result = new EntrenamientoDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idEntrenamiento":
+                        result.id = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "fechaEntrenamiento":
+                        result.fechaEntrenamiento = dateAdapter.read(in);
+                        break;
+                    case "descripcion":
+                        result.descripcion = JsonStreams.readString(in);
+                        break;
+                    case "duracion":
+                        result.duracion = JsonStreams.readInt(in, result.duracion);
+                        break;
+                    case "tipoEntrenamiento":
+                        result.tipoEntrenamiento = tipoAdapter.read(in);
+                        break;
+                    case "usuario":
+                        result.usuario = usuarioAdapter.read(in);
+                        break;
+                    case "ejerciciosId":
+                        result.ejerciciosId = JsonStreams.readList(in, JsonStreams.INTEGER);
+                        break;
+                    case "entrenamientosEjercicios":
+                        result.entrenamientosEjercicios = JsonStreams.readList(in, relacionAdapter);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
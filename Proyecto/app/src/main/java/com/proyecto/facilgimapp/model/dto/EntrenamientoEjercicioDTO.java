@@ -1,6 +1,11 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -53,5 +58,53 @@ public class EntrenamientoEjercicioDTO {
         return Objects.hash(id, ejercicio, series);
     }
 
-
+    /**
+     * Adaptador Gson en streaming para {@link EntrenamientoEjercicioDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<EntrenamientoEjercicioDTO> {
+        private final TypeAdapter<EjercicioDTO> ejercicioAdapter = new EjercicioDTO.GsonAdapter();
+        private final TypeAdapter<SerieDTO> serieAdapter = new SerieDTO.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, EntrenamientoEjercicioDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "id", value.id);
+            JsonStreams.write(out, "ejercicio", value.ejercicio, ejercicioAdapter);
+            JsonStreams.writeList(out, "series", value.series, serieAdapter);
+            out.name("orden").value(value.orden);
+            out.endObject();
+        }
+
+        @Override
+        public EntrenamientoEjercicioDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            EntrenamientoEjercicioDTO result = new EntrenamientoEjercicioDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readInteger(in);
+                        break;
+                    case "ejercicio":
+                        result.ejercicio = ejercicioAdapter.read(in);
+                        break;
+                    case "series":
+                        result.series = JsonStreams.readList(in, serieAdapter);
+                        break;
+                    case "orden":
+                        result.orden = JsonStreams.readInt(in, result.orden);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
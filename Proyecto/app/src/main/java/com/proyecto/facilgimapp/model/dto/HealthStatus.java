@@ -7,7 +7,13 @@
  */
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
 
 public class HealthStatus {
     @SerializedName("status")
@@ -16,4 +22,39 @@ public class HealthStatus {
     public String getStatus() {
         return status;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link HealthStatus}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<HealthStatus> {
+        @Override
+        public void write(JsonWriter out, HealthStatus value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "status", value.status);
+            out.endObject();
+        }
+
+        @Override
+        public HealthStatus read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            HealthStatus result = new HealthStatus();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status":
+                        result.status = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,5 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+
 /**
  * Clase que representa una solicitud de inicio de sesión.
  * Contiene el nombre de usuario y la contraseña necesarios para autenticar a un usuario.
@@ -30,4 +37,43 @@ public class LoginRequest {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link LoginRequest}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<LoginRequest> {
+        @Override
+        public void write(JsonWriter out, LoginRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "password", value.password);
+            out.endObject();
+        }
+
+        @Override
+        public LoginRequest read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            LoginRequest result = new LoginRequest(null, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "password":
+                        result.password = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,6 +1,11 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
@@ -66,4 +71,55 @@ public class LoginResponse implements Serializable {
     public boolean isAdmin() {
         return authorities != null && authorities.contains("ROLE_ADMIN");
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link LoginResponse}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<LoginResponse> {
+        @Override
+        public void write(JsonWriter out, LoginResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "token", value.token);
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "mensaje", value.mensaje);
+            JsonStreams.writeList(out, "authorities", value.authorities, JsonStreams.STRING);
+            JsonStreams.write(out, "userId", value.userId);
+            out.endObject();
+        }
+
+        @Override
+        public LoginResponse read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            LoginResponse result = new LoginResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "token":
+                        result.token = JsonStreams.readString(in);
+                        break;
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "mensaje":
+                        result.mensaje = JsonStreams.readString(in);
+                        break;
+                    case "authorities":
+                        result.authorities = JsonStreams.readList(in, JsonStreams.STRING);
+                        break;
+                    case "userId":
+                        result.userId = JsonStreams.readInteger(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
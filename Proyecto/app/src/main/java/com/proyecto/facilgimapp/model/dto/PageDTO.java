@@ -0,0 +1,138 @@
+package com.proyecto.facilgimapp.model.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados devuelta por los endpoints paginados del backend
+ * (formato {@code Page} de Spring Data: contenido, número de página y si es la última).
+ *
+ * @param <T> Tipo de los elementos de la página.
+ * @author Francisco Santana
+ */
+public class PageDTO<T> {
+    @SerializedName("content")
+    private List<T> content;
+
+    @SerializedName("number")
+    private int number;
+
+    @SerializedName("size")
+    private int size;
+
+    @SerializedName("totalElements")
+    private long totalElements;
+
+    @SerializedName("last")
+    private Boolean last;
+
+    public PageDTO() { }
+
+    public PageDTO(List<T> content, int number, int size, long totalElements) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.last = (long) (number + 1) * size >= totalElements;
+    }
+
+    public List<T> getContent() {
+        return content != null ? content : Collections.emptyList();
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * Indica si no hay más páginas después de esta. Si el servidor no envía el campo,
+     * se deduce de que la página venga incompleta.
+     *
+     * @param requestedSize Tamaño de página solicitado.
+     * @return {@code true} si es la última página.
+     */
+    public boolean isLast(int requestedSize) {
+        if (last != null) return last;
+        return getContent().size() < requestedSize;
+    }
+
+    /**
+     * Adaptador Gson en streaming para {@link PageDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory} con el
+     * adaptador del tipo de los elementos.
+     *
+     * @param <T> Tipo de los elementos de la página.
+     */
+    public static final class GsonAdapter<T> extends TypeAdapter<PageDTO<T>> {
+        private final TypeAdapter<T> elementAdapter;
+
+        /**
+         * Crea el adaptador.
+         *
+         * @param elementAdapter Adaptador de los elementos del contenido.
+         */
+        public GsonAdapter(TypeAdapter<T> elementAdapter) {
+            this.elementAdapter = elementAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, PageDTO<T> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.writeList(out, "content", value.content, elementAdapter);
+            out.name("number").value(value.number);
+            out.name("size").value(value.size);
+            out.name("totalElements").value(value.totalElements);
+            JsonStreams.write(out, "last", value.last);
+            out.endObject();
+        }
+
+        @Override
+        public PageDTO<T> read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            PageDTO<T> result = new PageDTO<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "content":
+                        result.content = JsonStreams.readList(in, elementAdapter);
+                        break;
+                    case "number":
+                        result.number = JsonStreams.readInt(in, result.number);
+                        break;
+                    case "size":
+                        result.size = JsonStreams.readInt(in, result.size);
+                        break;
+                    case "totalElements":
+                        result.totalElements = JsonStreams.readLong(in, result.totalElements);
+                        break;
+                    case "last":
+                        result.last = JsonStreams.readBoolean(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
@@ -6,10 +6,52 @@
  */
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+
 public class PasswordDTO {
     private String password;
     public PasswordDTO() {}
     public PasswordDTO(String password) { this.password = password; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
+
+    /**
+     * Adaptador Gson en streaming para {@link PasswordDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<PasswordDTO> {
+        @Override
+        public void write(JsonWriter out, PasswordDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "password", value.password);
+            out.endObject();
+        }
+
+        @Override
+        public PasswordDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            PasswordDTO result = new PasswordDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "password":
+                        result.password = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
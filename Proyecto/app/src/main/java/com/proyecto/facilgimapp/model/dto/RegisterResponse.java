@@ -1,6 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
 
 /**
  * Clase que representa la respuesta recibida tras el registro de un usuario.
@@ -68,4 +74,55 @@ public class RegisterResponse {
     public String getNombreCompleto() {
         return nombre + " " + apellido;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link RegisterResponse}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<RegisterResponse> {
+        @Override
+        public void write(JsonWriter out, RegisterResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idUsuario", value.idUsuario);
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "correo", value.correo);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "apellido", value.apellido);
+            out.endObject();
+        }
+
+        @Override
+        public RegisterResponse read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            RegisterResponse result = new RegisterResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idUsuario":
+                        result.idUsuario = JsonStreams.readInteger(in);
+                        break;
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "correo":
+                        result.correo = JsonStreams.readString(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "apellido":
+                        result.apellido = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
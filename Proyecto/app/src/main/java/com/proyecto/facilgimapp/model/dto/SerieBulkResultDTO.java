@@ -0,0 +1,108 @@
+package com.proyecto.facilgimapp.model.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+
+/**
+ * Resultado de una serie dentro de una escritura en bloque: posición de la serie en la
+ * petición, código de estado (como en HTTP), la serie guardada y, si falló, el motivo.
+ *
+ * @author Francisco Santana
+ */
+public class SerieBulkResultDTO {
+    @SerializedName("index")
+    private int index;
+
+    @SerializedName("status")
+    private int status;
+
+    @SerializedName("serie")
+    private SerieDTO serie;
+
+    @SerializedName("mensaje")
+    private String mensaje;
+
+    public SerieBulkResultDTO() { }
+
+    public int getIndex() {
+        return index;
+    }
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public SerieDTO getSerie() {
+        return serie;
+    }
+    public void setSerie(SerieDTO serie) {
+        this.serie = serie;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    /**
+     * Adaptador Gson en streaming para {@link SerieBulkResultDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<SerieBulkResultDTO> {
+        private final TypeAdapter<SerieDTO> serieAdapter = new SerieDTO.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, SerieBulkResultDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("index").value(value.index);
+            out.name("status").value(value.status);
+            JsonStreams.write(out, "serie", value.serie, serieAdapter);
+            JsonStreams.write(out, "mensaje", value.mensaje);
+            out.endObject();
+        }
+
+        @Override
+        public SerieBulkResultDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            SerieBulkResultDTO result = new SerieBulkResultDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "index":
+                        result.index = JsonStreams.readInt(in, result.index);
+                        break;
+                    case "status":
+                        result.status = JsonStreams.readInt(in, result.status);
+                        break;
+                    case "serie":
+                        result.serie = serieAdapter.read(in);
+                        break;
+                    case "mensaje":
+                        result.mensaje = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class SerieDTO {
@@ -87,4 +92,55 @@ public class SerieDTO {
     public int hashCode() {
         return Objects.hash(id, numeroSerie, repeticiones, peso, completada);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link SerieDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<SerieDTO> {
+        @Override
+        public void write(JsonWriter out, SerieDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "id", value.id);
+            JsonStreams.write(out, "numeroSerie", value.numeroSerie);
+            JsonStreams.write(out, "repeticiones", value.repeticiones);
+            JsonStreams.write(out, "peso", value.peso);
+            out.name("completada").value(value.completada);
+            out.endObject();
+        }
+
+        @Override
+        public SerieDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            SerieDTO result = new SerieDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readInteger(in);
+                        break;
+                    case "numeroSerie":
+                        result.numeroSerie = JsonStreams.readInteger(in);
+                        break;
+                    case "repeticiones":
+                        result.repeticiones = JsonStreams.readInteger(in);
+                        break;
+                    case "peso":
+                        result.peso = JsonStreams.readDouble(in);
+                        break;
+                    case "completada":
+                        result.completada = JsonStreams.readBoolean(in, result.completada);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
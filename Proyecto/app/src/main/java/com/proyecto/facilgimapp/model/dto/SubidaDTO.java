@@ -0,0 +1,92 @@
+package com.proyecto.facilgimapp.model.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+
+/**
+ * Estado de una subida por trozos en el servidor: identificador, bytes confirmados hasta
+ * ahora y tamaño total declarado al crearla.
+ *
+ * @author Francisco Santana
+ */
+public class SubidaDTO {
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("offset")
+    private long offset;
+
+    @SerializedName("total")
+    private long total;
+
+    public SubidaDTO() { }
+
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Adaptador Gson en streaming para {@link SubidaDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<SubidaDTO> {
+        @Override
+        public void write(JsonWriter out, SubidaDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "id", value.id);
+            out.name("offset").value(value.offset);
+            out.name("total").value(value.total);
+            out.endObject();
+        }
+
+        @Override
+        public SubidaDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            SubidaDTO result = new SubidaDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readString(in);
+                        break;
+                    case "offset":
+                        result.offset = JsonStreams.readLong(in, result.offset);
+                        break;
+                    case "total":
+                        result.total = JsonStreams.readLong(in, result.total);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
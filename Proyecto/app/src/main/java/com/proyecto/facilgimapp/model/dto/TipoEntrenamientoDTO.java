@@ -1,8 +1,13 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.proyecto.facilgimapp.model.entity.TipoEntrenamiento;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -66,4 +71,43 @@ public class TipoEntrenamientoDTO {
     public int hashCode() {
         return Objects.hash(id, nombre);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link TipoEntrenamientoDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<TipoEntrenamientoDTO> {
+        @Override
+        public void write(JsonWriter out, TipoEntrenamientoDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "id", value.id);
+            JsonStreams.write(out, "nombre", value.nombre);
+            out.endObject();
+        }
+
+        @Override
+        public TipoEntrenamientoDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            TipoEntrenamientoDTO result = new TipoEntrenamientoDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class UsuarioDTO {
@@ -80,4 +85,67 @@ public class UsuarioDTO {
     public int hashCode() {
         return Objects.hash(idUsuario, username, password, correo, nombre, apellido, direccion, admin);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link UsuarioDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<UsuarioDTO> {
+        @Override
+        public void write(JsonWriter out, UsuarioDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idUsuario", value.idUsuario);
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "password", value.password);
+            JsonStreams.write(out, "correo", value.correo);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "apellido", value.apellido);
+            JsonStreams.write(out, "direccion", value.direccion);
+            out.name("admin").value(value.admin);
+            out.endObject();
+        }
+
+        @Override
+        public UsuarioDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            UsuarioDTO result = new UsuarioDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idUsuario":
+                        result.idUsuario = JsonStreams.readInteger(in);
+                        break;
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "password":
+                        result.password = JsonStreams.readString(in);
+                        break;
+                    case "correo":
+                        result.correo = JsonStreams.readString(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "apellido":
+                        result.apellido = JsonStreams.readString(in);
+                        break;
+                    case "direccion":
+                        result.direccion = JsonStreams.readString(in);
+                        break;
+                    case "admin":
+                        result.admin = JsonStreams.readBoolean(in, result.admin);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,5 +1,12 @@
 package com.proyecto.facilgimapp.model.dto;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+
+import java.io.IOException;
+
 /**
  * DTO para la transferencia de datos de usuario en solicitudes.
  * Contiene la información básica necesaria para crear o actualizar un usuario.
@@ -61,4 +68,59 @@ public class UsuarioRequestDTO {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link UsuarioRequestDTO}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<UsuarioRequestDTO> {
+        @Override
+        public void write(JsonWriter out, UsuarioRequestDTO value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "password", value.password);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "apellido", value.apellido);
+            JsonStreams.write(out, "correo", value.correo);
+            JsonStreams.write(out, "direccion", value.direccion);
+            out.endObject();
+        }
+
+        @Override
+        public UsuarioRequestDTO read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            UsuarioRequestDTO result = new UsuarioRequestDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "password":
+                        result.password = JsonStreams.readString(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "apellido":
+                        result.apellido = JsonStreams.readString(in);
+                        break;
+                    case "correo":
+                        result.correo = JsonStreams.readString(in);
+                        break;
+                    case "direccion":
+                        result.direccion = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
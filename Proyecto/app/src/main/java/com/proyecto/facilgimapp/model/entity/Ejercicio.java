@@ -3,7 +3,12 @@ package com.proyecto.facilgimapp.model.entity;
 
 import androidx.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -69,4 +74,53 @@ public class Ejercicio {
     public int hashCode() {
         return Objects.hash(idEjercicio);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link Ejercicio}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<Ejercicio> {
+        private final TypeAdapter<Serie> serieAdapter = new Serie.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, Ejercicio value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idEjercicio", value.idEjercicio);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "imagenUrl", value.imagenUrl);
+            JsonStreams.writeList(out, "series", value.series, serieAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public Ejercicio read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            Ejercicio result = new Ejercicio();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idEjercicio":
+                        result.idEjercicio = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "imagenUrl":
+                        result.imagenUrl = JsonStreams.readString(in);
+                        break;
+                    case "series":
+                        result.series = JsonStreams.readList(in, serieAdapter);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package com.proyecto.facilgimapp.model.entity;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -110,4 +115,65 @@ public class Entrenamiento {
         return Objects.hash(idEntrenamiento);
     }
 
-}
\ No newline at end of file
+    /**
+     * Adaptador Gson en streaming para {@link Entrenamiento}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<Entrenamiento> {
+        private final TypeAdapter<TipoEntrenamiento> tipoAdapter = new TipoEntrenamiento.GsonAdapter();
+        private final TypeAdapter<Ejercicio> ejercicioAdapter = new Ejercicio.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, Entrenamiento value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "idEntrenamiento", value.idEntrenamiento);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "descripcion", value.descripcion);
+            JsonStreams.write(out, "fechaEntrenamiento", value.fechaEntrenamiento);
+            out.name("duracion").value(value.duracion);
+            JsonStreams.write(out, "tipoEntrenamiento", value.tipoEntrenamiento, tipoAdapter);
+            JsonStreams.writeList(out, "ejercicios", value.ejercicios, ejercicioAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public Entrenamiento read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            Entrenamiento result = new Entrenamiento();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idEntrenamiento":
+                        result.idEntrenamiento = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "descripcion":
+                        result.descripcion = JsonStreams.readString(in);
+                        break;
+                    case "fechaEntrenamiento":
+                        result.fechaEntrenamiento = JsonStreams.readString(in);
+                        break;
+                    case "duracion":
+                        result.duracion = JsonStreams.readInt(in, result.duracion);
+                        break;
+                    case "tipoEntrenamiento":
+                        result.tipoEntrenamiento = tipoAdapter.read(in);
+                        break;
+                    case "ejercicios":
+                        result.ejercicios = JsonStreams.readList(in, ejercicioAdapter);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 
 package com.proyecto.facilgimapp.model.entity;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 /**
  * Representa una serie de ejercicios dentro de la aplicación FacilGimApp.
@@ -77,4 +82,54 @@ public class Serie {
         return Objects.hash(id);
     }
 
+    /**
+     * Adaptador Gson en streaming para {@link Serie}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<Serie> {
+        @Override
+        public void write(JsonWriter out, Serie value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(value.id);
+            out.name("exerciseId").value(value.exerciseId);
+            out.name("reps").value(value.reps);
+            out.name("weight").value(value.weight);
+            out.name("completada").value(value.completada);
+            out.endObject();
+        }
+
+        @Override
+        public Serie read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            Serie result = new Serie();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readInt(in, result.id);
+                        break;
+                    case "exerciseId":
+                        result.exerciseId = JsonStreams.readInt(in, result.exerciseId);
+                        break;
+                    case "reps":
+                        result.reps = JsonStreams.readInt(in, result.reps);
+                        break;
+                    case "weight":
+                        result.weight = JsonStreams.readDouble(in, result.weight);
+                        break;
+                    case "completada":
+                        result.completada = JsonStreams.readBoolean(in, result.completada);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
@@ -1,7 +1,12 @@
 
 package com.proyecto.facilgimapp.model.entity;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
+import java.io.IOException;
 /**
  * Representa un tipo de entrenamiento en la aplicación.
  * Contiene el identificador y el nombre del tipo de entrenamiento.
@@ -16,4 +21,43 @@ public class TipoEntrenamiento {
 
     public Integer getId() { return id; }
     public String getNombre() { return nombre; }
+
+    /**
+     * Adaptador Gson en streaming para {@link TipoEntrenamiento}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<TipoEntrenamiento> {
+        @Override
+        public void write(JsonWriter out, TipoEntrenamiento value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JsonStreams.write(out, "id", value.id);
+            JsonStreams.write(out, "nombre", value.nombre);
+            out.endObject();
+        }
+
+        @Override
+        public TipoEntrenamiento read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            TipoEntrenamiento result = new TipoEntrenamiento();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        result.id = JsonStreams.readInteger(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
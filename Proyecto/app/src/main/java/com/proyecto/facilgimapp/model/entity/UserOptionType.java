@@ -12,5 +12,6 @@ public enum UserOptionType {
     LANGUAGE,
     CHANGE_PASSWORD,
     MANAGE_USERS,
-    CLEAR_PREFERENCES
+    CLEAR_PREFERENCES,
+    NETWORK_METRICS
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 
 package com.proyecto.facilgimapp.model.entity;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.proyecto.facilgimapp.util.JsonStreams;
 
+import java.io.IOException;
 import java.util.Objects;
 /**
  * Representa un usuario en la aplicación FacilGimApp.
@@ -76,4 +81,55 @@ public class Usuario {
     public int hashCode() {
         return Objects.hash(idUsuario);
     }
+
+    /**
+     * Adaptador Gson en streaming para {@link Usuario}: lee y escribe los campos
+     * directamente, sin reflexión. Lo registra {@code DtoTypeAdapterFactory}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<Usuario> {
+        @Override
+        public void write(JsonWriter out, Usuario value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("idUsuario").value(value.idUsuario);
+            JsonStreams.write(out, "username", value.username);
+            JsonStreams.write(out, "correo", value.correo);
+            JsonStreams.write(out, "nombre", value.nombre);
+            JsonStreams.write(out, "apellido", value.apellido);
+            out.endObject();
+        }
+
+        @Override
+        public Usuario read(JsonReader in) throws IOException {
+            if (JsonStreams.skipNull(in)) return null;
+            Usuario result = new Usuario();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "idUsuario":
+                        result.idUsuario = JsonStreams.readInt(in, result.idUsuario);
+                        break;
+                    case "username":
+                        result.username = JsonStreams.readString(in);
+                        break;
+                    case "correo":
+                        result.correo = JsonStreams.readString(in);
+                        break;
+                    case "nombre":
+                        result.nombre = JsonStreams.readString(in);
+                        break;
+                    case "apellido":
+                        result.apellido = JsonStreams.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
 }
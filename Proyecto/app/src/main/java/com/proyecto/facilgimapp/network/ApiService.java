@@ -6,13 +6,17 @@ import com.proyecto.facilgimapp.model.dto.PasswordDTO;
 import com.proyecto.facilgimapp.model.entity.Entrenamiento;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.EjercicioDeleteDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoCambiosDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.SerieBulkResultDTO;
 import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.SubidaDTO;
 import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
 import com.proyecto.facilgimapp.model.dto.LoginRequest;
 import com.proyecto.facilgimapp.model.dto.LoginResponse;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
 import com.proyecto.facilgimapp.model.dto.UsuarioRequestDTO;
 
 import java.util.List;
@@ -29,7 +33,7 @@ import retrofit2.http.*;
  * <p>Utiliza Retrofit para la definición de las llamadas HTTP.</p>
  * 
  * <ul>
- *   <li><b>Ejercicios:</b> CRUD de ejercicios, búsqueda por nombre, gestión de imágenes y relación con entrenamientos.</li>
+ *   <li><b>Ejercicios:</b> CRUD de ejercicios, búsqueda por nombre, gestión de imágenes (también por trozos reanudables) y relación con entrenamientos.</li>
  *   <li><b>Entrenamientos:</b> CRUD de entrenamientos, filtrado por fechas, usuario y nombre.</li>
  *   <li><b>Series:</b> CRUD de series asociadas a ejercicios en entrenamientos.</li>
  *   <li><b>Tipos de entrenamiento:</b> CRUD de tipos de entrenamiento.</li>
@@ -46,6 +50,9 @@ public interface ApiService {
     @GET("api/ejercicios")
     Call<List<EjercicioDTO>> listAllExercises();
 
+    @GET("api/ejercicios/page")
+    Call<PageDTO<EjercicioDTO>> listExercisesPage(@Query("page") int page, @Query("size") int size);
+
     @GET("api/ejercicios/{id}")
     Call<EjercicioDTO> getExercise(@Path("id") int id);
 
@@ -58,6 +65,36 @@ public interface ApiService {
             @Part("ejercicio") RequestBody ejercicioJson,
             @Part MultipartBody.Part imagen
     );
+
+    @Multipart
+    @POST("api/ejercicios")
+    Call<EjercicioDTO> createOrUpdateExercise(
+            @Header("Idempotency-Key") String idempotencyKey,
+            @Part("ejercicio") RequestBody ejercicioJson,
+            @Part MultipartBody.Part imagen
+    );
+
+    // --- Subida de imágenes por trozos ---
+    @POST("api/subidas")
+    Call<SubidaDTO> startUpload(@Query("nombre") String fileName, @Query("total") long totalBytes);
+
+    @GET("api/subidas/{id}")
+    Call<SubidaDTO> getUpload(@Path("id") String uploadId);
+
+    @PUT("api/subidas/{id}")
+    Call<SubidaDTO> uploadChunk(
+            @Path("id") String uploadId,
+            @Header("Upload-Offset") long offset,
+            @Body RequestBody chunk
+    );
+
+    @Multipart
+    @POST("api/ejercicios")
+    Call<EjercicioDTO> createOrUpdateExerciseFromUpload(
+            @Header("Idempotency-Key") String idempotencyKey,
+            @Part("ejercicio") RequestBody ejercicioJson,
+            @Part("subidaId") RequestBody uploadId
+    );
     @DELETE("api/ejercicios/nombre")
     Call<Void> deleteExerciseByName(@Body EjercicioDeleteDTO dto);
 
@@ -80,9 +117,13 @@ public interface ApiService {
     Call<Void> deleteExercise(@Path("id") int id);
 
     // ===== ENTRENAMIENTOS =====
+    @Headers(CborConverterFactory.ACCEPT)
     @GET("api/entrenamientos")
     Call<List<Entrenamiento>> listAllTrainings();
 
+    @GET("api/entrenamientos/page")
+    Call<PageDTO<Entrenamiento>> listTrainingsPage(@Query("page") int page, @Query("size") int size);
+
     @GET("api/entrenamientos/{id}")
     Call<Entrenamiento> getTraining(@Path("id") int id);
 
@@ -93,7 +134,8 @@ public interface ApiService {
     );
 
     @POST("api/entrenamientos")
-    Call<EntrenamientoDTO> createTraining(@Body EntrenamientoDTO dto);
+    Call<EntrenamientoDTO> createTraining(@Header("Idempotency-Key") String idempotencyKey,
+                                          @Body EntrenamientoDTO dto);
 
     @PUT("api/entrenamientos/{id}")
     Call<Entrenamiento> updateTraining(
@@ -113,9 +155,20 @@ public interface ApiService {
             @Body EntrenamientoDTO dto
     );
 
+    @Headers(CborConverterFactory.ACCEPT)
     @GET("api/entrenamientos/usuarioId/{id}")
     Call<List<EntrenamientoDTO>> getWorkoutsByUserId(@Path("id") int id);
 
+    // cambios desde el token "desde" (sin token, todos); 410 si el token ha caducado
+    @Headers(CborConverterFactory.ACCEPT)
+    @GET("api/entrenamientos/usuarioId/{id}/cambios")
+    Call<EntrenamientoCambiosDTO> getWorkoutChanges(@Path("id") int id, @Query("desde") String desde);
+
+    @Headers(CborConverterFactory.ACCEPT)
+    @GET("api/entrenamientos/usuarioId/{id}/page")
+    Call<PageDTO<EntrenamientoDTO>> getWorkoutsByUserIdPage(
+            @Path("id") int id, @Query("page") int page, @Query("size") int size);
+
     // ===== RELACIÓN ENTRENAMIENTO–EJERCICIO =====
     @POST("api/entrenamiento-ejercicio")
     Call<EntrenamientoEjercicioDTO> addExerciseToTraining(@Body EntrenamientoEjercicioDTO dto);
@@ -136,12 +189,25 @@ public interface ApiService {
     @POST("api/series")
     Call<SerieDTO> createSeries(@Body SerieDTO dto);
 
+    // la clave de idempotencia evita crear dos veces la serie si se reintenta
+    @POST("api/series")
+    Call<SerieDTO> createSeries(@Header("Idempotency-Key") String idempotencyKey,
+                                @Body SerieDTO dto);
+
     @PUT("api/series/{id}")
     Call<SerieDTO> updateSeries(@Path("id") int id, @Body SerieDTO dto);
 
     @DELETE("api/series/{id}")
     Call<Void> deleteSeries(@Path("id") int id);
 
+    // una clave por petición: un reintento con las mismas series no las guarda dos veces
+    @POST("api/series/entrenamiento-ejercicio/{id}/bulk")
+    Call<List<SerieBulkResultDTO>> saveSeriesBulk(
+            @Header("Idempotency-Key") String idempotencyKey,
+            @Path("id") int relacionId,
+            @Body List<SerieDTO> series
+    );
+
     // ===== TIPOS DE ENTRENAMIENTO =====
     @GET("api/tipos-entrenamiento")
     Call<List<TipoEntrenamientoDTO>> listTypes();
@@ -162,6 +228,9 @@ public interface ApiService {
     @GET("api/usuarios")
     Call<List<UsuarioDTO>> listUsers();
 
+    @GET("api/usuarios/page")
+    Call<PageDTO<UsuarioDTO>> listUsersPage(@Query("page") int page, @Query("size") int size);
+
     @GET("api/usuarios/{id}")
     Call<UsuarioDTO> getUser(@Path("id") int id);
 
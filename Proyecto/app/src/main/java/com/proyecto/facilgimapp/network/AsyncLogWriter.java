@@ -0,0 +1,100 @@
+package com.proyecto.facilgimapp.network;
+
+import android.util.Log;
+
+import com.proyecto.facilgimapp.util.LogRingBuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritor de logs en segundo plano.
+ * <p>
+ * Los hilos que registran solo encolan un {@link Message} en un {@link LogRingBuffer};
+ * un hilo propio, de baja prioridad, lo convierte en texto (incluida la redacción de datos
+ * sensibles) y lo escribe en logcat, partido en trozos si supera el límite de una línea.
+ * Si el escritor no da abasto los mensajes nuevos se descartan y se avisa de cuántos.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class AsyncLogWriter {
+    /** Mensaje pendiente; se formatea en el hilo del escritor. */
+    public interface Message {
+        /** @return el texto a escribir. */
+        String render();
+    }
+
+    private static final AsyncLogWriter INST = new AsyncLogWriter();
+
+    private static final String TAG = "OKHTTP";
+    private static final int CAPACITY = 512;
+    /** logcat trunca las líneas de más de ~4 KB. */
+    private static final int MAX_LINE = 3_500;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final LogRingBuffer<Message> ring = new LogRingBuffer<>(CAPACITY);
+    private final Thread worker;
+    private volatile boolean idle;
+    private long reportedDrops;
+
+    private AsyncLogWriter() {
+        worker = new Thread(this::drain, "http-log-writer");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Devuelve la instancia singleton del escritor.
+     *
+     * @return la instancia única de AsyncLogWriter.
+     */
+    public static AsyncLogWriter get() {
+        return INST;
+    }
+
+    /**
+     * Encola un mensaje sin bloquear.
+     *
+     * @param message Mensaje a escribir.
+     */
+    public void post(Message message) {
+        if (ring.offer(message) && idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Message m = ring.poll();
+            if (m == null) {
+                idle = true;
+                // Se vuelve a mirar tras marcarse inactivo para no perder un aviso
+                m = ring.poll();
+                if (m == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    idle = false;
+                    continue;
+                }
+                idle = false;
+            }
+            try {
+                write(m.render());
+            } catch (RuntimeException e) {
+                Log.w(TAG, "No se pudo formatear un mensaje de log", e);
+            }
+            long drops = ring.getDropped();
+            if (drops != reportedDrops) {
+                Log.w(TAG, "Descartados " + (drops - reportedDrops) + " mensajes de log");
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private static void write(String text) {
+        for (int start = 0; start < text.length(); start += MAX_LINE) {
+            Log.d(TAG, text.substring(start, Math.min(text.length(), start + MAX_LINE)));
+        }
+    }
+}
@@ -5,7 +5,6 @@ import java.io.IOException;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import com.proyecto.facilgimapp.util.SessionManager;
 
     /**
      * Interceptor de autenticación para añadir el token JWT a las peticiones HTTP.
@@ -14,15 +13,21 @@ import com.proyecto.facilgimapp.util.SessionManager;
      * añade el encabezado "Authorization" con el token Bearer a todas las peticiones,
      * excepto a las rutas de login y registro de usuario.
      * </p>
+     * <p>
+     * El token se toma de {@link AuthState}, en memoria; si está a punto de caducar, la
+     * petición espera a que se renueve. {@link AuthState} se obtiene en la primera
+     * petición, en el hilo de OkHttp: crearlo lee la sesión guardada, y el cliente se
+     * construye a menudo en el hilo principal antes del primer fotograma.
+     * </p>
      *
      * @author Francisco Santana
      */
      
 public class AuthInterceptor implements Interceptor {
-    private final Context context;
+    private final Context appContext;
 
     public AuthInterceptor(Context context) {
-        this.context = context.getApplicationContext();
+        this.appContext = context.getApplicationContext();
     }
 
     /**
@@ -35,9 +40,12 @@ public class AuthInterceptor implements Interceptor {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request original = chain.request();
-        String token = SessionManager.getToken(context);
-        if (token != null && !original.url().encodedPath().endsWith("/login")
-                && !original.url().encodedPath().endsWith("/usuarios/registrar")) {
+        String path = original.url().encodedPath();
+        if (path.endsWith("/login") || path.endsWith("/usuarios/registrar")) {
+            return chain.proceed(original);
+        }
+        String token = AuthState.get(appContext).tokenForRequest();
+        if (token != null) {
             Request authorised = original.newBuilder()
                     .header("Authorization", "Bearer " + token)
                     .build();
@@ -0,0 +1,326 @@
+package com.proyecto.facilgimapp.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.proyecto.facilgimapp.model.dto.LoginRequest;
+import com.proyecto.facilgimapp.model.dto.LoginResponse;
+import com.proyecto.facilgimapp.util.SessionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * Estado de autenticación en memoria: el token JWT y su caducidad.
+ * <p>
+ * El token se lee de {@link SessionManager} una sola vez; a partir de ahí las peticiones
+ * lo obtienen de memoria y los cambios se guardan con {@code apply()}, que escribe en
+ * disco en segundo plano. La caducidad sale del claim {@code exp}, decodificado al
+ * recibir el token.
+ * </p>
+ * <p>
+ * El backend no tiene endpoint de renovación, así que si el usuario marcó "recordar
+ * credenciales" el token se renueva repitiendo el login: se programa
+ * {@link #REFRESH_AHEAD_MS} antes de caducar y, si aun así una petición llega con el token
+ * a punto de caducar, se renueva en ese momento. Solo hay una renovación en curso; las
+ * peticiones que llegan mientras tanto esperan a su resultado en lugar de salir con un
+ * token que acabaría en 401. El login de renovación se hace sin retener ningún bloqueo;
+ * como un inicio o cierre de sesión puede ocurrir mientras tanto, cada uno incrementa una
+ * generación y el resultado de una renovación anterior se descarta. Sin credenciales
+ * guardadas las peticiones salen con el token actual y, al caducar, {@link ErrorInterceptor} lleva al usuario al login como antes.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class AuthState {
+    private static final String TAG = "AuthState";
+
+    /** Antelación con la que se programa la renovación. */
+    public static final long REFRESH_AHEAD_MS = TimeUnit.MINUTES.toMillis(2);
+    /** Margen por debajo del cual un token se considera caducado al enviar una petición. */
+    public static final long EXPIRY_SKEW_MS = TimeUnit.SECONDS.toMillis(30);
+    /** Espera mínima entre intentos de renovación fallidos. */
+    public static final long RETRY_AFTER_FAILURE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private static volatile AuthState instance;
+
+    /** Token y caducidad; inmutable para poder leerlo sin bloqueos. */
+    private static final class Session {
+        final String token;
+        /** Instante de caducidad en ms, o 0 si el token no la declara. */
+        final long expiresAt;
+
+        Session(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expiresSoon(long now) {
+            return expiresAt > 0 && now >= expiresAt - EXPIRY_SKEW_MS;
+        }
+    }
+
+    private final Context appContext;
+    private final Object refreshLock = new Object();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "auth-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+
+    @Nullable
+    private volatile Session session;
+    @Nullable
+    private ScheduledFuture<?> scheduledRefresh;
+    /** Momento del último intento fallido; protegido por {@code refreshLock}. */
+    private long refreshFailedAt;
+    /**
+     * Se incrementa en cada inicio o cierre de sesión para descartar las renovaciones
+     * lanzadas antes; protegido por {@code refreshLock}.
+     */
+    private int generation;
+    /** Renovación en curso, o {@code null}; protegido por {@code refreshLock}. */
+    @Nullable
+    private CompletableFuture<Session> inFlight;
+
+    private AuthState(Context context) {
+        this.appContext = context.getApplicationContext();
+        String stored = SessionManager.getToken(appContext);
+        if (stored != null && !stored.isEmpty()) {
+            session = new Session(stored, decodeExpiry(stored));
+            scheduleRefresh(session);
+        }
+    }
+
+    /**
+     * Devuelve la instancia única, cargando el token guardado la primera vez.
+     *
+     * @param context Contexto de la aplicación.
+     * @return la instancia de AuthState.
+     */
+    public static AuthState get(Context context) {
+        if (instance == null) {
+            synchronized (AuthState.class) {
+                if (instance == null) instance = new AuthState(context);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si hay sesión iniciada.
+     *
+     * @return {@code true} si hay un token en memoria.
+     */
+    public boolean isLoggedIn() {
+        return session != null;
+    }
+
+    /**
+     * Token en memoria, sin comprobar su caducidad.
+     *
+     * @return el token actual o {@code null} si no hay sesión.
+     */
+    @Nullable
+    public String getToken() {
+        Session s = session;
+        return s == null ? null : s.token;
+    }
+
+    /**
+     * Token para una petición: si está a punto de caducar y se puede renovar, espera a la
+     * renovación (propia o de otra petición). Debe llamarse fuera del hilo principal.
+     *
+     * @return el token a usar, o {@code null} si no hay sesión.
+     */
+    @Nullable
+    String tokenForRequest() {
+        Session s = session;
+        if (s == null) return null;
+        if (!s.expiresSoon(System.currentTimeMillis())) return s.token;
+        Session renewed = refresh(s);
+        return renewed == null ? null : renewed.token;
+    }
+
+    /**
+     * Registra un inicio de sesión: guarda los datos de la respuesta y programa la renovación.
+     *
+     * @param response Respuesta del login con token.
+     */
+    public void onLogin(@NonNull LoginResponse response) {
+        SessionManager.saveLoginData(appContext, response.getToken(), response.getUsername(),
+                response.getAuthorities(), response.getUserId());
+        Session s = new Session(response.getToken(), decodeExpiry(response.getToken()));
+        synchronized (refreshLock) {
+            generation++;
+            session = s;
+            refreshFailedAt = 0;
+        }
+        scheduleRefresh(s);
+    }
+
+    /**
+     * Cierra la sesión: borra el token de memoria y de preferencias, cancela la renovación
+     * y vacía en segundo plano la caché HTTP en disco.
+     */
+    public void clear() {
+        synchronized (refreshLock) {
+            generation++;
+            session = null;
+        }
+        cancelScheduledRefresh();
+        SessionManager.clearLoginOnly(appContext);
+        scheduler.execute(RetrofitClient::evictHttpCache);
+    }
+
+    /**
+     * Renueva el token si {@code stale} sigue siendo el actual. Solo hay una renovación en
+     * curso: la primera llamada la lanza y las demás esperan a su resultado. El login se
+     * hace fuera de {@code refreshLock}, que solo protege el cambio de estado, para que
+     * {@link #onLogin} y {@link #clear()} no esperen a la red desde el hilo principal.
+     */
+    @Nullable
+    private Session refresh(Session stale) {
+        CompletableFuture<Session> pending;
+        boolean owner;
+        int gen;
+        synchronized (refreshLock) {
+            Session current = session;
+            if (current != stale) return current;
+            if (inFlight != null) {
+                pending = inFlight;
+                owner = false;
+            } else {
+                if (System.currentTimeMillis() - refreshFailedAt < RETRY_AFTER_FAILURE_MS) return current;
+                pending = inFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            gen = generation;
+        }
+        if (!owner) return await(pending);
+
+        Session result = stale;
+        try {
+            result = renew(stale, gen);
+        } finally {
+            synchronized (refreshLock) {
+                if (inFlight == pending) inFlight = null;
+            }
+            pending.complete(result);
+        }
+        if (result != null && result != stale) scheduleRefresh(result);
+        return result;
+    }
+
+    /**
+     * Repite el login con las credenciales guardadas e instala el token nuevo solo si la
+     * sesión no ha cambiado mientras tanto; si se cerró o se inició otra, el resultado se
+     * descarta.
+     *
+     * @return la sesión vigente al terminar.
+     */
+    @Nullable
+    private Session renew(Session stale, int gen) {
+        String user = SessionManager.getSavedUsername(appContext);
+        String pass = SessionManager.getSavedPassword(appContext);
+        if (user == null || pass == null) return session;
+
+        LoginResponse body = null;
+        try {
+            Response<LoginResponse> response = RetrofitClient.getApiService(appContext)
+                    .login(new LoginRequest(user, pass))
+                    .execute();
+            if (response.isSuccessful() && response.body() != null
+                    && response.body().getToken() != null) {
+                body = response.body();
+            } else {
+                Log.w(TAG, "Renovación rechazada: HTTP " + response.code());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Sin red: se sigue con el token actual y se reintentará en la siguiente petición
+            Log.w(TAG, "No se pudo renovar el token", e);
+        }
+
+        synchronized (refreshLock) {
+            if (generation != gen || session != stale) return session;
+            if (body == null) {
+                refreshFailedAt = System.currentTimeMillis();
+                return session;
+            }
+            SessionManager.saveLoginData(appContext, body.getToken(), body.getUsername(),
+                    body.getAuthorities(), body.getUserId());
+            session = new Session(body.getToken(), decodeExpiry(body.getToken()));
+            refreshFailedAt = 0;
+            return session;
+        }
+    }
+
+    /** Espera a la renovación lanzada por otra petición. */
+    @Nullable
+    private Session await(CompletableFuture<Session> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return session;
+        } catch (ExecutionException e) {
+            return session;
+        }
+    }
+
+    private synchronized void scheduleRefresh(Session s) {
+        cancelScheduledRefresh();
+        if (s.expiresAt <= 0) return;
+        long now = System.currentTimeMillis();
+        long lifetime = s.expiresAt - now;
+        if (lifetime <= 0) return;
+        // En tokens muy cortos se renueva a mitad de vida para no encadenar renovaciones
+        long ahead = Math.min(REFRESH_AHEAD_MS, lifetime / 2);
+        scheduledRefresh = scheduler.schedule(() -> {
+            if (SessionManager.getSavedPassword(appContext) != null) refresh(s);
+        }, lifetime - ahead, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    /**
+     * Lee el claim {@code exp} (segundos desde epoch) del payload del JWT.
+     *
+     * @return la caducidad en ms, o 0 si el token no es un JWT o no la incluye.
+     */
+    static long decodeExpiry(String token) {
+        if (token == null) return 0;
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) return 0;
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            JsonObject claims = new JsonParser()
+                    .parse(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+            JsonElement exp = claims.get("exp");
+            return exp == null || exp.isJsonNull() ? 0 : exp.getAsLong() * 1000;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.proyecto.facilgimapp.network;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor de red que aplica la política de frescura de la caché HTTP en disco
+ * para los endpoints de catálogo y el historial de entrenamientos.
+ * <p>
+ * El backend responde con {@code Cache-Control: no-store} por defecto (Spring Security),
+ * lo que impide cachear cualquier respuesta. Este interceptor reescribe las cabeceras
+ * de las respuestas GET de los endpoints configurados para que OkHttp las almacene y,
+ * una vez caducadas, las revalide enviando {@code If-None-Match}/{@code If-Modified-Since}.
+ * Si el servidor contesta 304, OkHttp sirve el cuerpo directamente desde disco; las
+ * cabeceras del 304 también se reescriben, porque OkHttp las combina con las de la
+ * entrada guardada y el {@code no-store} del backend acabaría sustituyendo la política.
+ * </p>
+ * <p>
+ * Además, cuando una petición de escritura (POST, PUT, DELETE) termina con éxito,
+ * se eliminan de la caché las entradas de los listados afectados para no mostrar
+ * datos obsoletos tras crear o borrar un elemento.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class CachePolicyInterceptor implements Interceptor {
+
+    /**
+     * Política de caché de un endpoint concreto.
+     */
+    private static class Policy {
+        /** Patrón que debe cumplir la ruta codificada de la petición GET. */
+        final Pattern path;
+        /** Segundos que la respuesta se considera fresca; 0 obliga a revalidar siempre. */
+        final int maxAgeSeconds;
+        /** Prefijos de ruta cuyas escrituras invalidan las entradas de este endpoint. */
+        final List<String> invalidatedBy;
+
+        Policy(String pathRegex, int maxAgeSeconds, String... invalidatedBy) {
+            this.path = Pattern.compile(pathRegex);
+            this.maxAgeSeconds = maxAgeSeconds;
+            this.invalidatedBy = Arrays.asList(invalidatedBy);
+        }
+    }
+
+    /**
+     * Políticas por endpoint:
+     * <ul>
+     *   <li>{@code listTypes}: los tipos cambian muy poco, 5 minutos de frescura.</li>
+     *   <li>{@code listAllExercises}: 1 minuto de frescura.</li>
+     *   <li>{@code getWorkoutsByUserId}: siempre se revalida (304 si no hay cambios).</li>
+     * </ul>
+     */
+    private static final List<Policy> POLICIES = Arrays.asList(
+            new Policy("^/api/tipos-entrenamiento$", 300,
+                    "/api/tipos-entrenamiento"),
+            new Policy("^/api/ejercicios$", 60,
+                    "/api/ejercicios"),
+            new Policy("^/api/entrenamientos/usuarioId/\\d+$", 0,
+                    "/api/entrenamientos", "/api/entrenamiento-ejercicio", "/api/series")
+    );
+
+    private final Cache cache;
+
+    /**
+     * Crea el interceptor asociado a la caché en disco del cliente.
+     *
+     * @param cache Caché HTTP de OkHttp sobre la que se invalidan entradas tras una escritura.
+     */
+    public CachePolicyInterceptor(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Reescribe las cabeceras de caché de las respuestas GET configuradas e invalida
+     * los listados afectados por las escrituras que terminan con éxito.
+     *
+     * @param chain Cadena de interceptores de OkHttp.
+     * @return La respuesta, con las cabeceras de caché ajustadas si corresponde.
+     * @throws IOException Si ocurre un error de entrada/salida durante la petición.
+     */
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        String path = request.url().encodedPath();
+
+        if ("GET".equals(request.method())) {
+            Policy policy = find(path);
+            boolean notModified = response.code() == 304;
+            if (policy == null || !(response.isSuccessful() || notModified)) {
+                return response;
+            }
+            String cacheControl = policy.maxAgeSeconds > 0
+                    ? "private, max-age=" + policy.maxAgeSeconds
+                    : "private, no-cache";
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .header("Cache-Control", cacheControl)
+                    .build();
+        }
+
+        if (response.isSuccessful()) {
+            invalidate(path);
+        }
+        return response;
+    }
+
+    /**
+     * Busca la política que corresponde a una ruta GET.
+     *
+     * @param path Ruta codificada de la petición.
+     * @return La política aplicable o {@code null} si el endpoint no se cachea.
+     */
+    private static Policy find(String path) {
+        for (Policy policy : POLICIES) {
+            if (policy.path.matcher(path).matches()) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Elimina de la caché las entradas de los endpoints afectados por una escritura en {@code path}.
+     *
+     * @param path Ruta codificada de la petición de escritura.
+     */
+    private void invalidate(String path) {
+        try {
+            Iterator<String> urls = cache.urls();
+            while (urls.hasNext()) {
+                HttpUrl url = HttpUrl.parse(urls.next());
+                if (url != null && isInvalidatedBy(url.encodedPath(), path)) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException e) {
+            // Si la caché no es legible no hay nada que invalidar
+        }
+    }
+
+    private static boolean isInvalidatedBy(String cachedPath, String writePath) {
+        for (Policy policy : POLICIES) {
+            if (!policy.path.matcher(cachedPath).matches()) continue;
+            for (String prefix : policy.invalidatedBy) {
+                if (writePath.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package com.proyecto.facilgimapp.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Interceptor de aplicación que clasifica cada respuesta según su origen
+ * (caché, revalidación 304 o red) y actualiza {@link HttpCacheStats}.
+ * <p>
+ * Debe registrarse con {@code addInterceptor} para poder ver a la vez
+ * {@link Response#cacheResponse()} y {@link Response#networkResponse()}.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class CacheStatsInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        Response cached = response.cacheResponse();
+        Response network = response.networkResponse();
+
+        if (cached != null && network == null) {
+            HttpCacheStats.get().recordHit(contentLength(cached));
+        } else if (cached != null) {
+            // Hubo petición condicional y el servidor respondió 304
+            HttpCacheStats.get().recordRevalidation(contentLength(cached));
+        } else if (network != null) {
+            HttpCacheStats.get().recordMiss();
+        }
+        return response;
+    }
+
+    private static long contentLength(Response response) {
+        String value = response.header("Content-Length");
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.proyecto.facilgimapp.network;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Codificación CBOR (RFC 8949) de árboles {@link JsonElement}.
+ * <p>
+ * Se traduce a y desde el árbol de Gson. Las respuestas se leen en streaming con
+ * {@link CborReader}; el árbol queda para escribir y para los tipos que no admite. El
+ * lector admite longitudes indefinidas (las que emite por defecto Jackson en el
+ * servidor), etiquetas (se ignoran) y flotantes de 16, 32 y 64 bits; las cadenas de
+ * bytes se entregan en Base64.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class Cbor {
+    /** Tipo MIME de las respuestas CBOR. */
+    public static final String MEDIA_TYPE = "application/cbor";
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int MAJOR_TAG = 6;
+    private static final int MAJOR_SIMPLE = 7;
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xff;
+    /** Profundidad máxima de anidamiento admitida al leer. */
+    private static final int MAX_DEPTH = 64;
+
+    private Cbor() {}
+
+    /**
+     * Lee un elemento CBOR completo.
+     *
+     * @param in Flujo con el contenido CBOR.
+     * @return el árbol equivalente.
+     * @throws IOException si falla la lectura o el contenido no es CBOR válido.
+     */
+    public static JsonElement read(InputStream in) throws IOException {
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        return readItem(data, data.readUnsignedByte(), 0);
+    }
+
+    /**
+     * Escribe un árbol en CBOR con longitudes definidas y los enteros en su forma más
+     * corta.
+     *
+     * @param element Árbol a escribir.
+     * @param out     Destino.
+     * @throws IOException si falla la escritura.
+     */
+    public static void write(JsonElement element, OutputStream out) throws IOException {
+        if (element == null || element.isJsonNull()) {
+            out.write(0xf6);
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            writeHead(out, MAJOR_MAP, object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                writeText(out, entry.getKey());
+                write(entry.getValue(), out);
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            writeHead(out, MAJOR_ARRAY, array.size());
+            for (JsonElement item : array) {
+                write(item, out);
+            }
+        } else {
+            writePrimitive(out, element.getAsJsonPrimitive());
+        }
+    }
+
+    /**
+     * Atajo de {@link #write(JsonElement, OutputStream)} que devuelve los bytes.
+     *
+     * @param element Árbol a escribir.
+     * @return el contenido CBOR.
+     */
+    public static byte[] toBytes(JsonElement element) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(element, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // no ocurre en memoria
+        }
+        return out.toByteArray();
+    }
+
+    private static JsonElement readItem(DataInputStream in, int initial, int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new JsonSyntaxException("CBOR demasiado anidado");
+        int major = initial >>> 5;
+        int info = initial & 0x1f;
+        switch (major) {
+            case MAJOR_UNSIGNED: {
+                long value = readArgument(in, info);
+                if (value < 0) throw new JsonSyntaxException("Entero CBOR fuera de rango");
+                return new JsonPrimitive(value);
+            }
+            case MAJOR_NEGATIVE: {
+                long value = readArgument(in, info);
+                if (value < 0) throw new JsonSyntaxException("Entero CBOR fuera de rango");
+                return new JsonPrimitive(-1 - value);
+            }
+            case MAJOR_BYTES:
+                return new JsonPrimitive(Base64.getEncoder().encodeToString(readChunks(in, MAJOR_BYTES, info)));
+            case MAJOR_TEXT:
+                return new JsonPrimitive(new String(readChunks(in, MAJOR_TEXT, info), StandardCharsets.UTF_8));
+            case MAJOR_ARRAY: {
+                JsonArray array = new JsonArray();
+                if (info == INDEFINITE) {
+                    for (int b = in.readUnsignedByte(); b != BREAK; b = in.readUnsignedByte()) {
+                        array.add(readItem(in, b, depth + 1));
+                    }
+                } else {
+                    for (long i = readLength(in, info); i > 0; i--) {
+                        array.add(readItem(in, in.readUnsignedByte(), depth + 1));
+                    }
+                }
+                return array;
+            }
+            case MAJOR_MAP: {
+                JsonObject object = new JsonObject();
+                if (info == INDEFINITE) {
+                    for (int b = in.readUnsignedByte(); b != BREAK; b = in.readUnsignedByte()) {
+                        readEntry(in, object, b, depth);
+                    }
+                } else {
+                    for (long i = readLength(in, info); i > 0; i--) {
+                        readEntry(in, object, in.readUnsignedByte(), depth);
+                    }
+                }
+                return object;
+            }
+            case MAJOR_TAG:
+                readArgument(in, info);
+                return readItem(in, in.readUnsignedByte(), depth + 1);
+            default:
+                return readSimple(in, info);
+        }
+    }
+
+    private static void readEntry(DataInputStream in, JsonObject object, int initial, int depth) throws IOException {
+        JsonElement key = readItem(in, initial, depth + 1);
+        if (!key.isJsonPrimitive()) throw new JsonSyntaxException("Clave CBOR no escalar");
+        object.add(key.getAsString(), readItem(in, in.readUnsignedByte(), depth + 1));
+    }
+
+    private static JsonElement readSimple(DataInputStream in, int info) throws IOException {
+        switch (info) {
+            case 20:
+                return new JsonPrimitive(false);
+            case 21:
+                return new JsonPrimitive(true);
+            case 22: // null
+            case 23: // undefined
+                return JsonNull.INSTANCE;
+            case 25:
+                return new JsonPrimitive(halfToDouble(in.readUnsignedShort()));
+            case 26:
+                return new JsonPrimitive(Float.intBitsToFloat(in.readInt()));
+            case 27:
+                return new JsonPrimitive(Double.longBitsToDouble(in.readLong()));
+            default:
+                throw new JsonSyntaxException("Valor simple CBOR no admitido: " + info);
+        }
+    }
+
+    /** Lee el contenido de una cadena, juntando los trozos si su longitud es indefinida. */
+    private static byte[] readChunks(DataInputStream in, int major, int info) throws IOException {
+        if (info != INDEFINITE) {
+            byte[] bytes = new byte[readLength(in, info)];
+            in.readFully(bytes);
+            return bytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int b = in.readUnsignedByte(); b != BREAK; b = in.readUnsignedByte()) {
+            if (b >>> 5 != major || (b & 0x1f) == INDEFINITE) {
+                throw new JsonSyntaxException("Trozo CBOR inválido");
+            }
+            out.write(readChunks(in, major, b & 0x1f));
+        }
+        return out.toByteArray();
+    }
+
+    private static int readLength(DataInputStream in, int info) throws IOException {
+        return toLength(readArgument(in, info));
+    }
+
+    /** Comprueba que una longitud leída cabe en un array. */
+    static int toLength(long length) {
+        if (length < 0 || length > Integer.MAX_VALUE) throw new JsonSyntaxException("Longitud CBOR excesiva");
+        return (int) length;
+    }
+
+    /** Argumento de la cabecera; un {@code uint64} que no cabe en {@code long} sale negativo. */
+    private static long readArgument(DataInputStream in, int info) throws IOException {
+        if (info < 24) return info;
+        switch (info) {
+            case 24:
+                return in.readUnsignedByte();
+            case 25:
+                return in.readUnsignedShort();
+            case 26:
+                return in.readInt() & 0xffffffffL;
+            case 27:
+                return in.readLong();
+            default:
+                if (info == INDEFINITE) throw new JsonSyntaxException("Longitud indefinida no permitida aquí");
+                throw new EOFException("Cabecera CBOR inválida");
+        }
+    }
+
+    static double halfToDouble(int half) {
+        int exponent = (half >> 10) & 0x1f;
+        int mantissa = half & 0x3ff;
+        double value;
+        if (exponent == 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+
+    private static void writePrimitive(OutputStream out, JsonPrimitive primitive) throws IOException {
+        if (primitive.isBoolean()) {
+            out.write(primitive.getAsBoolean() ? 0xf5 : 0xf4);
+        } else if (primitive.isNumber()) {
+            Number number = primitive.getAsNumber();
+            double d = number.doubleValue();
+            long l = number.longValue();
+            if (d == l && !(d == 0 && 1 / d < 0) && Math.abs(l) < (1L << 53)) {
+                if (l >= 0) {
+                    writeHead(out, MAJOR_UNSIGNED, l);
+                } else {
+                    writeHead(out, MAJOR_NEGATIVE, -1 - l);
+                }
+            } else if ((double) (float) d == d) {
+                out.write(0xfa);
+                writeInt(out, Float.floatToIntBits((float) d));
+            } else {
+                out.write(0xfb);
+                long bits = Double.doubleToLongBits(d);
+                writeInt(out, (int) (bits >>> 32));
+                writeInt(out, (int) bits);
+            }
+        } else {
+            writeText(out, primitive.getAsString());
+        }
+    }
+
+    private static void writeText(OutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeHead(out, MAJOR_TEXT, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeHead(OutputStream out, int major, long value) throws IOException {
+        int type = major << 5;
+        if (value < 24) {
+            out.write(type | (int) value);
+        } else if (value < 0x100) {
+            out.write(type | 24);
+            out.write((int) value);
+        } else if (value < 0x10000) {
+            out.write(type | 25);
+            out.write((int) (value >>> 8));
+            out.write((int) value);
+        } else if (value < 0x100000000L) {
+            out.write(type | 26);
+            writeInt(out, (int) value);
+        } else {
+            out.write(type | 27);
+            writeInt(out, (int) (value >>> 32));
+            writeInt(out, (int) value);
+        }
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
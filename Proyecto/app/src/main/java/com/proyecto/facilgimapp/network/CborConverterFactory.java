@@ -0,0 +1,116 @@
+package com.proyecto.facilgimapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Convertidor de respuestas que entiende tanto CBOR como JSON.
+ * <p>
+ * Los endpoints de historial piden {@code application/cbor} en la cabecera
+ * {@code Accept} (con JSON como alternativa); el formato real se decide por el
+ * {@code Content-Type} de cada respuesta, de modo que un servidor que solo hable JSON
+ * sigue funcionando igual. En ambos casos los DTO se leen en streaming con los
+ * adaptadores del Gson compartido: el CBOR se decodifica a medida que lo pide el
+ * adaptador ({@link CborReader}), sin construir antes el árbol. Debe registrarse antes que {@code GsonConverterFactory}; los cuerpos de
+ * las peticiones los sigue escribiendo este último en JSON.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class CborConverterFactory extends Converter.Factory {
+    /** Valor de {@code Accept} para los endpoints que prefieren CBOR. */
+    public static final String ACCEPT = "Accept: " + Cbor.MEDIA_TYPE + ", application/json;q=0.9";
+
+    private final Gson gson;
+
+    private CborConverterFactory(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Crea la factoría.
+     *
+     * @param gson Gson con los adaptadores de los DTO.
+     * @return la factoría de convertidores.
+     */
+    public static CborConverterFactory create(Gson gson) {
+        return new CborConverterFactory(gson);
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                            Retrofit retrofit) {
+        TypeToken<?> token = TypeToken.get(type);
+        // El adaptador de Map de Gson no funciona sobre CborReader: esos tipos van por el árbol
+        boolean streaming = !Map.class.isAssignableFrom(token.getRawType());
+        return new BodyConverter<>(gson, gson.getAdapter(token), streaming);
+    }
+
+    /**
+     * Indica si un tipo de contenido es CBOR ({@code application/cbor} o
+     * {@code application/*+cbor}).
+     *
+     * @param contentType Tipo de la respuesta, puede ser nulo.
+     * @return {@code true} si el cuerpo viene en CBOR.
+     */
+    static boolean isCbor(MediaType contentType) {
+        return contentType != null
+                && "application".equals(contentType.type())
+                && ("cbor".equals(contentType.subtype()) || contentType.subtype().endsWith("+cbor"));
+    }
+
+    private static final class BodyConverter<T> implements Converter<ResponseBody, T> {
+        private final Gson gson;
+        private final TypeAdapter<T> adapter;
+        private final boolean streaming;
+
+        BodyConverter(Gson gson, TypeAdapter<T> adapter, boolean streaming) {
+            this.gson = gson;
+            this.adapter = adapter;
+            this.streaming = streaming;
+        }
+
+        @Override
+        public T convert(ResponseBody body) throws IOException {
+            try {
+                if (isCbor(body.contentType())) {
+                    if (!streaming) {
+                        try (InputStream in = body.byteStream()) {
+                            return adapter.fromJsonTree(Cbor.read(in));
+                        }
+                    }
+                    try (CborReader reader = new CborReader(body.source())) {
+                        T result = adapter.read(reader);
+                        if (reader.peek() != JsonToken.END_DOCUMENT) {
+                            throw new IOException("CBOR document was not fully consumed.");
+                        }
+                        return result;
+                    }
+                }
+                // Igual que GsonResponseBodyConverter
+                JsonReader reader = gson.newJsonReader(body.charStream());
+                T result = adapter.read(reader);
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new IOException("JSON document was not fully consumed.");
+                }
+                return result;
+            } finally {
+                body.close();
+            }
+        }
+    }
+}
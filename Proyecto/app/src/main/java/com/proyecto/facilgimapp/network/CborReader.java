@@ -0,0 +1,441 @@
+package com.proyecto.facilgimapp.network;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Base64;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * {@link JsonReader} que lee CBOR directamente del flujo, sin construir el árbol.
+ * <p>
+ * Traduce cada elemento CBOR al token JSON equivalente a medida que el adaptador lo
+ * pide, así que los DTO se leen con sus adaptadores en streaming de siempre y solo se
+ * reservan los objetos del resultado. Lee del {@link BufferedSource} de OkHttp, que
+ * decodifica los textos directamente desde sus segmentos, y las cadenas de los campos
+ * que el adaptador descarta se saltan sin decodificarlas. Admite lo mismo que {@link Cbor#read}:
+ * longitudes indefinidas, etiquetas (se ignoran), flotantes de 16, 32 y 64 bits y
+ * cadenas de bytes, que se entregan en Base64.
+ * </p>
+ * <p>
+ * No sirve para el adaptador de {@code Map} de Gson, que manipula el estado interno de
+ * {@link JsonReader}; {@link CborConverterFactory} lee esos tipos a través del árbol.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+final class CborReader extends JsonReader {
+    private static final int MAX_DEPTH = 64;
+    private static final Reader UNUSED = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            throw new IOException("CborReader no lee caracteres");
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final BufferedSource in;
+
+    /** Contenedores abiertos: elementos pendientes (-1 si es indefinido) y tipo. */
+    private final long[] remaining = new long[MAX_DEPTH + 1];
+    private final boolean[] isMap = new boolean[MAX_DEPTH + 1];
+    /** En un mapa, si el siguiente elemento es una clave. */
+    private final boolean[] expectName = new boolean[MAX_DEPTH + 1];
+    private final String[] pathNames = new String[MAX_DEPTH + 1];
+    private final int[] pathIndices = new int[MAX_DEPTH + 1];
+    private int depth;
+    private boolean documentRead;
+
+    /** Token ya leído y aún no consumido, o {@code null}. */
+    private JsonToken peeked;
+    /** Tipo mayor y argumento de la cabecera del elemento en {@link #peeked}. */
+    private int major;
+    private int info;
+    private long argument;
+
+    /**
+     * Crea el lector.
+     *
+     * @param in Contenido CBOR; lo cierra {@link #close()}.
+     */
+    CborReader(BufferedSource in) {
+        super(UNUSED);
+        this.in = in;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked != null) return peeked;
+        if (depth == 0) {
+            if (documentRead) return peeked = JsonToken.END_DOCUMENT;
+            return peeked = readHead(in.readByte() & 0xff);
+        }
+        if (remaining[depth] == 0) return peeked = isMap[depth] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        int initial = in.readByte() & 0xff;
+        if (remaining[depth] < 0 && initial == 0xff) {
+            return peeked = isMap[depth] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        }
+        JsonToken token = readHead(initial);
+        if (isMap[depth] && expectName[depth]) {
+            if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                throw new JsonSyntaxException("Clave CBOR no escalar en " + getPath());
+            }
+            token = JsonToken.NAME;
+        }
+        return peeked = token;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+                && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(false, info == 31 ? -1 : argument);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        pop();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(true, info == 31 ? -1 : argument * 2);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        pop();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        String name = major == 2 || major == 3 ? readString() : scalarText();
+        pathNames[depth] = name;
+        consumed();
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) throw unexpected("a string");
+        String value = major == 2 || major == 3 ? readString() : scalarText();
+        consumed();
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        consumed();
+        return info == 21;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        consumed();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        JsonToken token = peek();
+        double value;
+        if (token == JsonToken.NUMBER) {
+            value = number();
+        } else if (token == JsonToken.STRING) {
+            value = Double.parseDouble(readString());
+        } else {
+            throw unexpected("a double");
+        }
+        peeked = null;
+        consumed();
+        return value;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        JsonToken token = peek();
+        long value;
+        if (token == JsonToken.NUMBER) {
+            double d = number();
+            if (major == 7) {
+                value = (long) d;
+                if (value != d) throw new NumberFormatException("Expected a long but was " + d + " at " + getPath());
+            } else {
+                value = integer();
+            }
+        } else if (token == JsonToken.STRING) {
+            value = Long.parseLong(readString());
+        } else {
+            throw unexpected("a long");
+        }
+        peeked = null;
+        consumed();
+        return value;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw new NumberFormatException("Expected an int but was " + value + " at " + getPath());
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        JsonToken token = peek();
+        peeked = null;
+        switch (token) {
+            case BEGIN_ARRAY:
+            case BEGIN_OBJECT: {
+                long items = info == 31 ? -1 : token == JsonToken.BEGIN_OBJECT ? argument * 2 : argument;
+                skipItems(items, 1);
+                break;
+            }
+            case END_ARRAY:
+            case END_OBJECT:
+            case END_DOCUMENT:
+                peeked = token;
+                throw unexpected("a value");
+            default:
+                // Los números ya se leyeron con la cabecera; las cadenas se saltan sin decodificar
+                if (major == 2 || major == 3) skipString(major, info, argument);
+                break;
+        }
+        if (token == JsonToken.NAME) pathNames[depth] = "null";
+        consumed();
+    }
+
+    @Override
+    public String getPath() {
+        StringBuilder path = new StringBuilder("$");
+        for (int i = 1; i <= depth; i++) {
+            if (isMap[i]) {
+                if (pathNames[i] != null) path.append('.').append(pathNames[i]);
+            } else {
+                path.append('[').append(pathIndices[i]).append(']');
+            }
+        }
+        return path.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = JsonToken.END_DOCUMENT;
+        depth = 0;
+        documentRead = true;
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CborReader at " + getPath();
+    }
+
+    /** Lee la cabecera de un elemento (saltando etiquetas) y devuelve su token. */
+    private JsonToken readHead(int initial) throws IOException {
+        while (initial >>> 5 == 6) {
+            readArgument(initial & 0x1f);
+            initial = in.readByte() & 0xff;
+        }
+        major = initial >>> 5;
+        info = initial & 0x1f;
+        argument = 0;
+        switch (major) {
+            case 0:
+            case 1:
+                argument = readArgument(info);
+                if (argument < 0) throw new JsonSyntaxException("Entero CBOR fuera de rango en " + getPath());
+                return JsonToken.NUMBER;
+            case 2:
+            case 3:
+                if (info != 31) argument = readArgument(info);
+                return JsonToken.STRING;
+            case 4:
+                if (info != 31) argument = readArgument(info);
+                return JsonToken.BEGIN_ARRAY;
+            case 5:
+                if (info != 31) argument = readArgument(info);
+                return JsonToken.BEGIN_OBJECT;
+            default:
+                switch (info) {
+                    case 20:
+                    case 21:
+                        return JsonToken.BOOLEAN;
+                    case 22:
+                    case 23:
+                        return JsonToken.NULL;
+                    case 25:
+                        argument = in.readShort() & 0xffff;
+                        return JsonToken.NUMBER;
+                    case 26:
+                        argument = in.readInt() & 0xffffffffL;
+                        return JsonToken.NUMBER;
+                    case 27:
+                        argument = in.readLong();
+                        return JsonToken.NUMBER;
+                    default:
+                        throw new JsonSyntaxException("Valor simple CBOR no admitido: " + info);
+                }
+        }
+    }
+
+    private void expect(JsonToken expected) throws IOException {
+        if (peek() != expected) throw unexpected(expected.toString());
+        peeked = null;
+    }
+
+    private IllegalStateException unexpected(String expected) throws IOException {
+        return new IllegalStateException("Expected " + expected + " but was " + peek() + " at " + getPath());
+    }
+
+    private void push(boolean map, long items) {
+        if (depth == MAX_DEPTH) throw new JsonSyntaxException("CBOR demasiado anidado");
+        depth++;
+        isMap[depth] = map;
+        remaining[depth] = items;
+        expectName[depth] = true;
+        pathNames[depth] = null;
+        pathIndices[depth] = 0;
+    }
+
+    private void pop() {
+        depth--;
+        consumed();
+    }
+
+    /** Anota que se ha consumido un elemento del contenedor actual. */
+    private void consumed() {
+        if (depth == 0) {
+            documentRead = true;
+            return;
+        }
+        if (remaining[depth] > 0) remaining[depth]--;
+        if (isMap[depth]) {
+            expectName[depth] = !expectName[depth];
+        } else {
+            pathIndices[depth]++;
+        }
+    }
+
+    /** Contenido de la cadena de texto o de bytes (en Base64) en {@link #peeked}. */
+    private String readString() throws IOException {
+        peeked = null;
+        if (info != 31) {
+            long length = Cbor.toLength(argument);
+            return major == 3 ? in.readUtf8(length)
+                    : Base64.getEncoder().encodeToString(in.readByteArray(length));
+        }
+        Buffer chunks = readChunks(major);
+        return major == 3 ? chunks.readUtf8()
+                : Base64.getEncoder().encodeToString(chunks.readByteArray());
+    }
+
+    /** Junta los trozos de una cadena de longitud indefinida. */
+    private Buffer readChunks(int itemMajor) throws IOException {
+        Buffer chunks = new Buffer();
+        for (int b = in.readByte() & 0xff; b != 0xff; b = in.readByte() & 0xff) {
+            if (b >>> 5 != itemMajor || (b & 0x1f) == 31) {
+                throw new JsonSyntaxException("Trozo CBOR inválido");
+            }
+            in.readFully(chunks, Cbor.toLength(readArgument(b & 0x1f)));
+        }
+        return chunks;
+    }
+
+    /** Argumento de la cabecera; un {@code uint64} que no cabe en {@code long} sale negativo. */
+    private long readArgument(int itemInfo) throws IOException {
+        if (itemInfo < 24) return itemInfo;
+        switch (itemInfo) {
+            case 24:
+                return in.readByte() & 0xff;
+            case 25:
+                return in.readShort() & 0xffff;
+            case 26:
+                return in.readInt() & 0xffffffffL;
+            case 27:
+                return in.readLong();
+            default:
+                throw new JsonSyntaxException("Cabecera CBOR inválida");
+        }
+    }
+
+    /** Texto de un número usado como cadena o clave. */
+    private String scalarText() {
+        peeked = null;
+        if (major == 7) return Double.toString(number());
+        return Long.toString(integer());
+    }
+
+    private long integer() {
+        return major == 1 ? -1 - argument : argument;
+    }
+
+    private double number() {
+        switch (major) {
+            case 0:
+            case 1:
+                return integer();
+            default:
+                if (info == 25) return Cbor.halfToDouble((int) argument);
+                if (info == 26) return Float.intBitsToFloat((int) argument);
+                return Double.longBitsToDouble(argument);
+        }
+    }
+
+    /** Salta {@code items} elementos completos (o hasta la marca de fin si es -1). */
+    private void skipItems(long items, int level) throws IOException {
+        if (depth + level > MAX_DEPTH) throw new JsonSyntaxException("CBOR demasiado anidado");
+        for (long i = 0; items < 0 || i < items; i++) {
+            int initial = in.readByte() & 0xff;
+            if (items < 0 && initial == 0xff) return;
+            while (initial >>> 5 == 6) {
+                readArgument(initial & 0x1f);
+                initial = in.readByte() & 0xff;
+            }
+            int itemMajor = initial >>> 5;
+            int itemInfo = initial & 0x1f;
+            if (itemMajor == 7) {
+                // Simples sin contenido, o flotantes de 1, 2, 4 u 8 bytes
+                if (itemInfo >= 24) in.skip(1 << (itemInfo - 24));
+                continue;
+            }
+            long itemArgument = itemInfo == 31 ? -1 : readArgument(itemInfo);
+            if (itemMajor == 4 || itemMajor == 5) {
+                skipItems(itemArgument < 0 ? -1 : itemMajor == 5 ? itemArgument * 2 : itemArgument, level + 1);
+            } else if (itemMajor == 2 || itemMajor == 3) {
+                skipString(itemMajor, itemInfo, itemArgument);
+            }
+        }
+    }
+
+    /** Salta el contenido de una cadena cuya cabecera ya se ha leído. */
+    private void skipString(int itemMajor, int itemInfo, long itemArgument) throws IOException {
+        if (itemInfo == 31) {
+            readChunks(itemMajor);
+        } else {
+            in.skip(Cbor.toLength(itemArgument));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.proyecto.facilgimapp.network;
+
+import android.os.SystemClock;
+
+/**
+ * Cortocircuito (circuit breaker) para las peticiones a un host.
+ * <p>
+ * En estado {@link State#CLOSED} las peticiones pasan con normalidad. Tras
+ * {@link #FAILURE_THRESHOLD} fallos seguidos (errores de red o 502/503/504) pasa a
+ * {@link State#OPEN} y las peticiones se rechazan sin llegar a la red durante un tiempo de
+ * espera que se duplica con cada apertura consecutiva, hasta {@link #MAX_OPEN_MS}. Cumplido
+ * ese tiempo, la siguiente petición obtiene permiso para sondear el servidor
+ * ({@link State#HALF_OPEN}); mientras el sondeo está en curso el resto se sigue rechazando.
+ * Si el sondeo va bien se vuelve a {@link State#CLOSED}; si no, se abre de nuevo.
+ * </p>
+ * <p>
+ * Cada cambio de estado se publica en {@link ConnectionState}. Es seguro usarlo desde
+ * varios hilos.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class CircuitBreaker {
+
+    /**
+     * Estado del cortocircuito, ordenado de mejor a peor.
+     */
+    public enum State {
+        /** El servidor responde; las peticiones pasan. */
+        CLOSED,
+        /** Se está comprobando si el servidor se ha recuperado. */
+        HALF_OPEN,
+        /** El servidor no responde; las peticiones se rechazan sin enviarse. */
+        OPEN
+    }
+
+    /** Respuesta a una solicitud de permiso para enviar una petición. */
+    enum Permit {
+        /** La petición puede enviarse. */
+        ALLOW,
+        /** La petición debe sondear antes el estado del servidor. */
+        PROBE,
+        /** La petición debe rechazarse sin enviarse. */
+        REJECT
+    }
+
+    /** Fallos seguidos que abren el circuito. */
+    public static final int FAILURE_THRESHOLD = 5;
+    /** Espera tras la primera apertura. */
+    public static final long BASE_OPEN_MS = 5_000;
+    /** Espera máxima entre sondeos. */
+    public static final long MAX_OPEN_MS = 60_000;
+
+    private final String host;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    /** Aperturas seguidas sin volver a cerrarse; determina la espera. */
+    private int consecutiveOpens;
+    private long openedAt;
+    private long openMs;
+
+    /**
+     * Crea un cortocircuito cerrado.
+     *
+     * @param host Host al que protege; se usa para publicar su estado.
+     */
+    public CircuitBreaker(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Estado actual.
+     *
+     * @return el estado del cortocircuito.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Tiempo que falta para permitir un sondeo, o 0 si el circuito no está abierto.
+     *
+     * @return milisegundos restantes de espera.
+     */
+    public synchronized long remainingOpenMs() {
+        if (state != State.OPEN) return 0;
+        return Math.max(0, openedAt + openMs - SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Pide permiso para enviar una petición. Quien reciba {@link Permit#PROBE} debe
+     * informar del resultado con {@link #onSuccess()} o {@link #onFailure()}.
+     */
+    synchronized Permit acquire() {
+        switch (state) {
+            case CLOSED:
+                return Permit.ALLOW;
+            case OPEN:
+                if (SystemClock.elapsedRealtime() - openedAt < openMs) return Permit.REJECT;
+                moveTo(State.HALF_OPEN);
+                return Permit.PROBE;
+            default:
+                // Ya hay un sondeo en curso
+                return Permit.REJECT;
+        }
+    }
+
+    /** Registra una respuesta del servidor; cierra el circuito si no lo estaba. */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            consecutiveOpens = 0;
+            moveTo(State.CLOSED);
+        }
+    }
+
+    /** Registra un fallo; abre el circuito si se alcanza el umbral o falla el sondeo. */
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= FAILURE_THRESHOLD) {
+            open();
+        }
+    }
+
+    private void open() {
+        openMs = Math.min(MAX_OPEN_MS, BASE_OPEN_MS << Math.min(consecutiveOpens, 10));
+        consecutiveOpens++;
+        consecutiveFailures = 0;
+        openedAt = SystemClock.elapsedRealtime();
+        moveTo(State.OPEN);
+    }
+
+    private void moveTo(State next) {
+        state = next;
+        ConnectionState.get().onBreakerStateChanged(host, next);
+    }
+}
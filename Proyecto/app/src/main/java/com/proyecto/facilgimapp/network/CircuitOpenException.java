@@ -0,0 +1,37 @@
+package com.proyecto.facilgimapp.network;
+
+import java.io.IOException;
+
+/**
+ * Error de red que se lanza sin enviar la petición porque el {@link CircuitBreaker} del
+ * host está abierto.
+ * <p>
+ * Extiende {@link IOException} para que llegue a {@code onFailure} como cualquier otro
+ * fallo de conexión y los repositorios recurran a los datos locales.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class CircuitOpenException extends IOException {
+    private final long retryAfterMs;
+
+    /**
+     * Crea la excepción.
+     *
+     * @param host         Host rechazado.
+     * @param retryAfterMs Milisegundos hasta el próximo sondeo.
+     */
+    public CircuitOpenException(String host, long retryAfterMs) {
+        super("Servidor " + host + " no disponible; se reintentará en " + retryAfterMs + " ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Tiempo hasta que se vuelva a intentar contactar con el servidor.
+     *
+     * @return milisegundos restantes.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
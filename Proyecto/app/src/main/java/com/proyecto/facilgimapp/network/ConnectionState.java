@@ -3,37 +3,71 @@ package com.proyecto.facilgimapp.network;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
-    /**
-     * Devuelve la instancia singleton de la clase ConnectionState.
-     *
-     * @return la instancia única de ConnectionState.
-     * @author Francisco Santana
-     */
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado observable de la conexión con el servidor.
+ * <p>
+ * Publica el estado del {@link CircuitBreaker} de cada host y un estado global, que es
+ * el peor de todos ellos. Los cambios pueden llegar desde cualquier hilo y se entregan a
+ * los observadores en el hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
 public class ConnectionState {
     private static final ConnectionState INST = new ConnectionState();
-    private final MutableLiveData<Boolean> networkUp = new MutableLiveData<>(true);
 
-    private ConnectionState() {}
+    private final Map<String, CircuitBreaker.State> states = new ConcurrentHashMap<>();
+    private final Map<String, MutableLiveData<CircuitBreaker.State>> byHost = new ConcurrentHashMap<>();
+    private final MutableLiveData<CircuitBreaker.State> overall =
+            new MutableLiveData<>(CircuitBreaker.State.CLOSED);
 
+    private ConnectionState() {}
 
+    /**
+     * Devuelve la instancia singleton de la clase ConnectionState.
+     *
+     * @return la instancia única de ConnectionState.
+     */
     public static ConnectionState get() {
         return INST;
     }
 
     /**
-     * Observa el estado de la conexión (true = hay conexión; false = fallo de red).
+     * Observa el estado global: {@link CircuitBreaker.State#OPEN} si algún servidor no
+     * responde, {@link CircuitBreaker.State#HALF_OPEN} si se está comprobando alguno y
+     * {@link CircuitBreaker.State#CLOSED} si todos responden.
+     *
+     * @return LiveData con el estado global.
+     */
+    public LiveData<CircuitBreaker.State> getBreakerState() {
+        return overall;
+    }
+
+    /**
+     * Observa el estado del cortocircuito de un host concreto.
+     *
+     * @param host Nombre del host.
+     * @return LiveData con su estado; {@link CircuitBreaker.State#CLOSED} hasta el primer cambio.
      */
-    public LiveData<Boolean> isNetworkUp() {
-        return networkUp;
+    public LiveData<CircuitBreaker.State> getBreakerState(String host) {
+        return liveDataFor(host);
     }
 
-    /** Llamar cuando falle la red. */
-    public void postDown() {
-        networkUp.postValue(false);
+    /** Lo llama {@link CircuitBreaker} en cada cambio de estado. */
+    synchronized void onBreakerStateChanged(String host, CircuitBreaker.State state) {
+        states.put(host, state);
+        liveDataFor(host).postValue(state);
+        CircuitBreaker.State worst = CircuitBreaker.State.CLOSED;
+        for (CircuitBreaker.State s : states.values()) {
+            if (s.ordinal() > worst.ordinal()) worst = s;
+        }
+        overall.postValue(worst);
     }
 
-    /** Llamar cuando una llamada remota tenga éxito. */
-    public void postUp() {
-        networkUp.postValue(true);
+    private MutableLiveData<CircuitBreaker.State> liveDataFor(String host) {
+        return byHost.computeIfAbsent(host, h -> new MutableLiveData<>(CircuitBreaker.State.CLOSED));
     }
 }
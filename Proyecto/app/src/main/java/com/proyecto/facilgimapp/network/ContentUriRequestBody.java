@@ -0,0 +1,89 @@
+package com.proyecto.facilgimapp.network;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.proyecto.facilgimapp.util.FileUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Cuerpo de petición que lee directamente de un {@link Uri} de contenido.
+ * <p>
+ * Los bytes pasan del {@code InputStream} del {@link ContentResolver} al socket por un
+ * búfer de {@link #BUFFER_SIZE}, sin copia previa a un fichero en caché. La longitud se
+ * pide al proveedor ({@link FileUtils#querySize}); si no la conoce se envía sin
+ * {@code Content-Length}. El flujo se abre de nuevo en cada escritura, así que el cuerpo
+ * se puede reenviar en los reintentos.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class ContentUriRequestBody extends RequestBody {
+    /** Tamaño del búfer de copia. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ContentResolver resolver;
+    private final Uri uri;
+    @Nullable
+    private final MediaType contentType;
+    private final long contentLength;
+
+    /**
+     * Crea el cuerpo consultando la longitud al proveedor.
+     *
+     * @param resolver    ContentResolver con el que abrir el Uri.
+     * @param uri         Uri de contenido a enviar.
+     * @param contentType Tipo MIME; si es {@code null} se usa el que declare el proveedor.
+     */
+    public ContentUriRequestBody(@NonNull ContentResolver resolver, @NonNull Uri uri,
+                                 @Nullable MediaType contentType) {
+        this.resolver = resolver;
+        this.uri = uri;
+        if (contentType == null) {
+            String type = resolver.getType(uri);
+            contentType = type == null ? null : MediaType.parse(type);
+        }
+        this.contentType = contentType;
+        this.contentLength = FileUtils.querySize(resolver, uri);
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) throw new FileNotFoundException("No se puede abrir " + uri);
+            byte[] buf = new byte[BUFFER_SIZE];
+            long written = 0;
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                sink.write(buf, 0, len);
+                written += len;
+            }
+            // Un proveedor que cambia el contenido a mitad dejaría la petición corrupta
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException("El contenido de " + uri + " cambió durante el envío ("
+                        + written + " de " + contentLength + " bytes)");
+            }
+        }
+    }
+}
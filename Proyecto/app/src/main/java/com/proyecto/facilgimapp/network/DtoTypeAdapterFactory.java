@@ -0,0 +1,89 @@
+package com.proyecto.facilgimapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.EjercicioDeleteDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoCambiosDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.HealthStatus;
+import com.proyecto.facilgimapp.model.dto.LoginRequest;
+import com.proyecto.facilgimapp.model.dto.LoginResponse;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.model.dto.PasswordDTO;
+import com.proyecto.facilgimapp.model.dto.RegisterResponse;
+import com.proyecto.facilgimapp.model.dto.SerieBulkResultDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.SubidaDTO;
+import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioRequestDTO;
+import com.proyecto.facilgimapp.model.entity.Ejercicio;
+import com.proyecto.facilgimapp.model.entity.Entrenamiento;
+import com.proyecto.facilgimapp.model.entity.Serie;
+import com.proyecto.facilgimapp.model.entity.TipoEntrenamiento;
+import com.proyecto.facilgimapp.model.entity.Usuario;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registra en Gson los adaptadores en streaming de los DTO y entidades del modelo
+ * (las clases {@code GsonAdapter} anidadas en cada uno), de modo que ninguna respuesta
+ * de la API se lea ni escriba por reflexión.
+ * <p>
+ * {@link PageDTO} se resuelve con el adaptador del tipo de sus elementos, que se pide a
+ * Gson. Las listas de DTO siguen usando el adaptador de colecciones de Gson, que delega
+ * en estos para cada elemento.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class DtoTypeAdapterFactory implements TypeAdapterFactory {
+    private static final Map<Class<?>, Supplier<TypeAdapter<?>>> ADAPTERS = new HashMap<>();
+
+    static {
+        ADAPTERS.put(EjercicioDTO.class, EjercicioDTO.GsonAdapter::new);
+        ADAPTERS.put(EjercicioDeleteDTO.class, EjercicioDeleteDTO.GsonAdapter::new);
+        ADAPTERS.put(EntrenamientoCambiosDTO.class, EntrenamientoCambiosDTO.GsonAdapter::new);
+        ADAPTERS.put(EntrenamientoDTO.class, EntrenamientoDTO.GsonAdapter::new);
+        ADAPTERS.put(EntrenamientoEjercicioDTO.class, EntrenamientoEjercicioDTO.GsonAdapter::new);
+        ADAPTERS.put(HealthStatus.class, HealthStatus.GsonAdapter::new);
+        ADAPTERS.put(LoginRequest.class, LoginRequest.GsonAdapter::new);
+        ADAPTERS.put(LoginResponse.class, LoginResponse.GsonAdapter::new);
+        ADAPTERS.put(PasswordDTO.class, PasswordDTO.GsonAdapter::new);
+        ADAPTERS.put(RegisterResponse.class, RegisterResponse.GsonAdapter::new);
+        ADAPTERS.put(SerieBulkResultDTO.class, SerieBulkResultDTO.GsonAdapter::new);
+        ADAPTERS.put(SerieDTO.class, SerieDTO.GsonAdapter::new);
+        ADAPTERS.put(SubidaDTO.class, SubidaDTO.GsonAdapter::new);
+        ADAPTERS.put(TipoEntrenamientoDTO.class, TipoEntrenamientoDTO.GsonAdapter::new);
+        ADAPTERS.put(UsuarioDTO.class, UsuarioDTO.GsonAdapter::new);
+        ADAPTERS.put(UsuarioRequestDTO.class, UsuarioRequestDTO.GsonAdapter::new);
+        ADAPTERS.put(Ejercicio.class, Ejercicio.GsonAdapter::new);
+        ADAPTERS.put(Entrenamiento.class, Entrenamiento.GsonAdapter::new);
+        ADAPTERS.put(Serie.class, Serie.GsonAdapter::new);
+        ADAPTERS.put(TipoEntrenamiento.class, TipoEntrenamiento.GsonAdapter::new);
+        ADAPTERS.put(Usuario.class, Usuario.GsonAdapter::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == PageDTO.class) {
+            Type element = Object.class;
+            if (type.getType() instanceof ParameterizedType) {
+                element = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            }
+            return (TypeAdapter<T>) new PageDTO.GsonAdapter<>(gson.getAdapter(TypeToken.get(element)));
+        }
+        Supplier<TypeAdapter<?>> adapter = ADAPTERS.get(raw);
+        return adapter == null ? null : (TypeAdapter<T>) adapter.get();
+    }
+}
@@ -6,7 +6,7 @@ import android.os.Looper;
 import android.widget.Toast;
 
 import com.proyecto.facilgimapp.R;
-import com.proyecto.facilgimapp.util.SessionManager;
+import com.proyecto.facilgimapp.repository.PrefetchCoordinator;
 
 import java.io.IOException;
 
@@ -61,8 +61,9 @@ public class ErrorInterceptor implements Interceptor {
                 return response;
             }
             // en cualquier otro caso, sí limpiamos sesión y redirigimos:
-            SessionManager.clearLoginOnly(appContext);
+            AuthState.get(appContext).clear();
             new Handler(Looper.getMainLooper()).post(() -> {
+                PrefetchCoordinator.get(appContext).cancel();
                 SessionRedirector.redirectToLogin(appContext);
             });
         }
@@ -0,0 +1,93 @@
+package com.proyecto.facilgimapp.network;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores globales del uso de la caché HTTP en disco.
+ * <p>
+ * Distingue entre aciertos (respuesta servida desde disco sin tocar la red),
+ * revalidaciones (el servidor devolvió 304 y el cuerpo se leyó de disco) y fallos
+ * (la respuesta completa llegó por la red). También acumula una estimación de los
+ * bytes de cuerpo que no fue necesario descargar gracias a la caché.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class HttpCacheStats {
+    private static final HttpCacheStats INST = new HttpCacheStats();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private HttpCacheStats() {}
+
+    /**
+     * Devuelve la instancia singleton de los contadores.
+     *
+     * @return la instancia única de HttpCacheStats.
+     */
+    public static HttpCacheStats get() {
+        return INST;
+    }
+
+    /** Registra una respuesta servida desde disco sin petición de red. */
+    void recordHit(long bodyBytes) {
+        hits.incrementAndGet();
+        addSaved(bodyBytes);
+    }
+
+    /** Registra una revalidación condicional resuelta con 304. */
+    void recordRevalidation(long bodyBytes) {
+        revalidations.incrementAndGet();
+        addSaved(bodyBytes);
+    }
+
+    /** Registra una respuesta descargada completa desde la red. */
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    private void addSaved(long bodyBytes) {
+        if (bodyBytes > 0) bytesSaved.addAndGet(bodyBytes);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Bytes de cuerpo servidos desde disco en lugar de la red. Es una estimación
+     * basada en {@code Content-Length}; las respuestas sin esa cabecera no suman.
+     *
+     * @return total de bytes ahorrados.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /** Pone todos los contadores a cero. */
+    public void reset() {
+        hits.set(0);
+        revalidations.set(0);
+        misses.set(0);
+        bytesSaved.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "HttpCacheStats{hits=%d, revalidations=%d, misses=%d, bytesSaved=%d}",
+                getHits(), getRevalidations(), getMisses(), getBytesSaved());
+    }
+}
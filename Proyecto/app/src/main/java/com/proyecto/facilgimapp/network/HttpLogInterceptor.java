@@ -0,0 +1,334 @@
+package com.proyecto.facilgimapp.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Interceptor de log HTTP que no retiene ni retrasa las respuestas.
+ * <p>
+ * A diferencia de {@code HttpLoggingInterceptor} con nivel BODY, no lee el cuerpo de la
+ * respuesta por adelantado: copia como mucho {@link Config#maxBodyBytes} bytes a medida
+ * que la aplicación lo va leyendo y escribe el log cuando termina. Los cuerpos solo se
+ * registran en una muestra de las llamadas ({@link Config#bodySampleRate}) y siempre en
+ * las respuestas de error. Las cabeceras de autenticación, los parámetros y los campos
+ * JSON con contraseñas o tokens se sustituyen por {@code ***}. El formateo y la escritura
+ * se hacen en {@link AsyncLogWriter}, fuera del hilo de la petición.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class HttpLogInterceptor implements Interceptor {
+
+    /** Nivel de detalle del log. */
+    public enum Level {
+        /** Sin log. */
+        NONE,
+        /** Línea de petición y de respuesta, con código, duración y tamaño. */
+        BASIC,
+        /** Además, las cabeceras. */
+        HEADERS,
+        /** Además, los cuerpos de texto de las llamadas muestreadas y de los errores. */
+        BODY
+    }
+
+    /**
+     * Configuración del log.
+     */
+    public static final class Config {
+        /** Nivel de detalle. */
+        public final Level level;
+        /** Fracción (0..1) de llamadas correctas cuyo cuerpo se registra con {@link Level#BODY}. */
+        public final double bodySampleRate;
+        /** Bytes máximos de cada cuerpo registrado. */
+        public final int maxBodyBytes;
+
+        /**
+         * Crea una configuración.
+         *
+         * @param level          Nivel de detalle.
+         * @param bodySampleRate Fracción de llamadas con cuerpo registrado, entre 0 y 1.
+         * @param maxBodyBytes   Límite de bytes por cuerpo.
+         */
+        public Config(@NonNull Level level, double bodySampleRate, int maxBodyBytes) {
+            this.level = level;
+            this.bodySampleRate = Math.max(0, Math.min(1, bodySampleRate));
+            this.maxBodyBytes = Math.max(0, maxBodyBytes);
+        }
+
+        /**
+         * Configuración por tipo de build: en depuración, cabeceras y el cuerpo del 10 % de
+         * las llamadas (hasta 4 KB); en release, solo la línea básica.
+         *
+         * @param debug {@code true} para builds de depuración.
+         * @return la configuración correspondiente.
+         */
+        public static Config forBuild(boolean debug) {
+            return debug ? new Config(Level.BODY, 0.1, 4 * 1024) : new Config(Level.BASIC, 0, 0);
+        }
+    }
+
+    private static final String REDACTED = "***";
+    private static final Set<String> SENSITIVE_HEADERS = new HashSet<>(Arrays.asList(
+            "authorization", "proxy-authorization", "cookie", "set-cookie"));
+    private static final String SENSITIVE_NAMES =
+            "password|contrasena|currentPassword|newPassword|token|accessToken|refreshToken|jwt";
+    private static final Set<String> SENSITIVE_PARAMS = new HashSet<>(Arrays.asList(
+            SENSITIVE_NAMES.toLowerCase(Locale.ROOT).split("\\|")));
+    private static final Pattern SENSITIVE_JSON = Pattern.compile(
+            "(\"(?:" + SENSITIVE_NAMES + ")\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*\"",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SENSITIVE_FORM = Pattern.compile(
+            "((?:^|&)(?:" + SENSITIVE_NAMES + ")=)[^&]*", Pattern.CASE_INSENSITIVE);
+
+    private final Config config;
+
+    /**
+     * Crea el interceptor.
+     *
+     * @param config Configuración del log.
+     */
+    public HttpLogInterceptor(@NonNull Config config) {
+        this.config = config;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (config.level == Level.NONE) return chain.proceed(request);
+
+        boolean withHeaders = config.level.compareTo(Level.HEADERS) >= 0;
+        boolean withBodies = config.level == Level.BODY;
+        boolean sampled = withBodies && config.bodySampleRate > 0
+                && ThreadLocalRandom.current().nextDouble() < config.bodySampleRate;
+
+        ByteString requestBody = sampled ? captureRequestBody(request.body()) : null;
+        AsyncLogWriter.get().post(() -> formatRequest(request, withHeaders, requestBody));
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            String url = redact(request.url());
+            AsyncLogWriter.get().post(() -> "<-- HTTP FAILED " + url + ": " + e);
+            throw e;
+        }
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int code = response.code();
+        String message = response.message();
+        String url = redact(response.request().url());
+        Headers headers = withHeaders ? response.headers() : null;
+        ResponseBody body = response.body();
+
+        boolean logBody = withBodies && (sampled || code >= 400)
+                && body != null && body.contentLength() != 0 && isText(body.contentType());
+        if (!logBody) {
+            long length = body == null ? -1 : body.contentLength();
+            AsyncLogWriter.get().post(() ->
+                    formatResponse(code, message, url, tookMs, length, headers, null, false, null));
+            return response;
+        }
+
+        Charset charset = charsetOf(body.contentType());
+        TeeBody tee = new TeeBody(body, config.maxBodyBytes, (captured, total, complete) ->
+                AsyncLogWriter.get().post(() ->
+                        formatResponse(code, message, url, tookMs, total, headers,
+                                captured, complete, charset)));
+        return response.newBuilder().body(tee).build();
+    }
+
+    /** Copia el cuerpo de la petición si es de texto, repetible y no supera el límite. */
+    @Nullable
+    private ByteString captureRequestBody(@Nullable RequestBody body) {
+        if (body == null || body.isDuplex() || body.isOneShot() || !isText(body.contentType())) {
+            return null;
+        }
+        try {
+            long length = body.contentLength();
+            if (length < 0 || length > config.maxBodyBytes) return null;
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            return buffer.readByteString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String formatRequest(Request request, boolean withHeaders,
+                                        @Nullable ByteString body) {
+        StringBuilder sb = new StringBuilder("--> ")
+                .append(request.method()).append(' ').append(redact(request.url()));
+        RequestBody rb = request.body();
+        if (rb != null) {
+            try {
+                sb.append(" (").append(rb.contentLength()).append("-byte body)");
+            } catch (IOException ignored) {
+                // Sin longitud conocida
+            }
+        }
+        if (withHeaders) appendHeaders(sb, request.headers());
+        if (body != null) {
+            sb.append('\n').append(redactBody(body.string(charsetOf(rb.contentType()))));
+        }
+        return sb.toString();
+    }
+
+    private static String formatResponse(int code, String message, String url, long tookMs,
+                                         long bytes, @Nullable Headers headers,
+                                         @Nullable ByteString body, boolean complete,
+                                         @Nullable Charset charset) {
+        StringBuilder sb = new StringBuilder("<-- ").append(code);
+        if (!message.isEmpty()) sb.append(' ').append(message);
+        sb.append(' ').append(url).append(" (").append(tookMs).append(" ms");
+        if (bytes >= 0) sb.append(", ").append(bytes).append(" bytes");
+        sb.append(')');
+        if (headers != null) appendHeaders(sb, headers);
+        if (body != null) {
+            sb.append('\n').append(redactBody(body.string(charset)));
+            if (!complete || body.size() < bytes) sb.append("\n[... truncado]");
+        }
+        return sb.toString();
+    }
+
+    private static void appendHeaders(StringBuilder sb, Headers headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.name(i);
+            String value = SENSITIVE_HEADERS.contains(name.toLowerCase(Locale.ROOT))
+                    ? REDACTED : headers.value(i);
+            sb.append('\n').append(name).append(": ").append(value);
+        }
+    }
+
+    private static String redact(HttpUrl url) {
+        HttpUrl.Builder builder = null;
+        for (String name : url.queryParameterNames()) {
+            if (SENSITIVE_PARAMS.contains(name.toLowerCase(Locale.ROOT))) {
+                if (builder == null) builder = url.newBuilder();
+                builder.setQueryParameter(name, REDACTED);
+            }
+        }
+        return (builder == null ? url : builder.build()).toString();
+    }
+
+    private static String redactBody(String body) {
+        Matcher json = SENSITIVE_JSON.matcher(body);
+        String out = json.replaceAll("$1\"" + REDACTED + "\"");
+        return SENSITIVE_FORM.matcher(out).replaceAll("$1" + REDACTED);
+    }
+
+    private static boolean isText(@Nullable MediaType type) {
+        if (type == null) return false;
+        String subtype = type.subtype().toLowerCase(Locale.ROOT);
+        return "text".equals(type.type()) || subtype.contains("json")
+                || subtype.contains("xml") || subtype.equals("x-www-form-urlencoded");
+    }
+
+    private static Charset charsetOf(@Nullable MediaType type) {
+        Charset charset = type == null ? null : type.charset(StandardCharsets.UTF_8);
+        return charset == null ? StandardCharsets.UTF_8 : charset;
+    }
+
+    /** Recibe la parte copiada del cuerpo cuando la aplicación termina de leerlo. */
+    private interface CaptureListener {
+        void onCaptured(ByteString captured, long totalBytes, boolean complete);
+    }
+
+    /**
+     * Cuerpo de respuesta que deja pasar los datos tal cual y copia los primeros
+     * {@code limit} bytes según se leen.
+     */
+    private static final class TeeBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        TeeBody(ResponseBody delegate, int limit, CaptureListener listener) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                private final Buffer capture = new Buffer();
+                private long total;
+                private boolean reported;
+
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        report(false);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        report(true);
+                        return -1;
+                    }
+                    total += read;
+                    long room = limit - capture.size();
+                    if (room > 0) {
+                        sink.copyTo(capture, sink.size() - read, Math.min(room, read));
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    report(false);
+                    super.close();
+                }
+
+                private void report(boolean complete) {
+                    if (reported) return;
+                    reported = true;
+                    // Los conversores suelen cerrar sin leer el final del flujo
+                    long length = delegate.contentLength();
+                    listener.onCaptured(capture.readByteString(), total,
+                            complete || (length >= 0 && total >= length));
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
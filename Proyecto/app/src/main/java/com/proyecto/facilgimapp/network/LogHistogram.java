@@ -0,0 +1,114 @@
+package com.proyecto.facilgimapp.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de valores no negativos con buckets log-lineales, al estilo de HdrHistogram.
+ * <p>
+ * Los valores menores que {@link #LINEAR_LIMIT} se guardan exactos; a partir de ahí cada
+ * potencia de dos se divide en {@link #SUB_BUCKETS} buckets iguales, de modo que el error
+ * relativo de los percentiles es como mucho de 1/{@value #SUB_BUCKETS} (~6 %) sea cual sea
+ * la magnitud. Los valores mayores que 2<sup>{@value #MAX_EXPONENT}</sup> se acumulan en el
+ * último bucket. Ocupa memoria fija y admite registros concurrentes sin bloqueos.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class LogHistogram {
+    /** Valores que se registran sin pérdida de precisión. */
+    static final int LINEAR_LIMIT = 32;
+    /** Buckets por cada potencia de dos a partir de {@link #LINEAR_LIMIT}. */
+    static final int SUB_BUCKETS = 16;
+    /** Potencia de dos del mayor valor distinguible. */
+    static final int MAX_EXPONENT = 32;
+
+    private static final int LINEAR_BITS = 5;  // log2(LINEAR_LIMIT)
+    private static final int SUB_BITS = 4;     // log2(SUB_BUCKETS)
+    private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra un valor; los negativos se ignoran.
+     *
+     * @param value Valor a registrar.
+     */
+    public void record(long value) {
+        if (value < 0) return;
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long prev;
+        while (value > (prev = max.get()) && !max.compareAndSet(prev, value)) {
+            // reintento hasta publicar el nuevo máximo
+        }
+    }
+
+    /** @return número de valores registrados. */
+    public long getCount() {
+        return count.get();
+    }
+
+    /** @return mayor valor registrado, o 0 si no hay ninguno. */
+    public long getMax() {
+        return max.get();
+    }
+
+    /** @return media de los valores registrados, o 0 si no hay ninguno. */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /** @return suma de los valores registrados. */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Valor por debajo del cual está el porcentaje indicado de registros.
+     *
+     * @param percentile Percentil entre 0 y 100.
+     * @return el límite superior del bucket que contiene el percentil, sin superar el máximo;
+     * 0 si no hay registros.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /** Pone el histograma a cero. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int exponent = LINEAR_BITS + (index - LINEAR_LIMIT) / SUB_BUCKETS;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.proyecto.facilgimapp.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.proyecto.facilgimapp.network.NetworkMetrics.Metric;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * {@link EventListener} de OkHttp que mide las fases de cada llamada y las registra en
+ * {@link NetworkMetrics}, agrupadas por el método de {@link ApiService} que la originó.
+ * <p>
+ * Se crea una instancia por llamada mediante {@link #FACTORY}; OkHttp entrega los eventos
+ * de una llamada de forma secuencial, así que no necesita sincronización. Si una llamada
+ * se reintenta, cada intento registra sus propias fases y los bytes se suman.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class MetricsEventListener extends EventListener {
+
+    /** Factoría para {@code OkHttpClient.Builder#eventListenerFactory}. */
+    public static final EventListener.Factory FACTORY = MetricsEventListener::new;
+
+    private final NetworkMetrics.Endpoint endpoint;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long responseBodyStart;
+    private long requestBytes;
+    private long responseBytes;
+
+    private MetricsEventListener(Call call) {
+        this.endpoint = NetworkMetrics.get().endpoint(endpointName(call.request()));
+    }
+
+    /** Método de la interfaz Retrofit, o método y ruta si la petición no viene de Retrofit. */
+    private static String endpointName(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) return invocation.method().getName();
+        return request.method() + " " + request.url().encodedPath();
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName,
+                       @NonNull List<InetAddress> inetAddressList) {
+        endpoint.record(Metric.DNS_MS, elapsedMs(dnsStart));
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address,
+                             @NonNull Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+        endpoint.record(Metric.TLS_MS, elapsedMs(secureConnectStart));
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address,
+                           @NonNull Proxy proxy, @Nullable Protocol protocol) {
+        endpoint.record(Metric.CONNECT_MS, elapsedMs(connectStart));
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+        requestBytes += request.headers().byteCount();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        requestBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        endpoint.record(Metric.TTFB_MS, elapsedMs(requestStart));
+    }
+
+    @Override
+    public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+        responseBytes += response.headers().byteCount();
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        endpoint.record(Metric.BODY_READ_MS, elapsedMs(responseBodyStart));
+        responseBytes += byteCount;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        finish(false);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        finish(true);
+    }
+
+    private void finish(boolean failed) {
+        endpoint.record(Metric.TOTAL_MS, elapsedMs(callStart));
+        if (requestBytes > 0) endpoint.record(Metric.REQUEST_BYTES, requestBytes);
+        if (responseBytes > 0) endpoint.record(Metric.RESPONSE_BYTES, responseBytes);
+        endpoint.onCallFinished(failed);
+    }
+}
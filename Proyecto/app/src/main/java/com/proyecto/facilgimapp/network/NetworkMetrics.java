@@ -0,0 +1,186 @@
+package com.proyecto.facilgimapp.network;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de red por endpoint recogidas por {@link MetricsEventListener}.
+ * <p>
+ * Cada endpoint (el método de {@link ApiService} que originó la llamada) tiene un
+ * {@link LogHistogram} por fase: DNS, conexión, TLS, tiempo hasta el primer byte, lectura
+ * del cuerpo y duración total, en milisegundos, y otros dos para los bytes enviados y
+ * recibidos. Las fases de DNS, conexión y TLS solo se registran cuando la llamada abre
+ * una conexión nueva.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class NetworkMetrics {
+    private static final NetworkMetrics INST = new NetworkMetrics();
+
+    /** Fases y magnitudes medidas para cada endpoint. */
+    public enum Metric {
+        DNS_MS, CONNECT_MS, TLS_MS, TTFB_MS, BODY_READ_MS, TOTAL_MS, REQUEST_BYTES, RESPONSE_BYTES
+    }
+
+    /** Métricas de un endpoint. */
+    public static final class Endpoint {
+        private final String name;
+        private final LogHistogram[] histograms = new LogHistogram[Metric.values().length];
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        Endpoint(String name) {
+            this.name = name;
+            for (int i = 0; i < histograms.length; i++) histograms[i] = new LogHistogram();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * Histograma de una magnitud.
+         *
+         * @param metric Magnitud deseada.
+         * @return su histograma.
+         */
+        public LogHistogram get(Metric metric) {
+            return histograms[metric.ordinal()];
+        }
+
+        void record(Metric metric, long value) {
+            histograms[metric.ordinal()].record(value);
+        }
+
+        void onCallFinished(boolean failed) {
+            calls.incrementAndGet();
+            if (failed) failures.incrementAndGet();
+        }
+
+        void reset() {
+            for (LogHistogram h : histograms) h.reset();
+            calls.set(0);
+            failures.set(0);
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private NetworkMetrics() {}
+
+    /**
+     * Devuelve la instancia singleton de las métricas.
+     *
+     * @return la instancia única de NetworkMetrics.
+     */
+    public static NetworkMetrics get() {
+        return INST;
+    }
+
+    Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    /**
+     * Endpoints con llamadas registradas, de mayor a menor p95 de duración total.
+     *
+     * @return copia de la lista de endpoints.
+     */
+    public List<Endpoint> getEndpoints() {
+        List<Endpoint> list = new ArrayList<>(endpoints.values());
+        Collections.sort(list, (a, b) -> Long.compare(
+                b.get(Metric.TOTAL_MS).getPercentile(95), a.get(Metric.TOTAL_MS).getPercentile(95)));
+        return list;
+    }
+
+    /** Pone a cero las métricas de todos los endpoints. */
+    public void reset() {
+        for (Endpoint e : endpoints.values()) e.reset();
+    }
+
+    /**
+     * Resumen legible, una línea por endpoint con los percentiles de las fases principales.
+     *
+     * @return el resumen en texto plano.
+     */
+    @NonNull
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Endpoint e : getEndpoints()) {
+            LogHistogram total = e.get(Metric.TOTAL_MS);
+            LogHistogram ttfb = e.get(Metric.TTFB_MS);
+            LogHistogram body = e.get(Metric.BODY_READ_MS);
+            sb.append(e.getName()).append('\n')
+                    .append(String.format(Locale.ROOT,
+                            "  n=%d err=%d  total p50=%d p95=%d p99=%d max=%d ms%n",
+                            e.getCalls(), e.getFailures(), total.getPercentile(50),
+                            total.getPercentile(95), total.getPercentile(99), total.getMax()))
+                    .append(String.format(Locale.ROOT,
+                            "  ttfb p50=%d p95=%d  body p95=%d  conn n=%d p95=%d  tls p95=%d ms%n",
+                            ttfb.getPercentile(50), ttfb.getPercentile(95), body.getPercentile(95),
+                            e.get(Metric.CONNECT_MS).getCount(), e.get(Metric.CONNECT_MS).getPercentile(95),
+                            e.get(Metric.TLS_MS).getPercentile(95)))
+                    .append(String.format(Locale.ROOT,
+                            "  bytes in p50=%d max=%d  out max=%d%n%n",
+                            e.get(Metric.RESPONSE_BYTES).getPercentile(50),
+                            e.get(Metric.RESPONSE_BYTES).getMax(),
+                            e.get(Metric.REQUEST_BYTES).getMax()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Volcado completo en JSON: por endpoint, llamadas, fallos y, para cada magnitud,
+     * número de muestras, media, p50, p90, p95, p99 y máximo.
+     *
+     * @return el JSON formateado.
+     */
+    @NonNull
+    public String toJson() {
+        JsonArray array = new JsonArray();
+        for (Endpoint e : getEndpoints()) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("endpoint", e.getName());
+            obj.addProperty("calls", e.getCalls());
+            obj.addProperty("failures", e.getFailures());
+            for (Metric m : Metric.values()) {
+                LogHistogram h = e.get(m);
+                if (h.getCount() == 0) continue;
+                JsonObject stats = new JsonObject();
+                stats.addProperty("count", h.getCount());
+                stats.addProperty("mean", Math.round(h.getMean()));
+                stats.addProperty("p50", h.getPercentile(50));
+                stats.addProperty("p90", h.getPercentile(90));
+                stats.addProperty("p95", h.getPercentile(95));
+                stats.addProperty("p99", h.getPercentile(99));
+                stats.addProperty("max", h.getMax());
+                obj.add(m.name().toLowerCase(Locale.ROOT), stats);
+            }
+            array.add(obj);
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", System.currentTimeMillis());
+        root.add("endpoints", array);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+}
@@ -0,0 +1,252 @@
+package com.proyecto.facilgimapp.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Capa de agrupación ("single-flight") de peticiones GET idénticas y concurrentes.
+ * <p>
+ * Los repositorios envuelven sus consultas con {@link #coalesce(String, Supplier)}. Mientras
+ * haya una llamada en curso para una misma clave (método y argumentos), cualquier otro
+ * {@link Call#enqueue(Callback)} con esa clave se une a ella en lugar de lanzar una nueva
+ * petición HTTP, y todos los callbacks reciben el mismo resultado. Cuando la llamada termina
+ * la clave se libera, de modo que la siguiente consulta vuelve a ir al servidor.
+ * </p>
+ * <p>
+ * Si el cuerpo de la respuesta es una lista, cada callback recibe su propia copia para que
+ * los consumidores puedan ordenarla o filtrarla sin afectar a los demás.
+ * </p>
+ * <p>
+ * Cancelar una llamada la saca del grupo sin afectar a las demás (la petición real solo se
+ * cancela cuando no queda nadie esperando) y, como en Retrofit, su callback recibe
+ * {@code onFailure} con una {@link IOException} "Canceled".
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class RequestCoalescer {
+    private static final RequestCoalescer INST = new RequestCoalescer();
+
+    /** Grupos de espera activos, indexados por la clave de la petición. */
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+
+    private RequestCoalescer() {}
+
+    /**
+     * Devuelve la instancia singleton compartida por todos los repositorios.
+     *
+     * @return la instancia única de RequestCoalescer.
+     */
+    public static RequestCoalescer get() {
+        return INST;
+    }
+
+    /**
+     * Envuelve una llamada Retrofit para que se comparta con otras idénticas en curso.
+     *
+     * @param key     Clave que identifica la petición (p. ej. "listAllExercises" o "getWorkoutsByUserId:7").
+     * @param factory Proveedor que crea la llamada real; sólo se invoca si no hay una en curso.
+     * @param <T>     Tipo del cuerpo de la respuesta.
+     * @return Un {@link Call} que se une a la petición en curso al hacer {@code enqueue}.
+     */
+    public <T> Call<T> coalesce(String key, Supplier<Call<T>> factory) {
+        return new SharedCall<>(key, factory);
+    }
+
+    /** Número de peticiones HTTP reales lanzadas a través del agrupador. */
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    /** Número de llamadas que se unieron a una petición ya en curso en lugar de lanzar otra. */
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> InFlight<T> join(SharedCall<T> call, Callback<T> callback) {
+        InFlight<T> group = (InFlight<T>) inFlight.get(call.key);
+        if (group != null) {
+            group.waiters.add(new Waiter<>(call, callback));
+            joined.incrementAndGet();
+            return null;
+        }
+        group = new InFlight<>(call.factory.get());
+        group.waiters.add(new Waiter<>(call, callback));
+        inFlight.put(call.key, group);
+        started.incrementAndGet();
+        return group;
+    }
+
+    private synchronized <T> List<Waiter<T>> complete(String key, InFlight<T> group) {
+        if (inFlight.get(key) == group) {
+            inFlight.remove(key);
+        }
+        return new ArrayList<>(group.waiters);
+    }
+
+    /**
+     * Saca una llamada de su grupo.
+     *
+     * @return el callback que esperaba, o null si ya había recibido el resultado.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Callback<T> leave(SharedCall<T> call) {
+        InFlight<T> group = (InFlight<T>) inFlight.get(call.key);
+        if (group == null) return null;
+        Callback<T> callback = null;
+        for (Iterator<Waiter<T>> it = group.waiters.iterator(); it.hasNext(); ) {
+            Waiter<T> w = it.next();
+            if (w.call == call) {
+                callback = w.callback;
+                it.remove();
+                break;
+            }
+        }
+        if (group.waiters.isEmpty()) {
+            inFlight.remove(call.key);
+            group.delegate.cancel();
+        }
+        return callback;
+    }
+
+    /** Petición HTTP real en curso y los callbacks que esperan su resultado. */
+    private static class InFlight<T> {
+        final Call<T> delegate;
+        final List<Waiter<T>> waiters = new ArrayList<>();
+
+        InFlight(Call<T> delegate) {
+            this.delegate = delegate;
+        }
+    }
+
+    private static class Waiter<T> {
+        final SharedCall<T> call;
+        final Callback<T> callback;
+
+        Waiter(SharedCall<T> call, Callback<T> callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * {@link Call} que delega en la petición compartida de su clave.
+     */
+    private class SharedCall<T> implements Call<T> {
+        final String key;
+        final Supplier<Call<T>> factory;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private Call<T> lastDelegate;
+
+        SharedCall(String key, Supplier<Call<T>> factory) {
+            this.key = key;
+            this.factory = factory;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            // Las llamadas síncronas no se agrupan: el hilo llamante ya está bloqueado
+            lastDelegate = factory.get();
+            return lastDelegate.execute();
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            InFlight<T> group = join(this, callback);
+            if (group == null) return;
+            lastDelegate = group.delegate;
+            group.delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                    for (Waiter<T> w : complete(key, group)) {
+                        w.callback.onResponse(w.call, copyOf(response));
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                    for (Waiter<T> w : complete(key, group)) {
+                        w.callback.onFailure(w.call, t);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            if (canceled) return;
+            canceled = true;
+            Callback<T> callback = leave(this);
+            if (callback != null) callback.onFailure(this, new IOException("Canceled"));
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new SharedCall<>(key, factory);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate().request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate().timeout();
+        }
+
+        private Call<T> delegate() {
+            if (lastDelegate == null) lastDelegate = factory.get();
+            return lastDelegate;
+        }
+    }
+
+    /**
+     * Copia superficial del cuerpo cuando es una lista, para que cada consumidor tenga la suya.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Response<T> copyOf(Response<T> response) {
+        T body = response.body();
+        if (body instanceof List) {
+            T copy = (T) new ArrayList<>((List<?>) body);
+            return Response.success(copy, response.raw());
+        }
+        return response;
+    }
+}
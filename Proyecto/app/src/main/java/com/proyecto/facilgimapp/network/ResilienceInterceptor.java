@@ -0,0 +1,202 @@
+package com.proyecto.facilgimapp.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor de OkHttp que reintenta las peticiones idempotentes que fallan de forma
+ * transitoria y protege cada host con un {@link CircuitBreaker}.
+ * <p>
+ * Solo se reintentan GET, HEAD, OPTIONS, PUT y DELETE (y cualquier petición que lleve
+ * cabecera {@code Idempotency-Key}), ante errores de red y respuestas
+ * 408, 429, 502, 503 o 504, hasta {@link #MAX_ATTEMPTS} intentos. La espera entre
+ * intentos crece exponencialmente desde {@link #BASE_DELAY_MS} con una parte aleatoria,
+ * para que los clientes no reintenten a la vez; si el servidor envía {@code Retry-After}
+ * se respeta, y si pide esperar más de {@link #MAX_DELAY_MS} se devuelve la respuesta
+ * sin reintentar.
+ * </p>
+ * <p>
+ * Mientras el circuito de un host está abierto las peticiones fallan al instante con
+ * {@link CircuitOpenException}. Pasado el tiempo de espera, la primera petición consulta
+ * antes {@code actuator/health}: si responde bien el circuito se cierra y la petición
+ * sigue su curso; si no, se vuelve a abrir.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class ResilienceInterceptor implements Interceptor {
+    /** Intentos máximos por petición, incluido el primero. */
+    public static final int MAX_ATTEMPTS = 3;
+    /** Espera base entre intentos. */
+    public static final long BASE_DELAY_MS = 300;
+    /** Espera máxima entre intentos. */
+    public static final long MAX_DELAY_MS = 4_000;
+
+    private final HttpUrl healthUrl;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Crea el interceptor.
+     *
+     * @param baseUrl URL base de la API; el sondeo de salud es {@code actuator/health}
+     *                relativo a ella.
+     */
+    public ResilienceInterceptor(String baseUrl) {
+        this.healthUrl = HttpUrl.get(baseUrl).resolve("actuator/health");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        CircuitBreaker breaker = breakers.computeIfAbsent(url.host(), CircuitBreaker::new);
+
+        boolean probing = false;
+        switch (breaker.acquire()) {
+            case REJECT:
+                throw new CircuitOpenException(url.host(), breaker.remainingOpenMs());
+            case PROBE:
+                // Si la propia petición es la de salud, ella misma hace de sondeo
+                if (url.encodedPath().equals(healthUrl.encodedPath())) {
+                    probing = true;
+                } else if (!probe(chain, url, breaker)) {
+                    throw new CircuitOpenException(url.host(), breaker.remainingOpenMs());
+                }
+                break;
+            default:
+                break;
+        }
+        return proceedWithRetries(chain, request, breaker, probing);
+    }
+
+    /** Consulta la salud del servidor e informa al circuito. */
+    private boolean probe(Chain chain, HttpUrl url, CircuitBreaker breaker) throws IOException {
+        Request health = new Request.Builder()
+                .url(healthUrl.newBuilder()
+                        .scheme(url.scheme())
+                        .host(url.host())
+                        .port(url.port())
+                        .build())
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .build();
+        boolean healthy;
+        try (Response response = chain.proceed(health)) {
+            healthy = response.isSuccessful();
+        } catch (IOException e) {
+            // El circuito no puede quedarse a medio abrir: cualquier error cuenta como fallo
+            breaker.onFailure();
+            if (chain.call().isCanceled()) throw e;
+            return false;
+        }
+        if (healthy) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+        return healthy;
+    }
+
+    /**
+     * Envía la petición con reintentos.
+     *
+     * @param probing Si la petición hace de sondeo del circuito a medio abrir; en ese caso
+     *                su resultado se informa siempre, también si se cancela.
+     */
+    private Response proceedWithRetries(Chain chain, Request request, CircuitBreaker breaker,
+                                        boolean probing) throws IOException {
+        boolean idempotent = isIdempotent(request.method())
+                || request.header("Idempotency-Key") != null;
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    // Como en probe(): el circuito no puede quedarse a medio abrir
+                    if (probing) breaker.onFailure();
+                    throw e;
+                }
+                breaker.onFailure();
+                if (!canRetry(idempotent, attempt, breaker)) throw e;
+                sleep(backoff(attempt));
+                continue;
+            }
+
+            int code = response.code();
+            if (isServerUnavailable(code)) {
+                breaker.onFailure();
+            } else {
+                // El servidor ha respondido (aunque sea con un error de la aplicación)
+                breaker.onSuccess();
+            }
+            if (!isRetryable(code) || !canRetry(idempotent, attempt, breaker)) {
+                return response;
+            }
+            long delay = Math.max(backoff(attempt), retryAfterMs(response));
+            if (delay > MAX_DELAY_MS) return response;
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    private static boolean canRetry(boolean idempotent, int attempt, CircuitBreaker breaker) {
+        return idempotent && attempt < MAX_ATTEMPTS && breaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    private static boolean isIdempotent(String method) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Códigos que indican que el servidor (o el proxy delante) no está disponible. */
+    private static boolean isServerUnavailable(int code) {
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || isServerUnavailable(code);
+    }
+
+    /** Espera exponencial con jitter: entre la mitad y el total de {@code base * 2^(n-1)}. */
+    private static long backoff(int attempt) {
+        long exp = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << (attempt - 1));
+        return exp / 2 + ThreadLocalRandom.current().nextLong(exp / 2 + 1);
+    }
+
+    /** Valor de {@code Retry-After} en milisegundos (solo el formato en segundos), o 0. */
+    private static long retryAfterMs(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) return 0;
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void sleep(long ms) throws InterruptedIOException {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Reintento interrumpido");
+        }
+    }
+}
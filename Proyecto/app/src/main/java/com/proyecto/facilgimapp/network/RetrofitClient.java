@@ -1,48 +1,91 @@
 package com.proyecto.facilgimapp.network;
 
 import android.content.Context;
+import android.util.Log;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.proyecto.facilgimapp.util.LocalDateAdapter;
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import com.proyecto.facilgimapp.BuildConfig;
 /**
  * Clase responsable de configurar y proporcionar una instancia de Retrofit
- * para las llamadas a la API REST. Incluye la inicialización de GSON para 
- * serializar/deserializar objetos LocalDate y la configuración de los 
- * interceptores necesarios (autenticación, manejo de errores y logging).
+ * para las llamadas a la API REST. Incluye la inicialización de GSON, con
+ * adaptadores en streaming para los DTO y LocalDate, la lectura de respuestas CBOR
+ * ({@link CborConverterFactory}), la caché HTTP en disco y la
+ * configuración de los interceptores necesarios (autenticación, manejo de
+ * errores, caché y logging).
  *
  * @author Francisco Santana
  */
 public class RetrofitClient {
+    private static final String TAG = "RetrofitClient";
     private static final String BASE_URL = BuildConfig.BASE_URL ;
     //Este comando hay que hacerlo cada vez que enchufe el usb
     //comando para aceptar peticiones https en el dispositivo fisico: adb -s PVEM6DHELBNN5THQ reverse tcp:8443 tcp:8443
     private static Retrofit retrofit;
+    /** Caché HTTP en disco del cliente; null hasta crear Retrofit. */
+    private static volatile Cache httpCache;
+
+    /**
+     * Gson compartido por toda la aplicación: adaptadores en streaming para los DTO
+     * ({@link DtoTypeAdapterFactory}) y {@link LocalDate} en formato ISO.
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new DtoTypeAdapterFactory())
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .create();
+    /** Tamaño máximo de la caché HTTP en disco (10 MB). */
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * Devuelve la instancia de Gson configurada que usa Retrofit, para serializar los
+     * DTO fuera de las llamadas (colas persistentes, cuerpos multiparte...).
+     *
+     * @return el Gson compartido.
+     */
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    /**
+     * Vacía la caché HTTP en disco, para que tras cerrar sesión el siguiente usuario no
+     * reciba respuestas cacheadas del anterior. Hace E/S de disco: llamar fuera del hilo
+     * principal.
+     */
+    public static void evictHttpCache() {
+        Cache cache = httpCache;
+        if (cache == null) return;
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudo vaciar la caché HTTP", e);
+        }
+    }
 
     public static ApiService getApiService(Context context) {
         if (retrofit == null) {
-            //  Configurar GSON para (de)serializar LocalDate
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
-                    .create();
-
-            // Crear el interceptor de logging
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message ->
-                    android.util.Log.d("OKHTTP", message)
-            );
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            // Caché HTTP en disco para los endpoints de catálogo e historial
+            Cache cache = new Cache(
+                    new File(context.getApplicationContext().getCacheDir(), "http_cache"),
+                    HTTP_CACHE_SIZE);
+            httpCache = cache;
 
             // Construir el OkHttpClient con interceptores
             OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                    .cache(cache)
+                    .eventListenerFactory(MetricsEventListener.FACTORY) // tiempos y bytes por endpoint
+                    .addInterceptor(new CacheStatsInterceptor()) // aciertos/fallos/304 de la caché
                     .addInterceptor(new AuthInterceptor(context))
                     .addInterceptor(new ErrorInterceptor(context)) // añadimos el manejo de errores 401 sesion expirada
-                    .addInterceptor(new NetworkErrorInterceptor())  // captura timeouts, IO, 5xx,etc..
-                    .addInterceptor(logging);
+                    .addInterceptor(new ResilienceInterceptor(BASE_URL)) // reintentos y cortocircuito por host
+                    .addInterceptor(new HttpLogInterceptor(HttpLogInterceptor.Config.forBuild(BuildConfig.DEBUG))) // log asíncrono y muestreado
+                    .addNetworkInterceptor(new CachePolicyInterceptor(cache)); // frescura por endpoint
 
             /* ---------------------------------------------------------
              * BLOQUE DE DESARROLLO: hostnameVerifier permisivo
@@ -65,7 +108,8 @@ public class RetrofitClient {
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
                     .client(client)
-                    .addConverterFactory(GsonConverterFactory.create(gson))
+                    .addConverterFactory(CborConverterFactory.create(GSON)) // CBOR negociado, JSON si no
+                    .addConverterFactory(GsonConverterFactory.create(GSON))
                     .build();
         }
         return retrofit.create(ApiService.class);
@@ -0,0 +1,736 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.proyecto.facilgimapp.database.UploadStore;
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.SubidaDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+import com.proyecto.facilgimapp.util.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import retrofit2.Response;
+
+/**
+ * Subida reanudable de imágenes de ejercicios por trozos.
+ * <p>
+ * La imagen se copia primero a {@code filesDir/subidas} y se envía en trozos de
+ * {@link #CHUNK_SIZE} bytes. Tras cada trozo confirmado por el servidor se guarda el
+ * desplazamiento en {@link UploadStore}, así que una subida interrumpida (sin red, o
+ * porque se cerró la aplicación) continúa desde el último trozo confirmado y no desde
+ * cero. La clave de cada subida combina el SHA-256 del contenido con el ejercicio al
+ * que va destinada: volver a guardar el mismo ejercicio con la misma imagen reanuda la
+ * subida existente, mientras que dos ejercicios con la misma imagen se suben y guardan
+ * cada uno por su lado. La copia local se nombra solo por el contenido y la comparten
+ * todas las subidas de esa imagen; se borra cuando termina la última. Al terminar se
+ * crea o actualiza el ejercicio con la imagen ya subida y se borra el estado guardado.
+ * </p>
+ * <p>
+ * Los fallos temporales (red, 408, 429 o 5xx) se reintentan con espera exponencial hasta
+ * {@link #MAX_ATTEMPTS} veces seguidas; si se agotan, el estado se conserva para
+ * {@link #resumePending(Listener)}. Si el servidor no conoce la subida (404 o 410) se
+ * vuelve a crear, y si discrepa del desplazamiento (409) se consulta el suyo. Las
+ * peticiones que guardan el ejercicio llevan la clave de la subida como clave de
+ * idempotencia, para que reintentarlas tras perder la respuesta no cree el ejercicio dos
+ * veces.
+ * </p>
+ * <p>
+ * Si el servidor no ofrece el endpoint de subidas por trozos (404 al crear la subida; un
+ * 404 de una subida concreta solo significa que el servidor la ha olvidado), se envía
+ * la imagen en una sola petición multiparte, como antes, informando igualmente del
+ * progreso. El endpoint, el almacén y el hilo de los avisos se reciben en el
+ * constructor para poder sustituirlos por un servidor local en las pruebas.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class ChunkedImageUploader {
+    private static final String TAG = "ChunkedImageUploader";
+
+    /** Tamaño de cada trozo. */
+    static final int CHUNK_SIZE = 64 * 1024;
+    /** Intentos seguidos sin avanzar antes de pausar la subida. */
+    static final int MAX_ATTEMPTS = 4;
+    /** Espera antes del primer reintento. */
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final String UPLOAD_DIR = "subidas";
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    /**
+     * Protocolo de subida por trozos del servidor.
+     */
+    interface UploadEndpoint {
+        /**
+         * Crea una subida.
+         *
+         * @param fileName   Nombre del fichero.
+         * @param totalBytes Tamaño total.
+         * @return la respuesta con el ID asignado.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<SubidaDTO> start(String fileName, long totalBytes) throws IOException;
+
+        /**
+         * Consulta cuántos bytes tiene confirmados el servidor.
+         *
+         * @param uploadId ID de la subida.
+         * @return la respuesta con el desplazamiento confirmado.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<SubidaDTO> status(String uploadId) throws IOException;
+
+        /**
+         * Envía un trozo a partir de un desplazamiento.
+         *
+         * @param uploadId ID de la subida.
+         * @param offset   Desplazamiento del primer byte del trozo.
+         * @param chunk    Bytes del trozo.
+         * @return la respuesta con el nuevo desplazamiento confirmado.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<SubidaDTO> putChunk(String uploadId, long offset, RequestBody chunk) throws IOException;
+
+        /**
+         * Crea o actualiza el ejercicio con la imagen de una subida completa.
+         *
+         * @param idempotencyKey Clave que identifica el guardado en todos sus reintentos.
+         * @param exerciseJson   JSON del ejercicio.
+         * @param uploadId       ID de la subida.
+         * @return la respuesta con el ejercicio guardado.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<EjercicioDTO> finish(String idempotencyKey, String exerciseJson, String uploadId)
+                throws IOException;
+
+        /**
+         * Crea o actualiza el ejercicio enviando la imagen completa en una sola petición.
+         *
+         * @param idempotencyKey Clave que identifica el guardado en todos sus reintentos.
+         * @param exerciseJson   JSON del ejercicio.
+         * @param fileName       Nombre del fichero.
+         * @param image          Cuerpo de la imagen.
+         * @return la respuesta con el ejercicio guardado.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<EjercicioDTO> sendWhole(String idempotencyKey, String exerciseJson, String fileName,
+                                         RequestBody image) throws IOException;
+    }
+
+    /**
+     * Estado persistente de las subidas; en la aplicación, {@link UploadStore}.
+     */
+    interface UploadState {
+        /**
+         * Busca una subida por su clave.
+         *
+         * @param key Clave de la subida.
+         * @return la subida, o {@code null} si no existe.
+         */
+        @Nullable
+        UploadStore.Entry find(String key);
+
+        /**
+         * Todas las subidas pendientes, de la más antigua a la más reciente.
+         *
+         * @return lista de subidas, vacía si no hay ninguna.
+         */
+        List<UploadStore.Entry> all();
+
+        /**
+         * Guarda una subida, sustituyendo la que tuviera la misma clave.
+         *
+         * @param entry Subida a guardar.
+         */
+        void save(UploadStore.Entry entry);
+
+        /**
+         * Registra el ID en el servidor y los bytes confirmados.
+         *
+         * @param key       Clave de la subida.
+         * @param uploadId  ID de la subida en el servidor, o {@code null}.
+         * @param confirmed Bytes confirmados.
+         */
+        void updateProgress(String key, @Nullable String uploadId, long confirmed);
+
+        /**
+         * Elimina una subida.
+         *
+         * @param key Clave de la subida.
+         */
+        void remove(String key);
+    }
+
+    /**
+     * Recibe en el hilo principal el avance y el resultado de una subida.
+     */
+    public interface Listener {
+        /**
+         * Bytes confirmados hasta ahora.
+         *
+         * @param sent  Bytes enviados.
+         * @param total Tamaño total.
+         */
+        void onProgress(long sent, long total);
+
+        /**
+         * La subida terminó o se pausó tras agotar los reintentos.
+         *
+         * @param saved Ejercicio guardado, o {@code null} si falló.
+         * @param error Motivo del fallo, o {@code null} si se guardó.
+         */
+        void onComplete(@Nullable EjercicioDTO saved, @Nullable String error);
+    }
+
+    /** Una subida en curso. */
+    private static final class Job {
+        final String key;
+        final File file;
+        final String fileName;
+        final String contentType;
+        final long total;
+        final List<Listener> listeners = new ArrayList<>();
+        volatile String exerciseJson;
+        String uploadId;
+        long confirmed;
+        /** {@code true} si el desplazamiento guardado aún no se ha contrastado con el servidor. */
+        boolean needsSync;
+
+        Job(UploadStore.Entry e) {
+            this.key = e.key;
+            this.file = new File(e.path);
+            this.fileName = e.fileName;
+            this.contentType = e.contentType;
+            this.total = e.total;
+            this.exerciseJson = e.exerciseJson;
+            this.uploadId = e.uploadId;
+            this.confirmed = e.confirmed;
+            this.needsSync = e.uploadId != null;
+        }
+    }
+
+    private static ChunkedImageUploader instance;
+
+    private final UploadEndpoint endpoint;
+    private final UploadState store;
+    private final File dir;
+    /** Hilo en el que se avisa a los oyentes. */
+    private final Executor callbacks;
+    private final Gson gson = RetrofitClient.getGson();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+    /** Subidas en curso por clave; protegido por {@code this}. */
+    private final Map<String, Job> active = new HashMap<>();
+
+    /**
+     * Pasa a {@code false} la primera vez que el servidor responde 404 al crear una subida;
+     * los 404 de los trozos o del guardado de una subida concreta no cuentan.
+     */
+    private volatile boolean chunkedAvailable = true;
+
+    /**
+     * Crea el cargador con el endpoint y el almacén indicados.
+     *
+     * @param endpoint  Protocolo de subida del servidor (o un sustituto local).
+     * @param store     Almacén del estado de las subidas.
+     * @param dir       Directorio de las copias locales.
+     * @param callbacks Ejecutor en el que se avisa a los oyentes.
+     */
+    ChunkedImageUploader(UploadEndpoint endpoint, UploadState store, File dir, Executor callbacks) {
+        this.endpoint = endpoint;
+        this.store = store;
+        this.dir = dir;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Devuelve la instancia única del cargador.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de ChunkedImageUploader.
+     */
+    public static synchronized ChunkedImageUploader get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new ChunkedImageUploader(
+                    new RemoteEndpoint(RetrofitClient.getApiService(app)),
+                    new LocalState(UploadStore.get(app)),
+                    new File(app.getFilesDir(), UPLOAD_DIR),
+                    new Handler(Looper.getMainLooper())::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Sube una imagen y crea o actualiza el ejercicio con ella. Copia el contenido antes
+     * de volver, así que debe llamarse fuera del hilo principal; la subida sigue en
+     * segundo plano.
+     *
+     * @param ejercicio   Ejercicio al que se asocia la imagen.
+     * @param content     Contenido de la imagen; se lee entero y lo cierra quien llama.
+     * @param fileName    Nombre con extensión con el que se envía.
+     * @param contentType Tipo MIME del contenido.
+     * @param listener    Oyente del avance y del resultado.
+     * @throws IOException si no se puede copiar el contenido.
+     */
+    public void upload(@NonNull EjercicioDTO ejercicio, @NonNull InputStream content,
+                       @NonNull String fileName, @NonNull String contentType,
+                       @NonNull Listener listener) throws IOException {
+        String exerciseJson = gson.toJson(ejercicio);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("No se pudo crear " + dir);
+        File tmp = File.createTempFile("subida", ".tmp", dir);
+        String hash;
+        long total;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = new FileOutputStream(tmp)) {
+                total = copy(in, out);
+            }
+            hash = hex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            FileUtils.deleteQuietly(tmp);
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+
+        String key = hash + "-" + exerciseKey(ejercicio, exerciseJson);
+        Job job;
+        synchronized (this) {
+            job = active.get(key);
+            if (job != null) {
+                // Mismo ejercicio e imagen ya en curso: se reutiliza con sus datos más recientes
+                FileUtils.deleteQuietly(tmp);
+                job.exerciseJson = exerciseJson;
+                job.listeners.add(listener);
+                return;
+            }
+            UploadStore.Entry saved = store.find(key);
+            if (saved != null && new File(saved.path).length() == saved.total) {
+                FileUtils.deleteQuietly(tmp);
+                saved = new UploadStore.Entry(key, saved.uploadId, saved.path, fileName,
+                        contentType, saved.total, saved.confirmed, exerciseJson);
+                Log.i(TAG, "Reanudando subida " + key + " desde " + saved.confirmed + " bytes");
+            } else {
+                // Si otra subida de la misma imagen ya tiene copia, se comparte
+                File dest = new File(dir, hash);
+                if (dest.length() == total) {
+                    FileUtils.deleteQuietly(tmp);
+                } else if (!tmp.renameTo(dest)) {
+                    FileUtils.deleteQuietly(tmp);
+                    throw new IOException("No se pudo preparar la copia de " + fileName);
+                }
+                saved = new UploadStore.Entry(key, null, dest.getPath(), fileName,
+                        contentType, total, 0, exerciseJson);
+            }
+            store.save(saved);
+            job = new Job(saved);
+            job.listeners.add(listener);
+            active.put(key, job);
+        }
+        Job started = job;
+        worker.execute(() -> run(started, 1));
+    }
+
+    /**
+     * Reanuda las subidas que quedaron a medias (por ejemplo, al cerrar la aplicación).
+     *
+     * @param listener Oyente del avance y del resultado de cada subida reanudada.
+     */
+    public void resumePending(@NonNull Listener listener) {
+        worker.execute(() -> {
+            for (UploadStore.Entry e : store.all()) {
+                Job job;
+                synchronized (this) {
+                    if (active.containsKey(e.key)) continue;
+                    if (new File(e.path).length() != e.total) {
+                        // Sin copia local no se puede continuar
+                        discard(e.key, e.path);
+                        continue;
+                    }
+                    job = new Job(e);
+                    job.listeners.add(listener);
+                    active.put(e.key, job);
+                }
+                run(job, 1);
+            }
+        });
+    }
+
+    /**
+     * Avanza la subida todo lo posible. Ante un fallo temporal se vuelve a programar con
+     * espera; cada trozo confirmado reinicia la cuenta de intentos.
+     */
+    private void run(Job job, int attempt) {
+        if (!chunkedAvailable) {
+            sendWhole(job, attempt);
+            return;
+        }
+        try {
+            if (job.uploadId == null) {
+                Response<SubidaDTO> r = endpoint.start(job.fileName, job.total);
+                if (r.code() == 404) {
+                    // Solo el endpoint que crea subidas dice si el servidor las ofrece
+                    chunkedAvailable = false;
+                    sendWhole(job, attempt);
+                    return;
+                }
+                if (!r.isSuccessful() || r.body() == null || r.body().getId() == null) {
+                    failOrRetry(job, attempt, r.code());
+                    return;
+                }
+                job.uploadId = r.body().getId();
+                job.confirmed = 0;
+                job.needsSync = false;
+                store.updateProgress(job.key, job.uploadId, 0);
+            }
+            if (job.needsSync && !syncOffset(job)) {
+                failOrRetry(job, attempt, 0);
+                return;
+            }
+            while (job.confirmed < job.total) {
+                int length = (int) Math.min(CHUNK_SIZE, job.total - job.confirmed);
+                byte[] chunk = readChunk(job.file, job.confirmed, length);
+                Response<SubidaDTO> r = endpoint.putChunk(job.uploadId, job.confirmed,
+                        RequestBody.create(chunk, OCTET_STREAM));
+                int code = r.code();
+                if (r.isSuccessful()) {
+                    long acked = r.body() != null ? r.body().getOffset() : job.confirmed + length;
+                    acknowledge(job, acked);
+                    attempt = 1;
+                } else if (code == 404 || code == 410) {
+                    restart(job);
+                    failOrRetry(job, attempt, code);
+                    return;
+                } else if (code == 409) {
+                    job.needsSync = true;
+                    failOrRetry(job, attempt, code);
+                    return;
+                } else {
+                    failOrRetry(job, attempt, code);
+                    return;
+                }
+            }
+
+            Response<EjercicioDTO> r = endpoint.finish(job.key, job.exerciseJson, job.uploadId);
+            if (r.isSuccessful()) {
+                complete(job, r.body(), null);
+            } else if (r.code() == 404 || r.code() == 410) {
+                restart(job);
+                failOrRetry(job, attempt, r.code());
+            } else {
+                failOrRetry(job, attempt, r.code());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Fallo de red en la subida " + job.key, e);
+            failOrRetry(job, attempt, 0);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error en la subida " + job.key, e);
+            complete(job, null, e.getMessage());
+        }
+    }
+
+    /** Toma como bueno el desplazamiento del servidor. */
+    private boolean syncOffset(Job job) throws IOException {
+        Response<SubidaDTO> r = endpoint.status(job.uploadId);
+        if (r.code() == 404 || r.code() == 410) {
+            restart(job);
+            return false;
+        }
+        if (!r.isSuccessful() || r.body() == null) return false;
+        acknowledge(job, r.body().getOffset());
+        job.needsSync = false;
+        return true;
+    }
+
+    private void acknowledge(Job job, long acked) {
+        job.confirmed = Math.max(0, Math.min(job.total, acked));
+        store.updateProgress(job.key, job.uploadId, job.confirmed);
+        notifyProgress(job, job.confirmed);
+    }
+
+    /** La subida ya no existe en el servidor: se empieza de nuevo. */
+    private void restart(Job job) {
+        job.uploadId = null;
+        job.confirmed = 0;
+        job.needsSync = false;
+        store.updateProgress(job.key, null, 0);
+        notifyProgress(job, 0);
+    }
+
+    /**
+     * Sustituto cuando el servidor no ofrece subidas por trozos: una petición multiparte
+     * con la imagen completa, informando del progreso según se escribe.
+     */
+    private void sendWhole(Job job, int attempt) {
+        RequestBody body = new ProgressBody(job.file, MediaType.parse(job.contentType),
+                sent -> notifyProgress(job, sent));
+        try {
+            Response<EjercicioDTO> r = endpoint.sendWhole(job.key, job.exerciseJson, job.fileName, body);
+            if (r.isSuccessful()) {
+                complete(job, r.body(), null);
+            } else {
+                failOrRetry(job, attempt, r.code());
+            }
+        } catch (IOException e) {
+            failOrRetry(job, attempt, 0);
+        }
+    }
+
+    private void failOrRetry(Job job, int attempt, int code) {
+        if (isTransient(code) || code == 409 || code == 404 || code == 410) {
+            if (attempt < MAX_ATTEMPTS) {
+                worker.schedule(() -> run(job, attempt + 1), backoff(attempt), TimeUnit.MILLISECONDS);
+                return;
+            }
+            // Se conserva el estado para reanudar más tarde desde el último trozo confirmado
+            pause(job, code == 0 ? "Sin conexión" : "HTTP " + code);
+            return;
+        }
+        complete(job, null, "HTTP " + code);
+    }
+
+    private void pause(Job job, String error) {
+        List<Listener> listeners;
+        synchronized (this) {
+            active.remove(job.key);
+            listeners = new ArrayList<>(job.listeners);
+        }
+        Log.i(TAG, "Subida " + job.key + " pausada en " + job.confirmed + "/" + job.total
+                + " bytes: " + error);
+        callbacks.execute(() -> {
+            for (Listener l : listeners) l.onComplete(null, error);
+        });
+    }
+
+    /** Resultado definitivo: se borran la copia y el estado guardado. */
+    private void complete(Job job, @Nullable EjercicioDTO saved, @Nullable String error) {
+        List<Listener> listeners;
+        synchronized (this) {
+            active.remove(job.key);
+            listeners = new ArrayList<>(job.listeners);
+            discard(job.key, job.file.getPath());
+        }
+        callbacks.execute(() -> {
+            for (Listener l : listeners) l.onComplete(saved, error);
+        });
+    }
+
+    /** Borra el estado de una subida y la copia local si ninguna otra la usa. */
+    private void discard(String key, String path) {
+        store.remove(key);
+        for (UploadStore.Entry e : store.all()) {
+            if (path.equals(e.path)) return;
+        }
+        FileUtils.deleteQuietly(new File(path));
+    }
+
+    private void notifyProgress(Job job, long sent) {
+        List<Listener> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(job.listeners);
+        }
+        callbacks.execute(() -> {
+            for (Listener l : listeners) l.onProgress(sent, job.total);
+        });
+    }
+
+    private static byte[] readChunk(File file, long offset, int length) throws IOException {
+        byte[] chunk = new byte[length];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(offset);
+            raf.readFully(chunk);
+        }
+        return chunk;
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[CHUNK_SIZE];
+        long total = 0;
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+            total += len;
+        }
+        return total;
+    }
+
+    /**
+     * Identidad del ejercicio destino: su ID si ya existe o, si es nuevo, un resumen de sus
+     * datos, para que repetir el mismo alta reanude la subida en lugar de duplicarla.
+     */
+    private static String exerciseKey(EjercicioDTO ejercicio, String exerciseJson) {
+        if (ejercicio.getIdEjercicio() != null) return "e" + ejercicio.getIdEjercicio();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] sum = digest.digest(exerciseJson.getBytes(StandardCharsets.UTF_8));
+            return "n" + hex(sum).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static boolean isTransient(int code) {
+        return code == 0 || code == 408 || code == 429 || code >= 500;
+    }
+
+    private static long backoff(int attempt) {
+        long delay = BASE_BACKOFF_MS << Math.min(attempt - 1, 10);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /** Recibe los bytes escritos de un {@link ProgressBody}. */
+    private interface ProgressSink {
+        void onWritten(long sent);
+    }
+
+    /** Cuerpo que lee un fichero e informa de los bytes escritos. */
+    private static final class ProgressBody extends RequestBody {
+        private final File file;
+        @Nullable
+        private final MediaType type;
+        private final ProgressSink progress;
+
+        ProgressBody(File file, @Nullable MediaType type, ProgressSink progress) {
+            this.file = file;
+            this.type = type;
+            this.progress = progress;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return type;
+        }
+
+        @Override
+        public long contentLength() {
+            return file.length();
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            byte[] buf = new byte[CHUNK_SIZE];
+            long sent = 0;
+            try (InputStream in = new FileInputStream(file)) {
+                int len;
+                while ((len = in.read(buf)) != -1) {
+                    sink.write(buf, 0, len);
+                    sent += len;
+                    progress.onWritten(sent);
+                }
+            }
+        }
+    }
+
+    /** Estado guardado en {@link UploadStore}. */
+    static final class LocalState implements UploadState {
+        private final UploadStore store;
+
+        LocalState(UploadStore store) {
+            this.store = store;
+        }
+
+        @Nullable
+        @Override
+        public UploadStore.Entry find(String key) {
+            return store.find(key);
+        }
+
+        @Override
+        public List<UploadStore.Entry> all() {
+            return store.all();
+        }
+
+        @Override
+        public void save(UploadStore.Entry entry) {
+            store.save(entry);
+        }
+
+        @Override
+        public void updateProgress(String key, @Nullable String uploadId, long confirmed) {
+            store.updateProgress(key, uploadId, confirmed);
+        }
+
+        @Override
+        public void remove(String key) {
+            store.remove(key);
+        }
+    }
+
+    /** Endpoint del servidor a través de {@link ApiService}. */
+    static final class RemoteEndpoint implements UploadEndpoint {
+        private static final MediaType JSON = MediaType.get("application/json");
+        private static final MediaType TEXT = MediaType.get("text/plain");
+        private final ApiService api;
+
+        RemoteEndpoint(ApiService api) {
+            this.api = api;
+        }
+
+        @Override
+        public Response<SubidaDTO> start(String fileName, long totalBytes) throws IOException {
+            return api.startUpload(fileName, totalBytes).execute();
+        }
+
+        @Override
+        public Response<SubidaDTO> status(String uploadId) throws IOException {
+            return api.getUpload(uploadId).execute();
+        }
+
+        @Override
+        public Response<SubidaDTO> putChunk(String uploadId, long offset, RequestBody chunk) throws IOException {
+            return api.uploadChunk(uploadId, offset, chunk).execute();
+        }
+
+        @Override
+        public Response<EjercicioDTO> finish(String idempotencyKey, String exerciseJson,
+                                             String uploadId) throws IOException {
+            return api.createOrUpdateExerciseFromUpload(idempotencyKey,
+                    RequestBody.create(exerciseJson, JSON),
+                    RequestBody.create(uploadId, TEXT)).execute();
+        }
+
+        @Override
+        public Response<EjercicioDTO> sendWhole(String idempotencyKey, String exerciseJson,
+                                                String fileName, RequestBody image) throws IOException {
+            return api.createOrUpdateExercise(idempotencyKey, RequestBody.create(exerciseJson, JSON),
+                    MultipartBody.Part.createFormData("imagen", fileName, image)).execute();
+        }
+    }
+}
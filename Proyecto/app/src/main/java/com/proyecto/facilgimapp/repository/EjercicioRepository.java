@@ -1,17 +1,34 @@
 package com.proyecto.facilgimapp.repository;
 
+import android.content.ContentResolver;
 import android.content.Context;
-import com.google.gson.Gson;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.EjercicioDeleteDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.database.LocalStore;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.ContentUriRequestBody;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
+import com.proyecto.facilgimapp.util.ImagePreparer;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
 /**
  * Repositorio encargado de gestionar las operaciones CRUD de ejercicios
  * contra la API REST mediante Retrofit. Incluye métodos para listar,
@@ -20,7 +37,14 @@ import retrofit2.Call;
  * @utor: Francisco Santana
  */
 public class EjercicioRepository {
+    private static final String TAG = "EjercicioRepository";
+    /** Hilo para preparar las imágenes antes de subirlas. */
+    private static final ExecutorService IMAGE_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private final ApiService apiService;
+    private final LocalStore localStore;
+    private final ContentResolver contentResolver;
+    private final ChunkedImageUploader uploader;
     /**
      * Inicializa el repositorio obteniendo el ApiService de RetrofitClient.
      *
@@ -28,14 +52,34 @@ public class EjercicioRepository {
      */
     public EjercicioRepository(Context context) {
         this.apiService = RetrofitClient.getApiService(context);
+        this.localStore = LocalStore.get(context);
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+        this.uploader = ChunkedImageUploader.get(context);
     }
     /**
-     * Lista todos los ejercicios disponibles.
+     * Lista todos los ejercicios disponibles. El resultado se sirve desde
+     * {@link RepositoryCache} o desde la base de datos local si está disponible, y las
+     * llamadas concurrentes comparten una única petición HTTP mediante {@link RequestCoalescer}.
      *
      * @return Un objeto Call que representa la solicitud para obtener la lista de ejercicios.
      */
     public Call<List<EjercicioDTO>> listAllExercises() {
-        return apiService.listAllExercises();
+        return RepositoryCache.get().cached("listAllExercises", RepositoryCache.TTL_EXERCISES,
+                () -> RequestCoalescer.get().coalesce("listAllExercises", apiService::listAllExercises),
+                LocalSource.of(localStore::loadExercises, localStore::saveExercises));
+    }
+    /**
+     * Obtiene una página del catálogo de ejercicios. Las páginas se cachean y se invalidan
+     * junto con {@link #listAllExercises()}.
+     *
+     * @param page Número de página, empezando en 0.
+     * @param size Tamaño de página.
+     * @return Un objeto Call que representa la solicitud de la página.
+     */
+    public Call<PageDTO<EjercicioDTO>> listExercisesPage(int page, int size) {
+        String key = "listAllExercises:page:" + page + ":" + size;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_EXERCISES,
+                () -> RequestCoalescer.get().coalesce(key, () -> apiService.listExercisesPage(page, size)));
     }
     /**
      * Obtiene un ejercicio específico por su ID.
@@ -63,7 +107,10 @@ public class EjercicioRepository {
      * @return Un objeto Call que representa la solicitud para obtener la lista de ejercicios.
      */
     public Call<List<EjercicioDTO>> listExercisesByTraining(int trainingId, String username) {
-        return apiService.listExercisesByTraining(trainingId, username);
+        String key = "listExercisesByTraining:" + trainingId + ":" + username;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key,
+                        () -> apiService.listExercisesByTraining(trainingId, username)));
     }
     /**
      * Crea o actualiza un ejercicio, enviando sus datos y una imagen opcional.
@@ -73,18 +120,115 @@ public class EjercicioRepository {
      * @return Un objeto Call que representa la solicitud para crear o actualizar el ejercicio.
      */
     public Call<EjercicioDTO> createOrUpdateExercise(EjercicioDTO ejercicio, File imageFile) {
-        Gson gson = new Gson();
-        String ejercicioJson = gson.toJson(ejercicio);
+        RequestBody imagenBody = imageFile == null ? null
+                : RequestBody.create(imageFile, MediaType.parse("image/*"));
+        return createOrUpdateExercise(ejercicio, imagenBody,
+                imageFile == null ? null : imageFile.getName());
+    }
+
+    /**
+     * Crea o actualiza un ejercicio reduciendo antes la imagen con {@link ImagePreparer}
+     * (dimensiones máximas, recompresión JPEG y sin metadatos). La imagen se lee
+     * directamente del {@link Uri}, sin copiarla a la caché, y la preparación se hace en
+     * segundo plano. La imagen preparada se sube por trozos con
+     * {@link ChunkedImageUploader}, que informa del progreso y reanuda la subida si se
+     * interrumpe. Si no se puede decodificar se envía el contenido original en una sola
+     * petición, leyéndolo del Uri mientras se sube ({@link ContentUriRequestBody}).
+     *
+     * @param ejercicio El objeto EjercicioDTO que contiene los datos del ejercicio.
+     * @param imageUri  Uri de la imagen asociada al ejercicio, puede ser nulo.
+     * @param fileName  Nombre con extensión con el que se envía la imagen.
+     * @param listener  Receptor del progreso y del resultado, llamado en el hilo principal.
+     */
+    public void saveExercise(EjercicioDTO ejercicio, @Nullable Uri imageUri,
+                             @Nullable String fileName,
+                             @NonNull ChunkedImageUploader.Listener listener) {
+        if (imageUri == null) {
+            createOrUpdateExercise(ejercicio, null).enqueue(toCallback(listener));
+            return;
+        }
+        String name = fileName == null ? "imagen" : fileName;
+        IMAGE_EXECUTOR.execute(() -> {
+            try {
+                ImagePreparer.Result prepared = ImagePreparer.prepare(
+                        ImagePreparer.fromUri(contentResolver, imageUri), ImagePreparer.Options.DEFAULT);
+                if (prepared != null) {
+                    uploader.upload(ejercicio, new ByteArrayInputStream(prepared.bytes),
+                            jpegName(name), "image/jpeg", invalidatingOnSave(listener));
+                    return;
+                }
+            } catch (IOException | OutOfMemoryError e) {
+                Log.w(TAG, "No se pudo preparar la imagen; se sube el original", e);
+            }
+            Call<EjercicioDTO> call = createOrUpdateExercise(ejercicio,
+                    new ContentUriRequestBody(contentResolver, imageUri, null), name);
+            // La caché de repositorio se manipula en el hilo principal
+            new Handler(Looper.getMainLooper()).post(() -> call.enqueue(toCallback(listener)));
+        });
+    }
+
+    /**
+     * Reanuda las subidas de imágenes que quedaron a medias.
+     *
+     * @param listener Receptor del progreso y del resultado de cada subida.
+     */
+    public void resumePendingUploads(@NonNull ChunkedImageUploader.Listener listener) {
+        uploader.resumePending(invalidatingOnSave(listener));
+    }
+
+    /** Invalida los listados de ejercicios cuando una subida termina guardando el ejercicio. */
+    private static ChunkedImageUploader.Listener invalidatingOnSave(
+            ChunkedImageUploader.Listener listener) {
+        return new ChunkedImageUploader.Listener() {
+            @Override
+            public void onProgress(long sent, long total) {
+                listener.onProgress(sent, total);
+            }
+
+            @Override
+            public void onComplete(@Nullable EjercicioDTO saved, @Nullable String error) {
+                if (error == null) {
+                    RepositoryCache.get().invalidate("listAllExercises", "listExercisesByTraining");
+                }
+                listener.onComplete(saved, error);
+            }
+        };
+    }
+
+    private static Callback<EjercicioDTO> toCallback(ChunkedImageUploader.Listener listener) {
+        return new Callback<EjercicioDTO>() {
+            @Override
+            public void onResponse(@NonNull Call<EjercicioDTO> call,
+                                   @NonNull Response<EjercicioDTO> response) {
+                listener.onComplete(response.isSuccessful() ? response.body() : null,
+                        response.isSuccessful() ? null : "HTTP " + response.code());
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<EjercicioDTO> call, @NonNull Throwable t) {
+                listener.onComplete(null, t.getMessage() == null ? t.toString() : t.getMessage());
+            }
+        };
+    }
+
+    private Call<EjercicioDTO> createOrUpdateExercise(EjercicioDTO ejercicio,
+                                                      @Nullable RequestBody imagenBody,
+                                                      @Nullable String fileName) {
+        String ejercicioJson = RetrofitClient.getGson().toJson(ejercicio);
         RequestBody ejercicioBody = RequestBody.create(
                 MediaType.parse("application/json"), ejercicioJson);
         MultipartBody.Part imagenParte = null;
-        if (imageFile != null) {
-            RequestBody imagenBody = RequestBody.create(
-                    MediaType.parse("image/*"), imageFile);
-            imagenParte = MultipartBody.Part.createFormData(
-                    "imagen", imageFile.getName(), imagenBody);
+        if (imagenBody != null) {
+            imagenParte = MultipartBody.Part.createFormData("imagen", fileName, imagenBody);
         }
-        return apiService.createOrUpdateExercise(ejercicioBody, imagenParte);
+        return RepositoryCache.get().invalidateOnSuccess(
+                apiService.createOrUpdateExercise(ejercicioBody, imagenParte), "listAllExercises", "listExercisesByTraining");
+    }
+
+    /** Cambia la extensión del nombre a .jpg, que es el formato tras la preparación. */
+    private static String jpegName(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".jpg";
     }
     /**
      * Elimina un ejercicio por su ID.
@@ -93,7 +237,8 @@ public class EjercicioRepository {
      * @return Un objeto Call que representa la solicitud para eliminar el ejercicio.
      */
     public Call<Void> deleteExercise(int id) {
-        return apiService.deleteExercise(id);
+        return RepositoryCache.get().invalidateOnSuccess(
+                apiService.deleteExercise(id), "listAllExercises", "listExercisesByTraining");
     }
     /**
      * Elimina un ejercicio por su nombre.
@@ -104,6 +249,7 @@ public class EjercicioRepository {
     public Call<Void> deleteExerciseByName(String nombre) {
         EjercicioDeleteDTO dto = new EjercicioDeleteDTO();
         dto.setNombre(nombre);
-        return apiService.deleteExerciseByName(dto);
+        return RepositoryCache.get().invalidateOnSuccess(
+                apiService.deleteExerciseByName(dto), "listAllExercises", "listExercisesByTraining");
     }
 }
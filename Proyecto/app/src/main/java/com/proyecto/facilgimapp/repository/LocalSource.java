@@ -0,0 +1,51 @@
+package com.proyecto.facilgimapp.repository;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Origen local (persistente) de una consulta cacheada por {@link RepositoryCache}.
+ * <p>
+ * Ambos métodos se invocan siempre fuera del hilo principal.
+ * </p>
+ *
+ * @param <T> Tipo del resultado de la consulta.
+ * @author Francisco Santana
+ */
+public interface LocalSource<T> {
+    /**
+     * Lee el último resultado guardado.
+     *
+     * @return el valor guardado, o {@code null} si no hay ninguno.
+     */
+    T load();
+
+    /**
+     * Guarda el resultado obtenido del servidor.
+     *
+     * @param value Valor a persistir.
+     */
+    void save(T value);
+
+    /**
+     * Crea un origen local a partir de las funciones de lectura y escritura.
+     *
+     * @param load Función que lee el valor guardado.
+     * @param save Función que persiste un valor nuevo.
+     * @param <T>  Tipo del resultado de la consulta.
+     * @return el origen local.
+     */
+    static <T> LocalSource<T> of(Supplier<T> load, Consumer<T> save) {
+        return new LocalSource<T>() {
+            @Override
+            public T load() {
+                return load.get();
+            }
+
+            @Override
+            public void save(T value) {
+                save.accept(value);
+            }
+        };
+    }
+}
@@ -0,0 +1,470 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.gson.Gson;
+import com.proyecto.facilgimapp.database.LocalStore;
+import com.proyecto.facilgimapp.database.OutboxStore;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+import com.proyecto.facilgimapp.util.SettingsStore;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * Cola persistente de escrituras (crear/borrar entrenamientos y crear/editar/borrar series).
+ * <p>
+ * Cada cambio se guarda primero en {@link OutboxStore} y después se envía al servidor
+ * desde un hilo propio, en el mismo orden en que se hizo. Si el envío falla por red o por
+ * un error temporal del servidor, la entrada se reintenta con espera exponencial y las
+ * siguientes esperan detrás de ella. Tras {@link #MAX_ATTEMPTS} intentos la entrada se
+ * aparta como fallida para no bloquear la cola; {@link #getFailedCount()} permite a la UI
+ * avisar al usuario, que puede reintentarlas ({@link #retryFailed()}) o descartarlas
+ * ({@link #discardFailed()}). La cola se vacía también al recuperar la conexión y al
+ * abrir la aplicación, por lo que sobrevive al cierre del proceso.
+ * </p>
+ * <p>
+ * La creación de entrenamientos lleva una clave de idempotencia que se guarda con la
+ * entrada y se envía en cada reintento, de modo que si una respuesta se pierde después
+ * de que el servidor la aplicara, el reintento no duplica el entrenamiento. Encolar dos
+ * veces la misma clave reutiliza la entrada existente.
+ * </p>
+ * <p>
+ * Cada entrada se guarda con el usuario que la hizo y solo se envían las del usuario con
+ * sesión iniciada: al cerrar sesión la cola deja de enviarse, y las entradas de un
+ * usuario quedan aparcadas hasta que él vuelva a entrar. Un 401 también detiene el envío
+ * sin gastar intentos, hasta el siguiente cambio de sesión. De las entradas fallidas se
+ * avisa una sola vez ({@link #getUnacknowledgedFailedCount()} y
+ * {@link #acknowledgeFailed()}), y el aviso queda guardado con ellas.
+ * </p>
+ * <p>
+ * Las ediciones sucesivas de una misma serie se agrupan en una sola petición, y borrar
+ * una serie descarta sus ediciones pendientes. Los borrados y ediciones se aplican de
+ * inmediato sobre {@link LocalStore} para que la UI los refleje sin conexión.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class MutationOutbox {
+    private static final String TAG = "MutationOutbox";
+
+    private static final String CREATE_WORKOUT = "CREATE_WORKOUT";
+    static final String DELETE_WORKOUT = "DELETE_WORKOUT";
+    private static final String CREATE_SERIES  = "CREATE_SERIES";
+    private static final String UPDATE_SERIES  = "UPDATE_SERIES";
+    private static final String DELETE_SERIES  = "DELETE_SERIES";
+
+    /** Espera antes del primer reintento. */
+    private static final long BASE_BACKOFF_MS = 2_000;
+    /** Espera máxima entre reintentos. */
+    private static final long MAX_BACKOFF_MS = 5 * 60_000;
+    /** Intentos tras los que una entrada se aparta como fallida. */
+    static final int MAX_ATTEMPTS = 8;
+
+    /**
+     * Resultado de una escritura, tal como se notifica a quien la solicitó.
+     */
+    public enum Result {
+        /** El servidor la aceptó. */
+        SENT,
+        /** No se pudo enviar todavía; queda en la cola y se reintentará. */
+        QUEUED,
+        /** El servidor la rechazó de forma definitiva y se ha descartado. */
+        REJECTED,
+        /** Agotó los reintentos; queda apartada hasta que el usuario la reintente o descarte. */
+        FAILED
+    }
+
+    /**
+     * Recibe en el hilo principal el resultado del primer intento de envío.
+     */
+    public interface Listener {
+        void onResult(Result result);
+    }
+
+    private static MutationOutbox instance;
+
+    private final SettingsStore settings;
+    private final OutboxStore store;
+    private final LocalStore localStore;
+    private final WorkoutRepository workoutRepo;
+    private final SeriesRepository seriesRepo;
+    private final Gson gson = RetrofitClient.getGson();
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<Integer> failedCount = new MutableLiveData<>();
+    private final MutableLiveData<Integer> unacknowledgedFailed = new MutableLiveData<>();
+
+    /** Oyentes de las entradas aún no resueltas; solo se accede desde {@link #worker}. */
+    private final Map<Long, Listener> listeners = new HashMap<>();
+    /** Próximo reintento programado; solo se accede desde {@link #worker}. */
+    private ScheduledFuture<?> retry;
+
+    private MutationOutbox(Context context) {
+        settings = SettingsStore.get(context);
+        store = OutboxStore.get(context);
+        localStore = LocalStore.get(context);
+        workoutRepo = new WorkoutRepository(context);
+        seriesRepo = new SeriesRepository(context);
+
+        ConnectivityManager cm = context.getSystemService(ConnectivityManager.class);
+        if (cm != null) {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    worker.execute(() -> {
+                        store.resetSchedule();
+                        drain();
+                    });
+                }
+            });
+        }
+        // Al iniciar o cerrar sesión cambia qué entradas se envían
+        mainHandler.post(() -> settings.observeSession()
+                .observeForever(session -> worker.execute(this::drain)));
+    }
+
+    /**
+     * Devuelve la instancia única de la cola.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de MutationOutbox.
+     */
+    public static synchronized MutationOutbox get(Context context) {
+        if (instance == null) {
+            instance = new MutationOutbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** Intenta enviar las escrituras pendientes que ya puedan reintentarse. */
+    public void flush() {
+        worker.execute(this::drain);
+    }
+
+    /**
+     * Número de escrituras que han agotado sus reintentos y esperan a que el usuario
+     * las reintente o las descarte.
+     *
+     * @return LiveData con el número de entradas fallidas.
+     */
+    public LiveData<Integer> getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Número de escrituras fallidas de las que aún no se ha avisado al usuario.
+     *
+     * @return LiveData con el número de entradas fallidas sin avisar.
+     */
+    public LiveData<Integer> getUnacknowledgedFailedCount() {
+        return unacknowledgedFailed;
+    }
+
+    /** Registra que se ha avisado al usuario de sus escrituras fallidas. */
+    public void acknowledgeFailed() {
+        worker.execute(() -> {
+            int owner = currentUser();
+            if (owner < 0) return;
+            store.acknowledgeFailed(owner);
+            publishFailed(owner);
+        });
+    }
+
+    /** Vuelve a poner en la cola las escrituras fallidas y las intenta enviar. */
+    public void retryFailed() {
+        worker.execute(() -> {
+            int owner = currentUser();
+            if (owner >= 0) store.retryFailed(owner);
+            drain();
+        });
+    }
+
+    /** Descarta las escrituras fallidas. */
+    public void discardFailed() {
+        worker.execute(() -> {
+            int owner = currentUser();
+            if (owner < 0) return;
+            store.removeFailed(owner);
+            publishFailed(owner);
+        });
+    }
+
+    /**
+     * Encola la creación de un entrenamiento completo (con sus ejercicios y series).
+     * <p>
+     * La clave de idempotencia identifica esta creación: se envía en cada intento y,
+     * si ya hay una entrada en la cola con la misma clave (p. ej. el usuario ha pulsado
+     * guardar dos veces), no se añade otra sino que se espera el resultado de aquella.
+     * </p>
+     *
+     * @param dto            Entrenamiento a crear.
+     * @param idempotencyKey Clave única generada por el cliente para esta creación.
+     * @param listener       Oyente del resultado, o {@code null}.
+     */
+    public void createWorkout(EntrenamientoDTO dto, String idempotencyKey, Listener listener) {
+        String payload = gson.toJson(dto);
+        worker.execute(() -> {
+            OutboxStore.Entry existing = store.findByKey(idempotencyKey);
+            long id;
+            if (existing == null) {
+                id = store.insert(currentUser(), CREATE_WORKOUT, newEntity("workout"), null,
+                        payload, idempotencyKey);
+            } else {
+                id = existing.id;
+                if (existing.failed) store.retry(id);
+            }
+            submit(id, listener);
+        });
+    }
+
+    /**
+     * Encola el borrado de un entrenamiento y lo elimina ya de la réplica local.
+     *
+     * @param workoutId ID del entrenamiento.
+     * @param listener  Oyente del resultado, o {@code null}.
+     */
+    public void deleteWorkout(int workoutId, Listener listener) {
+        worker.execute(() -> {
+            String entity = "workout:" + workoutId;
+            for (OutboxStore.Entry pending : store.pendingFor(entity)) {
+                store.remove(pending.id);
+            }
+            long id = store.insert(currentUser(), DELETE_WORKOUT, entity, workoutId, null);
+            localStore.deleteWorkout(workoutId);
+            RepositoryCache.get().invalidate(WorkoutRepository.WORKOUT_KEYS);
+            submit(id, listener);
+        });
+    }
+
+    /**
+     * Encola la creación de una serie.
+     *
+     * @param dto      Serie a crear.
+     * @param listener Oyente del resultado, o {@code null}.
+     */
+    public void createSeries(SerieDTO dto, Listener listener) {
+        String payload = gson.toJson(dto);
+        worker.execute(() -> {
+            long id = store.insert(currentUser(), CREATE_SERIES, newEntity("series"), null, payload);
+            submit(id, listener);
+        });
+    }
+
+    /**
+     * Encola la edición de una serie. Si ya había una edición pendiente de la misma
+     * serie, se sustituye por esta en lugar de enviar ambas.
+     *
+     * @param seriesId ID de la serie.
+     * @param dto      Datos completos de la serie.
+     * @param listener Oyente del resultado, o {@code null}.
+     */
+    public void updateSeries(int seriesId, SerieDTO dto, Listener listener) {
+        String payload = gson.toJson(dto);
+        worker.execute(() -> {
+            String entity = "series:" + seriesId;
+            long id = -1;
+            for (OutboxStore.Entry pending : store.pendingFor(entity)) {
+                if (UPDATE_SERIES.equals(pending.operation) && !pending.failed) {
+                    id = pending.id;
+                }
+            }
+            if (id == -1) {
+                id = store.insert(currentUser(), UPDATE_SERIES, entity, seriesId, payload);
+            } else {
+                store.updatePayload(id, payload);
+            }
+            localStore.updateSeries(seriesId, dto);
+            RepositoryCache.get().invalidate(SeriesRepository.SERIES_KEYS);
+            submit(id, listener);
+        });
+    }
+
+    /**
+     * Encola el borrado de una serie, descartando sus ediciones pendientes, y la
+     * elimina ya de la réplica local.
+     *
+     * @param seriesId ID de la serie.
+     * @param listener Oyente del resultado, o {@code null}.
+     */
+    public void deleteSeries(int seriesId, Listener listener) {
+        worker.execute(() -> {
+            String entity = "series:" + seriesId;
+            for (OutboxStore.Entry pending : store.pendingFor(entity)) {
+                store.remove(pending.id);
+            }
+            long id = store.insert(currentUser(), DELETE_SERIES, entity, seriesId, null);
+            localStore.deleteSeries(seriesId);
+            RepositoryCache.get().invalidate(SeriesRepository.SERIES_KEYS);
+            submit(id, listener);
+        });
+    }
+
+    private static String newEntity(String type) {
+        return type + ":new:" + UUID.randomUUID();
+    }
+
+    /** ID del usuario con sesión iniciada, o -1 sin sesión; solo desde {@link #worker}. */
+    private int currentUser() {
+        SettingsStore.Session session = settings.getSession();
+        return session.isLoggedIn() ? session.userId : -1;
+    }
+
+    private void submit(long id, Listener listener) {
+        if (listener != null) listeners.put(id, listener);
+        drain();
+    }
+
+    /**
+     * Envía en orden las entradas del usuario con sesión hasta vaciarlas o hasta que una
+     * falle; en ese caso programa su reintento y las demás esperan detrás. Una entrada que
+     * agota sus intentos se aparta como fallida y se sigue con las siguientes. Sin sesión,
+     * o si el servidor no acepta la sesión, no se envía nada hasta el siguiente cambio de
+     * sesión.
+     */
+    private void drain() {
+        if (retry != null) {
+            retry.cancel(false);
+            retry = null;
+        }
+        int owner = currentUser();
+        if (owner >= 0) {
+            // Entradas guardadas antes de que la cola registrara el usuario
+            store.adoptUnowned(owner);
+            sendAll(owner);
+        }
+        publishFailed(owner);
+        // Lo que no se ha podido enviar en este intento queda pendiente
+        for (Listener listener : listeners.values()) {
+            notify(listener, Result.QUEUED);
+        }
+        listeners.clear();
+    }
+
+    private void sendAll(int owner) {
+        OutboxStore.Entry entry;
+        while ((entry = store.head(owner)) != null) {
+            long now = System.currentTimeMillis();
+            if (entry.nextAttemptAt > now) {
+                schedule(entry.nextAttemptAt - now);
+                break;
+            }
+            Result result = send(entry);
+            if (result == null) {
+                Log.w(TAG, "Sesión no válida: la cola se detiene hasta el próximo inicio de sesión");
+                break;
+            }
+            if (result == Result.QUEUED) {
+                int attempts = entry.attempts + 1;
+                if (attempts < MAX_ATTEMPTS) {
+                    long delay = backoff(attempts);
+                    store.reschedule(entry.id, attempts, now + delay);
+                    schedule(delay);
+                    break;
+                }
+                Log.w(TAG, entry.operation + " apartada tras " + attempts + " intentos");
+                store.reschedule(entry.id, attempts, now);
+                store.markFailed(entry.id);
+                result = Result.FAILED;
+            } else {
+                store.remove(entry.id);
+            }
+            Listener listener = listeners.remove(entry.id);
+            if (listener != null) notify(listener, result);
+        }
+    }
+
+    /**
+     * Envía una entrada.
+     *
+     * @return el resultado, o {@code null} si el servidor no acepta la sesión (401).
+     */
+    private Result send(OutboxStore.Entry entry) {
+        Response<?> response;
+        try {
+            switch (entry.operation) {
+                case CREATE_WORKOUT:
+                    response = workoutRepo.createWorkout(
+                            gson.fromJson(entry.payload, EntrenamientoDTO.class),
+                            entry.idempotencyKey).execute();
+                    break;
+                case DELETE_WORKOUT:
+                    response = workoutRepo.deleteWorkout(entry.targetId).execute();
+                    break;
+                case CREATE_SERIES:
+                    response = seriesRepo.createSeries(
+                            gson.fromJson(entry.payload, SerieDTO.class)).execute();
+                    break;
+                case UPDATE_SERIES:
+                    response = seriesRepo.updateSeries(entry.targetId,
+                            gson.fromJson(entry.payload, SerieDTO.class)).execute();
+                    break;
+                case DELETE_SERIES:
+                    response = seriesRepo.deleteSeries(entry.targetId).execute();
+                    break;
+                default:
+                    Log.w(TAG, "Operación desconocida: " + entry.operation);
+                    return Result.REJECTED;
+            }
+        } catch (IOException e) {
+            return Result.QUEUED;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "No se pudo enviar " + entry.operation, e);
+            return Result.REJECTED;
+        }
+
+        int code = response.code();
+        if (response.isSuccessful()) return Result.SENT;
+        if (code == 401) return null;
+        // Un borrado de algo que ya no existe cumple su objetivo
+        if (code == 404 && entry.operation.startsWith("DELETE")) return Result.SENT;
+        // La clave ya se usó: un intento anterior llegó al servidor aunque se perdiera la respuesta
+        if (code == 409 && entry.idempotencyKey != null) return Result.SENT;
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            Log.w(TAG, entry.operation + " rechazada por el servidor: " + code);
+            return Result.REJECTED;
+        }
+        return Result.QUEUED;
+    }
+
+    private void schedule(long delayMs) {
+        if (retry != null) retry.cancel(false);
+        retry = worker.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static long backoff(int attempts) {
+        long delay = BASE_BACKOFF_MS << Math.min(attempts - 1, 16);
+        delay = Math.min(delay, MAX_BACKOFF_MS);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void publishFailed(int owner) {
+        failedCount.postValue(owner < 0 ? 0 : (int) store.failedCount(owner));
+        unacknowledgedFailed.postValue(owner < 0 ? 0 : (int) store.unacknowledgedFailedCount(owner));
+    }
+
+    private void notify(Listener listener, Result result) {
+        mainHandler.post(() -> listener.onResult(result));
+    }
+}
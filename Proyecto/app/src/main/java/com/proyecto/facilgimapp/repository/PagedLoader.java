@@ -0,0 +1,389 @@
+package com.proyecto.facilgimapp.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Carga incremental de una lista paginada a medida que el usuario se desplaza.
+ * <p>
+ * Mantiene en memoria una ventana de como mucho {@link Config#maxPages} páginas
+ * consecutivas: al avanzar se descartan las del principio y al retroceder las del final,
+ * que se vuelven a pedir si el usuario regresa. Cuando el último elemento visible está a
+ * menos de {@link Config#prefetchDistance} posiciones del final de la ventana (o el primero
+ * del principio, al subir) se pide la página siguiente (o la anterior). Solo hay una
+ * petición en curso a la vez.
+ * </p>
+ * <p>
+ * Si el servidor no ofrece el endpoint paginado (404) o no hay conexión, y se ha indicado
+ * una consulta de respaldo con la lista completa, se pagina esa lista en memoria; así un
+ * backend sin paginación o la réplica local siguen funcionando. El siguiente
+ * {@link #refresh()} vuelve a intentar la paginación en el servidor. Con
+ * {@link #ofList(Config, List)} se pagina directamente una lista ya calculada (p. ej.
+ * los resultados de una búsqueda).
+ * </p>
+ * <p>
+ * Todos sus métodos deben llamarse desde el hilo principal.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos de la lista.
+ * @author Francisco Santana
+ */
+public class PagedLoader<T> {
+
+    /**
+     * Proveedor de las páginas del servidor.
+     *
+     * @param <T> Tipo de los elementos de la página.
+     */
+    public interface PageSource<T> {
+        /**
+         * Crea la llamada que obtiene una página.
+         *
+         * @param page Número de página, empezando en 0.
+         * @param size Tamaño de página.
+         * @return la llamada a ejecutar.
+         */
+        Call<PageDTO<T>> page(int page, int size);
+    }
+
+    /**
+     * Parámetros de paginación.
+     */
+    public static final class Config {
+        /** Configuración por defecto: páginas de 30, prefetch a 10 elementos y 5 páginas en memoria. */
+        public static final Config DEFAULT = new Config(30, 10, 5);
+
+        /** Elementos por página. */
+        public final int pageSize;
+        /** Distancia (en elementos) al borde de la ventana a la que se pide la página contigua. */
+        public final int prefetchDistance;
+        /** Número máximo de páginas en memoria. */
+        public final int maxPages;
+
+        /**
+         * Crea una configuración de paginación.
+         *
+         * @param pageSize         Elementos por página; mayor que 0.
+         * @param prefetchDistance Distancia al borde para pedir la siguiente página; no negativa
+         *                         y menor que el tamaño de la ventana.
+         * @param maxPages         Páginas en memoria; al menos 2.
+         */
+        public Config(int pageSize, int prefetchDistance, int maxPages) {
+            if (pageSize <= 0 || prefetchDistance < 0 || maxPages < 2) {
+                throw new IllegalArgumentException("Configuración de paginación no válida");
+            }
+            // Con la ventana llena, los dos bordes no pueden estar a la vez a distancia de prefetch
+            if (2 * prefetchDistance >= (maxPages - 1) * pageSize) {
+                throw new IllegalArgumentException("prefetchDistance demasiado grande para la ventana");
+            }
+            this.pageSize = pageSize;
+            this.prefetchDistance = prefetchDistance;
+            this.maxPages = maxPages;
+        }
+    }
+
+    /** Una página cargada de la ventana. */
+    private static final class Page<T> {
+        final int number;
+        final List<T> items;
+
+        Page(int number, List<T> items) {
+            this.number = number;
+            this.items = items;
+        }
+    }
+
+    private final Config config;
+    private final PageSource<T> source;
+    @Nullable
+    private final Supplier<Call<List<T>>> fallback;
+    @Nullable
+    private final Consumer<Throwable> onError;
+
+    private final MutableLiveData<List<T>> items = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> loading = new MutableLiveData<>(false);
+
+    private final ArrayDeque<Page<T>> pages = new ArrayDeque<>();
+    private boolean endReached;
+    private Call<?> inFlight;
+    /** Se incrementa en cada refresco; las respuestas de generaciones anteriores se descartan. */
+    private int generation;
+    /** Lista completa cuando se pagina en memoria; {@code null} si se pagina en el servidor. */
+    private List<T> fullList;
+    /** Si {@link #fullList} es fija (creada con {@link #ofList}) y no se debe descartar. */
+    private boolean fixedList;
+
+    /**
+     * Crea un cargador paginado.
+     *
+     * @param config   Parámetros de paginación.
+     * @param source   Proveedor de páginas del servidor.
+     * @param fallback Consulta de la lista completa para paginar en memoria si el servidor no
+     *                 pagina o no responde; puede ser {@code null}.
+     * @param onError  Receptor de los errores de carga; puede ser {@code null}.
+     */
+    public PagedLoader(@NonNull Config config,
+                       @NonNull PageSource<T> source,
+                       @Nullable Supplier<Call<List<T>>> fallback,
+                       @Nullable Consumer<Throwable> onError) {
+        this.config = config;
+        this.source = source;
+        this.fallback = fallback;
+        this.onError = onError;
+    }
+
+    /**
+     * Crea un cargador que pagina en memoria una lista ya calculada, con la misma ventana
+     * que si viniera del servidor.
+     *
+     * @param config Parámetros de paginación.
+     * @param list   Lista completa a paginar.
+     * @param <T>    Tipo de los elementos.
+     * @return el cargador, sin empezar.
+     */
+    public static <T> PagedLoader<T> ofList(@NonNull Config config, @NonNull List<T> list) {
+        PagedLoader<T> loader = new PagedLoader<>(config, (page, size) -> {
+            throw new IllegalStateException("Lista en memoria");
+        }, null, null);
+        loader.fullList = list;
+        loader.fixedList = true;
+        return loader;
+    }
+
+    /**
+     * Elementos de la ventana actual, en orden.
+     *
+     * @return LiveData con la lista visible.
+     */
+    public LiveData<List<T>> getItems() {
+        return items;
+    }
+
+    /**
+     * Indica si hay una página cargándose.
+     *
+     * @return LiveData con {@code true} mientras hay una petición en curso.
+     */
+    public LiveData<Boolean> isLoading() {
+        return loading;
+    }
+
+    /**
+     * Parámetros de paginación de este cargador.
+     *
+     * @return la configuración.
+     */
+    public Config getConfig() {
+        return config;
+    }
+
+    /** Carga la primera página si todavía no hay nada cargado ni en curso. */
+    public void start() {
+        if (pages.isEmpty() && inFlight == null) {
+            load(0, true);
+        }
+    }
+
+    /**
+     * Vuelve a pedir las páginas de la ventana actual, conservando la posición del usuario,
+     * o la primera si no hay ninguna. Descarta cualquier carga en curso.
+     */
+    public void refresh() {
+        cancelInFlight();
+        generation++;
+        if (!fixedList) fullList = null;
+        if (pages.isEmpty()) {
+            load(0, true);
+        } else {
+            reload(pages.getFirst().number, pages.getLast().number);
+        }
+    }
+
+    /**
+     * Notifica el rango visible tras un desplazamiento y, si se acerca al borde de la
+     * ventana en la dirección del desplazamiento, pide la página contigua.
+     *
+     * @param firstVisible Posición del primer elemento visible.
+     * @param lastVisible  Posición del último elemento visible.
+     * @param dy           Desplazamiento vertical; positivo hacia el final, 0 tras un layout.
+     */
+    public void onScrolled(int firstVisible, int lastVisible, int dy) {
+        if (inFlight != null || pages.isEmpty()) return;
+        int size = windowSize();
+        if (dy >= 0 && !endReached && lastVisible >= size - 1 - config.prefetchDistance) {
+            load(pages.getLast().number + 1, true);
+        } else if (dy < 0 && pages.getFirst().number > 0
+                && firstVisible >= 0 && firstVisible <= config.prefetchDistance) {
+            load(pages.getFirst().number - 1, false);
+        }
+    }
+
+    /** Cancela la carga en curso (p. ej. al destruir el ViewModel). */
+    public void cancel() {
+        cancelInFlight();
+        generation++;
+    }
+
+    private void load(int number, boolean append) {
+        int gen = generation;
+        fetch(number, page -> {
+            if (append) {
+                pages.addLast(new Page<>(number, new ArrayList<>(page.getContent())));
+                endReached = page.isLast(config.pageSize);
+                if (pages.size() > config.maxPages) pages.removeFirst();
+            } else {
+                pages.addFirst(new Page<>(number, new ArrayList<>(page.getContent())));
+                if (pages.size() > config.maxPages) {
+                    pages.removeLast();
+                    endReached = false;
+                }
+            }
+            publish();
+        }, gen);
+    }
+
+    /** Recarga en orden las páginas {@code from..to}, sustituyendo cada una al llegar. */
+    private void reload(int from, int to) {
+        int gen = generation;
+        fetch(from, page -> {
+            List<Page<T>> kept = new ArrayList<>();
+            for (Page<T> p : pages) {
+                if (p.number < from) kept.add(p);
+            }
+            kept.add(new Page<>(from, new ArrayList<>(page.getContent())));
+            boolean last = page.isLast(config.pageSize);
+            if (!last) {
+                // Las páginas siguientes se conservan hasta que llegue su versión nueva
+                for (Page<T> p : pages) {
+                    if (p.number > from) kept.add(p);
+                }
+            }
+            pages.clear();
+            pages.addAll(kept);
+            endReached = last || (endReached && from < to);
+            publish();
+            if (!last && from < to) reload(from + 1, to);
+        }, gen);
+    }
+
+    /**
+     * Obtiene una página, del servidor o de la lista completa en memoria, y la entrega
+     * a {@code onPage} si sigue siendo de la generación actual.
+     */
+    private void fetch(int number, Consumer<PageDTO<T>> onPage, int gen) {
+        if (fullList != null) {
+            onPage.accept(localPage(number));
+            return;
+        }
+        Call<PageDTO<T>> call = source.page(number, config.pageSize);
+        startLoading(call);
+        call.enqueue(new Callback<PageDTO<T>>() {
+            @Override
+            public void onResponse(@NonNull Call<PageDTO<T>> c, @NonNull Response<PageDTO<T>> response) {
+                if (gen != generation) return;
+                stopLoading();
+                if (response.isSuccessful() && response.body() != null) {
+                    onPage.accept(response.body());
+                } else if (response.code() == 404 && fallback != null) {
+                    loadFallback(number, onPage, gen);
+                } else {
+                    fail(new IllegalStateException("HTTP " + response.code()));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<PageDTO<T>> c, @NonNull Throwable t) {
+                if (gen != generation || c.isCanceled()) return;
+                stopLoading();
+                if (fallback != null) {
+                    loadFallback(number, onPage, gen);
+                } else {
+                    fail(t);
+                }
+            }
+        });
+    }
+
+    /** Descarga la lista completa y a partir de ahí pagina en memoria. */
+    private void loadFallback(int number, Consumer<PageDTO<T>> onPage, int gen) {
+        Call<List<T>> call = fallback.get();
+        startLoading(call);
+        call.enqueue(new Callback<List<T>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<T>> c, @NonNull Response<List<T>> response) {
+                if (gen != generation) return;
+                stopLoading();
+                if (response.isSuccessful() && response.body() != null) {
+                    fullList = response.body();
+                    onPage.accept(localPage(number));
+                } else {
+                    fail(new IllegalStateException("HTTP " + response.code()));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<T>> c, @NonNull Throwable t) {
+                if (gen != generation || c.isCanceled()) return;
+                stopLoading();
+                fail(t);
+            }
+        });
+    }
+
+    private PageDTO<T> localPage(int number) {
+        int from = Math.min(number * config.pageSize, fullList.size());
+        int to = Math.min(from + config.pageSize, fullList.size());
+        return new PageDTO<>(new ArrayList<>(fullList.subList(from, to)),
+                number, config.pageSize, fullList.size());
+    }
+
+    private int windowSize() {
+        int size = 0;
+        for (Page<T> p : pages) size += p.items.size();
+        return size;
+    }
+
+    private void publish() {
+        List<T> window = new ArrayList<>(windowSize());
+        for (Page<T> p : pages) window.addAll(p.items);
+        items.setValue(Collections.unmodifiableList(window));
+    }
+
+    private void startLoading(Call<?> call) {
+        inFlight = call;
+        loading.setValue(true);
+    }
+
+    private void stopLoading() {
+        inFlight = null;
+        loading.setValue(false);
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            stopLoading();
+        }
+    }
+
+    private void fail(Throwable t) {
+        // Sin datos que mostrar, se publica la ventana (vacía) para que la UI salga del estado de carga
+        if (pages.isEmpty()) items.setValue(Collections.emptyList());
+        if (onError != null) onError.accept(t);
+    }
+}
@@ -0,0 +1,189 @@
+package com.proyecto.facilgimapp.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.proyecto.facilgimapp.util.AsyncSearch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Búsqueda sobre la lista completa de una pantalla paginada.
+ * <p>
+ * Una lista paginada solo tiene en memoria una ventana de páginas, así que filtrarla
+ * dejaría fuera lo que no se ha cargado. Al empezar a buscar se pide la lista completa
+ * con la consulta indicada (que los repositorios sirven desde {@link RepositoryCache} o
+ * desde la réplica local sin conexión), se indexa con {@link AsyncSearch} y los resultados
+ * se paginan en memoria con un {@link PagedLoader} propio, con la misma configuración
+ * que la lista. Mientras hay una búsqueda activa, {@link #getItems()} publica sus
+ * resultados en lugar de la ventana; al vaciarla vuelve a publicar la ventana.
+ * </p>
+ * <p>
+ * Si no se puede obtener la lista completa, se busca en la ventana cargada.
+ * Todos sus métodos deben llamarse desde el hilo principal.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos buscados.
+ * @author Francisco Santana
+ */
+public class PagedSearch<T> {
+    private final PagedLoader.Config config;
+    private final Supplier<Call<List<T>>> all;
+    private final LiveData<List<T>> window;
+    private final AsyncSearch<T> search;
+    private final MediatorLiveData<List<T>> items = new MediatorLiveData<>();
+
+    /** Cargador de los resultados; {@code null} si no hay búsqueda activa. */
+    private PagedLoader<T> results;
+    /** Si el índice corresponde a la lista completa actual. */
+    private boolean indexed;
+    private Call<List<T>> indexing;
+
+    /**
+     * Crea la búsqueda de una lista paginada.
+     *
+     * @param config Paginación de los resultados (la misma que la de la lista).
+     * @param window Ventana cargada de la lista, que se publica cuando no se busca.
+     * @param all    Consulta de la lista completa sobre la que se busca.
+     * @param text   Texto buscable de cada elemento.
+     * @param ranked {@code true} para ordenar por relevancia y tolerar erratas.
+     */
+    public PagedSearch(@NonNull PagedLoader.Config config,
+                       @NonNull LiveData<List<T>> window,
+                       @NonNull Supplier<Call<List<T>>> all,
+                       @NonNull Function<T, String> text,
+                       boolean ranked) {
+        this.config = config;
+        this.window = window;
+        this.all = all;
+        this.search = new AsyncSearch<>(text, ranked, this::showResults);
+        items.addSource(window, list -> {
+            if (results == null) items.setValue(list);
+        });
+    }
+
+    /**
+     * Lista que debe mostrar la pantalla: la ventana, o los resultados paginados si hay
+     * una búsqueda activa.
+     *
+     * @return LiveData con los elementos visibles.
+     */
+    public LiveData<List<T>> getItems() {
+        return items;
+    }
+
+    /**
+     * Cargador de los resultados, para avisarle del desplazamiento.
+     *
+     * @return el cargador, o {@code null} si no hay búsqueda activa.
+     */
+    @Nullable
+    public PagedLoader<T> getLoader() {
+        return results;
+    }
+
+    /**
+     * Indica si hay una búsqueda activa.
+     *
+     * @return {@code true} si se muestran resultados en lugar de la ventana.
+     */
+    public boolean isActive() {
+        return !search.getQuery().isEmpty();
+    }
+
+    /**
+     * Busca en la lista completa. La búsqueda se lanza tras una breve espera sin cambios;
+     * una consulta vacía vuelve a mostrar la ventana.
+     *
+     * @param query Texto buscado; puede ser null o vacío.
+     */
+    public void search(@Nullable String query) {
+        search.search(query);
+        if (!isActive()) {
+            showWindow();
+            return;
+        }
+        if (!indexed && indexing == null) loadIndex();
+    }
+
+    /**
+     * Marca la lista completa como desactualizada (tras crear, editar o borrar elementos).
+     * Si hay una búsqueda activa se vuelve a pedir y se repite la búsqueda.
+     */
+    public void invalidate() {
+        indexed = false;
+        if (indexing != null) {
+            indexing.cancel();
+            indexing = null;
+        }
+        if (isActive()) loadIndex();
+    }
+
+    /** Cancela la búsqueda y la carga en curso (p. ej. al destruir el ViewModel). */
+    public void cancel() {
+        search.cancel();
+        if (indexing != null) indexing.cancel();
+        indexing = null;
+        if (results != null) results.cancel();
+    }
+
+    private void loadIndex() {
+        Call<List<T>> call = all.get();
+        indexing = call;
+        call.enqueue(new Callback<List<T>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<T>> c, @NonNull Response<List<T>> response) {
+                if (indexing != c) return;
+                indexing = null;
+                if (response.isSuccessful() && response.body() != null) {
+                    indexed = true;
+                    search.setItems(response.body());
+                } else {
+                    indexWindow();
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<T>> c, @NonNull Throwable t) {
+                if (indexing != c) return;
+                indexing = null;
+                indexWindow();
+            }
+        });
+    }
+
+    /** Sin la lista completa, se busca al menos en lo cargado; se reintenta en la próxima búsqueda. */
+    private void indexWindow() {
+        List<T> loaded = window.getValue();
+        search.setItems(loaded != null ? loaded : Collections.emptyList());
+    }
+
+    private void showResults(List<T> found) {
+        // Una consulta vacía devuelve todos los elementos: la ventana ya se ha restaurado
+        if (!isActive()) return;
+        if (results != null) {
+            results.cancel();
+            items.removeSource(results.getItems());
+        }
+        results = PagedLoader.ofList(config, found);
+        items.addSource(results.getItems(), items::setValue);
+        results.start();
+    }
+
+    private void showWindow() {
+        if (results == null) return;
+        results.cancel();
+        items.removeSource(results.getItems());
+        results = null;
+        items.setValue(window.getValue());
+    }
+}
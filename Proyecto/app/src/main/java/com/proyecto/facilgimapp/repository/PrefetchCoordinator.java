@@ -0,0 +1,194 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Precarga en paralelo de los datos de las pantallas principales tras iniciar sesión.
+ * <p>
+ * Lanza las consultas de tipos, catálogo de ejercicios (lista completa y primera página)
+ * y entrenamientos del usuario (lista completa, de la que salen las fechas del calendario,
+ * y primera página), con como mucho {@link #MAX_CONCURRENT} en curso a la vez. Las
+ * respuestas quedan en {@link RepositoryCache} y en la réplica local, así que la primera
+ * visita a cada pestaña ya no espera a la red.
+ * </p>
+ * <p>
+ * {@link #cancel()} detiene la precarga (al cerrar sesión). Al terminar se publica, y se
+ * escribe en el log, cuánto tardó cada recurso. Todos sus métodos deben llamarse desde el
+ * hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class PrefetchCoordinator {
+    private static final String TAG = "Prefetch";
+
+    /** Consultas de precarga simultáneas como máximo. */
+    public static final int MAX_CONCURRENT = 3;
+
+    /** Resultado de la precarga de un recurso. */
+    public static final class Timing {
+        /** Nombre del recurso. */
+        public final String resource;
+        /** Duración de la consulta en milisegundos. */
+        public final long durationMs;
+        /** {@code true} si se obtuvo respuesta correcta. */
+        public final boolean success;
+
+        Timing(String resource, long durationMs, boolean success) {
+            this.resource = resource;
+            this.durationMs = durationMs;
+            this.success = success;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d ms%s", resource, durationMs, success ? "" : " (error)");
+        }
+    }
+
+    /** Recurso pendiente de precargar. */
+    private static final class Task {
+        final String name;
+        final Supplier<Call<?>> call;
+
+        Task(String name, Supplier<Call<?>> call) {
+            this.name = name;
+            this.call = call;
+        }
+    }
+
+    private static PrefetchCoordinator instance;
+
+    private final TypeRepository typeRepo;
+    private final EjercicioRepository exerciseRepo;
+    private final WorkoutRepository workoutRepo;
+
+    private final MutableLiveData<List<Timing>> timings = new MutableLiveData<>(Collections.emptyList());
+
+    private final ArrayDeque<Task> pending = new ArrayDeque<>();
+    private final Set<Call<?>> inFlight = new HashSet<>();
+    private final List<Timing> results = new ArrayList<>();
+    /** Se incrementa en cada arranque o cancelación; descarta respuestas de ejecuciones anteriores. */
+    private int generation;
+    private long startedAt;
+
+    private PrefetchCoordinator(Context context) {
+        typeRepo = new TypeRepository(context);
+        exerciseRepo = new EjercicioRepository(context);
+        workoutRepo = new WorkoutRepository(context);
+    }
+
+    /**
+     * Devuelve la instancia única del coordinador.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de PrefetchCoordinator.
+     */
+    public static synchronized PrefetchCoordinator get(Context context) {
+        if (instance == null) {
+            instance = new PrefetchCoordinator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Tiempos de la última precarga completada.
+     *
+     * @return LiveData con un {@link Timing} por recurso.
+     */
+    public LiveData<List<Timing>> getTimings() {
+        return timings;
+    }
+
+    /**
+     * Inicia la precarga para un usuario, cancelando la anterior si seguía en curso.
+     *
+     * @param userId ID del usuario que acaba de iniciar sesión.
+     */
+    public void start(int userId) {
+        cancel();
+        int pageSize = PagedLoader.Config.DEFAULT.pageSize;
+        pending.add(new Task("tipos", typeRepo::listTypes));
+        pending.add(new Task("ejercicios", exerciseRepo::listAllExercises));
+        pending.add(new Task("entrenamientos", () -> workoutRepo.getWorkoutsByUserId(userId)));
+        pending.add(new Task("ejercicios:pagina0", () -> exerciseRepo.listExercisesPage(0, pageSize)));
+        pending.add(new Task("entrenamientos:pagina0",
+                () -> workoutRepo.getWorkoutsByUserIdPage(userId, 0, pageSize)));
+        startedAt = SystemClock.elapsedRealtime();
+        for (int i = 0; i < MAX_CONCURRENT; i++) launchNext(generation);
+    }
+
+    /** Cancela la precarga en curso; las consultas pendientes no se lanzan. */
+    public void cancel() {
+        generation++;
+        pending.clear();
+        results.clear();
+        for (Call<?> call : inFlight) call.cancel();
+        inFlight.clear();
+    }
+
+    private void launchNext(int gen) {
+        if (gen != generation) return;
+        Task task = pending.poll();
+        if (task == null) {
+            if (inFlight.isEmpty() && !results.isEmpty()) finish();
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        Call<?> call = task.call.get();
+        inFlight.add(call);
+        enqueue(call, success -> {
+            if (gen != generation) return;
+            inFlight.remove(call);
+            results.add(new Timing(task.name, SystemClock.elapsedRealtime() - start, success));
+            launchNext(gen);
+        });
+    }
+
+    private void finish() {
+        List<Timing> done = new ArrayList<>(results);
+        results.clear();
+        Log.i(TAG, "Precarga completada en " + (SystemClock.elapsedRealtime() - startedAt)
+                + " ms: " + done);
+        timings.setValue(Collections.unmodifiableList(done));
+    }
+
+    /** Resultado de una consulta de precarga. */
+    private interface Done {
+        void onDone(boolean success);
+    }
+
+    private static <T> void enqueue(Call<T> call, Done done) {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                done.onDone(response.isSuccessful());
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                done.onDone(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,564 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Caché en memoria compartida por todos los repositorios durante la vida del proceso.
+ * <p>
+ * Guarda el último resultado correcto de las consultas de listado, indexado por la misma
+ * clave que usa {@link com.proyecto.facilgimapp.network.RequestCoalescer}. Cada tipo de
+ * entidad tiene su propio tiempo de vida (TTL):
+ * <ul>
+ *   <li>Dentro del TTL la consulta se resuelve desde memoria sin tocar la red.</li>
+ *   <li>Pasado el TTL se entrega igualmente el valor guardado y se lanza una recarga
+ *       en segundo plano que actualiza la entrada para la siguiente consulta.</li>
+ *   <li>Si no hay valor en memoria pero la consulta tiene un {@link LocalSource}, se entrega
+ *       lo guardado en la base de datos local como valor caducado y se sincroniza con el
+ *       servidor en segundo plano.</li>
+ *   <li>Si no hay valor guardado, se consulta al servidor; si la red falla, se recurre
+ *       a la base de datos local.</li>
+ * </ul>
+ * La caché es un LRU con un techo de memoria ({@link #maxBytes()}): cada entrada pesa los
+ * bytes estimados de su valor, según el tipo de DTO y el número de elementos de la lista
+ * o página (ver {@link #estimateBytes(Object)}). Las escrituras invalidan las entradas
+ * afectadas mediante {@link #invalidateOnSuccess(Call, String...)}; hasta la siguiente
+ * sincronización correcta esas consultas van primero al servidor, para no mostrar la
+ * copia local anterior a la escritura.
+ * </p>
+ * <p>
+ * Cada invalidación recibe un número de generación. Una carga que empezó antes de que se
+ * invalidara su clave (p. ej. un GET en curso cuando llega la escritura) entrega su
+ * respuesta a quien la pidió, pero no se guarda en la caché ni en la copia local, ni
+ * cuenta como sincronización: traería los datos anteriores a la escritura.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class RepositoryCache {
+    /** TTL de los tipos de entrenamiento: cambian muy poco. */
+    public static final long TTL_TYPES = 10 * 60_000L;
+    /** TTL del catálogo de ejercicios. */
+    public static final long TTL_EXERCISES = 5 * 60_000L;
+    /** TTL de los entrenamientos, relaciones y series del usuario. */
+    public static final long TTL_WORKOUTS = 60_000L;
+    /** TTL del listado de usuarios (administración). */
+    public static final long TTL_USERS = 60_000L;
+
+    /** Techo de memoria de la caché en dispositivos con mucho heap. */
+    private static final int MAX_BYTES = 8 * 1024 * 1024;
+    /** Fracción del heap disponible que se permite ocupar como mucho (1/32). */
+    private static final int HEAP_FRACTION = 32;
+
+    /** Bytes estimados de un objeto y su cabecera, sin contar sus campos. */
+    private static final int OBJECT_BYTES = 16;
+    /** Bytes estimados de un campo numérico en caja ({@code Integer}, {@code Double}). */
+    private static final int BOXED_BYTES = 16;
+    /** Bytes estimados de una cadena corta (nombre, URL...) en el heap. */
+    private static final int STRING_BYTES = 64;
+    /** Bytes por referencia dentro de una lista. */
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final RepositoryCache INST = new RepositoryCache();
+
+    private final LruCache<String, Entry> entries = new LruCache<String, Entry>(maxBytes()) {
+        @Override
+        protected int sizeOf(String key, Entry value) {
+            return value.bytes;
+        }
+    };
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** Hilo único para la E/S de la base de datos local. */
+    private final ExecutorService diskIO = Executors.newSingleThreadExecutor();
+
+    /** Prefijos invalidados cuya copia local no debe usarse antes de consultar al servidor. */
+    private final Set<String> dirtyPrefixes = ConcurrentHashMap.newKeySet();
+
+    /** Contador de invalidaciones; cada carga anota su valor al empezar. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Generación de la última invalidación de cada prefijo ("" para {@link #clear()}). */
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    private RepositoryCache() {}
+
+    /**
+     * Devuelve la instancia singleton compartida por todos los repositorios.
+     *
+     * @return la instancia única de RepositoryCache.
+     */
+    public static RepositoryCache get() {
+        return INST;
+    }
+
+    /**
+     * Envuelve una consulta para que se resuelva desde memoria cuando sea posible.
+     *
+     * @param key     Clave de la consulta (método y argumentos).
+     * @param ttlMs   Tiempo en milisegundos durante el que la entrada se considera fresca.
+     * @param factory Proveedor de la llamada real al servidor.
+     * @param <T>     Tipo del cuerpo de la respuesta.
+     * @return Un {@link Call} que consulta primero la caché en memoria.
+     */
+    public <T> Call<T> cached(String key, long ttlMs, Supplier<Call<T>> factory) {
+        return new CachedCall<>(key, ttlMs, factory, null);
+    }
+
+    /**
+     * Igual que {@link #cached(String, long, Supplier)}, pero respaldando la consulta con
+     * un origen persistente que se lee cuando no hay valor en memoria y se actualiza tras
+     * cada respuesta correcta del servidor.
+     *
+     * @param key     Clave de la consulta (método y argumentos).
+     * @param ttlMs   Tiempo en milisegundos durante el que la entrada se considera fresca.
+     * @param factory Proveedor de la llamada real al servidor.
+     * @param local   Origen local de la consulta.
+     * @param <T>     Tipo del cuerpo de la respuesta.
+     * @return Un {@link Call} que consulta memoria, base de datos local y servidor.
+     */
+    public <T> Call<T> cached(String key, long ttlMs, Supplier<Call<T>> factory, LocalSource<T> local) {
+        return new CachedCall<>(key, ttlMs, factory, local);
+    }
+
+    /**
+     * Envuelve una llamada de escritura para que, si termina con éxito, invalide
+     * las entradas cuya clave empiece por alguno de los prefijos indicados.
+     *
+     * @param call     Llamada de escritura (POST, PUT o DELETE).
+     * @param prefixes Prefijos de clave a invalidar (p. ej. "listAllExercises").
+     * @param <T>      Tipo del cuerpo de la respuesta.
+     * @return La llamada envuelta.
+     */
+    public <T> Call<T> invalidateOnSuccess(Call<T> call, String... prefixes) {
+        return new InvalidatingCall<>(call, prefixes);
+    }
+
+    /**
+     * Elimina las entradas cuya clave empiece por alguno de los prefijos indicados.
+     *
+     * @param prefixes Prefijos de clave a invalidar.
+     */
+    public synchronized void invalidate(String... prefixes) {
+        long gen = generation.incrementAndGet();
+        for (String prefix : prefixes) {
+            dirtyPrefixes.add(prefix);
+            invalidatedAt.put(prefix, gen);
+        }
+        Map<String, Entry> snapshot = entries.snapshot();
+        for (String key : snapshot.keySet()) {
+            for (String prefix : prefixes) {
+                if (key.startsWith(prefix)) {
+                    entries.remove(key);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Vacía por completo la caché (por ejemplo, al cambiar de usuario). */
+    public synchronized void clear() {
+        invalidatedAt.put("", generation.incrementAndGet());
+        entries.evictAll();
+    }
+
+    /**
+     * Límite en bytes de la caché: {@link #MAX_BYTES}, o menos si el heap de la app es
+     * pequeño.
+     */
+    private static int maxBytes() {
+        return (int) Math.min(MAX_BYTES, Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+    }
+
+    /**
+     * Estima los bytes que ocupa en el heap un valor cacheado: para listas y páginas, la
+     * suma de sus elementos. Es una estimación por tipo de DTO (campos en caja y cadenas
+     * de longitud típica), no una medida; basta para que el LRU respete un techo de memoria
+     * aproximado.
+     *
+     * @param value Valor cacheado.
+     * @return bytes estimados, al menos 1.
+     */
+    static int estimateBytes(Object value) {
+        long bytes;
+        if (value instanceof List) {
+            bytes = listBytes((List<?>) value);
+        } else if (value instanceof PageDTO) {
+            bytes = OBJECT_BYTES + listBytes(((PageDTO<?>) value).getContent());
+        } else {
+            bytes = elementBytes(value);
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes));
+    }
+
+    private static long listBytes(List<?> list) {
+        if (list == null) return 0;
+        long bytes = OBJECT_BYTES;
+        for (Object element : list) bytes += REFERENCE_BYTES + elementBytes(element);
+        return bytes;
+    }
+
+    private static long elementBytes(Object o) {
+        if (o == null) return 0;
+        if (o instanceof SerieDTO) {
+            return OBJECT_BYTES + 4 * BOXED_BYTES;
+        }
+        if (o instanceof TipoEntrenamientoDTO) {
+            return OBJECT_BYTES + BOXED_BYTES + STRING_BYTES;
+        }
+        if (o instanceof EjercicioDTO) {
+            return OBJECT_BYTES + BOXED_BYTES + 2 * STRING_BYTES;
+        }
+        if (o instanceof UsuarioDTO) {
+            return OBJECT_BYTES + BOXED_BYTES + 7 * STRING_BYTES;
+        }
+        if (o instanceof EntrenamientoEjercicioDTO) {
+            EntrenamientoEjercicioDTO r = (EntrenamientoEjercicioDTO) o;
+            return OBJECT_BYTES + BOXED_BYTES + elementBytes(r.getEjercicio()) + listBytes(r.getSeries());
+        }
+        if (o instanceof EntrenamientoDTO) {
+            EntrenamientoDTO w = (EntrenamientoDTO) o;
+            return OBJECT_BYTES + BOXED_BYTES + 3 * STRING_BYTES
+                    + elementBytes(w.getTipoEntrenamiento()) + elementBytes(w.getUsuario())
+                    + listBytes(w.getEjerciciosId()) + listBytes(w.getEntrenamientosEjercicios());
+        }
+        if (o instanceof String) {
+            return OBJECT_BYTES + 2L * ((String) o).length();
+        }
+        if (o instanceof Number || o instanceof Boolean) {
+            return BOXED_BYTES;
+        }
+        // Cualquier otro DTO se estima como uno de tamaño medio
+        return OBJECT_BYTES + 4 * STRING_BYTES;
+    }
+
+    /** Generación actual, que una carga anota al empezar para pasarla a {@link #store}. */
+    private long currentGeneration() {
+        return generation.get();
+    }
+
+    /** Indica si la clave se ha invalidado después de que empezara una carga. */
+    private boolean invalidatedSince(String key, long startedAt) {
+        for (Map.Entry<String, Long> e : invalidatedAt.entrySet()) {
+            if (e.getValue() > startedAt && key.startsWith(e.getKey())) return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(Entry entry) {
+        if (entry.value instanceof List) {
+            return (T) new ArrayList<>((List<?>) entry.value);
+        }
+        return (T) entry.value;
+    }
+
+    /**
+     * Guarda el resultado de una carga, salvo que la clave se haya invalidado desde que
+     * empezó.
+     *
+     * @param startedAt Generación anotada al empezar la carga.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <T> void store(String key, T value, LocalSource<T> local, long startedAt) {
+        if (value == null || invalidatedSince(key, startedAt)) return;
+        Object stored = value instanceof List ? new ArrayList<>((List<?>) value) : value;
+        entries.put(key, new Entry(stored, SystemClock.elapsedRealtime()));
+        dirtyPrefixes.removeIf(key::startsWith);
+        if (local != null) {
+            // Persistimos la copia de la caché, no la lista que recibe el llamante
+            diskIO.execute(() -> local.save((T) stored));
+        }
+    }
+
+    /** Guarda la copia leída de disco, salvo que la clave se haya invalidado mientras tanto. */
+    private synchronized void putFromDisk(String key, Entry entry, long startedAt) {
+        if (!invalidatedSince(key, startedAt)) entries.put(key, entry);
+    }
+
+    private boolean isDirty(String key) {
+        for (String prefix : dirtyPrefixes) {
+            if (key.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /** Valor cacheado junto con el instante en que se obtuvo. */
+    private static class Entry {
+        /** Instante que hace que una entrada leída de disco se considere siempre caducada. */
+        static final long FROM_DISK = Long.MIN_VALUE / 2;
+
+        final Object value;
+        final long storedAt;
+        /** Bytes estimados del valor, para el límite del LRU. */
+        final int bytes;
+
+        Entry(Object value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.bytes = estimateBytes(value);
+        }
+    }
+
+    /**
+     * {@link Call} que responde desde memoria y recarga en segundo plano cuando la entrada ha caducado.
+     */
+    private class CachedCall<T> implements Call<T> {
+        private final String key;
+        private final long ttlMs;
+        private final Supplier<Call<T>> factory;
+        private final LocalSource<T> local;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private Call<T> delegate;
+
+        CachedCall(String key, long ttlMs, Supplier<Call<T>> factory, LocalSource<T> local) {
+            this.key = key;
+            this.ttlMs = ttlMs;
+            this.factory = factory;
+            this.local = local;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isStale(entry)) refreshInBackground();
+                return Response.success(read(entry));
+            }
+            long startedAt = currentGeneration();
+            try {
+                Response<T> response = delegate().execute();
+                if (response.isSuccessful()) store(key, response.body(), local, startedAt);
+                return response;
+            } catch (IOException e) {
+                T stored = local != null ? local.load() : null;
+                if (stored == null) throw e;
+                return Response.success(stored);
+            }
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isStale(entry)) refreshInBackground();
+                // Entregamos en el hilo principal, igual que Retrofit
+                mainHandler.post(() -> {
+                    if (!canceled) callback.onResponse(this, Response.success(read(entry)));
+                });
+                return;
+            }
+            if (local != null && !isDirty(key)) {
+                // Sin valor en memoria: abrimos con la copia local y sincronizamos después
+                diskIO.execute(() -> {
+                    long startedAt = currentGeneration();
+                    T stored = local.load();
+                    if (stored == null) {
+                        fetch(callback);
+                        return;
+                    }
+                    Entry fromDisk = new Entry(stored, Entry.FROM_DISK);
+                    putFromDisk(key, fromDisk, startedAt);
+                    refreshInBackground();
+                    mainHandler.post(() -> {
+                        if (!canceled) callback.onResponse(this, Response.success(read(fromDisk)));
+                    });
+                });
+                return;
+            }
+            fetch(callback);
+        }
+
+        /** Consulta al servidor y, si la red falla, recurre a la copia local. */
+        private void fetch(Callback<T> callback) {
+            long startedAt = currentGeneration();
+            delegate().enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    if (response.isSuccessful()) store(key, response.body(), local, startedAt);
+                    callback.onResponse(CachedCall.this, response);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    if (local == null || canceled) {
+                        callback.onFailure(CachedCall.this, t);
+                        return;
+                    }
+                    diskIO.execute(() -> {
+                        T stored = local.load();
+                        mainHandler.post(() -> {
+                            if (stored != null) {
+                                callback.onResponse(CachedCall.this, Response.success(stored));
+                            } else {
+                                callback.onFailure(CachedCall.this, t);
+                            }
+                        });
+                    });
+                }
+            });
+        }
+
+        private boolean isStale(Entry entry) {
+            return SystemClock.elapsedRealtime() - entry.storedAt > ttlMs;
+        }
+
+        private void refreshInBackground() {
+            long startedAt = currentGeneration();
+            factory.get().enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    if (response.isSuccessful()) store(key, response.body(), local, startedAt);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    // Se conserva el valor anterior hasta el siguiente intento
+                }
+            });
+        }
+
+        private Call<T> delegate() {
+            if (delegate == null) delegate = factory.get();
+            return delegate;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            if (delegate != null) delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new CachedCall<>(key, ttlMs, factory, local);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate().request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate().timeout();
+        }
+    }
+
+    /**
+     * {@link Call} de escritura que invalida entradas de la caché cuando tiene éxito.
+     */
+    private class InvalidatingCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final String[] prefixes;
+
+        InvalidatingCall(Call<T> delegate, String[] prefixes) {
+            this.delegate = delegate;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            Response<T> response = delegate.execute();
+            if (response.isSuccessful()) invalidate(prefixes);
+            return response;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    if (response.isSuccessful()) invalidate(prefixes);
+                    callback.onResponse(InvalidatingCall.this, response);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    callback.onFailure(InvalidatingCall.this, t);
+                }
+            });
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new InvalidatingCall<>(delegate.clone(), prefixes);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.proyecto.facilgimapp.model.dto.SerieBulkResultDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Response;
+
+/**
+ * Escritura de series en bloque: agrupa las series de una misma relación
+ * entrenamiento-ejercicio en peticiones de hasta {@link #MAX_BATCH_SIZE} series y las
+ * envía con un máximo de {@link #MAX_CONCURRENT_REQUESTS} peticiones simultáneas.
+ * <p>
+ * El servidor responde con el resultado de cada serie por separado. Las que fallan por
+ * un error temporal (red, 408, 429 o 5xx) se reintentan solas, en una nueva petición en
+ * bloque y con espera exponencial, hasta {@link #MAX_ATTEMPTS} intentos; las rechazadas
+ * de forma definitiva se informan sin reintentar. Cuando todas las series de un envío
+ * tienen resultado, se notifica al oyente en el hilo principal con un resultado por serie,
+ * en el mismo orden en que se entregaron.
+ * </p>
+ * <p>
+ * Cada serie recibe al entrar una clave de idempotencia que se conserva entre reintentos.
+ * Cada petición en bloque lleva la clave derivada de las de sus series, de modo que si se
+ * pierde la respuesta y se repite el mismo bloque, el servidor no guarda las series dos
+ * veces. Una serie nueva que falta en la respuesta puede haberse guardado, así que no se
+ * reintenta sola (con otra clave) sino que se informa como fallida.
+ * </p>
+ * <p>
+ * Si el servidor no ofrece el endpoint en bloque (404), se usa en su lugar un sustituto
+ * local que hace una petición por serie y compone la misma respuesta, de modo que el
+ * resto del proceso no cambia.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class SeriesBatchWriter {
+    private static final String TAG = "SeriesBatchWriter";
+
+    /** Máximo de series por petición en bloque. */
+    static final int MAX_BATCH_SIZE = 25;
+    /** Máximo de peticiones en bloque en curso a la vez. */
+    static final int MAX_CONCURRENT_REQUESTS = 3;
+    /** Intentos por serie antes de darla por fallida. */
+    static final int MAX_ATTEMPTS = 3;
+    /** Espera antes del primer reintento. */
+    static final long BASE_BACKOFF_MS = 1_000;
+
+    /**
+     * Endpoint que guarda un bloque de series de una relación y devuelve un resultado
+     * por serie.
+     */
+    interface BulkEndpoint {
+        /**
+         * Guarda las series (crea las que no tienen ID y actualiza las que sí).
+         *
+         * @param relacionId ID de la relación entrenamiento-ejercicio.
+         * @param keys       Clave de idempotencia de cada serie, en el mismo orden.
+         * @param series     Series a guardar.
+         * @return la respuesta, con un {@link SerieBulkResultDTO} por serie.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<List<SerieBulkResultDTO>> save(int relacionId, List<String> keys, List<SerieDTO> series)
+                throws IOException;
+    }
+
+    /**
+     * Resultado final de una serie.
+     */
+    public static final class ItemResult {
+        /** ID de la relación a la que pertenece la serie. */
+        public final int relacionId;
+        /** Serie tal como se pidió guardar. */
+        public final SerieDTO request;
+        /** Serie guardada por el servidor, o {@code null} si falló. */
+        public final SerieDTO saved;
+        /** Código de estado del último intento; 0 si falló la red. */
+        public final int code;
+        /** Motivo del fallo, o {@code null} si se guardó. */
+        public final String error;
+
+        ItemResult(int relacionId, SerieDTO request, SerieDTO saved, int code, String error) {
+            this.relacionId = relacionId;
+            this.request = request;
+            this.saved = saved;
+            this.code = code;
+            this.error = error;
+        }
+
+        /**
+         * Indica si la serie se guardó.
+         *
+         * @return {@code true} si el servidor la aceptó.
+         */
+        public boolean isSuccess() {
+            return code >= 200 && code < 300;
+        }
+    }
+
+    /**
+     * Recibe en el hilo principal los resultados de un envío.
+     */
+    public interface Listener {
+        /**
+         * Se invoca cuando todas las series del envío tienen resultado.
+         *
+         * @param results Un resultado por serie, en el orden en que se entregaron.
+         */
+        void onComplete(List<ItemResult> results);
+    }
+
+    /** Una serie pendiente dentro de un envío. */
+    private static final class Item {
+        final int index;
+        final int relacionId;
+        final SerieDTO serie;
+        /** Clave de idempotencia, la misma en todos los intentos. */
+        final String key = UUID.randomUUID().toString();
+        int lastCode;
+        String lastError;
+
+        Item(int index, int relacionId, SerieDTO serie) {
+            this.index = index;
+            this.relacionId = relacionId;
+            this.serie = serie;
+        }
+    }
+
+    /** Un envío completo: espera a que todas sus series tengan resultado. */
+    private final class Job {
+        final ItemResult[] results;
+        final AtomicInteger pending;
+        final Listener listener;
+
+        Job(int size, Listener listener) {
+            this.results = new ItemResult[size];
+            this.pending = new AtomicInteger(size);
+            this.listener = listener;
+        }
+
+        void complete(Item item, SerieDTO saved, int code, String error) {
+            ItemResult r = new ItemResult(item.relacionId, item.serie, saved, code, error);
+            results[item.index] = r;
+            if (pending.decrementAndGet() == 0) finish(this);
+        }
+    }
+
+    private static SeriesBatchWriter instance;
+
+    private final BulkEndpoint remote;
+    private final BulkEndpoint local;
+    private final ScheduledExecutorService pool =
+            Executors.newScheduledThreadPool(MAX_CONCURRENT_REQUESTS);
+    private final Executor callbacks;
+    private final long baseBackoffMs;
+
+    /** Pasa a {@code false} la primera vez que el servidor responde 404 al endpoint en bloque. */
+    private volatile boolean remoteAvailable = true;
+
+    /**
+     * Crea el escritor con los endpoints indicados.
+     *
+     * @param remote        Endpoint en bloque del servidor.
+     * @param local         Sustituto que se usa si el servidor no ofrece el endpoint en bloque.
+     * @param callbacks     Ejecutor en el que se avisa a los oyentes (el hilo principal).
+     * @param baseBackoffMs Espera antes del primer reintento.
+     */
+    SeriesBatchWriter(BulkEndpoint remote, BulkEndpoint local, Executor callbacks, long baseBackoffMs) {
+        this.remote = remote;
+        this.local = local;
+        this.callbacks = callbacks;
+        this.baseBackoffMs = baseBackoffMs;
+    }
+
+    /**
+     * Devuelve la instancia única del escritor.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de SeriesBatchWriter.
+     */
+    public static synchronized SeriesBatchWriter get(Context context) {
+        if (instance == null) {
+            ApiService api = RetrofitClient.getApiService(context.getApplicationContext());
+            instance = new SeriesBatchWriter(
+                    (relacionId, keys, series) ->
+                            api.saveSeriesBulk(requestKey(keys), relacionId, series).execute(),
+                    new PerItemEndpoint(api),
+                    new Handler(Looper.getMainLooper())::post,
+                    BASE_BACKOFF_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Guarda las series de una relación.
+     *
+     * @param relacionId ID de la relación entrenamiento-ejercicio.
+     * @param series     Series a crear (sin ID) o actualizar (con ID).
+     * @param listener   Oyente de los resultados, o {@code null}.
+     */
+    public void submit(int relacionId, List<SerieDTO> series, @Nullable Listener listener) {
+        submit(Collections.singletonMap(relacionId, series), listener);
+    }
+
+    /**
+     * Guarda series de varias relaciones. Las de cada relación se envían en bloques
+     * propios, y los bloques de relaciones distintas pueden ir en paralelo.
+     *
+     * @param seriesByRelation Series a guardar, agrupadas por ID de relación.
+     * @param listener         Oyente de los resultados, o {@code null}.
+     */
+    public void submit(Map<Integer, List<SerieDTO>> seriesByRelation, @Nullable Listener listener) {
+        Map<Integer, List<Item>> groups = new LinkedHashMap<>();
+        int index = 0;
+        for (Map.Entry<Integer, List<SerieDTO>> e : seriesByRelation.entrySet()) {
+            List<Item> group = new ArrayList<>();
+            for (SerieDTO serie : e.getValue()) {
+                group.add(new Item(index++, e.getKey(), serie));
+            }
+            if (!group.isEmpty()) groups.put(e.getKey(), group);
+        }
+
+        Job job = new Job(index, listener);
+        if (index == 0) {
+            finish(job);
+            return;
+        }
+        for (Map.Entry<Integer, List<Item>> e : groups.entrySet()) {
+            List<Item> group = e.getValue();
+            for (int from = 0; from < group.size(); from += MAX_BATCH_SIZE) {
+                List<Item> chunk = new ArrayList<>(
+                        group.subList(from, Math.min(from + MAX_BATCH_SIZE, group.size())));
+                pool.execute(() -> send(job, e.getKey(), chunk, 1));
+            }
+        }
+    }
+
+    /**
+     * Envía un bloque, resuelve las series con resultado definitivo y programa el
+     * reintento de las que fallaron temporalmente.
+     */
+    private void send(Job job, int relacionId, List<Item> chunk, int attempt) {
+        List<Item> retry = remoteAvailable ? sendWith(remote, job, relacionId, chunk) : null;
+        if (retry == null) {
+            // El servidor no tiene endpoint en bloque: se usa el sustituto local
+            retry = sendWith(local, job, relacionId, chunk);
+        }
+        if (retry.isEmpty()) return;
+
+        if (attempt < MAX_ATTEMPTS) {
+            List<Item> failed = retry;
+            pool.schedule(() -> send(job, relacionId, failed, attempt + 1),
+                    backoff(attempt), TimeUnit.MILLISECONDS);
+        } else {
+            for (Item item : retry) {
+                job.complete(item, null, item.lastCode, item.lastError);
+            }
+        }
+    }
+
+    /**
+     * Envía el bloque por {@code endpoint}.
+     *
+     * @return las series que deben reintentarse, o {@code null} si el endpoint no existe.
+     */
+    private List<Item> sendWith(BulkEndpoint endpoint, Job job, int relacionId, List<Item> chunk) {
+        List<SerieDTO> body = new ArrayList<>(chunk.size());
+        List<String> keys = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            body.add(item.serie);
+            keys.add(item.key);
+        }
+
+        Response<List<SerieBulkResultDTO>> response;
+        try {
+            response = endpoint.save(relacionId, keys, body);
+        } catch (IOException e) {
+            return markAll(chunk, 0, e.getMessage());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "No se pudo enviar el bloque de series", e);
+            for (Item item : chunk) job.complete(item, null, 0, e.getMessage());
+            return Collections.emptyList();
+        }
+
+        if (!response.isSuccessful() || response.body() == null) {
+            int code = response.code();
+            if (code == 404 && endpoint == remote) {
+                remoteAvailable = false;
+                return null;
+            }
+            if (isTransient(code)) return markAll(chunk, code, "HTTP " + code);
+            for (Item item : chunk) job.complete(item, null, code, "HTTP " + code);
+            return Collections.emptyList();
+        }
+
+        // Resultado por serie; las que falten en la respuesta se reintentan
+        SerieBulkResultDTO[] byIndex = new SerieBulkResultDTO[chunk.size()];
+        for (SerieBulkResultDTO r : response.body()) {
+            if (r != null && r.getIndex() >= 0 && r.getIndex() < byIndex.length) {
+                byIndex[r.getIndex()] = r;
+            }
+        }
+        List<Item> retry = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Item item = chunk.get(i);
+            SerieBulkResultDTO r = byIndex[i];
+            if (r == null) {
+                if (item.serie.getId() == null) {
+                    // Pudo crearse: reenviarla en otro bloque (con otra clave) la duplicaría
+                    job.complete(item, null, 0, "Sin resultado");
+                } else {
+                    item.lastCode = 0;
+                    item.lastError = "Sin resultado";
+                    retry.add(item);
+                }
+            } else if (r.getStatus() >= 200 && r.getStatus() < 300) {
+                job.complete(item, r.getSerie() != null ? r.getSerie() : item.serie, r.getStatus(), null);
+            } else if (isTransient(r.getStatus())) {
+                item.lastCode = r.getStatus();
+                item.lastError = r.getMensaje();
+                retry.add(item);
+            } else {
+                job.complete(item, null, r.getStatus(), r.getMensaje());
+            }
+        }
+        return retry;
+    }
+
+    private static List<Item> markAll(List<Item> chunk, int code, String error) {
+        for (Item item : chunk) {
+            item.lastCode = code;
+            item.lastError = error;
+        }
+        return chunk;
+    }
+
+    private static boolean isTransient(int code) {
+        return code == 0 || code == 408 || code == 429 || code >= 500;
+    }
+
+    /**
+     * Clave de idempotencia de una petición en bloque, derivada de las de sus series:
+     * el mismo bloque da siempre la misma clave.
+     *
+     * @param keys Claves de las series, en orden.
+     * @return la clave de la petición.
+     */
+    static String requestKey(List<String> keys) {
+        return UUID.nameUUIDFromBytes(String.join(",", keys).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private long backoff(int attempt) {
+        long delay = baseBackoffMs << Math.min(attempt - 1, 10);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void finish(Job job) {
+        if (job.listener != null) {
+            List<ItemResult> results = Collections.unmodifiableList(Arrays.asList(job.results));
+            callbacks.execute(() -> job.listener.onComplete(results));
+        }
+    }
+
+    /**
+     * Sustituto local del endpoint en bloque: guarda cada serie con su propia petición
+     * ({@code POST} con la clave de la serie si no tiene ID, {@code PUT} si lo tiene) y
+     * compone la respuesta con un resultado por serie. Un fallo de red en una serie se informa como estado 0
+     * para esa serie, sin afectar a las demás.
+     */
+    static final class PerItemEndpoint implements BulkEndpoint {
+        private final ApiService api;
+
+        PerItemEndpoint(ApiService api) {
+            this.api = api;
+        }
+
+        @Override
+        public Response<List<SerieBulkResultDTO>> save(int relacionId, List<String> keys,
+                                                       List<SerieDTO> series) {
+            List<SerieBulkResultDTO> results = new ArrayList<>(series.size());
+            for (int i = 0; i < series.size(); i++) {
+                SerieDTO serie = series.get(i);
+                SerieBulkResultDTO r = new SerieBulkResultDTO();
+                r.setIndex(i);
+                try {
+                    Response<SerieDTO> response = serie.getId() == null
+                            ? api.createSeries(keys.get(i), serie).execute()
+                            : api.updateSeries(serie.getId(), serie).execute();
+                    r.setStatus(response.code());
+                    r.setSerie(response.body());
+                    if (!response.isSuccessful()) r.setMensaje("HTTP " + response.code());
+                } catch (IOException e) {
+                    r.setStatus(0);
+                    r.setMensaje(e.getMessage());
+                }
+                results.add(r);
+            }
+            return Response.success(results);
+        }
+    }
+}
@@ -2,10 +2,11 @@ package com.proyecto.facilgimapp.repository;
 
 import android.content.Context;
 import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.database.LocalStore;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
 
-import java.util.ArrayList;
 import java.util.List;
 import retrofit2.Call;
 /**
@@ -17,6 +18,13 @@ import retrofit2.Call;
  */
 public class SeriesRepository {
     private final ApiService apiService;
+    private final LocalStore localStore;
+    private final SeriesBatchWriter batchWriter;
+
+    /**
+     * Prefijos de las consultas cacheadas que dejan de ser válidas al modificar una serie.
+     */
+    static final String[] SERIES_KEYS = {"listSeries", "getWorkoutsByUserId", "listExercisesInTraining"};
     /**
      * Inicializa el repositorio obteniendo el ApiService de RetrofitClient.
      *
@@ -24,6 +32,8 @@ public class SeriesRepository {
      */
     public SeriesRepository(Context context) {
         this.apiService = RetrofitClient.getApiService(context);
+        this.localStore = LocalStore.get(context);
+        this.batchWriter = SeriesBatchWriter.get(context);
     }
     /**
      * Lista todas las series asociadas a una relación específica.
@@ -32,7 +42,11 @@ public class SeriesRepository {
      * @return Un objeto Call que representa la solicitud para obtener la lista de series.
      */
     public Call<List<SerieDTO>> listSeries(int relacionId) {
-        return apiService.listSeries(relacionId);
+        String key = "listSeries:" + relacionId;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key, () -> apiService.listSeries(relacionId)),
+                LocalSource.of(() -> localStore.loadSeries(relacionId),
+                        list -> localStore.saveSeries(relacionId, list)));
     }
     /**
      * Obtiene una serie específica por su ID.
@@ -50,7 +64,7 @@ public class SeriesRepository {
      * @return Un objeto Call que representa la solicitud para crear o actualizar la serie.
      */
     public Call<SerieDTO> createSeries(SerieDTO dto) {
-        return apiService.createSeries(dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.createSeries(dto), SERIES_KEYS);
     }
     /**
      * Actualiza una serie existente por su ID.
@@ -60,7 +74,7 @@ public class SeriesRepository {
      * @return Un objeto Call que representa la solicitud para actualizar la serie.
      */    
     public Call<SerieDTO> updateSeries(int id, SerieDTO dto) {
-        return apiService.updateSeries(id, dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.updateSeries(id, dto), SERIES_KEYS);
     }
     /**
      * Elimina una serie específica por su ID.
@@ -69,19 +83,27 @@ public class SeriesRepository {
      * @return Un objeto Call que representa la solicitud para eliminar la serie.
      */
     public Call<Void> deleteSeries(int id) {
-        return apiService.deleteSeries(id);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.deleteSeries(id), SERIES_KEYS);
     }
     /**
-     * Crea múltiples series a partir de una lista de objetos SerieDTO.
+     * Crea o actualiza varias series de una misma relación mediante peticiones en bloque
+     * ({@link SeriesBatchWriter}), reintentando solo las series que fallen temporalmente.
+     * Si se guarda alguna, invalida las consultas cacheadas de series antes de avisar.
      *
-     * @param series Lista de objetos SerieDTO que representan las series a crear.
-     * @return Una lista de objetos Call que representan las solicitudes para crear cada serie.
+     * @param relacionId ID de la relación a la que pertenecen las series.
+     * @param series     Series a crear (sin ID) o actualizar (con ID).
+     * @param listener   Oyente que recibe un resultado por serie, o {@code null}.
      */
-    public List<Call<SerieDTO>> createMultipleSeries(List<SerieDTO> series) {
-        List<Call<SerieDTO>> calls = new ArrayList<>();
-        for (SerieDTO serie : series) {
-            calls.add(apiService.createSeries(serie));
-        }
-        return calls;
+    public void createMultipleSeries(int relacionId, List<SerieDTO> series,
+                                     SeriesBatchWriter.Listener listener) {
+        batchWriter.submit(relacionId, series, results -> {
+            for (SeriesBatchWriter.ItemResult r : results) {
+                if (r.isSuccess()) {
+                    RepositoryCache.get().invalidate(SERIES_KEYS);
+                    break;
+                }
+            }
+            if (listener != null) listener.onComplete(results);
+        });
     }
 }
@@ -0,0 +1,122 @@
+package com.proyecto.facilgimapp.repository;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * {@link Call} que responde con una consulta a la réplica local, para que quien espera
+ * llamadas de Retrofit (p. ej. {@link PagedLoader}) pueda leer de disco igual que del
+ * servidor.
+ * <p>
+ * La consulta se ejecuta en {@code io} y el resultado se entrega en {@code callbacks}.
+ * Una consulta que devuelve {@code null} se entrega como un 404 (no hay copia local) y
+ * una que lanza una excepción, como un fallo.
+ * </p>
+ *
+ * @param <T> Tipo del resultado.
+ * @author Francisco Santana
+ */
+final class StoreCall<T> implements Call<T> {
+    private static final Request REQUEST = new Request.Builder().url("http://localhost/replica").build();
+
+    private final Callable<T> query;
+    private final Executor io;
+    private final Executor callbacks;
+    private volatile boolean executed;
+    private volatile boolean canceled;
+
+    /**
+     * Crea la llamada.
+     *
+     * @param query     Consulta a la réplica local.
+     * @param io        Ejecutor de la consulta.
+     * @param callbacks Ejecutor en el que se entrega el resultado.
+     */
+    StoreCall(Callable<T> query, Executor io, Executor callbacks) {
+        this.query = query;
+        this.io = io;
+        this.callbacks = callbacks;
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        if (executed) throw new IllegalStateException("Already executed.");
+        executed = true;
+        return run();
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<T> callback) {
+        if (executed) throw new IllegalStateException("Already executed.");
+        executed = true;
+        io.execute(() -> {
+            if (canceled) return;
+            try {
+                Response<T> response = run();
+                callbacks.execute(() -> {
+                    if (!canceled) callback.onResponse(this, response);
+                });
+            } catch (IOException e) {
+                callbacks.execute(() -> {
+                    if (!canceled) callback.onFailure(this, e);
+                });
+            }
+        });
+    }
+
+    private Response<T> run() throws IOException {
+        T value;
+        try {
+            value = query.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("No se pudo leer la réplica local", e);
+        }
+        return value != null ? Response.success(value)
+                : Response.error(404, ResponseBody.create(new byte[0], null));
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @NonNull
+    @Override
+    public Call<T> clone() {
+        return new StoreCall<>(query, io, callbacks);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return REQUEST;
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+}
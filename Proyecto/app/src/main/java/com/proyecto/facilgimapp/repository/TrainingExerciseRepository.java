@@ -2,7 +2,9 @@ package com.proyecto.facilgimapp.repository;
 
 import android.content.Context;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.database.LocalStore;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
 import java.util.List;
 import retrofit2.Call;
@@ -17,6 +19,7 @@ import retrofit2.Call;
 
 public class TrainingExerciseRepository {
     private final ApiService api;
+    private final LocalStore localStore;
     /**
      * Constructor que inicializa el servicio de API obteniéndolo de RetrofitClient.
      *
@@ -24,6 +27,7 @@ public class TrainingExerciseRepository {
      */
     public TrainingExerciseRepository(Context ctx) {
         api = RetrofitClient.getApiService(ctx);
+        localStore = LocalStore.get(ctx);
     }
 
     /**
@@ -33,7 +37,11 @@ public class TrainingExerciseRepository {
      * @return Un objeto Call que representa la solicitud para obtener la lista de ejercicios.
      */
     public Call<List<EntrenamientoEjercicioDTO>> listExercisesForWorkout(int workoutId) {
-        return api.listExercisesInTraining(workoutId);
+        String key = "listExercisesInTraining:" + workoutId;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key, () -> api.listExercisesInTraining(workoutId)),
+                LocalSource.of(() -> localStore.loadRelations(workoutId),
+                        list -> localStore.saveRelations(workoutId, list)));
     }
     /**
      * Obtiene una relación específica entre un ejercicio y un entrenamiento por su ID.
@@ -51,7 +59,8 @@ public class TrainingExerciseRepository {
      * @return Un objeto Call que representa la solicitud para añadir el ejercicio al entrenamiento.
      */
     public Call<EntrenamientoEjercicioDTO> addExerciseToTraining(EntrenamientoEjercicioDTO dto) {
-        return api.addExerciseToTraining(dto);
+        return RepositoryCache.get().invalidateOnSuccess(
+                api.addExerciseToTraining(dto), WorkoutRepository.WORKOUT_KEYS);
     }
     /**
      * Actualiza una relación existente entre un ejercicio y un entrenamiento.
@@ -61,6 +70,7 @@ public class TrainingExerciseRepository {
      * @return Un objeto Call que representa la solicitud para actualizar la relación.
      */
     public Call<Void> deleteRelation(int id) {
-        return api.removeExerciseFromTraining(id);
+        return RepositoryCache.get().invalidateOnSuccess(
+                api.removeExerciseFromTraining(id), WorkoutRepository.WORKOUT_KEYS);
     }
 }
@@ -2,7 +2,9 @@ package com.proyecto.facilgimapp.repository;
 
 import android.content.Context;
 import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.database.LocalStore;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
 import java.util.List;
 import retrofit2.Call;
@@ -15,6 +17,7 @@ import retrofit2.Call;
  */
 public class TypeRepository {
     private final ApiService apiService;
+    private final LocalStore localStore;
     /**
      * Constructor que inicializa el servicio de API obteniéndolo de RetrofitClient.
      *
@@ -22,14 +25,19 @@ public class TypeRepository {
      */
     public TypeRepository(Context context) {
         this.apiService = RetrofitClient.getApiService(context);
+        this.localStore = LocalStore.get(context);
     }
     /**
-     * Lista todos los tipos de entrenamiento disponibles.
+     * Lista todos los tipos de entrenamiento disponibles. El resultado se sirve desde
+     * {@link RepositoryCache} o desde la base de datos local si está disponible y las llamadas concurrentes
+     * comparten una única petición HTTP mediante {@link RequestCoalescer}.
      *
      * @return Un objeto Call que representa la solicitud para obtener la lista de tipos de entrenamiento.
      */
     public Call<List<TipoEntrenamientoDTO>> listTypes() {
-        return apiService.listTypes();
+        return RepositoryCache.get().cached("listTypes", RepositoryCache.TTL_TYPES,
+                () -> RequestCoalescer.get().coalesce("listTypes", apiService::listTypes),
+                LocalSource.of(localStore::loadTypes, localStore::saveTypes));
     }
     /**
      * Crea un nuevo tipo de entrenamiento o actualiza uno existente.
@@ -38,7 +46,7 @@ public class TypeRepository {
      * @return Un objeto Call que representa la solicitud para crear o actualizar el tipo de entrenamiento.
      */
     public Call<TipoEntrenamientoDTO> createType(TipoEntrenamientoDTO dto) {
-        return apiService.createType(dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.createType(dto), "listTypes");
     }
 
     /**
@@ -49,7 +57,7 @@ public class TypeRepository {
      * @return Un objeto Call que representa la solicitud para actualizar el tipo de entrenamiento.
      */
     public Call<TipoEntrenamientoDTO> updateType(int id, TipoEntrenamientoDTO dto) {
-        return apiService.updateType(id, dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.updateType(id, dto), "listTypes");
     }
     /**
      * Elimina un tipo de entrenamiento por su ID.
@@ -58,7 +66,7 @@ public class TypeRepository {
      * @return Un objeto Call que representa la solicitud para eliminar el tipo de entrenamiento.
      */
     public Call<Void> deleteType(int id) {
-        return apiService.deleteType(id);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.deleteType(id), "listTypes");
     }
     /**
      * Obtiene un tipo de entrenamiento específico por su ID.
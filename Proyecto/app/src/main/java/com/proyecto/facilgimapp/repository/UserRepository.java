@@ -2,9 +2,11 @@ package com.proyecto.facilgimapp.repository;
 
 import android.content.Context;
 
+import com.proyecto.facilgimapp.model.dto.PageDTO;
 import com.proyecto.facilgimapp.model.dto.PasswordDTO;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
 
 import java.util.List;
@@ -39,7 +41,22 @@ public class UserRepository {
      * @return {@link Call} que, al ejecutarse, devuelve una lista de {@link UsuarioDTO}.
      */
     public Call<List<UsuarioDTO>> listUsers() {
-        return apiService.listUsers();
+        return RepositoryCache.get().cached("listUsers", RepositoryCache.TTL_USERS,
+                () -> RequestCoalescer.get().coalesce("listUsers", apiService::listUsers));
+    }
+
+    /**
+     * Recupera una página de la lista de usuarios. Las páginas se cachean y se invalidan
+     * junto con {@link #listUsers()}.
+     *
+     * @param page Número de página, empezando en 0.
+     * @param size Tamaño de página.
+     * @return {@link Call} que, al ejecutarse, devuelve la página de {@link UsuarioDTO}.
+     */
+    public Call<PageDTO<UsuarioDTO>> listUsersPage(int page, int size) {
+        String key = "listUsers:page:" + page + ":" + size;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_USERS,
+                () -> RequestCoalescer.get().coalesce(key, () -> apiService.listUsersPage(page, size)));
     }
 
     /**
@@ -49,7 +66,7 @@ public class UserRepository {
      * @return {@link Call} que, al ejecutarse, no devuelve contenido (Void).
      */
     public Call<Void> createUser(UsuarioDTO usuario) {
-        return apiService.createUser(usuario);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.createUser(usuario), "listUsers");
     }
 
     /**
@@ -59,7 +76,7 @@ public class UserRepository {
      * @return {@link Call} que, al ejecutarse, no devuelve contenido (Void).
      */
     public Call<Void> deleteUser(int userId) {
-        return apiService.deleteUser(userId);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.deleteUser(userId), "listUsers");
     }
 
     /**
@@ -70,7 +87,7 @@ public class UserRepository {
      * @return {@link Call} que, al ejecutarse, devuelve el {@link UsuarioDTO} actualizado.
      */
     public Call<UsuarioDTO> updateUser(int id, UsuarioDTO dto) {
-        return apiService.updateUser(id, dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.updateUser(id, dto), "listUsers");
     }
 
     /**
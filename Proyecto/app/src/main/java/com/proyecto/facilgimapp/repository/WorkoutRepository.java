@@ -4,7 +4,10 @@ import android.content.Context;
 
 import com.proyecto.facilgimapp.model.entity.Entrenamiento;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.database.LocalStore;
 import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RequestCoalescer;
 import com.proyecto.facilgimapp.network.RetrofitClient;
 
 import java.util.List;
@@ -25,6 +28,18 @@ public class WorkoutRepository {
      */
     private final ApiService apiService;
 
+    /**
+     * Réplica local de los entrenamientos, para abrir las pantallas sin conexión.
+     */
+    private final LocalStore localStore;
+
+    /**
+     * Prefijos de las consultas cacheadas que dejan de ser válidas al modificar un entrenamiento.
+     */
+    static final String[] WORKOUT_KEYS = {
+            "getWorkoutsByUserId", "listAllTrainings", "listExercisesInTraining", "listExercisesByTraining"
+    };
+
     /**
      * Constructor que inicializa el servicio de API obteniéndolo de RetrofitClient.
      *
@@ -32,6 +47,7 @@ public class WorkoutRepository {
      */
     public WorkoutRepository(Context context) {
         this.apiService = RetrofitClient.getApiService(context);
+        this.localStore = LocalStore.get(context);
     }
 
     /**
@@ -40,7 +56,22 @@ public class WorkoutRepository {
      * @return {@link Call} que, al ejecutarse, devuelve una lista de {@link Entrenamiento}.
      */
     public Call<List<Entrenamiento>> getWorkouts() {
-        return apiService.listAllTrainings();
+        return RepositoryCache.get().cached("listAllTrainings", RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce("listAllTrainings", apiService::listAllTrainings));
+    }
+
+    /**
+     * Obtiene una página de la lista de entrenamientos. Las páginas se cachean y se
+     * invalidan junto con {@link #getWorkouts()}.
+     *
+     * @param page Número de página, empezando en 0.
+     * @param size Tamaño de página.
+     * @return {@link Call} que, al ejecutarse, devuelve la página de {@link Entrenamiento}.
+     */
+    public Call<PageDTO<Entrenamiento>> getWorkoutsPage(int page, int size) {
+        String key = "listAllTrainings:page:" + page + ":" + size;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key, () -> apiService.listTrainingsPage(page, size)));
     }
 
     /**
@@ -67,11 +98,14 @@ public class WorkoutRepository {
     /**
      * Crea un nuevo entrenamiento en el servidor.
      *
-     * @param dto Objeto {@link EntrenamientoDTO} con los datos necesarios para crear el entrenamiento.
+     * @param dto            Objeto {@link EntrenamientoDTO} con los datos necesarios para crear el entrenamiento.
+     * @param idempotencyKey Clave única de la creación; el servidor no crea dos entrenamientos
+     *                       con la misma clave, por lo que la petición se puede repetir.
      * @return {@link Call} que, al ejecutarse, devuelve el {@link EntrenamientoDTO} creado.
      */
-    public Call<EntrenamientoDTO> createWorkout(EntrenamientoDTO dto) {
-        return apiService.createTraining(dto);
+    public Call<EntrenamientoDTO> createWorkout(EntrenamientoDTO dto, String idempotencyKey) {
+        return RepositoryCache.get().invalidateOnSuccess(
+                apiService.createTraining(idempotencyKey, dto), WORKOUT_KEYS);
     }
 
     /**
@@ -82,7 +116,7 @@ public class WorkoutRepository {
      * @return {@link Call} que, al ejecutarse, devuelve el {@link Entrenamiento} actualizado.
      */
     public Call<Entrenamiento> updateWorkout(int id, EntrenamientoDTO dto) {
-        return apiService.updateTraining(id, dto);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.updateTraining(id, dto), WORKOUT_KEYS);
     }
 
     /**
@@ -92,17 +126,42 @@ public class WorkoutRepository {
      * @return {@link Call} que, al ejecutarse, no devuelve contenido (Void).
      */
     public Call<Void> deleteWorkout(int id) {
-        return apiService.deleteTraining(id);
+        return RepositoryCache.get().invalidateOnSuccess(apiService.deleteTraining(id), WORKOUT_KEYS);
     }
 
     /**
      * Obtiene la lista de entrenamientos asociados a un usuario específico.
+     * El resultado se sirve desde {@link RepositoryCache} o desde la base de datos
+     * local si está disponible, y las
+     * llamadas concurrentes comparten una única petición HTTP mediante
+     * {@link RequestCoalescer}.
      *
      * @param id Identificador del usuario.
      * @return {@link Call} que, al ejecutarse, devuelve una lista de {@link EntrenamientoDTO}.
      */
     public Call<List<EntrenamientoDTO>> getWorkoutsByUserId(int id) {
-        return apiService.getWorkoutsByUserId(id);
+        String key = "getWorkoutsByUserId:" + id;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key, () -> apiService.getWorkoutsByUserId(id)),
+                LocalSource.of(() -> localStore.loadWorkoutsForUser(id),
+                        list -> localStore.saveWorkoutsForUser(id, list)));
+    }
+
+    /**
+     * Obtiene una página de los entrenamientos de un usuario. Las páginas se cachean y se
+     * invalidan junto con {@link #getWorkoutsByUserId(int)}; sin conexión,
+     * {@link PagedLoader} recurre a esa consulta, respaldada por la réplica local.
+     *
+     * @param id   Identificador del usuario.
+     * @param page Número de página, empezando en 0.
+     * @param size Tamaño de página.
+     * @return {@link Call} que, al ejecutarse, devuelve la página de {@link EntrenamientoDTO}.
+     */
+    public Call<PageDTO<EntrenamientoDTO>> getWorkoutsByUserIdPage(int id, int page, int size) {
+        String key = "getWorkoutsByUserId:" + id + ":page:" + page + ":" + size;
+        return RepositoryCache.get().cached(key, RepositoryCache.TTL_WORKOUTS,
+                () -> RequestCoalescer.get().coalesce(key,
+                        () -> apiService.getWorkoutsByUserIdPage(id, page, size)));
     }
 
     /**
@@ -116,6 +175,7 @@ public class WorkoutRepository {
      * @return {@link Call} que, al ejecutarse, devuelve el {@link Entrenamiento} actualizado.
      */
     public Call<Entrenamiento> updateWorkoutFromDto(int id, EntrenamientoDTO dto) {
-        return apiService.updateWorkoutFromDto(id, dto);
+        return RepositoryCache.get().invalidateOnSuccess(
+                apiService.updateWorkoutFromDto(id, dto), WORKOUT_KEYS);
     }
 }
@@ -0,0 +1,355 @@
+package com.proyecto.facilgimapp.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.proyecto.facilgimapp.database.LocalStore;
+import com.proyecto.facilgimapp.database.OutboxStore;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoCambiosDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import retrofit2.Response;
+
+/**
+ * Sincronización incremental del historial de entrenamientos de un usuario.
+ * <p>
+ * Guarda en la réplica local, junto a los entrenamientos, el token que devolvió el
+ * servidor en la última sincronización, y en las siguientes solo pide lo que ha cambiado
+ * desde entonces: los entrenamientos creados o modificados y los IDs de los eliminados.
+ * Los cambios se aplican directamente en la réplica, en una transacción junto con el
+ * nuevo token. Sin token, o si el servidor responde que ha caducado (410), se pide la
+ * copia completa. Los entrenamientos con un borrado pendiente en {@link MutationOutbox}
+ * no se escriben aunque el servidor todavía los devuelva.
+ * </p>
+ * <p>
+ * El historial no se mantiene en memoria: quien lo muestra lo lee por páginas de la
+ * réplica con {@link #pages(int)} y se le avisa con {@link Listener#onChanged()} cuando
+ * hay una copia que leer y cada vez que cambia. Si el servidor no ofrece el endpoint de
+ * cambios (404), se avisa una vez al oyente para que cargue la lista por la vía paginada
+ * de siempre, y no se vuelve a intentar en este proceso.
+ * </p>
+ * <p>
+ * Las sincronizaciones se hacen en un único hilo propio, así que se aplican en orden; las
+ * páginas se leen en otro para no esperar a la red. Los oyentes reciben los avisos en el
+ * hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class WorkoutSync {
+    private static final String TAG = "WorkoutSync";
+
+    /**
+     * Endpoint que devuelve los cambios en los entrenamientos de un usuario.
+     */
+    interface ChangesEndpoint {
+        /**
+         * Pide los cambios desde un token.
+         *
+         * @param userId ID del usuario.
+         * @param since  Token de la última sincronización, o {@code null} para pedir todos.
+         * @return la respuesta del servidor.
+         * @throws IOException si falla la comunicación.
+         */
+        Response<EntrenamientoCambiosDTO> changes(int userId, @Nullable String since) throws IOException;
+    }
+
+    /**
+     * Réplica donde se guarda el historial sincronizado, y borrados pendientes de enviar.
+     */
+    interface WorkoutStore {
+        /** @see LocalStore#loadSyncToken(String) */
+        @Nullable
+        String loadSyncToken(String syncKey);
+
+        /** @see LocalStore#replaceWorkoutsForUser(int, List, String, String) */
+        void replaceWorkouts(int userId, List<EntrenamientoDTO> workouts, String syncKey, String token);
+
+        /** @see LocalStore#applyWorkoutChanges(int, List, List, String, String) */
+        void applyChanges(int userId, List<EntrenamientoDTO> changed, List<Integer> deleted,
+                          String syncKey, String token);
+
+        /** @see LocalStore#deleteWorkout(int) */
+        void deleteWorkout(int workoutId);
+
+        /** @see LocalStore#loadWorkoutsPage(int, int, int) */
+        @Nullable
+        PageDTO<EntrenamientoDTO> loadPage(int userId, int page, int size);
+
+        /**
+         * IDs de los entrenamientos borrados en local cuyo borrado aún no ha confirmado
+         * el servidor.
+         *
+         * @return conjunto de IDs, vacío si no hay ninguno.
+         */
+        Set<Integer> pendingDeletes();
+    }
+
+    /**
+     * Recibe en el hilo principal el resultado de una sincronización.
+     */
+    public interface Listener {
+        /**
+         * La réplica tiene una copia del historial que leer con {@link #pages(int)}, o
+         * esta ha cambiado. Se avisa primero si ya se tenía una copia, de nuevo tras la
+         * sincronización si esta trajo cambios, y tras {@link #discard(int, Listener)}.
+         */
+        void onChanged();
+
+        /**
+         * El servidor no ofrece sincronización incremental; la lista debe cargarse por
+         * otra vía.
+         */
+        void onUnsupported();
+
+        /**
+         * La sincronización falló; la copia de la réplica, si la hay, sigue siendo válida.
+         *
+         * @param error Causa del fallo.
+         */
+        void onError(Throwable error);
+    }
+
+    private static WorkoutSync instance;
+
+    private final ChangesEndpoint endpoint;
+    private final WorkoutStore store;
+    private final Executor callbacks;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService reads = Executors.newSingleThreadExecutor();
+
+    /** Pasa a {@code false} la primera vez que el servidor responde 404 al endpoint de cambios. */
+    private volatile boolean remoteAvailable = true;
+
+    /**
+     * Crea el sincronizador.
+     *
+     * @param endpoint  Endpoint de cambios (el del servidor, o un sustituto local).
+     * @param store     Réplica donde se guardan la lista y el token.
+     * @param callbacks Ejecutor en el que se avisa a los oyentes (el hilo principal).
+     */
+    WorkoutSync(ChangesEndpoint endpoint, WorkoutStore store, Executor callbacks) {
+        this.endpoint = endpoint;
+        this.store = store;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Devuelve la instancia única del sincronizador.
+     *
+     * @param context Contexto desde el que se solicita.
+     * @return la instancia compartida de WorkoutSync.
+     */
+    public static synchronized WorkoutSync get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new WorkoutSync(
+                    new RemoteEndpoint(RetrofitClient.getApiService(app)),
+                    new LocalWorkoutStore(LocalStore.get(app), OutboxStore.get(app)),
+                    new Handler(Looper.getMainLooper())::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si merece la pena intentar la sincronización incremental.
+     *
+     * @return {@code false} si el servidor ya respondió que no la ofrece.
+     */
+    public boolean isAvailable() {
+        return remoteAvailable;
+    }
+
+    /**
+     * Sincroniza los entrenamientos de un usuario.
+     *
+     * @param userId   ID del usuario.
+     * @param listener Oyente del resultado.
+     */
+    public void sync(int userId, Listener listener) {
+        if (!remoteAvailable) {
+            callbacks.execute(listener::onUnsupported);
+            return;
+        }
+        executor.execute(() -> run(userId, listener));
+    }
+
+    /**
+     * Páginas del historial guardado de un usuario, ordenado por ID, para un
+     * {@link PagedLoader}. Una página de un historial que nunca se ha sincronizado
+     * responde 404.
+     *
+     * @param userId ID del usuario.
+     * @return el proveedor de páginas.
+     */
+    public PagedLoader.PageSource<EntrenamientoDTO> pages(int userId) {
+        return (page, size) -> new StoreCall<>(() -> store.loadPage(userId, page, size), reads, callbacks);
+    }
+
+    /**
+     * Quita un entrenamiento de la réplica, p. ej. tras eliminarlo en local a la espera de
+     * que el servidor lo confirme, y avisa al oyente para que vuelva a leer las páginas.
+     * Se aplica después de cualquier sincronización en curso.
+     *
+     * @param workoutId ID del entrenamiento.
+     * @param listener  Oyente al que avisar del cambio.
+     */
+    public void discard(int workoutId, Listener listener) {
+        executor.execute(() -> {
+            try {
+                store.deleteWorkout(workoutId);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "No se pudo quitar el entrenamiento de la réplica local", e);
+            }
+            callbacks.execute(listener::onChanged);
+        });
+    }
+
+    private void run(int userId, Listener listener) {
+        String key = "entrenamientos:" + userId;
+        String token = null;
+        try {
+            token = store.loadSyncToken(key);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "No se pudo leer la réplica local", e);
+        }
+        // Con token, la réplica ya tiene una copia que se puede mostrar mientras tanto
+        if (token != null) callbacks.execute(listener::onChanged);
+
+        EntrenamientoCambiosDTO changes;
+        boolean snapshot = token == null;
+        try {
+            Response<EntrenamientoCambiosDTO> response = endpoint.changes(userId, token);
+            if (response.code() == 410 && !snapshot) {
+                // Token caducado en el servidor: copia completa
+                snapshot = true;
+                response = endpoint.changes(userId, null);
+            }
+            if (response.code() == 404) {
+                remoteAvailable = false;
+                callbacks.execute(listener::onUnsupported);
+                return;
+            }
+            changes = response.body();
+            if (!response.isSuccessful() || changes == null || changes.getToken() == null) {
+                fail(listener, new IllegalStateException("HTTP " + response.code()));
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(listener, e);
+            return;
+        }
+
+        try {
+            // Un borrado pendiente prevalece sobre lo que el servidor aún no sabe
+            List<EntrenamientoDTO> changed = withoutPending(changes.getModificados(), store.pendingDeletes());
+            if (snapshot) {
+                store.replaceWorkouts(userId, changed, key, changes.getToken());
+            } else {
+                store.applyChanges(userId, changed, changes.getEliminados(), key, changes.getToken());
+            }
+        } catch (RuntimeException e) {
+            // La próxima vez se sincronizará desde el token anterior
+            fail(listener, e);
+            return;
+        }
+        if (snapshot || !changes.getModificados().isEmpty() || !changes.getEliminados().isEmpty()) {
+            callbacks.execute(listener::onChanged);
+        }
+    }
+
+    /**
+     * Quita de una lista los entrenamientos con un borrado pendiente.
+     *
+     * @param workouts Entrenamientos devueltos por el servidor.
+     * @param pending  IDs con un borrado pendiente.
+     * @return la lista sin esos entrenamientos (la misma si no había ninguno).
+     */
+    static List<EntrenamientoDTO> withoutPending(List<EntrenamientoDTO> workouts, Set<Integer> pending) {
+        if (pending.isEmpty()) return workouts;
+        List<EntrenamientoDTO> kept = new ArrayList<>(workouts.size());
+        for (EntrenamientoDTO w : workouts) {
+            if (w != null && !pending.contains(w.getId())) kept.add(w);
+        }
+        return kept;
+    }
+
+    private void fail(Listener listener, Throwable error) {
+        callbacks.execute(() -> listener.onError(error));
+    }
+
+    /**
+     * Endpoint de cambios del servidor.
+     */
+    static final class RemoteEndpoint implements ChangesEndpoint {
+        private final ApiService api;
+
+        RemoteEndpoint(ApiService api) {
+            this.api = api;
+        }
+
+        @Override
+        public Response<EntrenamientoCambiosDTO> changes(int userId, @Nullable String since) throws IOException {
+            return api.getWorkoutChanges(userId, since).execute();
+        }
+    }
+
+    /**
+     * Réplica sobre {@link LocalStore}, con los borrados pendientes de {@link OutboxStore}.
+     */
+    static final class LocalWorkoutStore implements WorkoutStore {
+        private final LocalStore local;
+        private final OutboxStore outbox;
+
+        LocalWorkoutStore(LocalStore local, OutboxStore outbox) {
+            this.local = local;
+            this.outbox = outbox;
+        }
+
+        @Override
+        public String loadSyncToken(String syncKey) {
+            return local.loadSyncToken(syncKey);
+        }
+
+        @Override
+        public void replaceWorkouts(int userId, List<EntrenamientoDTO> workouts, String syncKey, String token) {
+            local.replaceWorkoutsForUser(userId, workouts, syncKey, token);
+        }
+
+        @Override
+        public void applyChanges(int userId, List<EntrenamientoDTO> changed, List<Integer> deleted,
+                                 String syncKey, String token) {
+            local.applyWorkoutChanges(userId, changed, deleted, syncKey, token);
+        }
+
+        @Override
+        public void deleteWorkout(int workoutId) {
+            local.deleteWorkout(workoutId);
+        }
+
+        @Override
+        public PageDTO<EntrenamientoDTO> loadPage(int userId, int page, int size) {
+            return local.loadWorkoutsPage(userId, page, size);
+        }
+
+        @Override
+        public Set<Integer> pendingDeletes() {
+            return outbox.targetsOf(MutationOutbox.DELETE_WORKOUT);
+        }
+    }
+}
@@ -8,9 +8,11 @@ import android.util.Log;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.lifecycle.Observer;
 
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.util.PreferenceManager;
+import com.proyecto.facilgimapp.util.SettingsStore;
 
 import java.util.Locale;
 
@@ -19,11 +21,25 @@ import java.util.Locale;
  * como el idioma, tamaño de fuente, tema de color y modo noche antes
  * de crear la interfaz de usuario. Todas las Activities deben heredar
  * de esta clase para mantener un comportamiento consistente en toda la app.
+ * Las preferencias se leen sin esperar a la carga en segundo plano de
+ * {@link SettingsStore}, de su copia compacta si la carga no ha terminado
+ * ({@link SettingsStore#getStartupSettings()}); si al terminar resultan ser otras, la
+ * actividad se recrea con ellas.
  * 
  * Autor: Francisco Santana
  */
 public abstract class BaseActivity extends AppCompatActivity {
 
+    /**
+     * Preferencias con las que se ha configurado la actividad.
+     */
+    private SettingsStore.Settings applied;
+
+    /**
+     * Si {@link #applied} se leyó antes de que terminara la carga de las preferencias.
+     */
+    private boolean appliedBeforeLoad;
+
     /**
      * Se ejecuta antes de onCreate y permite ajustar la configuración
      * de contexto según las preferencias del usuario:
@@ -37,13 +53,17 @@ public abstract class BaseActivity extends AppCompatActivity {
     @Override
     protected void attachBaseContext(Context newBase) {
         // 1) Locale
-        String lang = PreferenceManager.getLanguage(newBase);
+        SettingsStore store = SettingsStore.get(newBase);
+        appliedBeforeLoad = !store.isLoaded();
+        SettingsStore.Settings prefs = store.getStartupSettings();
+        applied = prefs;
+        String lang = prefs.getLanguage();
         Locale locale = new Locale(lang);
         Configuration config = newBase.getResources().getConfiguration();
         config.setLocale(locale);
 
         // 2) Font scale
-        int fontPref = PreferenceManager.getFontSize(newBase);
+        int fontPref = prefs.fontSize;
         float scale = fontPref == 1 ? 0.9f : fontPref == 3 ? 1.1f : 1f;
         config.fontScale = scale;
 
@@ -56,14 +76,16 @@ public abstract class BaseActivity extends AppCompatActivity {
      *     <li>El tema de color seleccionado en {@link PreferenceManager#getThemeColorIndex(Context)}</li>
      *     <li>El modo noche (sistema, habilitado o deshabilitado) según {@link PreferenceManager}</li>
      * </ol>
+     * Si la carga de las preferencias aún no ha terminado, la espera sin bloquear y
+     * recrea la actividad si las cargadas difieren de las aplicadas.
      *
      * @param savedInstanceState Bundle con el estado previo de la Activity, puede ser null.
      */
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         // 3) Tema de color
-        int idx  = PreferenceManager.getThemeColorIndex(this);
-        switch (idx) {
+        SettingsStore.Settings prefs = applied;
+        switch (prefs.themeColorIndex) {
             case 1:
                 setTheme(R.style.Theme_Green);
                 break;
@@ -75,11 +97,11 @@ public abstract class BaseActivity extends AppCompatActivity {
         }
 
         // 4) Modo noche
-        if (PreferenceManager.isUseSystemTheme(this)) {
+        if (prefs.useSystemTheme) {
             AppCompatDelegate.setDefaultNightMode(
                     AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM
             );
-        } else if (PreferenceManager.isDarkModeEnabled(this)) {
+        } else if (prefs.darkMode) {
             AppCompatDelegate.setDefaultNightMode(
                     AppCompatDelegate.MODE_NIGHT_YES
             );
@@ -90,5 +112,27 @@ public abstract class BaseActivity extends AppCompatActivity {
         }
 
         super.onCreate(savedInstanceState);
+
+        if (appliedBeforeLoad) {
+            // El primer valor publicado es el de la carga inicial
+            SettingsStore store = SettingsStore.get(this);
+            store.observeSettings().observe(this, new Observer<SettingsStore.Settings>() {
+                @Override
+                public void onChanged(SettingsStore.Settings loaded) {
+                    store.observeSettings().removeObserver(this);
+                    if (!loaded.equals(applied)) recreate();
+                }
+            });
+        }
+    }
+
+    /**
+     * Al pasar a segundo plano, guarda ya los cambios de preferencias y sesión pendientes
+     * para no perderlos si el sistema termina el proceso.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        SettingsStore.get(this).flush();
     }
 }
@@ -1,32 +1,40 @@
 package com.proyecto.facilgimapp.ui.activities;
 
+import android.app.AlertDialog;
 import android.os.Bundle;
 import android.view.WindowManager;
 import android.widget.Toast;
 import android.view.View;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.Toolbar;
 import androidx.navigation.NavController;
+import androidx.navigation.NavDestination;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.proyecto.facilgimapp.R;
+import com.proyecto.facilgimapp.database.SessionJournal;
+import com.proyecto.facilgimapp.network.CircuitBreaker;
 import com.proyecto.facilgimapp.network.ConnectionState;
-import com.proyecto.facilgimapp.util.SessionManager;
+import com.proyecto.facilgimapp.repository.MutationOutbox;
+import com.proyecto.facilgimapp.ui.workout.WorkoutSessionFragmentArgs;
 
 import java.util.Set;
 
 /**
  * Actividad principal de la aplicación que gestiona la navegación entre fragments,
- * la interfaz de usuario (toolbar y BottomNavigationView) y controla el estado de
- * la conexión de red para forzar logout si es necesario.
+ * la interfaz de usuario (toolbar y BottomNavigationView) y avisa de la pérdida
+ * de conexión de red y de los cambios que no se han podido enviar al servidor.
  * <p>
  * Desde aquí se establece el NavController, se suscribe al observador de estado
  * de red/servidor y se configura la visibilidad de la barra superior y menú inferior
  * según el fragmento activo. También maneja una posible redirección forzada al login
- * cuando se recibe el flag correspondiente.
+ * cuando se recibe el flag correspondiente, y al arrancar reabre la sesión de
+ * entrenamiento que hubiera quedado sin terminar.
  * </p>
  * 
  * @author Francisco Santana
@@ -37,6 +45,18 @@ public class MainActivity extends BaseActivity {
      */
     private NavController navController;
 
+    /**
+     * Clave del estado guardado que indica si ya se ha comprobado si quedó una sesión de
+     * entrenamiento sin terminar.
+     */
+    private static final String KEY_RESUME_CHECKED = "resume_checked";
+
+    /**
+     * Si ya se ha comprobado si quedó una sesión sin terminar; se conserva al recrear la
+     * actividad para no volver a abrirla.
+     */
+    private boolean resumeChecked;
+
     /**
      * Conjunto de identificadores de fragments en los que se debe mostrar
      * el BottomNavigationView.
@@ -77,27 +97,34 @@ public class MainActivity extends BaseActivity {
         if (destino != -1) {
             navController.navigate(destino);
         }
-        // Observadomos el de estado de red/servidor
-        ConnectionState.get().isNetworkUp().observe(this, up -> {
-            if (!up) {
-                // Limpiamos credenciales de sesión
-                SessionManager.clearLoginOnly(this);
-                // Sólo navegamos si NO estamos ya en login o register
-                Integer currentId = navController.getCurrentDestination() != null
-                        ? navController.getCurrentDestination().getId()
-                        : null;
-                if (currentId != null
-                        && currentId != R.id.loginFragment
-                        && currentId != R.id.registerFragment) {
-                    // Vaciamos back-stack hasta login y navegamos ahí
-                    navController.popBackStack(R.id.loginFragment, false);
-                    navController.navigate(R.id.loginFragment);
-                }
+        resumeChecked = savedInstanceState != null
+                && savedInstanceState.getBoolean(KEY_RESUME_CHECKED);
+        if (!resumeChecked) retomarSesionPendiente();
+        // Observadomos el de estado de red/servidor. Sin conexión la app sigue
+        // funcionando con los datos locales, así que sólo avisamos al usuario
+        ConnectionState.get().getBreakerState().observe(this, state -> {
+            if (state == CircuitBreaker.State.OPEN) {
                 Toast.makeText(this,
                         R.string.no_internet,
                         Toast.LENGTH_SHORT).show();
             }
         });
+        // Reintentamos las escrituras que quedaron pendientes en sesiones anteriores
+        MutationOutbox outbox = MutationOutbox.get(this);
+        outbox.flush();
+        // Y avisamos de las que han agotado sus reintentos para que el usuario decida. El
+        // aviso se guarda en la cola, así que no se repite al recrear la actividad
+        outbox.getUnacknowledgedFailedCount().observe(this, failed -> {
+            if (failed == null || failed == 0) return;
+            outbox.acknowledgeFailed();
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.cambios_no_enviados_titulo)
+                    .setMessage(getString(R.string.cambios_no_enviados, failed))
+                    .setPositiveButton(R.string.reintentar, (d, w) -> outbox.retryFailed())
+                    .setNegativeButton(R.string.descartar, (d, w) -> outbox.discardFailed())
+                    .setNeutralButton(R.string.action_cancel, null)
+                    .show();
+        });
 
         // 4) Toolbar y BottomNavigationView
         Toolbar toolbar = findViewById(R.id.toolbarMain);
@@ -141,6 +168,54 @@ public class MainActivity extends BaseActivity {
         );
     }
 
+    /**
+     * Guarda si ya se ha comprobado la sesión sin terminar.
+     *
+     * @param outState Bundle donde se guarda el estado.
+     */
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(KEY_RESUME_CHECKED, resumeChecked);
+    }
+
+    /**
+     * Si quedó una sesión de entrenamiento sin terminar (la app se cerró a mitad), la
+     * vuelve a abrir para que el usuario pueda continuarla. El diario se lee en segundo
+     * plano; la sesión solo se abre sobre el Home, es decir, con un usuario autenticado.
+     * Si cuando llega el diario aún se está en el login, se espera al siguiente destino.
+     */
+    private void retomarSesionPendiente() {
+        SessionJournal.get(this).restore(pendiente -> {
+            if (isDestroyed()) return;
+            resumeChecked = true;
+            if (pendiente == null) return;
+            NavDestination actual = navController.getCurrentDestination();
+            if (actual != null && actual.getId() == R.id.homeFragment) {
+                abrirSesion(pendiente);
+            } else if (actual != null && actual.getId() == R.id.loginFragment) {
+                navController.addOnDestinationChangedListener(new NavController.OnDestinationChangedListener() {
+                    @Override
+                    public void onDestinationChanged(@NonNull NavController controller,
+                                                     @NonNull NavDestination destination,
+                                                     @Nullable Bundle args) {
+                        controller.removeOnDestinationChangedListener(this);
+                        if (destination.getId() == R.id.homeFragment) abrirSesion(pendiente);
+                    }
+                });
+            }
+        });
+    }
+
+    private void abrirSesion(SessionJournal.Snapshot pendiente) {
+        navController.navigate(
+                R.id.workoutSessionFragment,
+                new WorkoutSessionFragmentArgs.Builder(pendiente.workout, pendiente.exerciseIds)
+                        .build()
+                        .toBundle()
+        );
+    }
+
     /**
      * Maneja el evento de navegación "up" (flecha hacia atrás en la toolbar) utilizando
      * el NavController.
@@ -19,6 +19,7 @@ import com.proyecto.facilgimapp.databinding.DialogAddUserBinding;
 import com.proyecto.facilgimapp.databinding.FragmentAdminUsersBinding;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
 import com.proyecto.facilgimapp.util.EmailValidator;
+import com.proyecto.facilgimapp.util.PagingScrollListener;
 import com.proyecto.facilgimapp.util.PasswordValidator;
 import com.proyecto.facilgimapp.util.SessionManager;
 import com.proyecto.facilgimapp.viewmodel.UserViewModel;
@@ -98,6 +99,8 @@ public class AdminUsersFragment extends Fragment implements UserAdapter.OnUserIn
         // Configuración de RecyclerView y botón de agregar usuario
         binding.rvUsers.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.rvUsers.setAdapter(adapter);
+        binding.rvUsers.addOnScrollListener(
+                new PagingScrollListener(viewModel::getUsersLoader));
         binding.fabAddUser.setOnClickListener(v -> showAddUserDialog());
 
         // Observadores de LiveData en el ViewModel
@@ -9,6 +9,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.NavController;
 import androidx.navigation.NavDestination;
@@ -20,6 +21,7 @@ import com.proyecto.facilgimapp.databinding.FragmentLoginBinding;
 import com.proyecto.facilgimapp.model.dto.LoginRequest;
 import com.proyecto.facilgimapp.model.dto.LoginResponse;
 import com.proyecto.facilgimapp.util.SessionManager;
+import com.proyecto.facilgimapp.util.SettingsStore;
 import com.proyecto.facilgimapp.viewmodel.AuthViewModel;
 
 /**
@@ -74,7 +76,7 @@ public class LoginFragment extends Fragment {
      *     <li>Configura el listener del botón "Login" para procesar la autenticación:
      *         <ul>
      *             <li>Realiza la petición de login al ViewModel.</li>
-     *             <li>En caso de éxito, guarda token y datos de usuario, muestra un Toast y navega al Home.</li>
+     *             <li>En caso de éxito (el ViewModel ya ha guardado la sesión), guarda o borra las credenciales, muestra un Toast y navega al Home.</li>
      *             <li>En caso de error, muestra un Toast indicando fallo.</li>
      *         </ul>
      *     </li>
@@ -88,28 +90,35 @@ public class LoginFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Si ya hay sesión iniciada, redirigir al Home directamente
-        if (SessionManager.isLoggedIn(requireContext())) {
-            Navigation.findNavController(view).navigate(
-                    R.id.action_loginFragment_to_homeFragment,
-                    null,
-                    new androidx.navigation.NavOptions.Builder()
-                            .setPopUpTo(R.id.loginFragment, true)
-                            .build()
-            );
+        // Si ya hay sesión iniciada, redirigir al Home directamente. Se mira la copia de
+        // arranque para no esperar en el primer fotograma a la carga de la sesión
+        SettingsStore store = SettingsStore.get(requireContext());
+        if (store.isLoggedInAtStartup()) {
+            irAlHome(view);
             return;
         }
 
         viewModel = new ViewModelProvider(this).get(AuthViewModel.class);
 
-        // Rellena los campos si las credenciales guardadas existen
-        String savedUser = SessionManager.getSavedUsername(requireContext());
-        String savedPass = SessionManager.getSavedPassword(requireContext());
-        if (savedUser != null && savedPass != null) {
-            binding.etUsername.setText(savedUser);
-            binding.etPassword.setText(savedPass);
-            binding.sRemember.setChecked(true);
-        }
+        // Con la sesión ya cargada: si la copia de arranque no la tenía, se va al Home; si
+        // no, se rellenan los campos con las credenciales guardadas
+        store.observeSession().observe(getViewLifecycleOwner(), new Observer<SettingsStore.Session>() {
+            @Override
+            public void onChanged(SettingsStore.Session session) {
+                store.observeSession().removeObserver(this);
+                if (session.isLoggedIn()) {
+                    irAlHome(view);
+                    return;
+                }
+                String savedUser = SessionManager.getSavedUsername(requireContext());
+                String savedPass = SessionManager.getSavedPassword(requireContext());
+                if (savedUser != null && savedPass != null) {
+                    binding.etUsername.setText(savedUser);
+                    binding.etPassword.setText(savedPass);
+                    binding.sRemember.setChecked(true);
+                }
+            }
+        });
 
         // Listener para el botón de inicio de sesión
 
@@ -137,14 +146,6 @@ public class LoginFragment extends Fragment {
             viewModel.login(new LoginRequest(user, pass))
                     .observe(getViewLifecycleOwner(), resp -> {
                         if (resp != null && resp.getToken() != null) {
-                            // Guardar token y datos de sesión
-                            SessionManager.saveLoginData(
-                                    requireContext(),
-                                    resp.getToken(),
-                                    resp.getUsername(),
-                                    resp.getAuthorities(),
-                                    resp.getUserId()
-                            );
 
                             // Guardar o borrar credenciales según el switch
                             if (remember) {
@@ -185,4 +186,22 @@ public class LoginFragment extends Fragment {
                     .navigate(R.id.action_loginFragment_to_registerFragment);
         });
     }
+
+    /**
+     * Navega al Home quitando el login de la pila, si el login sigue siendo el destino actual.
+     *
+     * @param view Vista del fragmento.
+     */
+    private void irAlHome(View view) {
+        NavController navController = Navigation.findNavController(view);
+        NavDestination actual = navController.getCurrentDestination();
+        if (actual == null || actual.getId() != R.id.loginFragment) return;
+        navController.navigate(
+                R.id.action_loginFragment_to_homeFragment,
+                null,
+                new androidx.navigation.NavOptions.Builder()
+                        .setPopUpTo(R.id.loginFragment, true)
+                        .build()
+        );
+    }
 }
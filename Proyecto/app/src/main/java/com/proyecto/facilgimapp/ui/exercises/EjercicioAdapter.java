@@ -8,9 +8,9 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
-import com.bumptech.glide.Glide;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.util.ImageLoader;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +19,7 @@ import java.util.List;
  * Adaptador para mostrar una lista de ejercicios en un RecyclerView.
  * Cada elemento presenta el nombre del ejercicio y su imagen asociada.
  * <p>
- * Utiliza Glide para cargar las imágenes de forma asíncrona y manejar placeholders.
+ * Utiliza {@link ImageLoader} para cargar las imágenes de forma asíncrona y manejar placeholders.
  * </p>
  * 
  * @author Francisco Santana
@@ -62,7 +62,7 @@ public class EjercicioAdapter extends RecyclerView.Adapter<EjercicioAdapter.VH>
      * Vincula los datos de un {@link EjercicioDTO} a las vistas del ViewHolder.
      * <ul>
      *     <li>Establece el nombre del ejercicio en el TextView.</li>
-     *     <li>Carga la imagen desde la URL usando Glide, mostrando un placeholder
+     *     <li>Carga la imagen desde la URL con {@link ImageLoader}, mostrando un placeholder
      *         mientras carga y en caso de error o URL nula.</li>
      * </ul>
      *
@@ -73,14 +73,7 @@ public class EjercicioAdapter extends RecyclerView.Adapter<EjercicioAdapter.VH>
     public void onBindViewHolder(@NonNull VH holder, int position) {
         EjercicioDTO e = items.get(position);
         holder.tvName.setText(e.getNombre());
-        Glide.with(holder.img.getContext())
-                .asDrawable()
-                .load(e.getImagenUrl())
-                .placeholder(R.drawable.placeholder)     // mientras carga
-                .error(R.drawable.placeholder)           // si falla la descarga
-                .fallback(R.drawable.placeholder)        // si la URL es null
-                .centerCrop()
-                .into(holder.img);
+        ImageLoader.load(holder.img, e.getImagenUrl());
     }
 
     /**
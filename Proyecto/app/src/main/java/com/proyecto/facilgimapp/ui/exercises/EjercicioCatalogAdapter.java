@@ -13,12 +13,11 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.util.ImageLoader;
 import com.proyecto.facilgimapp.util.SessionManager;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -26,7 +25,8 @@ import java.util.Objects;
  * Adaptador para mostrar un catálogo de ejercicios en un RecyclerView.
  * <p>
  * Utiliza ListAdapter con DiffUtil para optimizar actualizaciones parciales.
- * Mantiene una lista completa (fullList) para poder aplicar filtros sin perder datos.
+ * Muestra la lista que le entrega el ViewModel, ya sea la ventana del catálogo o
+ * los resultados de una búsqueda.
  * Soporta clic largo en elementos para acciones administrativas (ROLE_ADMIN).
  * </p>
  * 
@@ -52,11 +52,6 @@ public class EjercicioCatalogAdapter
      */
     private final OnLongItemClick longClickListener;
 
-    /**
-     * Lista completa de ejercicios para restaurar datos al filtrar.
-     */
-    private final List<EjercicioDTO> fullList = new ArrayList<>();
-
     /**
      * Constructor que inicializa el adaptador con el listener de clic largo
      * y habilita IDs estables para optimizar animaciones y actualizaciones.
@@ -135,18 +130,7 @@ public class EjercicioCatalogAdapter
                         holder.tvName.setText(b.getString("nombre"));
                     }
                     if (b.containsKey("imagenUrl")) {
-                        String url = b.getString("imagenUrl");
-                        if (url != null && !url.isEmpty()) {
-                            Glide.with(holder.ivImage.getContext())
-                                    .asDrawable()
-                                    .load(url)
-                                    .placeholder(R.drawable.placeholder)
-                                    .error(R.drawable.placeholder)
-                                    .centerCrop()
-                                    .into(holder.ivImage);
-                        } else {
-                            holder.ivImage.setImageResource(R.drawable.placeholder);
-                        }
+                        ImageLoader.load(holder.ivImage, b.getString("imagenUrl"));
                     }
                 }
             }
@@ -154,39 +138,23 @@ public class EjercicioCatalogAdapter
     }
 
     /**
-     * Reemplaza la lista interna utilizada por el ListAdapter y, si es fullUpdate,
-     * actualiza también fullList para mantener copia completa.
+     * Cancela la carga de la imagen de una fila que sale de la pantalla.
      *
-     * @param list         Lista de {@link EjercicioDTO} que se mostrará.
-     * @param isFullUpdate Indica si se debe refrescar fullList con la nueva lista.
+     * @param holder ViewHolder reciclado.
      */
-    public void submitList(List<EjercicioDTO> list, boolean isFullUpdate) {
-        super.submitList(list, () -> {
-            if (isFullUpdate) {
-                fullList.clear();
-                fullList.addAll(list);
-            }
-        });
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        ImageLoader.clear(holder.ivImage);
     }
 
     /**
-     * Filtra los ejercicios cuyo nombre contiene el texto proporcionado (insensible a mayúsculas).
-     * Si la consulta es nula o vacía, restaura la lista completa.
+     * URL de la imagen del ejercicio en una posición, para {@link com.proyecto.facilgimapp.util.ImagePreloader}.
      *
-     * @param query Texto a buscar en el nombre del ejercicio; puede ser null o vacío.
+     * @param position Posición en la lista mostrada.
+     * @return la URL, o null si la posición no existe.
      */
-    public void filter(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            submitList(new ArrayList<>(fullList), false);
-            return;
-        }
-        List<EjercicioDTO> filtered = new ArrayList<>();
-        for (EjercicioDTO e : fullList) {
-            if (e.getNombre().toLowerCase().contains(query.toLowerCase())) {
-                filtered.add(e);
-            }
-        }
-        submitList(filtered, false);
+    public String getImageUrl(int position) {
+        return position >= 0 && position < getItemCount() ? getItem(position).getImagenUrl() : null;
     }
 
     /**
@@ -225,18 +193,7 @@ public class EjercicioCatalogAdapter
          */
         void bind(EjercicioDTO dto, OnLongItemClick longClickListener) {
             tvName.setText(dto.getNombre());
-            String url = dto.getImagenUrl();
-            if (url != null && !url.isEmpty()) {
-                Glide.with(ivImage.getContext())
-                        .asDrawable()
-                        .load(url)
-                        .placeholder(R.drawable.placeholder)
-                        .error(R.drawable.placeholder)
-                        .centerCrop()
-                        .into(ivImage);
-            } else {
-                ivImage.setImageResource(R.drawable.placeholder);
-            }
+            ImageLoader.load(ivImage, dto.getImagenUrl());
 
             // Solo administradores pueden realizar clic largo para acciones adicionales
             if (SessionManager.getAuthorities(ivImage.getContext())
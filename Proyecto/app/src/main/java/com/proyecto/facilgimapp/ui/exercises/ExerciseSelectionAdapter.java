@@ -10,7 +10,8 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
-import com.squareup.picasso.Picasso;
+import com.proyecto.facilgimapp.util.AsyncSearch;
+import com.proyecto.facilgimapp.util.ImageLoader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +20,8 @@ import java.util.List;
  * <p>
  * Cada elemento presenta el nombre y la imagen del ejercicio, y permite marcarlo
  * para seleccionarlo. Mantiene internamente la lista de IDs seleccionados para su posterior uso.
+ * La lista se puede filtrar por nombre con {@link #filter(String)}; la selección se conserva
+ * aunque un ejercicio seleccionado quede oculto por el filtro.
  * </p>
  * 
  * @author Francisco Santana
@@ -27,10 +30,17 @@ public class ExerciseSelectionAdapter
         extends RecyclerView.Adapter<ExerciseSelectionAdapter.VH> {
 
     /**
-     * Lista de objetos {@link EjercicioDTO} que se mostrarán en el RecyclerView.
+     * Lista de objetos {@link EjercicioDTO} que se mostrarán en el RecyclerView
+     * (la lista completa o el resultado del filtro activo).
      */
     private final List<EjercicioDTO> exercises = new ArrayList<>();
 
+    /**
+     * Búsqueda por nombre, tolerante a erratas, sobre la lista completa.
+     */
+    private final AsyncSearch<EjercicioDTO> search =
+            new AsyncSearch<>(EjercicioDTO::getNombre, true, this::show);
+
     /**
      * Lista de IDs de ejercicios que han sido seleccionados por el usuario.
      */
@@ -50,11 +60,27 @@ public class ExerciseSelectionAdapter
 
     /**
      * Reemplaza la lista de ejercicios actual por una nueva lista y notifica al adaptador
-     * para que actualice las vistas.
+     * para que actualice las vistas. Si hay un filtro activo, se vuelve a aplicar sobre
+     * la nueva lista en cuanto esté indexada.
      * 
      * @param list Lista de {@link EjercicioDTO} que se desea mostrar; debe existir.
      */
     public void setExercises(List<EjercicioDTO> list) {
+        if (search.getQuery().isEmpty()) show(list);
+        search.setItems(list);
+    }
+
+    /**
+     * Filtra los ejercicios por nombre, tolerando erratas y ordenando por relevancia.
+     * La búsqueda se hace en segundo plano tras una breve espera sin pulsaciones.
+     *
+     * @param query Texto buscado; null o vacío muestra todos los ejercicios.
+     */
+    public void filter(String query) {
+        search.search(query);
+    }
+
+    private void show(List<EjercicioDTO> list) {
         exercises.clear();
         exercises.addAll(list);
         notifyDataSetChanged();
@@ -107,6 +133,26 @@ public class ExerciseSelectionAdapter
         return exercises.size();
     }
 
+    /**
+     * Cancela la carga de la imagen de una fila que sale de la pantalla.
+     *
+     * @param holder ViewHolder reciclado.
+     */
+    @Override
+    public void onViewRecycled(@NonNull VH holder) {
+        ImageLoader.clear(holder.ivExerciseImage);
+    }
+
+    /**
+     * URL de la imagen del ejercicio en una posición, para {@link com.proyecto.facilgimapp.util.ImagePreloader}.
+     *
+     * @param position Posición en la lista mostrada.
+     * @return la URL, o null si la posición no existe.
+     */
+    public String getImageUrl(int position) {
+        return position >= 0 && position < exercises.size() ? exercises.get(position).getImagenUrl() : null;
+    }
+
     /**
      * ViewHolder que contiene las referencias a las vistas de cada elemento de selección de ejercicio.
      * Se encarga de asignar el nombre, la imagen y manejar los eventos del CheckBox.
@@ -148,13 +194,7 @@ public class ExerciseSelectionAdapter
          */
         void bind(EjercicioDTO dto) {
             tvName.setText(dto.getNombre());
-            Picasso.get()
-                    .load(dto.getImagenUrl())
-                    .placeholder(R.drawable.placeholder)
-                    .error(R.drawable.placeholder)
-                    .fit()
-                    .centerCrop()
-                    .into(ivExerciseImage);
+            ImageLoader.load(ivExerciseImage, dto.getImagenUrl());
 
             // Desvincular listener anterior para evitar llamadas múltiples
             cbSelect.setOnCheckedChangeListener(null);
@@ -28,16 +28,16 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.databinding.FragmentExercisesBinding;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
-import com.proyecto.facilgimapp.util.FileUtils;
+import com.proyecto.facilgimapp.util.ImageLoader;
+import com.proyecto.facilgimapp.util.ImagePreloader;
+import com.proyecto.facilgimapp.util.PagingScrollListener;
 import com.proyecto.facilgimapp.util.SessionManager;
 import com.proyecto.facilgimapp.viewmodel.ExercisesViewModel;
 
-import java.io.File;
 
 /**
  * Fragment que muestra el catálogo de ejercicios, permitiendo buscarlos, filtrarlos,
@@ -81,17 +81,22 @@ public class ExercisesFragment extends Fragment {
     private ImageView ivPreview;
 
     /**
-     * Archivo temporal que almacena la imagen seleccionada antes de enviarla al servidor.
+     * Uri de la imagen seleccionada; se lee directamente al enviarla al servidor.
      */
-    private File selectedImageFile;
+    private Uri selectedImageUri;
+
+    /**
+     * Nombre con extensión de la imagen seleccionada.
+     */
+    private String selectedImageName;
 
     /**
      * Se ejecuta al crear el fragment y habilita el menú de opciones. Inicializa
      * el {@link ActivityResultLauncher} para selección de imágenes, que:
      * <ul>
      *     <li>Extrae el nombre real con extensión </li>
-     *     <li>Copia el contenido a un File en cacheDir</li>
-     *     <li>Muestra la vista previa con Glide</li>
+     *     <li>Guarda el Uri, sin copiar su contenido a la caché</li>
+     *     <li>Muestra la vista previa con {@link ImageLoader}</li>
      * </ul>
      *
      * @param savedInstanceState Bundle con el estado previo, puede ser null.
@@ -107,17 +112,12 @@ public class ExercisesFragment extends Fragment {
                 uri -> {
                     if (uri != null && getContext() != null && ivPreview != null) {
                         // Extrae el nombre real con extensión
-                        String realName = getFileNameWithExtensionFromUri(requireContext(), uri);
-                        // Copia a un File en cacheDir preservando la extensión
-                        selectedImageFile = FileUtils.copyUriToFile(requireContext(), uri, realName);
+                        selectedImageName = getFileNameWithExtensionFromUri(requireContext(), uri);
+                        // El contenido se lee del Uri al subirlo, sin copia intermedia
+                        selectedImageUri = uri;
 
                         // Carga la vista previa
-                        Glide.with(requireContext())
-                                .asDrawable()
-                                .load(selectedImageFile)
-                                .placeholder(R.drawable.placeholder)
-                                .error(R.drawable.placeholder)
-                                .into(ivPreview);
+                        ImageLoader.loadPreview(ivPreview, uri);
                     }
                 }
         );
@@ -144,7 +144,9 @@ public class ExercisesFragment extends Fragment {
      * <ul>
      *     <li>RecyclerView con {@link EjercicioCatalogAdapter} y LayoutManager</li>
      *     <li>FloatingActionButton para crear ejercicios (visible solo si es administrador)</li>
-     *     <li>Carga inicial de la lista de ejercicios desde el ViewModel</li>
+     *     <li>Observación del catálogo paginado, que pide más páginas al desplazarse</li>
+     *     <li>Precarga de las miniaturas de las filas siguientes ({@link ImagePreloader})</li>
+     *     <li>Barra de progreso de la subida de imagen en curso</li>
      * </ul>
      *
      * @param view               Vista previamente inflada.
@@ -161,6 +163,19 @@ public class ExercisesFragment extends Fragment {
         binding.rvExercises.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.rvExercises.setAdapter(adapter);
         binding.rvExercises.setClipToPadding(false);
+        // Pide más páginas (del catálogo o de los resultados de búsqueda) al acercarse al borde
+        binding.rvExercises.addOnScrollListener(
+                new PagingScrollListener(viewModel::getCatalogLoader));
+        // Adelanta las miniaturas de las filas siguientes y pausa las cargas en los flings
+        ImagePreloader.attach(binding.rvExercises, R.id.imgExercise, adapter::getImageUrl);
+        viewModel.getCatalog()
+                .observe(getViewLifecycleOwner(), adapter::submitList);
+        viewModel.getUploadProgress()
+                .observe(getViewLifecycleOwner(), percent -> {
+                    boolean uploading = percent != null && percent != ExercisesViewModel.NO_UPLOAD;
+                    binding.pbUpload.setVisibility(uploading ? View.VISIBLE : View.GONE);
+                    if (uploading) binding.pbUpload.setProgress(percent);
+                });
 
         // Configura el FAB (solo visible para administradores)
         FloatingActionButton fab = binding.fabAddExercise;
@@ -173,21 +188,16 @@ public class ExercisesFragment extends Fragment {
             fab.setVisibility(View.GONE);
         }
 
-        // Carga de datos inicial
-        loadExercises();
+        // La carga de datos inicial se hace en onResume
     }
 
     /**
-     * Solicita al ViewModel la lista completa de ejercicios y observa los cambios
-     * para actualizar el adaptador. Usa {@link EjercicioCatalogAdapter#submitList(List, boolean)}
-     * indicando fullUpdate=true para mantener copia completa.
+     * Solicita al ViewModel el catálogo paginado de ejercicios (la primera página o,
+     * si ya hay páginas cargadas, las mismas de nuevo). El catálogo se observa en
+     * {@link #onViewCreated} y se entrega al adaptador.
      */
     private void loadExercises() {
-        viewModel.listAllExercises();
-        viewModel.getAllExercises()
-                .observe(getViewLifecycleOwner(), list ->
-                        adapter.submitList(list, true)
-                );
+        viewModel.loadCatalog();
     }
 
     /**
@@ -218,7 +228,7 @@ public class ExercisesFragment extends Fragment {
      *     <li>Vista previa de la imagen seleccionada</li>
      * </ul>
      * Al confirmar, construye un {@link EjercicioDTO} con el nombre ingresado y llama
-     * a {@link ExercisesViewModel#updateExercise(EjercicioDTO, File, Runnable, Runnable)}
+     * a {@link ExercisesViewModel#updateExercise(EjercicioDTO, Uri, String, Runnable, Runnable)}
      * pasando la imagen seleccionada. En caso de éxito, muestra Toast y recarga ejercicios;
      * en caso de error, muestra Toast de error.
      */
@@ -230,11 +240,9 @@ public class ExercisesFragment extends Fragment {
         Button btnImg = dlg.findViewById(R.id.btnCargarImagen);
 
         etName.setText("");
-        selectedImageFile = null;
-        Glide.with(requireContext())
-                .asDrawable()
-                .load(R.drawable.placeholder)
-                .into(ivPreview);
+        selectedImageUri = null;
+        selectedImageName = null;
+        ImageLoader.loadPreview(ivPreview, null);
 
         btnImg.setOnClickListener(v ->
                 pickImageLauncher.launch("image/*")
@@ -248,7 +256,8 @@ public class ExercisesFragment extends Fragment {
                     nuevo.setNombre(etName.getText().toString().trim());
                     viewModel.updateExercise(
                             nuevo,
-                            selectedImageFile,
+                            selectedImageUri,
+                            selectedImageName,
                             () -> {
                                 Toast.makeText(requireContext(),
                                         R.string.ejercicio_creado,
@@ -271,7 +280,7 @@ public class ExercisesFragment extends Fragment {
      *     <li>Imagen actual en la vista previa</li>
      * </ul>
      * Permite cambiar el nombre y seleccionar una nueva imagen mediante pickImageLauncher.
-     * Al confirmar, actualiza el DTO y llama a {@link ExercisesViewModel#updateExercise(EjercicioDTO, File, Runnable, Runnable)}.
+     * Al confirmar, actualiza el DTO y llama a {@link ExercisesViewModel#updateExercise(EjercicioDTO, Uri, String, Runnable, Runnable)}.
      * En caso de éxito, muestra Toast, vuelve a cargar la lista y recrea el fragment;
      * en caso de error, muestra Toast de fallo.
      *
@@ -285,12 +294,9 @@ public class ExercisesFragment extends Fragment {
         Button btnImg = dlg.findViewById(R.id.btnCargarImagen);
 
         etName.setText(dto.getNombre());
-        selectedImageFile = null;
-        Glide.with(requireContext())
-                .load(dto.getImagenUrl())
-                .placeholder(R.drawable.placeholder)
-                .error(R.drawable.placeholder)
-                .into(ivPreview);
+        selectedImageUri = null;
+        selectedImageName = null;
+        ImageLoader.loadPreview(ivPreview, dto.getImagenUrl());
 
         btnImg.setOnClickListener(v -> pickImageLauncher.launch("image/*"));
 
@@ -301,14 +307,15 @@ public class ExercisesFragment extends Fragment {
                     dto.setNombre(etName.getText().toString().trim());
                     viewModel.updateExercise(
                             dto,
-                            selectedImageFile,
+                            selectedImageUri,
+                            selectedImageName,
                             () -> {
                                 Toast.makeText(requireContext(),
                                         R.string.ejercicio_actualizado,
                                         Toast.LENGTH_SHORT).show();
 
                                 // 1) Refresca los datos en el ViewModel
-                                viewModel.listAllExercises();
+                                viewModel.loadCatalog();
 
                                 // 2) Recrea este fragment
                                 getParentFragmentManager()
@@ -356,8 +363,8 @@ public class ExercisesFragment extends Fragment {
     }
 
     /**
-     * Infla el menú de opciones, configurando un SearchView que filtra la lista de ejercicios
-     * mediante {@link EjercicioCatalogAdapter#filter(String)} a medida que el texto cambia.
+     * Infla el menú de opciones, configurando un SearchView que busca en todo el catálogo
+     * mediante {@link ExercisesViewModel#searchCatalog(String)} a medida que el texto cambia.
      *
      * @param menu     Menú donde se inflará el XML menu_search.
      * @param inflater Inflador de menús.
@@ -373,7 +380,7 @@ public class ExercisesFragment extends Fragment {
             @Override public boolean onQueryTextSubmit(String q) { return false; }
             @Override
             public boolean onQueryTextChange(String txt) {
-                adapter.filter(txt);
+                viewModel.searchCatalog(txt);
                 return true;
             }
         });
@@ -465,6 +472,7 @@ public class ExercisesFragment extends Fragment {
         super.onDestroyView();
         binding = null;
         ivPreview = null;
-        selectedImageFile = null;
+        selectedImageUri = null;
+        selectedImageName = null;
     }
 }
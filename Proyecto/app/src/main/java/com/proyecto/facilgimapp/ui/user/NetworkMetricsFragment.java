@@ -0,0 +1,102 @@
+package com.proyecto.facilgimapp.ui.user;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.proyecto.facilgimapp.R;
+import com.proyecto.facilgimapp.databinding.FragmentNetworkMetricsBinding;
+import com.proyecto.facilgimapp.network.NetworkMetrics;
+import com.proyecto.facilgimapp.util.ImageCacheStats;
+import com.proyecto.facilgimapp.util.JsonBenchmark;
+
+/**
+ * Pantalla de diagnóstico con las métricas de red por endpoint de {@link NetworkMetrics}.
+ * <p>
+ * Muestra un resumen ordenado de más lento a más rápido, seguido de los contadores de
+ * las cachés de imágenes ({@link ImageCacheStats}), y permite compartir el volcado
+ * completo en JSON o poner las métricas a cero. También permite comparar la lectura de un
+ * historial grande con el Gson por reflexión y con los adaptadores en streaming, y el
+ * tamaño y coste de JSON frente a CBOR ({@link JsonBenchmark}). Solo aparece en builds
+ * de depuración o para administradores.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class NetworkMetricsFragment extends Fragment {
+    /** Tamaño del historial sintético del benchmark de JSON. */
+    private static final int BENCHMARK_WORKOUTS = 500;
+    private static final int BENCHMARK_ITERATIONS = 10;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private FragmentNetworkMetricsBinding binding;
+
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater,
+                             ViewGroup container,
+                             Bundle savedInstanceState) {
+        binding = FragmentNetworkMetricsBinding.inflate(inflater, container, false);
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        binding.btnRefreshMetrics.setOnClickListener(v -> render());
+        binding.btnResetMetrics.setOnClickListener(v -> {
+            NetworkMetrics.get().reset();
+            ImageCacheStats.get().reset();
+            render();
+        });
+        binding.btnShareMetrics.setOnClickListener(v -> share());
+        binding.btnJsonBenchmark.setOnClickListener(v -> runJsonBenchmark());
+        render();
+    }
+
+    private void render() {
+        String summary = NetworkMetrics.get().summary();
+        binding.tvMetrics.setText((summary.isEmpty() ? getString(R.string.metrics_empty) + "\n\n" : summary)
+                + ImageCacheStats.get().summary());
+    }
+
+    /**
+     * Compara la lectura de JSON por reflexión y en streaming, y JSON frente a CBOR como
+     * formato de transporte, sobre un historial grande.
+     */
+    private void runJsonBenchmark() {
+        binding.btnJsonBenchmark.setEnabled(false);
+        binding.tvMetrics.setText(R.string.metrics_benchmark_running);
+        new Thread(() -> {
+            String report = JsonBenchmark.run(BENCHMARK_WORKOUTS, BENCHMARK_ITERATIONS)
+                    + "\n\n" + JsonBenchmark.compareWireFormats(BENCHMARK_WORKOUTS, BENCHMARK_ITERATIONS);
+            mainHandler.post(() -> {
+                if (binding == null) return;
+                binding.btnJsonBenchmark.setEnabled(true);
+                binding.tvMetrics.setText(report);
+            });
+        }, "json-benchmark").start();
+    }
+
+    /** Comparte el volcado JSON como texto (correo, almacenamiento, etc.). */
+    private void share() {
+        Intent send = new Intent(Intent.ACTION_SEND)
+                .setType("application/json")
+                .putExtra(Intent.EXTRA_SUBJECT, "network_metrics.json")
+                .putExtra(Intent.EXTRA_TEXT, NetworkMetrics.get().toJson());
+        startActivity(Intent.createChooser(send, getString(R.string.metrics_share_json)));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+}
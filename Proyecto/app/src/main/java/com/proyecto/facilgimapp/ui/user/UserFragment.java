@@ -14,13 +14,17 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import com.proyecto.facilgimapp.BuildConfig;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.databinding.FragmentUserBinding;
 import com.proyecto.facilgimapp.model.entity.UserOptionItem;
 import com.proyecto.facilgimapp.model.entity.UserOptionType;
+import com.proyecto.facilgimapp.network.AuthState;
+import com.proyecto.facilgimapp.repository.PrefetchCoordinator;
 import com.proyecto.facilgimapp.ui.activities.MainActivity;
 import com.proyecto.facilgimapp.util.PreferenceManager;
 import com.proyecto.facilgimapp.util.SessionManager;
+import com.proyecto.facilgimapp.util.SettingsStore;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -79,8 +83,9 @@ public class UserFragment extends Fragment implements UserOptionsAdapter.Listene
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Mostrar nombre de usuario
-        binding.tvUsername.setText(SessionManager.getUsername(requireContext()));
+        // Mostrar nombre de usuario (y actualizarlo si cambia la sesión)
+        SettingsStore.get(requireContext()).observeSession()
+                .observe(getViewLifecycleOwner(), s -> binding.tvUsername.setText(s.username));
 
         // Configurar RecyclerView con sus opciones
         binding.rvUserOptions.setLayoutManager(new LinearLayoutManager(requireContext()));
@@ -112,7 +117,8 @@ public class UserFragment extends Fragment implements UserOptionsAdapter.Listene
 
         // Botón para cerrar sesión: limpia credenciales y vuelve al login
         binding.btnLogout.setOnClickListener(v -> {
-            SessionManager.clearLoginOnly(requireContext());
+            PrefetchCoordinator.get(requireContext()).cancel();
+            AuthState.get(requireContext()).clear();
             Toast.makeText(requireContext(),
                     R.string.session_closed, Toast.LENGTH_SHORT).show();
             if (!isAdded() || isRemoving()) return;
@@ -150,6 +156,7 @@ public class UserFragment extends Fragment implements UserOptionsAdapter.Listene
      *     <li>Cambio de contraseña</li>
      *     <li>Gestión de usuarios (solo si es administrador)</li>
      *     <li>Restablecer preferencias</li>
+     *     <li>Métricas de red (solo en depuración o para administradores)</li>
      * </ul>
      *
      * @return Lista de {@link UserOptionItem} que alimenta el adaptador.
@@ -165,6 +172,9 @@ public class UserFragment extends Fragment implements UserOptionsAdapter.Listene
             opts.add(new UserOptionItem(UserOptionType.MANAGE_USERS));
         }
         opts.add(new UserOptionItem(UserOptionType.CLEAR_PREFERENCES));
+        if (BuildConfig.DEBUG || SessionManager.isAdmin(requireContext())) {
+            opts.add(new UserOptionItem(UserOptionType.NETWORK_METRICS));
+        }
         return opts;
     }
 
@@ -274,6 +284,17 @@ public class UserFragment extends Fragment implements UserOptionsAdapter.Listene
                 .navigate(R.id.action_userFragment_to_adminUserFragment);
     }
 
+    /**
+     * Callback cuando el usuario abre las métricas de red.
+     * Navega a la pantalla de diagnóstico {@link NetworkMetricsFragment}.
+     */
+    @Override
+    public void onNetworkMetrics() {
+        if (!isAdded() || isRemoving()) return;
+        NavHostFragment.findNavController(this)
+                .navigate(R.id.action_userFragment_to_networkMetricsFragment);
+    }
+
     /**
      * Callback cuando el usuario solicita restablecer todas las preferencias a sus valores predeterminados.
      * <ul>
@@ -82,6 +82,11 @@ public class UserOptionsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
          * Se invoca cuando el usuario solicita restablecer todas las preferencias a sus valores predeterminados.
          */
         void onClearPreferences();
+
+        /**
+         * Se invoca cuando el usuario abre la pantalla de métricas de red (depuración y administradores).
+         */
+        void onNetworkMetrics();
     }
 
     private final Context ctx;
@@ -140,6 +145,7 @@ public class UserOptionsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             case CHANGE_PASSWORD:
             case MANAGE_USERS:
             case CLEAR_PREFERENCES:
+            case NETWORK_METRICS:
             default:
                 return new DefaultVH(inf.inflate(R.layout.item_option_default, parent, false));
         }
@@ -192,6 +198,12 @@ public class UserOptionsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
                         listener::onClearPreferences
                 );
                 break;
+            case NETWORK_METRICS:
+                ((DefaultVH) vh).bind(
+                        ctx.getString(R.string.option_network_metrics),
+                        listener::onNetworkMetrics
+                );
+                break;
         }
     }
 
@@ -122,8 +122,12 @@ public class EditWorkoutDialog {
         }
 
         // Infla cada ejercicio y sus series dentro del LinearLayout llExercises
+        // Los contadores se agrupan por la posición de cada ejercicio en el entrenamiento
+        SeriesTracker<Integer> tracker = new SeriesTracker<>();
         LayoutInflater inf = LayoutInflater.from(parent.requireContext());
-        for (EntrenamientoEjercicioDTO rel : workout.getEntrenamientosEjercicios()) {
+        List<EntrenamientoEjercicioDTO> relacionesIniciales = workout.getEntrenamientosEjercicios();
+        for (int pos = 0; pos < relacionesIniciales.size(); pos++) {
+            EntrenamientoEjercicioDTO rel = relacionesIniciales.get(pos);
             //Marcamos todos como completados
             rel.getSeries().forEach(s -> s.setCompletada(true));
             View ev = inf.inflate(R.layout.item_edit_ejercicio, llExercises, false);
@@ -132,7 +136,7 @@ public class EditWorkoutDialog {
             tvName.setText(rel.getEjercicio().getNombre());
             // Configura el editor de series para las series existentes
             LinearLayout llSeries = ev.findViewById(R.id.llSeriesContainer);
-            SeriesEditorHelper.bindSeriesEditor(llSeries, rel.getSeries());
+            SeriesEditorHelper.bindSeriesEditor(llSeries, rel.getSeries(), tracker, pos);
             //Marcamos todos como completados
 
             //Y marcamos el ejercicio como completado en el DTO
@@ -178,36 +182,27 @@ public class EditWorkoutDialog {
                             R.string.error_exercises_required, Toast.LENGTH_SHORT).show();
                     return;
                 }
-                for (EntrenamientoEjercicioDTO rel : relaciones) {
-                    List<SerieDTO> series = rel.getSeries();
-                    if (series == null || series.isEmpty()) {
-                        Toast.makeText(parent.requireContext(),
-                                parent.getString(R.string.debe_quedar_una_serie)
-                                        + " (“" + rel.getEjercicio().getNombre() + "”)",
-                                Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    for (SerieDTO s : series) {
-                        Integer repsObj = s.getRepeticiones();
-                        Double pesoObj  = s.getPeso();
-                        boolean completada = s.isCompletada();
-                        int reps = (repsObj == null ? 0 : repsObj);
-                        double peso = (pesoObj == null ? 0.0 : pesoObj);
-
-                        if (!completada) {
-                            Toast.makeText(parent.getContext(),
-                                    R.string.marcar_todo_check, Toast.LENGTH_SHORT).show();
-                            return;
-                        }
-
-                        if ( reps <= 0 || peso < 0) {
-                            Toast.makeText(parent.requireContext(),
-                                    parent.getString(R.string.debe_completar_todas_las_series)
-                                            + " (“" + rel.getEjercicio().getNombre() + "”)",
-                                    Toast.LENGTH_SHORT).show();
-                            return;
-                        }
-                    }
+                // Los contadores ya están al día: no hace falta recorrer las series
+                Integer vacio = tracker.firstEmptyGroup();
+                if (vacio != null) {
+                    Toast.makeText(parent.requireContext(),
+                            parent.getString(R.string.debe_quedar_una_serie)
+                                    + " (“" + relaciones.get(vacio).getEjercicio().getNombre() + "”)",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (tracker.firstIncompleteGroup() != null) {
+                    Toast.makeText(parent.getContext(),
+                            R.string.marcar_todo_check, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                Integer erroneo = tracker.firstInvalidGroup();
+                if (erroneo != null) {
+                    Toast.makeText(parent.requireContext(),
+                            parent.getString(R.string.debe_completar_todas_las_series)
+                                    + " (“" + relaciones.get(erroneo).getEjercicio().getNombre() + "”)",
+                            Toast.LENGTH_SHORT).show();
+                    return;
                 }
 
                 //  Si todas las validaciones pasan, actualizar el DTO
@@ -24,7 +24,9 @@ import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
 import com.proyecto.facilgimapp.ui.exercises.ExerciseSelectionAdapter;
+import com.proyecto.facilgimapp.util.ImagePreloader;
 import com.proyecto.facilgimapp.util.SessionManager;
+import com.proyecto.facilgimapp.util.SimpleTextWatcher;
 import com.proyecto.facilgimapp.viewmodel.ExercisesViewModel;
 import com.proyecto.facilgimapp.viewmodel.NewWorkoutViewModel;
 import com.proyecto.facilgimapp.viewmodel.TypeViewModel;
@@ -183,6 +185,11 @@ public class NewWorkoutFragment extends Fragment {
         exerciseAdapter = new ExerciseSelectionAdapter();
         b.rvAvailableExercises.setLayoutManager(new LinearLayoutManager(requireContext()));
         b.rvAvailableExercises.setAdapter(exerciseAdapter);
+        ImagePreloader.attach(b.rvAvailableExercises, R.id.ivExerciseImage, exerciseAdapter::getImageUrl);
+
+        // Búsqueda tolerante a erratas en el catálogo
+        b.etSearchExercises.addTextChangedListener(
+                SimpleTextWatcher.onTextChanged(exerciseAdapter::filter));
 
         // Carga del catálogo de ejercicios
         exercisesVM.listAllExercises();
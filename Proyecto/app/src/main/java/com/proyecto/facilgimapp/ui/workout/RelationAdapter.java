@@ -11,12 +11,12 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.util.ImageLoader;
 
 import java.util.Objects;
 
@@ -107,7 +107,7 @@ public class RelationAdapter
          * Enlaza los datos de {@link EntrenamientoEjercicioDTO} con las vistas:
          * <ul>
          *     <li>Nombre del ejercicio en un TextView.</li>
-         *     <li>Imagen cargada con Glide (o placeholder si no hay URL).</li>
+         *     <li>Imagen cargada con {@link ImageLoader} (o placeholder si no hay URL).</li>
          *     <li>Chips que representan cada serie (repeticiones × peso).</li>
          *     <li>Texto que indica el número total de series.</li>
          * </ul>
@@ -121,18 +121,8 @@ public class RelationAdapter
                   int workoutDurationMin) {
             tvName.setText(dto.getEjercicio().getNombre());
 
-            // Carga de imagen con Glide y manejo de placeholder
-            String url = dto.getEjercicio().getImagenUrl();
-            if (url != null && !url.isEmpty()) {
-                Glide.with(ivThumb.getContext())
-                        .load(url)
-                        .placeholder(R.drawable.placeholder)
-                        .error(R.drawable.placeholder)
-                        .centerCrop()
-                        .into(ivThumb);
-            } else {
-                ivThumb.setImageResource(R.drawable.placeholder);
-            }
+            // Carga de imagen (o placeholder si no hay URL)
+            ImageLoader.load(ivThumb, dto.getEjercicio().getImagenUrl());
 
             // Generación de chips para cada serie
             chipGroup.removeAllViews();
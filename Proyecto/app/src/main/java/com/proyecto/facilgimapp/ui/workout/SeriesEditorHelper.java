@@ -42,18 +42,29 @@ public class SeriesEditorHelper {
      * @param container Contenedor {@link LinearLayout} en el que se mostrarán las vistas de series.
      * @param series    Lista de objetos {@link SerieDTO} que representan las series existentes.
      *                  Las modificaciones en la interfaz (añadir/eliminar) se reflejarán en esta lista.
+     * @param tracker   Contadores de series pendientes y no válidas que se mantienen al día con cada cambio.
+     * @param group     Clave con la que se agrupan estas series en {@code tracker}.
+     * @param <K>       Tipo de la clave de grupo.
      */
-    public static void bindSeriesEditor(
+    public static <K> void bindSeriesEditor(
             LinearLayout container,
-            List<SerieDTO> series
+            List<SerieDTO> series,
+            SeriesTracker<K> tracker,
+            K group
     ) {
         // Limpiamos el contenedor de vistas anteriores
         container.removeAllViews();
         LayoutInflater inflater = LayoutInflater.from(container.getContext());
+        tracker.addGroup(group);
+        Consumer<SerieDTO> onRemove = serie -> {
+            series.removeIf(x -> x == serie);
+            tracker.remove(serie);
+        };
 
         // Inflamos y añadimos una vista para cada serie existente
         for (int i = 0; i < series.size(); i++) {
-            addOneSeriesView(container, series.get(i), series::remove, inflater, i);
+            addOneSeriesView(container, series.get(i), onRemove, tracker, inflater, i);
+            tracker.add(group, series.get(i));
         }
 
         // Creamos e inflamos el botón "Añadir serie" que permite crear nuevas series
@@ -65,8 +76,9 @@ public class SeriesEditorHelper {
             nueva.setPeso(0.0);
             // Añadir el DTO al modelo
             series.add(nueva);
+            tracker.add(group, nueva);
             // Insertar la vista de la nueva serie justo antes del botón
-            addOneSeriesView(container, nueva, series::remove, inflater, container.getChildCount() - 1);
+            addOneSeriesView(container, nueva, onRemove, tracker, inflater, container.getChildCount() - 1);
         });
         container.addView(btnAdd);
     }
@@ -96,6 +108,7 @@ public class SeriesEditorHelper {
      * @param serie     Objeto {@link SerieDTO} que contiene datos de repeticiones, peso y estado.
      * @param onRemove  Función {@link Consumer} a la que se le pasará el DTO para eliminarlo de la lista
      *                  cuando se solicite su eliminación.
+     * @param tracker   Contadores a los que se notifican los cambios de la serie.
      * @param inflater  {@link LayoutInflater} para inflar el layout de la vista de serie (R.layout.item_serie).
      * @param index     Índice donde se insertará la nueva vista dentro del contenedor. Si es -1 o mayor que
      *                  el número de hijos, la vista se añadirá al final.
@@ -104,6 +117,7 @@ public class SeriesEditorHelper {
             LinearLayout container,
             SerieDTO serie,
             Consumer<SerieDTO> onRemove,
+            SeriesTracker<?> tracker,
             LayoutInflater inflater,
             int index
     ) {
@@ -140,6 +154,7 @@ public class SeriesEditorHelper {
                 double peso = 0;
                 try { peso = Double.parseDouble(etWeight.getText().toString()); } catch(Exception ignored){}
                 serie.setPeso(peso);
+                tracker.setValues(serie, reps, peso);
 
                 // Si ambos valores son mayores que cero y el checkbox no estaba marcado, marcarlo
                 if (reps > 0 && peso > 0 && !cbDone.isChecked()) {
@@ -151,9 +166,10 @@ public class SeriesEditorHelper {
         etWeight.addTextChangedListener(watcher);
 
         // Listener para el checkbox que actualiza el campo 'completada' en el DTO
-        cbDone.setOnCheckedChangeListener((btn, checked) ->
-                serie.setCompletada(checked)
-        );
+        cbDone.setOnCheckedChangeListener((btn, checked) -> {
+            serie.setCompletada(checked);
+            tracker.setCompleted(serie, checked);
+        });
 
         // Listener de pulsación prolongada para eliminar la vista y el DTO
         view.setOnLongClickListener(v -> {
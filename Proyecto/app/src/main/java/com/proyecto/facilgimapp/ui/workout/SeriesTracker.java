@@ -0,0 +1,229 @@
+package com.proyecto.facilgimapp.ui.workout;
+
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lleva la cuenta, por ejercicio y en total, de las series sin completar y de las
+ * series con valores no válidos mientras el usuario las edita.
+ * <p>
+ * Cada cambio (añadir, editar, marcar o eliminar una serie) actualiza los contadores
+ * en tiempo constante, de modo que saber si se puede guardar no requiere recorrer todas
+ * las series. Una serie es válida si tiene repeticiones mayores que cero y peso no negativo.
+ * </p>
+ * <p>
+ * Las series se identifican por identidad; los grupos (normalmente el ejercicio) deben
+ * tener un {@code equals} estable mientras dure la edición.
+ * </p>
+ *
+ * @param <K> Tipo de la clave de grupo.
+ * @author Francisco Santana
+ */
+public class SeriesTracker<K> {
+
+    /** Estado de una serie según el último valor notificado. */
+    private final class SetState {
+        final GroupState group;
+        boolean completed;
+        boolean valid;
+
+        SetState(GroupState group) {
+            this.group = group;
+        }
+    }
+
+    /** Contadores de un grupo. */
+    private static final class GroupState {
+        int total;
+        int incomplete;
+        int invalid;
+    }
+
+    private final Map<SerieDTO, SetState> sets = new IdentityHashMap<>();
+    private final LinkedHashMap<K, GroupState> groups = new LinkedHashMap<>();
+
+    private int incomplete;
+    private int invalid;
+    private int emptyGroups;
+
+    /**
+     * Registra un grupo, aunque todavía no tenga series.
+     *
+     * @param group Clave del grupo.
+     */
+    public void addGroup(K group) {
+        groupOf(group);
+    }
+
+    /**
+     * Registra una serie con sus valores actuales.
+     *
+     * @param group Grupo al que pertenece.
+     * @param serie Serie a registrar.
+     */
+    public void add(K group, SerieDTO serie) {
+        if (sets.containsKey(serie)) return;
+        GroupState g = groupOf(group);
+        if (g.total++ == 0) emptyGroups--;
+        SetState s = new SetState(g);
+        sets.put(serie, s);
+        // Se cuenta como incompleta y no válida y se corrige con los valores reales
+        s.completed = false;
+        s.valid = false;
+        g.incomplete++;
+        g.invalid++;
+        incomplete++;
+        invalid++;
+        Integer reps = serie.getRepeticiones();
+        Double peso = serie.getPeso();
+        update(serie, serie.isCompletada(),
+                reps == null ? 0 : reps,
+                peso == null ? 0.0 : peso);
+    }
+
+    /**
+     * Actualiza el estado de completado de una serie.
+     *
+     * @param serie     Serie modificada.
+     * @param completed Nuevo estado.
+     */
+    public void setCompleted(SerieDTO serie, boolean completed) {
+        SetState s = sets.get(serie);
+        if (s == null || s.completed == completed) return;
+        s.completed = completed;
+        int delta = completed ? -1 : 1;
+        s.group.incomplete += delta;
+        incomplete += delta;
+    }
+
+    /**
+     * Actualiza las repeticiones y el peso de una serie.
+     *
+     * @param serie Serie modificada.
+     * @param reps  Repeticiones.
+     * @param peso  Peso.
+     */
+    public void setValues(SerieDTO serie, int reps, double peso) {
+        SetState s = sets.get(serie);
+        if (s == null) return;
+        boolean valid = reps > 0 && peso >= 0;
+        if (s.valid == valid) return;
+        s.valid = valid;
+        int delta = valid ? -1 : 1;
+        s.group.invalid += delta;
+        invalid += delta;
+    }
+
+    /**
+     * Actualiza a la vez el estado de completado y los valores de una serie.
+     *
+     * @param serie     Serie modificada.
+     * @param completed Estado de completado.
+     * @param reps      Repeticiones.
+     * @param peso      Peso.
+     */
+    public void update(SerieDTO serie, boolean completed, int reps, double peso) {
+        setCompleted(serie, completed);
+        setValues(serie, reps, peso);
+    }
+
+    /**
+     * Deja de contar una serie eliminada.
+     *
+     * @param serie Serie eliminada.
+     */
+    public void remove(SerieDTO serie) {
+        SetState s = sets.remove(serie);
+        if (s == null) return;
+        if (!s.completed) {
+            s.group.incomplete--;
+            incomplete--;
+        }
+        if (!s.valid) {
+            s.group.invalid--;
+            invalid--;
+        }
+        if (--s.group.total == 0) emptyGroups++;
+    }
+
+    /**
+     * Indica si todas las series registradas están completadas y son válidas.
+     *
+     * @return {@code true} si no hay ninguna serie pendiente ni errónea.
+     */
+    public boolean allCompleted() {
+        return incomplete == 0 && invalid == 0;
+    }
+
+    /**
+     * Como {@link #allCompleted()}, pero exigiendo además que ningún grupo esté vacío.
+     *
+     * @return {@code true} si se puede guardar.
+     */
+    public boolean isReady() {
+        return emptyGroups == 0 && allCompleted();
+    }
+
+    /**
+     * Indica si todas las series de un grupo están completadas y son válidas.
+     *
+     * @param group Clave del grupo.
+     * @return {@code true} si el grupo no tiene series pendientes ni erróneas.
+     */
+    public boolean isGroupCompleted(K group) {
+        GroupState g = groups.get(group);
+        return g == null || (g.incomplete == 0 && g.invalid == 0);
+    }
+
+    /**
+     * Primer grupo (en orden de registro) sin ninguna serie.
+     *
+     * @return la clave del grupo, o {@code null} si no hay ninguno.
+     */
+    public K firstEmptyGroup() {
+        if (emptyGroups == 0) return null;
+        for (Map.Entry<K, GroupState> e : groups.entrySet()) {
+            if (e.getValue().total == 0) return e.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * Primer grupo (en orden de registro) con alguna serie sin completar.
+     *
+     * @return la clave del grupo, o {@code null} si no hay ninguno.
+     */
+    public K firstIncompleteGroup() {
+        if (incomplete == 0) return null;
+        for (Map.Entry<K, GroupState> e : groups.entrySet()) {
+            if (e.getValue().incomplete > 0) return e.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * Primer grupo (en orden de registro) con alguna serie con valores no válidos.
+     *
+     * @return la clave del grupo, o {@code null} si no hay ninguno.
+     */
+    public K firstInvalidGroup() {
+        if (invalid == 0) return null;
+        for (Map.Entry<K, GroupState> e : groups.entrySet()) {
+            if (e.getValue().invalid > 0) return e.getKey();
+        }
+        return null;
+    }
+
+    private GroupState groupOf(K group) {
+        GroupState g = groups.get(group);
+        if (g == null) {
+            g = new GroupState();
+            groups.put(group, g);
+            emptyGroups++;
+        }
+        return g;
+    }
+}
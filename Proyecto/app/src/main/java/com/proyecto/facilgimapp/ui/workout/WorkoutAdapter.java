@@ -7,36 +7,30 @@ import android.widget.TextView;
 import android.widget.PopupMenu;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
 
 /**
  * Adaptador para mostrar una lista de entrenamientos en un RecyclerView.
  * <p>
  * Cada elemento muestra el nombre del entrenamiento y un botón de opciones
- * que permite ver la descripción, editar o eliminar. Incluye funcionalidad de
- * filtrado por nombre y actualización de la lista completa.
+ * que permite ver la descripción, editar o eliminar. Los cambios de lista se aplican
+ * con DiffUtil; la búsqueda la resuelve el ViewModel sobre el historial completo.
  * </p>
  * 
  * @author Francisco Santana
  */
-public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.H> {
-
-    /**
-     * Lista actual de entrenamientos mostrados.
-     */
-    private final List<EntrenamientoDTO> datos = new ArrayList<>();
-
-    /**
-     * Copia completa de todos los entrenamientos para permitir filtrado.
-     */
-    private final List<EntrenamientoDTO> fullList = new ArrayList<>();
+public class WorkoutAdapter extends ListAdapter<EntrenamientoDTO, WorkoutAdapter.H> {
 
     /**
      * Callback al hacer clic sobre un elemento para ver el detalle.
@@ -73,53 +67,24 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.H> {
                           Consumer<EntrenamientoDTO> onViewDescription,
                           Consumer<EntrenamientoDTO> onEdit,
                           Consumer<EntrenamientoDTO> onDelete) {
+        super(DIFF_CALLBACK);
         this.onItemClick = onClick;
         this.onViewDescription = onViewDescription;
         this.onEdit = onEdit;
         this.onDelete = onDelete;
         if (d != null) {
-            datos.addAll(d);
-            fullList.addAll(d);
+            updateList(d);
         }
     }
 
     /**
-     * Reemplaza la lista actual de entrenamientos por la proporcionada
-     * (tanto en datos como en fullList) y notifica el cambio para refrescar la vista.
+     * Reemplaza la lista mostrada por la proporcionada (la ventana cargada o los resultados
+     * de una búsqueda); DiffUtil calcula los cambios.
      *
      * @param list Nueva lista de {@link EntrenamientoDTO}; puede ser null para vaciar.
      */
     public void updateList(List<EntrenamientoDTO> list) {
-        datos.clear();
-        fullList.clear();
-        if (list != null) {
-            datos.addAll(list);
-            fullList.addAll(list);
-        }
-        notifyDataSetChanged();
-    }
-
-    /**
-     * Filtra la lista de entrenamientos por nombre que contenga la cadena dada.
-     * <p>
-     * Si el query es nulo o vacío, restaura la lista completa.
-     * </p>
-     *
-     * @param query Texto de búsqueda; se compara en minúsculas con el nombre.
-     */
-    public void filter(String query) {
-        datos.clear();
-        if (query == null || query.trim().isEmpty()) {
-            datos.addAll(fullList);
-        } else {
-            String lowerQuery = query.toLowerCase();
-            for (EntrenamientoDTO e : fullList) {
-                if (e.getNombre().toLowerCase().contains(lowerQuery)) {
-                    datos.add(e);
-                }
-            }
-        }
-        notifyDataSetChanged();
+        submitList(list != null ? new ArrayList<>(list) : Collections.emptyList());
     }
 
     /**
@@ -150,7 +115,7 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.H> {
      */
     @Override
     public void onBindViewHolder(@NonNull H holder, int pos) {
-        EntrenamientoDTO e = datos.get(pos);
+        EntrenamientoDTO e = getItem(pos);
         Integer idEntrenamiento = e.getId();
 
         if (idEntrenamiento != null) {
@@ -193,16 +158,6 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.H> {
         }
     }
 
-    /**
-     * Retorna la cantidad de entrenamientos en la lista actual.
-     *
-     * @return Número de elementos en {@code datos}.
-     */
-    @Override
-    public int getItemCount() {
-        return datos.size();
-    }
-
     /**
      * ViewHolder que contiene las referencias a las vistas de cada elemento de entrenamiento:
      * un TextView para el nombre y un ImageButton para las opciones.
@@ -222,4 +177,21 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.H> {
             btnOptions = v.findViewById(R.id.btnOptions);
         }
     }
+
+    /**
+     * Callback de DiffUtil: dos elementos son el mismo entrenamiento si comparten ID, y
+     * su contenido es igual si todos sus campos lo son (los listeners capturan el DTO).
+     */
+    private static final DiffUtil.ItemCallback<EntrenamientoDTO> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<EntrenamientoDTO>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull EntrenamientoDTO a, @NonNull EntrenamientoDTO b) {
+                    return Objects.equals(a.getId(), b.getId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull EntrenamientoDTO a, @NonNull EntrenamientoDTO b) {
+                    return a.equals(b);
+                }
+            };
 }
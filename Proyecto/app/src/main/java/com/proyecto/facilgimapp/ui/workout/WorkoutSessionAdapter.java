@@ -9,12 +9,14 @@ import android.view.ViewGroup;
 import android.widget.*;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.PopupMenu;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.proyecto.facilgimapp.R;
+import com.proyecto.facilgimapp.database.SessionJournal;
 import com.proyecto.facilgimapp.model.dto.*;
+import com.proyecto.facilgimapp.util.ImageLoader;
 
 import java.util.*;
 
@@ -25,6 +27,8 @@ import java.util.*;
  * Mantiene un mapa interno de {@link SerieDTO} para cada {@link EjercicioDTO}
  * y ofrece métodos para verificar si todas las series están completadas y para
  * construir la lista final de {@link EntrenamientoEjercicioDTO} que envía el ViewModel.
+ * Cada cambio se anota además en {@link SessionJournal} para poder recuperar la sesión
+ * si el proceso muere.
  * </p>
  * 
  * @author Francisco Santana
@@ -46,15 +50,84 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
      */
     private final Map<EjercicioDTO, List<SerieDTO>> seriesMap = new HashMap<>();
 
+    /**
+     * Diario donde se anotan los cambios de la sesión.
+     */
+    private final SessionJournal journal;
+
+    /**
+     * Clave en {@link #journal} de cada serie. Se indexa por identidad porque
+     * {@link SerieDTO#equals(Object)} compara por valor.
+     */
+    private final Map<SerieDTO, Integer> journalKeys = new IdentityHashMap<>();
+
+    /**
+     * Contadores de series pendientes y no válidas por ejercicio.
+     */
+    private final SeriesTracker<EjercicioDTO> tracker = new SeriesTracker<>();
+
     /**
      * Constructor que inicializa el adaptador con el DTO del entrenamiento y la lista de ejercicios.
      *
      * @param workoutDTO   DTO que contiene la información del entrenamiento.
      * @param exerciseList Lista de ejercicios a mostrar en la sesión.
+     * @param journal      Diario donde anotar los cambios de la sesión.
+     * @param restored     Sesión recuperada del diario, o {@code null} si es una sesión nueva.
      */
-    public WorkoutSessionAdapter(EntrenamientoDTO workoutDTO, List<EjercicioDTO> exerciseList) {
+    public WorkoutSessionAdapter(EntrenamientoDTO workoutDTO, List<EjercicioDTO> exerciseList,
+                                 SessionJournal journal, @Nullable SessionJournal.Snapshot restored) {
         this.workoutDTO = workoutDTO;
         this.exerciseList = exerciseList;
+        this.journal = journal;
+        for (EjercicioDTO ejercicio : exerciseList) tracker.addGroup(ejercicio);
+        if (restored != null) {
+            for (EjercicioDTO ejercicio : exerciseList) {
+                List<SerieDTO> series = restored.series.get(ejercicio.getIdEjercicio());
+                if (series == null) continue;
+                seriesMap.put(ejercicio, new ArrayList<>(series));
+                for (SerieDTO serie : series) tracker.add(ejercicio, serie);
+            }
+            journalKeys.putAll(restored.keys);
+        }
+    }
+
+    /**
+     * Propaga al diario y a los contadores los valores actuales de repeticiones y peso de una serie.
+     *
+     * @param serie Serie modificada.
+     */
+    private void valuesChanged(SerieDTO serie) {
+        int key = journalKeys.get(serie);
+        Integer reps = serie.getRepeticiones();
+        Double peso = serie.getPeso();
+        if (reps != null) journal.repsChanged(key, reps);
+        if (peso != null) journal.weightChanged(key, peso);
+        tracker.setValues(serie, reps == null ? 0 : reps, peso == null ? 0.0 : peso);
+    }
+
+    /**
+     * Marca o desmarca una serie como completada, anotándolo en el diario y en los contadores.
+     *
+     * @param serie     Serie modificada.
+     * @param completed Nuevo estado.
+     */
+    private void completedChanged(SerieDTO serie, boolean completed) {
+        serie.setCompletada(completed);
+        journal.completedChanged(journalKeys.get(serie), completed);
+        tracker.setCompleted(serie, completed);
+    }
+
+    /**
+     * Quita una serie de la lista (por identidad) y lo anota en el diario.
+     *
+     * @param lista Lista de series del ejercicio.
+     * @param serie Serie a quitar.
+     */
+    private void removeSerie(List<SerieDTO> lista, SerieDTO serie) {
+        lista.removeIf(x -> x == serie);
+        tracker.remove(serie);
+        Integer key = journalKeys.remove(serie);
+        if (key != null) journal.setRemoved(key);
     }
 
     /**
@@ -95,26 +168,48 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
         return exerciseList.size();
     }
 
+    /**
+     * Cancela la carga de la imagen de una tarjeta que sale de la pantalla.
+     *
+     * @param holder ViewHolder reciclado.
+     */
+    @Override
+    public void onViewRecycled(@NonNull WorkoutViewHolder holder) {
+        ImageLoader.clear(holder.ivExerciseImage);
+    }
+
+    /**
+     * URL de la imagen del ejercicio en una posición, para {@link com.proyecto.facilgimapp.util.ImagePreloader}.
+     *
+     * @param position Posición en la sesión.
+     * @return la URL, o null si la posición no existe.
+     */
+    public String getImageUrl(int position) {
+        return position >= 0 && position < exerciseList.size() ? exerciseList.get(position).getImagenUrl() : null;
+    }
+
     /**
      * Verifica si todas las series de todos los ejercicios están completadas.
      * <p>
      * Retorna {@code true} solo si cada {@link SerieDTO} está marcada como completada
-     * y tanto repeticiones como peso son mayores que cero. Trata nulos como cero.
+     * y tiene repeticiones mayores que cero. Se responde en tiempo constante a partir de
+     * los contadores que se actualizan con cada edición.
      * </p>
      *
      * @return {@code true} si todas las series cumplen la condición, {@code false} en caso contrario.
      */
     public boolean allCompleted() {
-        for (List<SerieDTO> series : seriesMap.values()) {
-            for (SerieDTO s : series) {
-                int reps = (s.getRepeticiones() == null ? 0 : s.getRepeticiones());
-                double peso = (s.getPeso() == null ? 0 : s.getPeso());
-                if (!s.isCompletada() || reps <= 0) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return tracker.allCompleted();
+    }
+
+    /**
+     * Devuelve el primer ejercicio (en orden de la sesión) con series pendientes o no válidas.
+     *
+     * @return el ejercicio, o {@code null} si todos están completos.
+     */
+    public EjercicioDTO firstIncompleteExercise() {
+        EjercicioDTO ejercicio = tracker.firstIncompleteGroup();
+        return ejercicio != null ? ejercicio : tracker.firstInvalidGroup();
     }
 
     /**
@@ -168,10 +263,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
         public void bind(EjercicioDTO ejercicio) {
             // Carga de datos básicos: nombre e imagen
             tvExerciseName.setText(ejercicio.getNombre());
-            Glide.with(itemView.getContext())
-                    .load(ejercicio.getImagenUrl())
-                    .placeholder(R.drawable.placeholder)
-                    .into(ivExerciseImage);
+            ImageLoader.load(ivExerciseImage, ejercicio.getImagenUrl());
 
             // Garantiza la inicialización de la lista de series para este ejercicio
             seriesMap.putIfAbsent(ejercicio, new ArrayList<>());
@@ -238,10 +330,12 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
             // Crea el DTO en blanco y lo añade al mapa
             SerieDTO serie = new SerieDTO();
             seriesMap.get(ejercicio).add(serie);
+            journalKeys.put(serie, journal.setAdded(ejercicio.getIdEjercicio()));
+            tracker.add(ejercicio, serie);
 
             // Listener del checkbox para marcar completada la serie
             cbDone.setOnCheckedChangeListener((buttonView, isChecked) ->
-                    serie.setCompletada(isChecked)
+                    completedChanged(serie, isChecked)
             );
 
             // TextWatcher para repeticiones y peso que actualiza el DTO y auto-check
@@ -257,6 +351,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
                     String wStr = etWeight.getText().toString().trim();
                     double peso = wStr.isEmpty() ? 0 : Double.parseDouble(wStr);
                     serie.setPeso(peso);
+                    valuesChanged(serie);
 
                     boolean hasReps   = repsStr.length() > 0;
                     boolean hasWeight = wStr.length() > 0;
@@ -274,7 +369,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
                 List<SerieDTO> lista = seriesMap.get(ejercicio);
                 if (lista.size() > 1) {
                     llSeriesContainer.removeView(serieView);
-                    lista.remove(serie);
+                    removeSerie(lista, serie);
                 } else {
                     Toast.makeText(itemView.getContext(),
                             R.string.debe_quedar_una_serie,
@@ -303,14 +398,18 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
             EditText etWeight = serieView.findViewById(R.id.etWeightSerie);
             CheckBox cbDone   = serieView.findViewById(R.id.cbDoneSerie);
 
-            // Precarga los valores en la vista
-            etReps.setText(String.valueOf(serie.getRepeticiones()));
-            etWeight.setText(String.valueOf(serie.getPeso()));
+            // Precarga los valores en la vista (una serie aún en blanco se deja vacía)
+            if (serie.getRepeticiones() != null) {
+                etReps.setText(String.valueOf(serie.getRepeticiones()));
+            }
+            if (serie.getPeso() != null) {
+                etWeight.setText(String.valueOf(serie.getPeso()));
+            }
             cbDone.setChecked(serie.isCompletada());
 
             // Listeners iguales a addSerieView
             cbDone.setOnCheckedChangeListener((buttonView, isChecked) ->
-                    serie.setCompletada(isChecked)
+                    completedChanged(serie, isChecked)
             );
 
             TextWatcher autoCheckWatcher = new TextWatcher() {
@@ -318,6 +417,14 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
                 @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
                 @Override
                 public void afterTextChanged(Editable s) {
+                    try {
+                        applyValues();
+                    } finally {
+                        valuesChanged(serie);
+                    }
+                }
+
+                private void applyValues() {
                     String repsStr = etReps.getText().toString().trim();
                     int reps = repsStr.isEmpty() ? 0 : Integer.parseInt(repsStr);
                     serie.setRepeticiones(reps);
@@ -361,7 +468,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
                 List<SerieDTO> lista = seriesMap.get(ejercicio);
                 if (lista.size() > 1) {
                     llSeriesContainer.removeView(serieView);
-                    lista.remove(serie);
+                    removeSerie(lista, serie);
                 } else {
                     Toast.makeText(itemView.getContext(),
                             R.string.debe_quedar_una_serie,
@@ -398,7 +505,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
             int lastIndex = llSeriesContainer.getChildCount() - 1;
             View ultimaSerieView = llSeriesContainer.getChildAt(lastIndex);
             llSeriesContainer.removeView(ultimaSerieView);
-            listaSeries.remove(listaSeries.size() - 1);
+            removeSerie(listaSeries, listaSeries.get(listaSeries.size() - 1));
         }
 
         /**
@@ -441,7 +548,7 @@ public class WorkoutSessionAdapter extends RecyclerView.Adapter<WorkoutSessionAd
                 View serieView = llSeriesContainer.getChildAt(i);
                 CheckBox cbDone = serieView.findViewById(R.id.cbDoneSerie);
                 cbDone.setChecked(true);
-                listaSeries.get(i).setCompletada(true);
+                completedChanged(listaSeries.get(i), true);
             }
         }
     }
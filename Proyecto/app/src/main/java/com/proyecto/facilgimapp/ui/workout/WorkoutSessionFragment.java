@@ -17,13 +17,16 @@ import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.proyecto.facilgimapp.R;
+import com.proyecto.facilgimapp.database.SessionJournal;
 import com.proyecto.facilgimapp.databinding.FragmentWorkoutSessionBinding;
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.util.ImagePreloader;
 import com.proyecto.facilgimapp.viewmodel.ExercisesViewModel;
 import com.proyecto.facilgimapp.viewmodel.WorkoutSessionViewModel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -31,7 +34,9 @@ import java.util.List;
  * <p>
  * Muestra un cronómetro para medir la duración real de la sesión,
  * carga los ejercicios seleccionados, y permite al usuario completar
- * series de cada ejercicio. Al finalizar, verifica que todas las series
+ * series de cada ejercicio. Los cambios se anotan en {@link SessionJournal},
+ * de modo que si el proceso muere la sesión se retoma con sus series y su
+ * tiempo transcurrido. Al finalizar, verifica que todas las series
  * estén completadas, calcula la duración en minutos, actualiza el DTO
  * de entrenamiento con las series y la duración, y guarda la sesión
  * mediante {@link WorkoutSessionViewModel}. Solo navega de vuelta cuando
@@ -47,6 +52,7 @@ public class WorkoutSessionFragment extends Fragment {
     private Chronometer chronometer;
     private WorkoutSessionAdapter adapter;
     private WorkoutSessionViewModel viewModel;
+    private SessionJournal journal;
 
     @Nullable
     @Override
@@ -62,11 +68,6 @@ public class WorkoutSessionFragment extends Fragment {
 
     @Override
     public void onViewCreated(@NonNull View v, @Nullable Bundle s) {
-        //  Arrancamos el cronómetro
-        chronometer = b.chronometer;
-        chronometer.setBase(SystemClock.elapsedRealtime());
-        chronometer.start();
-
         //  Recuperamos los  DTO y IDs desde los argumentos nav
         EntrenamientoDTO workoutDTO = WorkoutSessionFragmentArgs
                 .fromBundle(getArguments())
@@ -75,34 +76,26 @@ public class WorkoutSessionFragment extends Fragment {
                 .fromBundle(getArguments())
                 .getExerciseIds();
 
-        //Cargamos todos los ejercicios y filtramo los seleccionados
-        exercisesVM.listAllExercises();
-        exercisesVM.getAllExercises().observe(getViewLifecycleOwner(), allExercises -> {
-            if (allExercises == null || allExercises.isEmpty()) {
-                Toast.makeText(requireContext(),
-                        R.string.no_pudieron_cargar_ejercicios,
-                        Toast.LENGTH_SHORT).show();
-                Navigation.findNavController(v).popBackStack();
-                return;
-            }
-
-            // Filtramos los ejercicios que coincidan con los IDs recibidos
-            List<EjercicioDTO> selectedExercises = new ArrayList<>();
-            for (int id : exerciseIds) {
-                for (EjercicioDTO ejercicio : allExercises) {
-                    if (ejercicio.getIdEjercicio() == id) {
-                        selectedExercises.add(ejercicio);
-                        break;
-                    }
-                }
+        // Si el diario tiene esta misma sesión sin terminar (proceso muerto, rotación...)
+        // la retomamos; si no, empezamos un diario nuevo. El diario se lee en segundo plano
+        // y la lista se monta cuando llega la sesión.
+        journal = SessionJournal.get(requireContext());
+        chronometer = b.chronometer;
+        journal.restore(restored -> {
+            // La vista se ha destruido (o recreado) mientras se leía el diario
+            if (getView() != v) return;
+            SessionJournal.Snapshot session = restored;
+            if (session != null && Arrays.equals(session.exerciseIds, exerciseIds)) {
+                long elapsed = System.currentTimeMillis() - session.startedAt;
+                chronometer.setBase(SystemClock.elapsedRealtime() - Math.max(elapsed, 0));
+            } else {
+                session = null;
+                journal.start(workoutDTO, exerciseIds, System.currentTimeMillis());
+                chronometer.setBase(SystemClock.elapsedRealtime());
             }
-
-            //  Configuramos el Adapter
-            adapter = new WorkoutSessionAdapter(workoutDTO, selectedExercises);
-            b.rvSessionExercises.setLayoutManager(
-                    new LinearLayoutManager(requireContext())
-            );
-            b.rvSessionExercises.setAdapter(adapter);
+            //  Arrancamos el cronómetro
+            chronometer.start();
+            showExercises(v, workoutDTO, exerciseIds, session);
         });
 
         // Inicializamos el ViewModel para guardar
@@ -110,11 +103,14 @@ public class WorkoutSessionFragment extends Fragment {
 
         // Manejamos el botón Finalizar sesión
         b.btnFinishSession.setOnClickListener(btn -> {
+            // La lista aún no está montada: no hay nada que guardar
+            if (adapter == null) return;
             // 6.a) Verificar que todas las series estén completadas
             if (!adapter.allCompleted()) {
-                Toast.makeText(requireContext(),
-                        R.string.debe_completar_todas_las_series,
-                        Toast.LENGTH_SHORT).show();
+                EjercicioDTO pendiente = adapter.firstIncompleteExercise();
+                String msg = getString(R.string.debe_completar_todas_las_series);
+                if (pendiente != null) msg += " (“" + pendiente.getNombre() + "”)";
+                Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
                 return;
             }
 
@@ -138,14 +134,14 @@ public class WorkoutSessionFragment extends Fragment {
                         Toast.makeText(requireContext(),
                                 R.string.guardado_correctamente,
                                 Toast.LENGTH_SHORT).show();
-                        Navigation.findNavController(btn).navigate(
-                                R.id.workoutsFragment,
-                                null,
-                                new NavOptions.Builder()
-                                        .setPopUpTo(R.id.workoutSessionFragment, true)
-                                        .setPopUpTo(R.id.workoutsFragment, true)
-                                        .build()
-                        );
+                        volverAEntrenamientos(btn);
+                    }),
+                    // onQueued: sin conexión, se enviará más tarde
+                    () -> requireActivity().runOnUiThread(() -> {
+                        Toast.makeText(requireContext(),
+                                R.string.guardado_pendiente_sincronizar,
+                                Toast.LENGTH_LONG).show();
+                        volverAEntrenamientos(btn);
                     }),
                     // onError:
                     () -> requireActivity().runOnUiThread(() -> {
@@ -157,9 +153,83 @@ public class WorkoutSessionFragment extends Fragment {
         });
     }
 
+    /**
+     * Carga los ejercicios de la sesión y monta la lista, con las series recuperadas
+     * del diario si las hay.
+     *
+     * @param v           Vista raíz, para volver atrás si no se pueden cargar.
+     * @param workoutDTO  Entrenamiento de la sesión.
+     * @param exerciseIds IDs de los ejercicios seleccionados.
+     * @param session     Sesión recuperada, o {@code null} si es nueva.
+     */
+    private void showExercises(View v, EntrenamientoDTO workoutDTO, int[] exerciseIds,
+                               @Nullable SessionJournal.Snapshot session) {
+        //Cargamos todos los ejercicios y filtramo los seleccionados
+        exercisesVM.listAllExercises();
+        exercisesVM.getAllExercises().observe(getViewLifecycleOwner(), allExercises -> {
+            if (allExercises == null || allExercises.isEmpty()) {
+                Toast.makeText(requireContext(),
+                        R.string.no_pudieron_cargar_ejercicios,
+                        Toast.LENGTH_SHORT).show();
+                Navigation.findNavController(v).popBackStack();
+                return;
+            }
+
+            // Filtramos los ejercicios que coincidan con los IDs recibidos
+            List<EjercicioDTO> selectedExercises = new ArrayList<>();
+            for (int id : exerciseIds) {
+                for (EjercicioDTO ejercicio : allExercises) {
+                    if (ejercicio.getIdEjercicio() == id) {
+                        selectedExercises.add(ejercicio);
+                        break;
+                    }
+                }
+            }
+
+            //  Configuramos el Adapter (una sola vez, para no perder las series ya anotadas)
+            if (adapter != null) return;
+            adapter = new WorkoutSessionAdapter(workoutDTO, selectedExercises, journal, session);
+            b.rvSessionExercises.setLayoutManager(
+                    new LinearLayoutManager(requireContext())
+            );
+            b.rvSessionExercises.setAdapter(adapter);
+            ImagePreloader.attach(b.rvSessionExercises, R.id.ivExerciseImage, adapter::getImageUrl);
+        });
+    }
+
+    /**
+     * Vuelve a la lista de entrenamientos, quitando la sesión de la pila de navegación.
+     *
+     * @param view Vista desde la que se obtiene el NavController.
+     */
+    private void volverAEntrenamientos(View view) {
+        journal.finish();
+        Navigation.findNavController(view).navigate(
+                R.id.workoutsFragment,
+                null,
+                new NavOptions.Builder()
+                        .setPopUpTo(R.id.workoutSessionFragment, true)
+                        .setPopUpTo(R.id.workoutsFragment, true)
+                        .build()
+        );
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        adapter = null;
         b = null;
     }
+
+    /**
+     * Si el usuario abandona la sesión (el fragment se saca de la pila), se descarta su diario.
+     * Cuando el proceso muere no se llega aquí y el diario se conserva para retomarla.
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (isRemoving() && journal != null) {
+            journal.finish();
+        }
+    }
 }
@@ -26,6 +26,7 @@ import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.databinding.FragmentWorkoutsBinding;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.util.PagingScrollListener;
 import com.proyecto.facilgimapp.util.SessionManager;
 import com.proyecto.facilgimapp.viewmodel.TypeViewModel;
 import com.proyecto.facilgimapp.viewmodel.WorkoutViewModel;
@@ -90,6 +91,9 @@ public class WorkoutsFragment extends Fragment {
         // Configura RecyclerView con LayoutManager vertical y el adaptador
         b.rvWorkouts.setLayoutManager(new LinearLayoutManager(requireContext()));
         b.rvWorkouts.setAdapter(adapter);
+        // Pide más páginas (de la lista o de los resultados de búsqueda) al acercarse al borde
+        b.rvWorkouts.addOnScrollListener(
+                new PagingScrollListener(vm::getWorkoutLoader));
 
         // Observa la lista de entrenamientos y actualiza la UI
         vm.getWorkouts().observe(getViewLifecycleOwner(), list -> {
@@ -99,9 +103,7 @@ public class WorkoutsFragment extends Fragment {
             b.rvWorkouts.setVisibility(empty ? View.GONE : View.VISIBLE);
         });
 
-        // Carga inicialmente los entrenamientos del usuario actual
-        int userId = SessionManager.getUserId(requireContext());
-        vm.loadWorkoutsByUserId(userId);
+        // La carga inicial de los entrenamientos se hace en onResume
 
         // Configura el menú de búsqueda en la barra de acciones
         configurarMenu();
@@ -138,7 +140,7 @@ public class WorkoutsFragment extends Fragment {
 
     /**
      * Configura el menú de búsqueda en la barra de acciones utilizando MenuProvider.
-     * Añade un SearchView que filtra la lista de entrenamientos conforme se escribe.
+     * Añade un SearchView que busca en todo el historial de entrenamientos conforme se escribe.
      */
     private void configurarMenu() {
         MenuHost menuHost = requireActivity();
@@ -156,7 +158,7 @@ public class WorkoutsFragment extends Fragment {
 
                     @Override
                     public boolean onQueryTextChange(String newText) {
-                        adapter.filter(newText);
+                        vm.searchWorkouts(newText);
                         return true;
                     }
                 });
@@ -245,8 +247,9 @@ public class WorkoutsFragment extends Fragment {
     }
 
     /**
-     * Fuerza la recarga de entrenamientos cada vez que el fragmento reanuda.
-     * Útil para actualizar la lista si se ha vuelto desde otra pantalla.
+     * Pide los entrenamientos cada vez que el fragmento se reanuda, para actualizar la lista
+     * si se ha vuelto desde otra pantalla. Solo se descargan los cambios desde la visita
+     * anterior (ver {@link WorkoutViewModel#loadWorkoutsByUserId(int)}).
      */
     @Override
     public void onResume() {
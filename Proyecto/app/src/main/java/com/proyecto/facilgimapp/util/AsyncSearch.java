@@ -0,0 +1,145 @@
+package com.proyecto.facilgimapp.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Búsqueda en segundo plano sobre un {@link SearchIndex}, pensada para filtrar listas
+ * mientras el usuario escribe.
+ * <p>
+ * El índice se construye fuera del hilo principal cada vez que llega una lista nueva.
+ * Las consultas esperan {@link #DEBOUNCE_MS} sin cambios antes de lanzarse, y cualquier
+ * consulta posterior deja obsoletas las anteriores: si aún no han empezado no se calculan,
+ * y si ya han terminado su resultado se descarta. Los resultados se entregan en el hilo
+ * principal.
+ * </p>
+ * <p>
+ * Sus métodos deben llamarse desde el hilo principal.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos buscados.
+ * @author Francisco Santana
+ */
+public class AsyncSearch<T> {
+    /** Espera tras la última pulsación antes de buscar. */
+    public static final long DEBOUNCE_MS = 150;
+
+    /** Hilo compartido por todas las búsquedas de la aplicación. */
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Function<T, String> text;
+    private final boolean ranked;
+    private final Consumer<List<T>> onResult;
+
+    /** Solo se modifican en el hilo principal; el hilo de búsqueda solo los lee. */
+    private volatile int queryGeneration;
+    private int buildGeneration;
+
+    private SearchIndex<T> index;
+    private String query = "";
+    private Runnable pending;
+
+    /**
+     * Crea una búsqueda asíncrona que filtra conservando el orden original.
+     *
+     * @param text     Función que devuelve el texto buscable de cada elemento.
+     * @param onResult Receptor de los resultados, llamado en el hilo principal.
+     */
+    public AsyncSearch(Function<T, String> text, Consumer<List<T>> onResult) {
+        this(text, false, onResult);
+    }
+
+    /**
+     * Crea una búsqueda asíncrona.
+     *
+     * @param text     Función que devuelve el texto buscable de cada elemento.
+     * @param ranked   {@code true} para usar {@link SearchIndex#rankedQuery(String)}
+     *                 (tolerante a erratas y ordenada por relevancia) en lugar de
+     *                 {@link SearchIndex#query(String)}.
+     * @param onResult Receptor de los resultados, llamado en el hilo principal.
+     */
+    public AsyncSearch(Function<T, String> text, boolean ranked, Consumer<List<T>> onResult) {
+        this.text = text;
+        this.ranked = ranked;
+        this.onResult = onResult;
+    }
+
+    /**
+     * Sustituye los elementos buscables y reconstruye el índice en segundo plano.
+     * Si hay una consulta activa, se vuelve a aplicar sobre los nuevos elementos.
+     *
+     * @param items Lista completa de elementos.
+     */
+    public void setItems(List<T> items) {
+        int gen = ++buildGeneration;
+        SEARCH_EXECUTOR.execute(() -> {
+            SearchIndex<T> built = new SearchIndex<>(items, text);
+            mainHandler.post(() -> {
+                if (gen != buildGeneration) return;
+                index = built;
+                if (!query.isEmpty()) schedule(query, 0);
+            });
+        });
+    }
+
+    /**
+     * Programa una búsqueda. Si llega otra antes de {@link #DEBOUNCE_MS}, esta se descarta.
+     * Vaciar la búsqueda se aplica sin espera.
+     *
+     * @param newQuery Texto buscado; null o vacío devuelve todos los elementos.
+     */
+    public void search(String newQuery) {
+        query = newQuery == null ? "" : newQuery.trim();
+        schedule(query, query.isEmpty() ? 0 : DEBOUNCE_MS);
+    }
+
+    /**
+     * Texto de la búsqueda activa.
+     *
+     * @return la consulta actual, vacía si no hay ninguna.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /** Descarta la búsqueda programada y los resultados en curso (p. ej. al destruir la vista). */
+    public void cancel() {
+        buildGeneration++;
+        cancelQuery();
+    }
+
+    private void cancelQuery() {
+        queryGeneration++;
+        if (pending != null) {
+            mainHandler.removeCallbacks(pending);
+            pending = null;
+        }
+    }
+
+    private void schedule(String q, long delayMs) {
+        cancelQuery();
+        int gen = queryGeneration;
+        pending = () -> {
+            pending = null;
+            SearchIndex<T> current = index;
+            // Sin índice todavía: la consulta se aplicará cuando termine de construirse
+            if (current == null) return;
+            SEARCH_EXECUTOR.execute(() -> {
+                // Si mientras esperaba en la cola llegó otra consulta, no se calcula
+                if (gen != queryGeneration) return;
+                List<T> result = ranked ? current.rankedQuery(q) : current.query(q);
+                mainHandler.post(() -> {
+                    if (gen == queryGeneration) onResult.accept(result);
+                });
+            });
+        };
+        mainHandler.postDelayed(pending, delayMs);
+    }
+}
@@ -0,0 +1,50 @@
+package com.proyecto.facilgimapp.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Configuración de Glide para {@link ImageLoader}: crea la caché en memoria, el pool de
+ * bitmaps y la caché en disco con los presupuestos de {@link ImageLoader.Config} y los
+ * registra en {@link ImageCacheStats}.
+ * <p>
+ * Las fotos de ejercicios no tienen transparencia, así que por defecto se decodifican en
+ * RGB_565 (la mitad de memoria por píxel); Glide mantiene ARGB_8888 si la imagen tiene
+ * canal alfa.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+@GlideModule
+public final class FacilGimGlideModule extends AppGlideModule {
+    /** Subdirectorio de la caché en disco, dentro del directorio de caché de la app. */
+    private static final String DISK_CACHE_DIR = "imagenes";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ImageLoader.Config config = ImageLoader.applyConfig(context);
+        LruResourceCache memoryCache = new LruResourceCache(config.memoryCacheBytes);
+        LruBitmapPool bitmapPool = new LruBitmapPool(config.bitmapPoolBytes);
+        builder.setMemoryCache(memoryCache)
+                .setBitmapPool(bitmapPool)
+                .setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, config.diskCacheBytes))
+                .setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        ImageCacheStats.get().attach(memoryCache, bitmapPool, config.diskCacheBytes);
+    }
+
+    /** No hay módulos declarados en el manifiesto; se evita buscarlos al arrancar. */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
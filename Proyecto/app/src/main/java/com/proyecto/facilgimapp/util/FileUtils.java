@@ -1,33 +1,82 @@
 package com.proyecto.facilgimapp.util;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
 import android.net.Uri;
+import android.provider.OpenableColumns;
+import android.util.Log;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utilidad para operaciones comunes con ficheros, como copiar un recurso {@link Uri}
  * a un archivo local dentro de <code>cacheDir</code>.
  * <p>
- * Este proveedor simplifica la copia de datos desde un Uri (por ejemplo, obtenido
- * mediante un selector de archivos) a un archivo temporal en la caché de la aplicación,
- * preservando la extensión especificada en el nombre deseado.
+ * Las subidas de imágenes leen directamente del {@link Uri}, sin copia; la copia queda
+ * para los casos en que hace falta un {@link File}. Las copias van a un subdirectorio
+ * propio de la caché y se borran al fallar o cuando se quedan antiguas.
  * </p>
  *
  * Autor: Francisco Santana
  */
 public class FileUtils {
+    private static final String TAG = "FileUtils";
+
+    /** Subdirectorio de cacheDir para las copias temporales. */
+    private static final String UPLOAD_DIR = "uploads";
+    /** Antigüedad a partir de la cual una copia temporal se considera abandonada. */
+    private static final long STALE_AFTER_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Tamaño en bytes del contenido apuntado por un {@link Uri}, según el proveedor.
+     * Se consulta primero {@link OpenableColumns#SIZE} y, si no está, la longitud del
+     * descriptor de fichero.
+     *
+     * @param resolver ContentResolver con el que consultar.
+     * @param uri      Uri del contenido.
+     * @return el tamaño, o -1 si el proveedor no lo conoce.
+     */
+    public static long querySize(ContentResolver resolver, Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int idx = cursor.getColumnIndex(OpenableColumns.SIZE);
+                if (idx >= 0 && !cursor.isNull(idx)) {
+                    long size = cursor.getLong(idx);
+                    if (size >= 0) return size;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Proveedores que no admiten consultas (p. ej. file://)
+        }
+        try (AssetFileDescriptor afd = resolver.openAssetFileDescriptor(uri, "r")) {
+            if (afd != null) {
+                long length = afd.getLength();
+                return length == AssetFileDescriptor.UNKNOWN_LENGTH ? -1 : length;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Sin descriptor: longitud desconocida
+        }
+        return -1;
+    }
 
     /**
      * Copia el contenido apuntado por un {@link Uri} a un fichero local creado en
-     * el directorio de caché de la aplicación (<code>ctx.getCacheDir()</code>).
+     * el directorio de subidas de la caché (<code>cacheDir/uploads</code>).
      * <p>
-     * El parámetro <strong>desiredName</strong> debe incluir la extensión adecuada
-     * (por ejemplo, "imagen.jpg" o "documento.pdf"). Si el fichero destino ya existe,
-     * se sobrescribe. En caso de error durante la lectura o escritura, se devuelve <code>null</code>.
+     * Solo debe usarse cuando hace falta un {@link File}; para subir al servidor basta con
+     * leer del Uri. El parámetro <strong>desiredName</strong> debe incluir la extensión
+     * adecuada (por ejemplo, "imagen.jpg" o "documento.pdf"). Si el fichero destino ya
+     * existe, se sobrescribe. En caso de error se borra la copia parcial y se devuelve
+     * <code>null</code>. De paso se eliminan las copias de más de una hora; quien llama
+     * debe borrar la suya con {@link #deleteQuietly(File)} al terminar de usarla.
      * </p>
      *
      * @param ctx         Contexto de la aplicación, usado para acceder a <code>getCacheDir()</code>
@@ -36,24 +85,52 @@ public class FileUtils {
      *                    a una imagen, documento u otro recurso accesible por el ContentResolver.
      * @param desiredName Nombre de fichero deseado para almacenar en el directorio de caché.
      *                    Debe contener la extensión correspondiente (por ejemplo, "foto.png").
-     * @return Un objeto {@link File} que representa el nuevo fichero en cacheDir con el contenido
+     * @return Un objeto {@link File} que representa el nuevo fichero con el contenido
      *         copiado del Uri. Devuelve <code>null</code> si ocurre un error de E/S.
      */
     public static File copyUriToFile(Context ctx, Uri uri, String desiredName) {
-        File dest = new File(ctx.getCacheDir(), desiredName);
+        File dir = new File(ctx.getCacheDir(), UPLOAD_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "No se pudo crear " + dir);
+            return null;
+        }
+        purgeStale(dir);
+        // Evita que un nombre con separadores salga del directorio
+        File dest = new File(dir, new File(desiredName).getName());
         try (InputStream is = ctx.getContentResolver().openInputStream(uri);
              FileOutputStream fos = new FileOutputStream(dest)) {
-
-            byte[] buf = new byte[4096];
+            if (is == null) throw new IOException("No se puede abrir " + uri);
+            byte[] buf = new byte[BUFFER_SIZE];
             int len;
-            while ((len = is.read(buf)) > 0) {
+            while ((len = is.read(buf)) != -1) {
                 fos.write(buf, 0, len);
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.w(TAG, "Error copiando " + uri, e);
+            deleteQuietly(dest);
             return null;
         }
         return dest;
     }
 
+    /**
+     * Borra un fichero temporal si existe, ignorando los errores.
+     *
+     * @param file Fichero a borrar, puede ser null.
+     */
+    public static void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            Log.w(TAG, "No se pudo borrar " + file);
+        }
+    }
+
+    private static void purgeStale(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long cutoff = System.currentTimeMillis() - STALE_AFTER_MS;
+        for (File f : files) {
+            if (f.isFile() && f.lastModified() < cutoff) deleteQuietly(f);
+        }
+    }
+
 }
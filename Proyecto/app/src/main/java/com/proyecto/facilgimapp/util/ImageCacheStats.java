@@ -0,0 +1,136 @@
+package com.proyecto.facilgimapp.util;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores globales de la carga de imágenes de {@link ImageLoader}.
+ * <p>
+ * Cuenta las imágenes servidas desde la caché en memoria, desde la caché en disco, desde
+ * la red y desde el propio dispositivo (p. ej. la vista previa de un {@code Uri}), y las
+ * cargas fallidas. Además informa de la ocupación de la caché en memoria y de los
+ * aciertos, fallos y expulsiones del pool de bitmaps.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class ImageCacheStats {
+    private static final ImageCacheStats INST = new ImageCacheStats();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong networkLoads = new AtomicLong();
+    private final AtomicLong localLoads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile LruResourceCache memoryCache;
+    private volatile LruBitmapPool bitmapPool;
+    private volatile long diskCacheBytes;
+
+    private ImageCacheStats() {}
+
+    /**
+     * Devuelve la instancia singleton de los contadores.
+     *
+     * @return la instancia única de ImageCacheStats.
+     */
+    public static ImageCacheStats get() {
+        return INST;
+    }
+
+    /** Registra las cachés creadas por {@link FacilGimGlideModule}. */
+    void attach(LruResourceCache memoryCache, LruBitmapPool bitmapPool, long diskCacheBytes) {
+        this.memoryCache = memoryCache;
+        this.bitmapPool = bitmapPool;
+        this.diskCacheBytes = diskCacheBytes;
+    }
+
+    /** Registra una imagen mostrada, según su origen. */
+    void recordLoad(DataSource source) {
+        switch (source) {
+            case MEMORY_CACHE:
+                memoryHits.incrementAndGet();
+                break;
+            case RESOURCE_DISK_CACHE:
+            case DATA_DISK_CACHE:
+                diskHits.incrementAndGet();
+                break;
+            case REMOTE:
+                networkLoads.incrementAndGet();
+                break;
+            default:
+                localLoads.incrementAndGet();
+        }
+    }
+
+    /** Registra una carga fallida. */
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getNetworkLoads() {
+        return networkLoads.get();
+    }
+
+    public long getLocalLoads() {
+        return localLoads.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /** Pone los contadores de cargas a cero; los del pool de bitmaps son acumulados. */
+    public void reset() {
+        memoryHits.set(0);
+        diskHits.set(0);
+        networkLoads.set(0);
+        localLoads.set(0);
+        failures.set(0);
+    }
+
+    /**
+     * Resumen legible de los contadores y de la ocupación de las cachés.
+     *
+     * @return el resumen en texto plano.
+     */
+    @NonNull
+    public String summary() {
+        StringBuilder sb = new StringBuilder("imágenes\n").append(String.format(Locale.ROOT,
+                "  memoria=%d disco=%d red=%d local=%d err=%d%n",
+                getMemoryHits(), getDiskHits(), getNetworkLoads(), getLocalLoads(), getFailures()));
+        LruResourceCache memory = memoryCache;
+        LruBitmapPool pool = bitmapPool;
+        if (memory != null && pool != null) {
+            sb.append(String.format(Locale.ROOT,
+                    "  caché memoria %d/%d KB  disco máx %d MB%n"
+                            + "  pool %d/%d KB aciertos=%d fallos=%d expulsiones=%d%n",
+                    memory.getCurrentSize() / 1024, memory.getMaxSize() / 1024,
+                    diskCacheBytes / (1024 * 1024),
+                    pool.getCurrentSize() / 1024, pool.getMaxSize() / 1024,
+                    pool.hitCount(), pool.missCount(), pool.evictionCount()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "ImageCacheStats{memoryHits=%d, diskHits=%d, networkLoads=%d, localLoads=%d, failures=%d}",
+                getMemoryHits(), getDiskHits(), getNetworkLoads(), getLocalLoads(), getFailures());
+    }
+}
@@ -0,0 +1,214 @@
+package com.proyecto.facilgimapp.util;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.proyecto.facilgimapp.R;
+
+/**
+ * Punto único de carga de imágenes de la aplicación.
+ * <p>
+ * Todas las pantallas cargan las imágenes de los ejercicios a través de esta clase, que
+ * usa un solo motor (Glide) con una sola caché en memoria, un solo pool de bitmaps y una
+ * sola caché en disco, dimensionados según {@link Config} (ver
+ * {@link FacilGimGlideModule}). Las imágenes se decodifican ya reducidas al tamaño de la
+ * vista de destino, y cada carga se contabiliza en {@link ImageCacheStats} según de dónde
+ * salió (memoria, disco o red).
+ * </p>
+ * <p>
+ * Una fuente nula o vacía muestra directamente el marcador de posición, sin petición.
+ * Las listas pueden adelantar la carga de las filas que van a aparecer con
+ * {@link #preload} (ver {@link ImagePreloader}). Los métodos deben llamarse desde el hilo
+ * principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class ImageLoader {
+    private static final String TAG = "ImageLoader";
+
+    /**
+     * Presupuestos de las cachés de imágenes.
+     */
+    public static final class Config {
+        /** Bytes máximos de la caché de imágenes decodificadas en memoria. */
+        public final long memoryCacheBytes;
+        /** Bytes máximos del pool de bitmaps reutilizables. */
+        public final long bitmapPoolBytes;
+        /** Bytes máximos de la caché en disco. */
+        public final long diskCacheBytes;
+
+        /**
+         * Crea una configuración.
+         *
+         * @param memoryCacheBytes Caché en memoria; mayor que 0.
+         * @param bitmapPoolBytes  Pool de bitmaps; mayor que 0.
+         * @param diskCacheBytes   Caché en disco; mayor que 0.
+         */
+        public Config(long memoryCacheBytes, long bitmapPoolBytes, long diskCacheBytes) {
+            if (memoryCacheBytes <= 0 || bitmapPoolBytes <= 0 || diskCacheBytes <= 0) {
+                throw new IllegalArgumentException("Presupuestos de imagen no válidos");
+            }
+            this.memoryCacheBytes = memoryCacheBytes;
+            this.bitmapPoolBytes = bitmapPoolBytes;
+            this.diskCacheBytes = diskCacheBytes;
+        }
+
+        /**
+         * Configuración por defecto para el dispositivo: 1/8 del heap de la aplicación para
+         * la caché en memoria, otro 1/8 para el pool de bitmaps (1/16 en dispositivos con
+         * poca RAM) y 64 MB en disco.
+         *
+         * @param context Contexto para consultar la memoria disponible.
+         * @return la configuración.
+         */
+        public static Config forDevice(Context context) {
+            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            long heap = (am != null ? am.getMemoryClass() : 64) * 1024L * 1024L;
+            boolean lowRam = am != null && am.isLowRamDevice();
+            return new Config(heap / 8, lowRam ? heap / 16 : heap / 8, 64L * 1024 * 1024);
+        }
+    }
+
+    private static Config config;
+    /** Se marca cuando Glide lee la configuración; a partir de ahí ya no se puede cambiar. */
+    private static boolean configApplied;
+
+    /** Contabiliza el origen de cada imagen cargada. */
+    private static final RequestListener<Drawable> STATS = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                    Target<Drawable> target, boolean isFirstResource) {
+            ImageCacheStats.get().recordFailure();
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target,
+                                       DataSource dataSource, boolean isFirstResource) {
+            ImageCacheStats.get().recordLoad(dataSource);
+            return false;
+        }
+    };
+
+    private ImageLoader() {}
+
+    /**
+     * Fija los presupuestos de las cachés. Debe llamarse antes de cargar la primera
+     * imagen; después no tiene efecto.
+     *
+     * @param newConfig Presupuestos a usar.
+     */
+    public static synchronized void configure(@NonNull Config newConfig) {
+        if (configApplied) {
+            Log.w(TAG, "Las cachés de imágenes ya están creadas; se ignora la nueva configuración");
+            return;
+        }
+        config = newConfig;
+    }
+
+    /**
+     * Configuración en uso; la marca como aplicada. La llama {@link FacilGimGlideModule}
+     * al crear Glide.
+     */
+    static synchronized Config applyConfig(Context context) {
+        if (config == null) config = Config.forDevice(context);
+        configApplied = true;
+        return config;
+    }
+
+    /**
+     * Carga una miniatura recortada al centro para llenar la vista.
+     *
+     * @param target Vista de destino.
+     * @param source URL, {@link android.net.Uri} o recurso; nulo o vacío muestra el marcador.
+     */
+    public static void load(@NonNull ImageView target, @Nullable Object source) {
+        request(Glide.with(target), source).listener(STATS).centerCrop().into(target);
+    }
+
+    /**
+     * Carga la imagen completa, sin recortar, ajustada a la vista (vistas previas).
+     *
+     * @param target Vista de destino.
+     * @param source URL, {@link android.net.Uri} o recurso; nulo o vacío muestra el marcador.
+     */
+    public static void loadPreview(@NonNull ImageView target, @Nullable Object source) {
+        request(Glide.with(target), source).listener(STATS).fitCenter().into(target);
+    }
+
+    /**
+     * Carga una miniatura en la caché en memoria sin mostrarla, para que
+     * {@link #load(ImageView, Object)} la encuentre ya decodificada. El tamaño debe ser el
+     * de la vista sin su relleno, que es con el que se cachea la miniatura.
+     *
+     * @param host   Vista de la pantalla, para ligar la carga a su ciclo de vida.
+     * @param source URL de la imagen.
+     * @param width  Ancho de destino en píxeles.
+     * @param height Alto de destino en píxeles.
+     * @return el destino de la carga, para cancelarla con {@link #cancel(View, Target)}.
+     */
+    public static Target<Drawable> preload(@NonNull View host, @NonNull String source, int width, int height) {
+        return request(Glide.with(host), source).centerCrop().preload(width, height);
+    }
+
+    /**
+     * Cancela una carga adelantada con {@link #preload}.
+     *
+     * @param host   Vista usada al lanzarla.
+     * @param target Destino devuelto por {@link #preload}.
+     */
+    public static void cancel(@NonNull View host, @NonNull Target<?> target) {
+        Glide.with(host).clear(target);
+    }
+
+    /**
+     * Detiene las cargas en curso de la pantalla de {@code host} (p. ej. durante un
+     * desplazamiento rápido); se reanudan con {@link #resume(View)}.
+     *
+     * @param host Vista de la pantalla.
+     */
+    public static void pause(@NonNull View host) {
+        Glide.with(host).pauseRequests();
+    }
+
+    /**
+     * Reanuda las cargas detenidas con {@link #pause(View)}.
+     *
+     * @param host Vista de la pantalla.
+     */
+    public static void resume(@NonNull View host) {
+        Glide.with(host).resumeRequests();
+    }
+
+    /**
+     * Cancela la carga pendiente de una vista y libera su imagen.
+     *
+     * @param target Vista a limpiar.
+     */
+    public static void clear(@NonNull ImageView target) {
+        Glide.with(target).clear(target);
+    }
+
+    private static RequestBuilder<Drawable> request(RequestManager glide, @Nullable Object source) {
+        if (source instanceof String && ((String) source).isEmpty()) source = null;
+        return glide.load(source)
+                .placeholder(R.drawable.placeholder)   // mientras carga
+                .error(R.drawable.placeholder)         // si falla la descarga
+                .fallback(R.drawable.placeholder);     // si no hay fuente
+    }
+}
@@ -0,0 +1,193 @@
+package com.proyecto.facilgimapp.util;
+
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.request.target.Target;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Adelanta la carga de las imágenes de una lista según el sentido del desplazamiento.
+ * <p>
+ * Mientras el usuario desplaza la lista, carga en la caché en memoria las imágenes de las
+ * siguientes filas en el sentido del desplazamiento (hacia abajo o hacia arriba), con el
+ * mismo tamaño y recorte con que se mostrarán, de modo que al aparecer la fila la imagen
+ * ya está decodificada. Las cargas adelantadas de filas que quedan fuera de la ventana se
+ * cancelan, y durante un desplazamiento rápido (fling) se detienen todas las cargas de la
+ * pantalla hasta que la lista se frena.
+ * </p>
+ * <p>
+ * Los adaptadores deben cancelar además la carga de las filas que se reciclan (ver
+ * {@link ImageLoader#clear}). Solo admite listas con {@link LinearLayoutManager}.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class ImagePreloader extends RecyclerView.OnScrollListener {
+    /** Filas que se adelantan por defecto. */
+    public static final int DEFAULT_PRELOAD_ROWS = 6;
+    /**
+     * Desplazamiento por fotograma, en dp, a partir del cual se considera un fling
+     * (unos 3000 dp/s a 60 fps).
+     */
+    private static final int FLING_DP_PER_FRAME = 50;
+
+    /**
+     * Proporciona la URL de la imagen de cada posición del adaptador.
+     */
+    public interface UrlProvider {
+        /**
+         * @param position Posición en el adaptador.
+         * @return la URL, o null si la fila no tiene imagen.
+         */
+        @Nullable
+        String imageUrlAt(int position);
+    }
+
+    private final UrlProvider urls;
+    @IdRes
+    private final int imageViewId;
+    private final int maxRows;
+    private final int flingThresholdPx;
+
+    /** Cargas adelantadas vivas, por posición del adaptador. */
+    private final Map<Integer, Target<Drawable>> preloads = new HashMap<>();
+    /** 1 si la lista avanza hacia abajo, -1 hacia arriba. */
+    private int direction = 1;
+    private boolean paused;
+
+    /**
+     * Crea el precargador.
+     *
+     * @param urls             URL de la imagen de cada posición.
+     * @param imageViewId      Id de la ImageView de la fila, para medir el tamaño de destino.
+     * @param maxRows          Filas a adelantar; mayor que 0.
+     * @param flingThresholdPx Desplazamiento por fotograma, en píxeles, que se considera fling.
+     */
+    public ImagePreloader(@NonNull UrlProvider urls, @IdRes int imageViewId, int maxRows, int flingThresholdPx) {
+        if (maxRows <= 0) throw new IllegalArgumentException("maxRows debe ser mayor que 0");
+        this.urls = urls;
+        this.imageViewId = imageViewId;
+        this.maxRows = maxRows;
+        this.flingThresholdPx = flingThresholdPx;
+    }
+
+    /**
+     * Crea un precargador con los valores por defecto y lo registra en la lista.
+     *
+     * @param list        Lista cuyas imágenes se adelantan.
+     * @param imageViewId Id de la ImageView de la fila.
+     * @param urls        URL de la imagen de cada posición.
+     * @return el precargador registrado.
+     */
+    public static ImagePreloader attach(@NonNull RecyclerView list, @IdRes int imageViewId,
+                                        @NonNull UrlProvider urls) {
+        float density = list.getResources().getDisplayMetrics().density;
+        ImagePreloader preloader = new ImagePreloader(urls, imageViewId,
+                DEFAULT_PRELOAD_ROWS, Math.round(FLING_DP_PER_FRAME * density));
+        list.addOnScrollListener(preloader);
+        return preloader;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView list, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_SETTLING) return;
+        // Al tocar la lista o al pararse, se reanudan las cargas y se adelanta la ventana.
+        resumeIfPaused(list);
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) preload(list);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView list, int dx, int dy) {
+        if (dy == 0) {
+            // Pasada de layout (primera carga o cambio de datos).
+            preload(list);
+            return;
+        }
+        direction = dy > 0 ? 1 : -1;
+        if (list.getScrollState() == RecyclerView.SCROLL_STATE_SETTLING
+                && Math.abs(dy) > flingThresholdPx) {
+            if (!paused) {
+                paused = true;
+                ImageLoader.pause(list);
+                cancelAll(list);
+            }
+            return;
+        }
+        resumeIfPaused(list);
+        preload(list);
+    }
+
+    private void resumeIfPaused(RecyclerView list) {
+        if (!paused) return;
+        paused = false;
+        ImageLoader.resume(list);
+    }
+
+    /** Ajusta las cargas adelantadas a las filas siguientes a las visibles. */
+    private void preload(RecyclerView list) {
+        if (paused || !(list.getLayoutManager() instanceof LinearLayoutManager)) return;
+        LinearLayoutManager lm = (LinearLayoutManager) list.getLayoutManager();
+        int first = lm.findFirstVisibleItemPosition();
+        int last = lm.findLastVisibleItemPosition();
+        RecyclerView.Adapter<?> adapter = list.getAdapter();
+        if (first == RecyclerView.NO_POSITION || adapter == null) return;
+
+        int from, to;
+        if (direction > 0) {
+            from = last + 1;
+            to = Math.min(last + maxRows, adapter.getItemCount() - 1);
+        } else {
+            from = Math.max(first - maxRows, 0);
+            to = first - 1;
+        }
+
+        // Se cancelan las cargas de filas que ya no están en la ventana.
+        for (Iterator<Map.Entry<Integer, Target<Drawable>>> it = preloads.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Target<Drawable>> e = it.next();
+            if (e.getKey() < from || e.getKey() > to) {
+                ImageLoader.cancel(list, e.getValue());
+                it.remove();
+            }
+        }
+        if (from > to) return;
+
+        View image = findImage(lm, first, last);
+        if (image == null) return;
+        // Tamaño con el que Glide cachea la miniatura de la fila: la vista sin su relleno.
+        int width = image.getWidth() - image.getPaddingLeft() - image.getPaddingRight();
+        int height = image.getHeight() - image.getPaddingTop() - image.getPaddingBottom();
+        if (width <= 0 || height <= 0) return;
+
+        for (int position = from; position <= to; position++) {
+            if (preloads.containsKey(position)) continue;
+            String url = urls.imageUrlAt(position);
+            if (url == null || url.isEmpty()) continue;
+            preloads.put(position, ImageLoader.preload(list, url, width, height));
+        }
+    }
+
+    @Nullable
+    private View findImage(LinearLayoutManager lm, int first, int last) {
+        for (int position = first; position <= last; position++) {
+            View row = lm.findViewByPosition(position);
+            View image = row != null ? row.findViewById(imageViewId) : null;
+            if (image != null && image.getWidth() > 0) return image;
+        }
+        return null;
+    }
+
+    private void cancelAll(RecyclerView list) {
+        for (Target<Drawable> target : preloads.values()) ImageLoader.cancel(list, target);
+        preloads.clear();
+    }
+}
@@ -0,0 +1,308 @@
+package com.proyecto.facilgimapp.util;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Prepara una imagen para subirla: la reduce a unas dimensiones máximas, la rota según
+ * su orientación EXIF y la vuelve a comprimir en JPEG, descartando los metadatos
+ * (EXIF, GPS, miniaturas).
+ * <p>
+ * La memoria está acotada por el tamaño final y no por el original: primero se leen solo
+ * las dimensiones, después se decodifica con el {@code inSampleSize} más grande que no
+ * baje del objetivo y el decodificador escala directamente al tamaño final
+ * ({@code inDensity}/{@code inTargetDensity}), sin un bitmap intermedio a resolución
+ * completa. La calidad JPEG baja por pasos hasta que el resultado cabe en
+ * {@link Options#maxBytes} o se alcanza {@link Options#minQuality}.
+ * </p>
+ * <p>
+ * Hace E/S y decodificación: no debe llamarse desde el hilo principal.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class ImagePreparer {
+    private static final String TAG = "ImagePreparer";
+
+    /** Paso de reducción de la calidad JPEG al buscar el tamaño objetivo. */
+    private static final int QUALITY_STEP = 8;
+
+    private ImagePreparer() {}
+
+    /**
+     * Origen de la imagen. Se abre varias veces (dimensiones, orientación y decodificación),
+     * así que cada llamada debe devolver un flujo nuevo desde el principio.
+     */
+    public interface Source {
+        /**
+         * Abre un flujo nuevo con los bytes de la imagen.
+         *
+         * @return el flujo, que el llamante cierra.
+         * @throws IOException si no se puede abrir.
+         */
+        InputStream open() throws IOException;
+
+        /**
+         * Tamaño en bytes del original, si se conoce.
+         *
+         * @return el tamaño, o -1 si es desconocido.
+         */
+        long length();
+    }
+
+    /**
+     * Parámetros de preparación.
+     */
+    public static final class Options {
+        /** Configuración para miniaturas de ejercicios: 1280 px, calidad 82 y 350 KB. */
+        public static final Options DEFAULT = new Options(1280, 1280, 82, 60, 350 * 1024);
+
+        /** Anchura máxima del resultado en píxeles. */
+        public final int maxWidth;
+        /** Altura máxima del resultado en píxeles. */
+        public final int maxHeight;
+        /** Calidad JPEG inicial (1-100). */
+        public final int quality;
+        /** Calidad JPEG mínima al intentar ajustarse a {@link #maxBytes}. */
+        public final int minQuality;
+        /** Tamaño objetivo del resultado en bytes. */
+        public final int maxBytes;
+
+        /**
+         * Crea unos parámetros de preparación.
+         *
+         * @param maxWidth   Anchura máxima en píxeles.
+         * @param maxHeight  Altura máxima en píxeles.
+         * @param quality    Calidad JPEG inicial.
+         * @param minQuality Calidad JPEG mínima.
+         * @param maxBytes   Tamaño objetivo en bytes.
+         */
+        public Options(int maxWidth, int maxHeight, int quality, int minQuality, int maxBytes) {
+            if (maxWidth <= 0 || maxHeight <= 0 || minQuality < 1 || quality > 100
+                    || minQuality > quality || maxBytes <= 0) {
+                throw new IllegalArgumentException("Parámetros de imagen no válidos");
+            }
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.quality = quality;
+            this.minQuality = minQuality;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Imagen preparada.
+     */
+    public static final class Result {
+        /** JPEG resultante. */
+        public final byte[] bytes;
+        /** Anchura final en píxeles. */
+        public final int width;
+        /** Altura final en píxeles. */
+        public final int height;
+        /** Tamaño del original en bytes, o -1 si no se conoce. */
+        public final long originalBytes;
+        /** Calidad JPEG usada. */
+        public final int quality;
+
+        Result(byte[] bytes, int width, int height, long originalBytes, int quality) {
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+            this.originalBytes = originalBytes;
+            this.quality = quality;
+        }
+
+        /**
+         * Bytes ahorrados respecto al original.
+         *
+         * @return la diferencia (negativa si el resultado es mayor), o 0 si no se conoce el original.
+         */
+        public long savedBytes() {
+            return originalBytes < 0 ? 0 : originalBytes - bytes.length;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%dx%d q%d: %d -> %d bytes (ahorro %d)",
+                    width, height, quality, originalBytes, bytes.length, savedBytes());
+        }
+    }
+
+    /**
+     * Origen a partir de un fichero local.
+     *
+     * @param file Fichero de imagen.
+     * @return el origen correspondiente.
+     */
+    public static Source fromFile(@NonNull File file) {
+        return new Source() {
+            @Override
+            public InputStream open() throws IOException {
+                return new FileInputStream(file);
+            }
+
+            @Override
+            public long length() {
+                return file.length();
+            }
+        };
+    }
+
+    /**
+     * Origen a partir de un {@link Uri} de contenido, leído con el {@link ContentResolver}
+     * sin copiarlo antes a un fichero.
+     *
+     * @param resolver ContentResolver con el que abrir el Uri.
+     * @param uri      Uri de la imagen.
+     * @return el origen correspondiente.
+     */
+    public static Source fromUri(@NonNull ContentResolver resolver, @NonNull Uri uri) {
+        long length = FileUtils.querySize(resolver, uri);
+        return new Source() {
+            @Override
+            public InputStream open() throws IOException {
+                InputStream in = resolver.openInputStream(uri);
+                if (in == null) throw new FileNotFoundException("No se puede abrir " + uri);
+                return in;
+            }
+
+            @Override
+            public long length() {
+                return length;
+            }
+        };
+    }
+
+    /**
+     * Prepara la imagen.
+     *
+     * @param source  Origen de la imagen.
+     * @param options Parámetros de preparación.
+     * @return la imagen preparada, o {@code null} si el origen no es una imagen decodificable.
+     * @throws IOException si no se puede leer el origen.
+     */
+    @Nullable
+    public static Result prepare(@NonNull Source source, @NonNull Options options) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = source.open()) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        int rotation = readRotation(source);
+        // Con giros de 90/270 el ancho final sale de la altura original
+        boolean swap = rotation == 90 || rotation == 270;
+        int srcW = swap ? bounds.outHeight : bounds.outWidth;
+        int srcH = swap ? bounds.outWidth : bounds.outHeight;
+        double scale = Math.min(1.0, Math.min(
+                (double) options.maxWidth / srcW, (double) options.maxHeight / srcH));
+        int targetW = Math.max(1, (int) Math.round(srcW * scale));
+
+        BitmapFactory.Options decode = new BitmapFactory.Options();
+        decode.inSampleSize = sampleSize(srcW, targetW);
+        int sampledW = srcW / decode.inSampleSize;
+        if (sampledW > targetW) {
+            decode.inScaled = true;
+            decode.inDensity = sampledW;
+            decode.inTargetDensity = targetW;
+        }
+        Bitmap bitmap;
+        try (InputStream in = source.open()) {
+            bitmap = BitmapFactory.decodeStream(in, null, decode);
+        }
+        if (bitmap == null) return null;
+
+        bitmap = orient(bitmap, rotation);
+        bitmap = flattenAlpha(bitmap);
+        try {
+            Result result = encode(bitmap, options, source.length());
+            Log.i(TAG, "Imagen preparada: " + result);
+            return result;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /** Mayor potencia de dos que, dividiendo {@code src}, no baja de {@code target}. */
+    static int sampleSize(int src, int target) {
+        int sample = 1;
+        while (src / (sample * 2) >= target) sample *= 2;
+        return sample;
+    }
+
+    private static int readRotation(Source source) {
+        try (InputStream in = source.open()) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Formatos sin EXIF (PNG, WebP...) se dejan como están
+            return 0;
+        }
+    }
+
+    private static Bitmap orient(Bitmap bitmap, int rotation) {
+        if (rotation == 0) return bitmap;
+        Matrix m = new Matrix();
+        m.postRotate(rotation);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0,
+                bitmap.getWidth(), bitmap.getHeight(), m, true);
+        if (rotated != bitmap) bitmap.recycle();
+        return rotated;
+    }
+
+    /** JPEG no admite transparencia: se compone sobre fondo blanco en lugar de negro. */
+    private static Bitmap flattenAlpha(Bitmap bitmap) {
+        if (!bitmap.hasAlpha()) return bitmap;
+        Bitmap opaque = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(),
+                Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(opaque);
+        canvas.drawColor(Color.WHITE);
+        canvas.drawBitmap(bitmap, 0, 0, null);
+        bitmap.recycle();
+        return opaque;
+    }
+
+    private static Result encode(Bitmap bitmap, Options options, long originalBytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(options.maxBytes);
+        int quality = options.quality;
+        while (true) {
+            out.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+            if (out.size() <= options.maxBytes || quality <= options.minQuality) break;
+            quality = Math.max(options.minQuality, quality - QUALITY_STEP);
+        }
+        return new Result(out.toByteArray(), bitmap.getWidth(), bitmap.getHeight(),
+                originalBytes, quality);
+    }
+}
@@ -0,0 +1,256 @@
+package com.proyecto.facilgimapp.util;
+
+import android.os.Debug;
+import android.os.SystemClock;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.Cbor;
+import com.proyecto.facilgimapp.network.CborConverterFactory;
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Compara en el dispositivo el Gson por reflexión con el Gson compartido de
+ * {@link RetrofitClient}, que usa los adaptadores en streaming de los DTO.
+ * <p>
+ * Genera un historial sintético de entrenamientos (con sus ejercicios y series), lo
+ * convierte a JSON y lo lee varias veces con cada configuración, midiendo la mediana del
+ * tiempo de lectura y los bytes reservados por lectura. La cifra de memoria es la del
+ * proceso completo ({@code art.gc.bytes-allocated}), así que conviene lanzarlo con la
+ * aplicación en reposo. Es una herramienta de diagnóstico: no debe llamarse desde el
+ * hilo principal.
+ * </p>
+ * <p>
+ * {@link #compareWireFormats} mide además el formato de transporte: sirve el mismo
+ * historial en JSON y en CBOR desde un servidor simulado dentro del propio cliente
+ * OkHttp y lo pide con {@link ApiService} por la ruta completa de Retrofit y sus
+ * convertidores, midiendo tiempo y memoria reservada por petición.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class JsonBenchmark {
+    private static final Type HISTORY = new TypeToken<List<EntrenamientoDTO>>() {}.getType();
+    private static final int WARMUP = 3;
+
+    private JsonBenchmark() {}
+
+    /**
+     * Ejecuta la comparación.
+     *
+     * @param workouts   Entrenamientos del historial sintético.
+     * @param iterations Lecturas medidas con cada configuración.
+     * @return un informe de texto con los resultados.
+     */
+    public static String run(int workouts, int iterations) {
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+                .create();
+        Gson streaming = RetrofitClient.getGson();
+        String json = streaming.toJson(history(workouts), HISTORY);
+
+        long[] slow = measure(reflective, json, iterations);
+        long[] fast = measure(streaming, json, iterations);
+        return String.format(Locale.ROOT,
+                "Historial: %d entrenamientos, %d KB de JSON, %d lecturas%n"
+                        + "%-10s %10s %12s%n"
+                        + "%-10s %10.1f %12s%n"
+                        + "%-10s %10.1f %12s%n"
+                        + "Mejora: %.0f %% en tiempo, %s en memoria",
+                workouts, json.length() / 1024, iterations,
+                "", "ms", "KB/lectura",
+                "reflexión", slow[0] / 1e6, kb(slow[1]),
+                "streaming", fast[0] / 1e6, kb(fast[1]),
+                100.0 * (slow[0] - fast[0]) / slow[0],
+                slow[1] < 0 || fast[1] < 0 ? "n/d"
+                        : String.format(Locale.ROOT, "%.0f %%", 100.0 * (slow[1] - fast[1]) / slow[1]));
+    }
+
+    /**
+     * Compara tamaño y tiempo de decodificación del historial en JSON y en CBOR.
+     *
+     * @param workouts   Entrenamientos del historial sintético.
+     * @param iterations Peticiones medidas con cada formato.
+     * @return un informe de texto con los resultados.
+     */
+    public static String compareWireFormats(int workouts, int iterations) {
+        Gson gson = RetrofitClient.getGson();
+        List<EntrenamientoDTO> history = history(workouts);
+        byte[] json = gson.toJson(history, HISTORY).getBytes(StandardCharsets.UTF_8);
+        byte[] cbor = Cbor.toBytes(gson.toJsonTree(history, HISTORY));
+
+        long[] jsonStats;
+        long[] cborStats;
+        try {
+            jsonStats = measureCalls(mockApi(gson, json, cbor, false), iterations);
+            cborStats = measureCalls(mockApi(gson, json, cbor, true), iterations);
+        } catch (IOException e) {
+            return "Error en la comparación: " + e.getMessage();
+        }
+        return String.format(Locale.ROOT,
+                "Formato de transporte (%d entrenamientos, %d peticiones)%n"
+                        + "%-6s %10s %10s %10s %12s%n"
+                        + "%-6s %10d %10d %10.1f %12s%n"
+                        + "%-6s %10d %10d %10.1f %12s",
+                workouts, iterations,
+                "", "KB", "KB gzip", "ms", "KB/petición",
+                "JSON", json.length / 1024, gzipSize(json) / 1024, jsonStats[0] / 1e6, kb(jsonStats[1]),
+                "CBOR", cbor.length / 1024, gzipSize(cbor) / 1024, cborStats[0] / 1e6, kb(cborStats[1]));
+    }
+
+    /**
+     * {@link ApiService} contra un servidor simulado que responde con el historial en CBOR
+     * si el cliente lo acepta y el servidor lo admite, o en JSON en otro caso.
+     */
+    private static ApiService mockApi(Gson gson, byte[] json, byte[] cbor, boolean serverSpeaksCbor) {
+        MediaType jsonType = MediaType.get("application/json; charset=utf-8");
+        MediaType cborType = MediaType.get(Cbor.MEDIA_TYPE);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    String accept = chain.request().header("Accept");
+                    boolean useCbor = serverSpeaksCbor && accept != null && accept.contains(Cbor.MEDIA_TYPE);
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(200)
+                            .message("OK")
+                            .body(useCbor ? ResponseBody.create(cbor, cborType) : ResponseBody.create(json, jsonType))
+                            .build();
+                })
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl("http://localhost/")
+                .client(client)
+                .addConverterFactory(CborConverterFactory.create(gson))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(ApiService.class);
+    }
+
+    /**
+     * @return mediana de nanosegundos por petición completa (petición, respuesta y
+     * decodificación) y bytes reservados por petición (-1 si no se conoce).
+     */
+    private static long[] measureCalls(ApiService api, int iterations) throws IOException {
+        for (int i = 0; i < WARMUP; i++) api.getWorkoutsByUserId(1).execute();
+        long[] times = new long[iterations];
+        long allocBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            if (api.getWorkoutsByUserId(1).execute().body() == null) {
+                throw new IOException("respuesta vacía");
+            }
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        long allocAfter = allocatedBytes();
+        Arrays.sort(times);
+        long perCall = allocBefore < 0 || allocAfter < 0 ? -1 : (allocAfter - allocBefore) / iterations;
+        return new long[]{times[iterations / 2], perCall};
+    }
+
+    private static int gzipSize(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            return -1;
+        }
+        return out.size();
+    }
+
+    /** @return mediana de nanosegundos por lectura y bytes reservados por lectura (-1 si no se conoce). */
+    private static long[] measure(Gson gson, String json, int iterations) {
+        for (int i = 0; i < WARMUP; i++) gson.fromJson(json, HISTORY);
+        long[] times = new long[iterations];
+        long allocBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            gson.fromJson(json, HISTORY);
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        long allocAfter = allocatedBytes();
+        Arrays.sort(times);
+        long perRead = allocBefore < 0 || allocAfter < 0 ? -1 : (allocAfter - allocBefore) / iterations;
+        return new long[]{times[iterations / 2], perRead};
+    }
+
+    private static long allocatedBytes() {
+        try {
+            return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String kb(long bytes) {
+        return bytes < 0 ? "n/d" : String.valueOf(bytes / 1024);
+    }
+
+    /** Historial con 6 ejercicios de 4 series por entrenamiento, como uno real cargado. */
+    private static List<EntrenamientoDTO> history(int workouts) {
+        List<EntrenamientoDTO> list = new ArrayList<>(workouts);
+        UsuarioDTO usuario = new UsuarioDTO();
+        usuario.setIdUsuario(1);
+        usuario.setUsername("benchmark");
+        LocalDate first = LocalDate.now().minusDays(workouts);
+        for (int w = 0; w < workouts; w++) {
+            EntrenamientoDTO e = new EntrenamientoDTO();
+            e.setId(w + 1);
+            e.setNombre("Entrenamiento " + (w + 1));
+            e.setFechaEntrenamiento(first.plusDays(w));
+            e.setDescripcion("Sesión de prueba " + (w + 1));
+            e.setDuracion(45 + w % 30);
+            e.setTipoEntrenamiento(new TipoEntrenamientoDTO(1 + w % 3, "Tipo " + (1 + w % 3)));
+            e.setUsuario(usuario);
+            List<EntrenamientoEjercicioDTO> relaciones = new ArrayList<>();
+            for (int x = 0; x < 6; x++) {
+                EjercicioDTO ejercicio = new EjercicioDTO();
+                ejercicio.setIdEjercicio(x + 1);
+                ejercicio.setNombre("Ejercicio " + (x + 1));
+                ejercicio.setImagenUrl("https://example.org/ejercicios/" + (x + 1) + ".jpg");
+                EntrenamientoEjercicioDTO relacion = new EntrenamientoEjercicioDTO();
+                relacion.setId(w * 6 + x + 1);
+                relacion.setOrden(x);
+                relacion.setEjercicio(ejercicio);
+                List<SerieDTO> series = new ArrayList<>();
+                for (int s = 0; s < 4; s++) {
+                    SerieDTO serie = new SerieDTO(relacion.getId() * 4 + s, s + 1, 8 + s, 40.0 + 2.5 * s);
+                    serie.setCompletada(s < 3);
+                    series.add(serie);
+                }
+                relacion.setSeries(series);
+                relaciones.add(relacion);
+            }
+            e.setEntrenamientosEjercicios(relaciones);
+            list.add(e);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,290 @@
+package com.proyecto.facilgimapp.util;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades para los {@link TypeAdapter} de los DTO, que leen y escriben el JSON en
+ * streaming sin reflexión.
+ * <p>
+ * Reproducen lo que hace Gson por defecto con los campos: un {@code null} deja los
+ * primitivos con su valor actual, los números pueden venir entre comillas, los campos
+ * desconocidos se ignoran y al escribir se omiten los valores nulos.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class JsonStreams {
+
+    /** Adaptador de enteros con la misma tolerancia que el de Gson. */
+    public static final TypeAdapter<Integer> INTEGER = new TypeAdapter<Integer>() {
+        @Override
+        public void write(JsonWriter out, Integer value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public Integer read(JsonReader in) throws IOException {
+            return readInteger(in);
+        }
+    };
+
+    /** Adaptador de cadenas con la misma tolerancia que el de Gson. */
+    public static final TypeAdapter<String> STRING = new TypeAdapter<String>() {
+        @Override
+        public void write(JsonWriter out, String value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public String read(JsonReader in) throws IOException {
+            return readString(in);
+        }
+    };
+
+    private JsonStreams() {}
+
+    /**
+     * Consume un {@code null} si es el siguiente valor.
+     *
+     * @param in Lector JSON.
+     * @return {@code true} si el valor era {@code null}.
+     * @throws IOException si falla la lectura.
+     */
+    public static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return false;
+        in.nextNull();
+        return true;
+    }
+
+    /**
+     * Lee una cadena; los números y booleanos se convierten a texto.
+     *
+     * @param in Lector JSON.
+     * @return la cadena, o {@code null}.
+     * @throws IOException si falla la lectura.
+     */
+    @Nullable
+    public static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    /**
+     * Lee un entero que puede ser nulo.
+     *
+     * @param in Lector JSON.
+     * @return el entero, o {@code null}.
+     * @throws IOException si falla la lectura o el valor no es un entero.
+     */
+    @Nullable
+    public static Integer readInteger(JsonReader in) throws IOException {
+        if (skipNull(in)) return null;
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Lee un entero para un campo primitivo.
+     *
+     * @param in      Lector JSON.
+     * @param current Valor actual, que se conserva si el JSON trae {@code null}.
+     * @return el entero leído o {@code current}.
+     * @throws IOException si falla la lectura o el valor no es un entero.
+     */
+    public static int readInt(JsonReader in, int current) throws IOException {
+        Integer value = readInteger(in);
+        return value == null ? current : value;
+    }
+
+    /**
+     * Lee un entero largo para un campo primitivo.
+     *
+     * @param in      Lector JSON.
+     * @param current Valor actual, que se conserva si el JSON trae {@code null}.
+     * @return el valor leído o {@code current}.
+     * @throws IOException si falla la lectura o el valor no es numérico.
+     */
+    public static long readLong(JsonReader in, long current) throws IOException {
+        if (skipNull(in)) return current;
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Lee un decimal que puede ser nulo.
+     *
+     * @param in Lector JSON.
+     * @return el valor, o {@code null}.
+     * @throws IOException si falla la lectura o el valor no es numérico.
+     */
+    @Nullable
+    public static Double readDouble(JsonReader in) throws IOException {
+        if (skipNull(in)) return null;
+        try {
+            return in.nextDouble();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Lee un decimal para un campo primitivo.
+     *
+     * @param in      Lector JSON.
+     * @param current Valor actual, que se conserva si el JSON trae {@code null}.
+     * @return el valor leído o {@code current}.
+     * @throws IOException si falla la lectura o el valor no es numérico.
+     */
+    public static double readDouble(JsonReader in, double current) throws IOException {
+        Double value = readDouble(in);
+        return value == null ? current : value;
+    }
+
+    /**
+     * Lee un booleano que puede ser nulo; admite también {@code "true"}/{@code "false"}.
+     *
+     * @param in Lector JSON.
+     * @return el valor, o {@code null}.
+     * @throws IOException si falla la lectura.
+     */
+    @Nullable
+    public static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    /**
+     * Lee un booleano para un campo primitivo.
+     *
+     * @param in      Lector JSON.
+     * @param current Valor actual, que se conserva si el JSON trae {@code null}.
+     * @return el valor leído o {@code current}.
+     * @throws IOException si falla la lectura.
+     */
+    public static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+        Boolean value = readBoolean(in);
+        return value == null ? current : value;
+    }
+
+    /**
+     * Lee un array con el adaptador de sus elementos.
+     *
+     * @param in      Lector JSON.
+     * @param element Adaptador de cada elemento.
+     * @param <T>     Tipo de los elementos.
+     * @return la lista, o {@code null} si el JSON trae {@code null}.
+     * @throws IOException si falla la lectura.
+     */
+    @Nullable
+    public static <T> List<T> readList(JsonReader in, TypeAdapter<T> element) throws IOException {
+        if (skipNull(in)) return null;
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(element.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    /**
+     * Escribe un campo de texto si no es nulo.
+     *
+     * @param out   Escritor JSON.
+     * @param name  Nombre del campo.
+     * @param value Valor, puede ser nulo.
+     * @throws IOException si falla la escritura.
+     */
+    public static void write(JsonWriter out, String name, @Nullable String value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    /**
+     * Escribe un campo numérico si no es nulo.
+     *
+     * @param out   Escritor JSON.
+     * @param name  Nombre del campo.
+     * @param value Valor, puede ser nulo.
+     * @throws IOException si falla la escritura.
+     */
+    public static void write(JsonWriter out, String name, @Nullable Number value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    /**
+     * Escribe un campo booleano si no es nulo.
+     *
+     * @param out   Escritor JSON.
+     * @param name  Nombre del campo.
+     * @param value Valor, puede ser nulo.
+     * @throws IOException si falla la escritura.
+     */
+    public static void write(JsonWriter out, String name, @Nullable Boolean value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    /**
+     * Escribe un campo objeto con su adaptador si no es nulo.
+     *
+     * @param out     Escritor JSON.
+     * @param name    Nombre del campo.
+     * @param value   Valor, puede ser nulo.
+     * @param adapter Adaptador del valor.
+     * @param <T>     Tipo del valor.
+     * @throws IOException si falla la escritura.
+     */
+    public static <T> void write(JsonWriter out, String name, @Nullable T value,
+                                 TypeAdapter<T> adapter) throws IOException {
+        if (value == null) return;
+        out.name(name);
+        adapter.write(out, value);
+    }
+
+    /**
+     * Escribe un campo array si la lista no es nula.
+     *
+     * @param out     Escritor JSON.
+     * @param name    Nombre del campo.
+     * @param list    Lista, puede ser nula.
+     * @param element Adaptador de cada elemento.
+     * @param <T>     Tipo de los elementos.
+     * @throws IOException si falla la escritura.
+     */
+    public static <T> void writeList(JsonWriter out, String name, @Nullable List<T> list,
+                                     TypeAdapter<T> element) throws IOException {
+        if (list == null) return;
+        out.name(name).beginArray();
+        for (T item : list) {
+            if (item == null) {
+                out.nullValue();
+            } else {
+                element.write(out, item);
+            }
+        }
+        out.endArray();
+    }
+}
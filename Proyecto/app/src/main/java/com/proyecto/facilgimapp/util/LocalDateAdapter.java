@@ -1,28 +1,26 @@
 package com.proyecto.facilgimapp.util;
 
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
  * Adaptador Gson para serializar y deserializar objetos {@link LocalDate} usando
  * el formato ISO_LOCAL_DATE (yyyy-MM-dd).
  * <p>
- * Implementa {@link JsonSerializer} para convertir un {@link LocalDate} a {@link JsonElement}
- * y {@link JsonDeserializer} para convertir una representación JSON de fecha a {@link LocalDate}.
+ * Lee y escribe la cadena directamente en el flujo JSON, sin pasar por un
+ * {@code JsonElement} intermedio; los valores nulos se conservan como {@code null}.
  * </p>
  *
  * Autor: Francisco Santana
  */
-public class LocalDateAdapter implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
+public class LocalDateAdapter extends TypeAdapter<LocalDate> {
 
     /**
      * Formateador de fechas que utiliza el estándar ISO_LOCAL_DATE ("yyyy-MM-dd").
@@ -30,31 +28,37 @@ public class LocalDateAdapter implements JsonSerializer<LocalDate>, JsonDeserial
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
 
     /**
-     * Serializa un {@link LocalDate} a un elemento JSON con el formato ISO_LOCAL_DATE.
+     * Escribe un {@link LocalDate} como cadena con el formato ISO_LOCAL_DATE.
      *
-     * @param src       Instancia de {@link LocalDate} a serializar.
-     * @param typeOfSrc Tipo del objeto, siempre {@code LocalDate.class}.
-     * @param context   Contexto de serialización proporcionado por Gson.
-     * @return {@link JsonElement} que contiene la fecha formateada como cadena.
+     * @param out   Escritor JSON.
+     * @param value Fecha a escribir, puede ser null.
+     * @throws IOException si falla la escritura.
      */
     @Override
-    public JsonElement serialize(LocalDate src, Type typeOfSrc, JsonSerializationContext context) {
-        return new JsonPrimitive(src.format(FORMATTER));
+    public void write(JsonWriter out, LocalDate value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.format(FORMATTER));
+        }
     }
 
     /**
-     * Deserializa un elemento JSON que contiene una fecha en formato ISO_LOCAL_DATE
-     * a un objeto {@link LocalDate}.
+     * Lee una fecha en formato ISO_LOCAL_DATE ("yyyy-MM-dd").
      *
-     * @param json    {@link JsonElement} que contiene la cadena de fecha ("yyyy-MM-dd").
-     * @param typeOfT Tipo de destino, siempre {@code LocalDate.class}.
-     * @param context Contexto de deserialización proporcionado por Gson.
-     * @return Instancia de {@link LocalDate} parseada a partir de la cadena JSON.
-     * @throws JsonParseException Si la cadena no cumple el formato ISO_LOCAL_DATE.
+     * @param in Lector JSON.
+     * @return la fecha leída, o null si el valor es null.
+     * @throws IOException si falla la lectura.
+     * @throws JsonSyntaxException si la cadena no cumple el formato ISO_LOCAL_DATE.
      */
     @Override
-    public LocalDate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-            throws JsonParseException {
-        return LocalDate.parse(json.getAsString(), FORMATTER);
+    public LocalDate read(JsonReader in) throws IOException {
+        String text = JsonStreams.readString(in);
+        if (text == null) return null;
+        try {
+            return LocalDate.parse(text, FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException(e);
+        }
     }
 }
@@ -0,0 +1,83 @@
+package com.proyecto.facilgimapp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola circular acotada sin bloqueos para varios productores y un único consumidor.
+ * <p>
+ * Los productores reservan una posición con una operación CAS y publican el elemento;
+ * nunca esperan: si la cola está llena el elemento se descarta y se cuenta en
+ * {@link #getDropped()}. Pensada para que registrar algo desde un hilo de red no añada
+ * latencia aunque el consumidor vaya retrasado.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos.
+ * @author Francisco Santana
+ */
+public class LogRingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    /** Siguiente posición a reservar por los productores. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Siguiente posición a leer; solo la modifica el consumidor. */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Crea la cola.
+     *
+     * @param capacity Capacidad; se redondea a la siguiente potencia de dos.
+     */
+    public LogRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity <= 0");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        if (size <= 0) size = 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Añade un elemento sin bloquear.
+     *
+     * @param item Elemento no nulo.
+     * @return {@code false} si la cola estaba llena y se ha descartado.
+     */
+    public boolean offer(T item) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.set((int) (t & mask), item);
+        return true;
+    }
+
+    /**
+     * Extrae el elemento más antiguo. Solo debe llamarlo el hilo consumidor.
+     *
+     * @return el elemento, o {@code null} si la cola está vacía o el siguiente aún no se ha
+     * terminado de publicar.
+     */
+    public T poll() {
+        long h = head.get();
+        int index = (int) (h & mask);
+        T item = slots.get(index);
+        if (item == null) return null;
+        slots.set(index, null);
+        head.set(h + 1);
+        return item;
+    }
+
+    /**
+     * Elementos descartados por falta de espacio desde la creación.
+     *
+     * @return número de descartes.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,47 @@
+package com.proyecto.facilgimapp.util;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.proyecto.facilgimapp.repository.PagedLoader;
+
+import java.util.function.Supplier;
+
+/**
+ * Listener de desplazamiento que avisa a un {@link PagedLoader} del rango visible de un
+ * RecyclerView con {@link LinearLayoutManager}, para que cargue la página siguiente o la
+ * anterior antes de llegar al borde.
+ * <p>
+ * El cargador se consulta en cada desplazamiento, de modo que una pantalla puede
+ * cambiarlo (por ejemplo, por el de los resultados de una búsqueda, ver
+ * {@link com.proyecto.facilgimapp.repository.PagedSearch}).
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+    private final Supplier<PagedLoader<?>> loader;
+
+    /**
+     * Crea el listener.
+     *
+     * @param loader Proveedor del cargador de la lista mostrada (puede devolver {@code null}).
+     */
+    public PagingScrollListener(Supplier<PagedLoader<?>> loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+        PagedLoader<?> current = loader.get();
+        if (current == null) return;
+        RecyclerView.LayoutManager lm = rv.getLayoutManager();
+        if (!(lm instanceof LinearLayoutManager)) return;
+        LinearLayoutManager llm = (LinearLayoutManager) lm;
+        int first = llm.findFirstVisibleItemPosition();
+        int last = llm.findLastVisibleItemPosition();
+        if (last == RecyclerView.NO_POSITION) return;
+        current.onScrolled(first, last, dy);
+    }
+}
@@ -1,11 +1,6 @@
 package com.proyecto.facilgimapp.util;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-
-import com.proyecto.facilgimapp.R;
-
-import java.util.Locale;
 
 /**
  * Gestor de preferencias compartidas de la aplicación.
@@ -20,25 +15,24 @@ import java.util.Locale;
  * </ul>
  * Proporciona métodos para leer y escribir cada preferencia, con valores por defecto razonables.
  * </p>
+ * <p>
+ * Los valores se leen de la instantánea en memoria de {@link SettingsStore}, sin acceder a
+ * disco; los cambios se aplican en memoria al momento y se guardan en segundo plano. Quien
+ * lea varias preferencias seguidas puede pedir la instantánea completa con
+ * {@link #snapshot(Context)}.
+ * </p>
  * 
  * Autor: Francisco Santana
  */
 public class PreferenceManager {
-    private static final String PREFS_NAME           = "facilgim_prefs";
-    private static final String KEY_DARK_MODE        = "dark_mode";
-    private static final String KEY_FONT_SIZE        = "font_size";
-    private static final String KEY_THEME_COLOR_IDX  = "theme_color_idx";
-    private static final String KEY_LANGUAGE         = "language";
-    private static final String KEY_USE_SYSTEM_THEME = "use_system_theme";
-
     /**
-     * Obtiene la instancia de SharedPreferences con nombre {@link #PREFS_NAME} en modo privado.
+     * Obtiene la instantánea actual de todas las preferencias.
      *
      * @param ctx Contexto de la aplicación, necesario para acceder a las preferencias.
-     * @return Objeto {@link SharedPreferences} para leer y escribir.
+     * @return Preferencias en memoria.
      */
-    private static SharedPreferences prefs(Context ctx) {
-        return ctx.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    public static SettingsStore.Settings snapshot(Context ctx) {
+        return SettingsStore.get(ctx).getSettings();
     }
 
     /** 1) Dark Mode */
@@ -50,7 +44,7 @@ public class PreferenceManager {
      * @return {@code true} si está activado, {@code false} en caso contrario.
      */
     public static boolean isDarkModeEnabled(Context ctx) {
-        return prefs(ctx).getBoolean(KEY_DARK_MODE, false);
+        return snapshot(ctx).darkMode;
     }
 
     /**
@@ -60,9 +54,7 @@ public class PreferenceManager {
      * @param enabled {@code true} para habilitar, {@code false} para deshabilitar.
      */
     public static void setDarkMode(Context ctx, boolean enabled) {
-        prefs(ctx).edit()
-                .putBoolean(KEY_DARK_MODE, enabled)
-                .apply();
+        SettingsStore.get(ctx).updateSettings(s -> s.withDarkMode(enabled));
     }
 
     /** 2) Font Size (1=small, 2=medium, 3=large). Por defecto medium=2 */
@@ -74,7 +66,7 @@ public class PreferenceManager {
      * @return Entero entre 1 y 3, donde 1=pequeño, 2=mediano, 3=grande. Por defecto 2.
      */
     public static int getFontSize(Context ctx) {
-        return prefs(ctx).getInt(KEY_FONT_SIZE, 2);
+        return snapshot(ctx).fontSize;
     }
 
     /**
@@ -84,9 +76,7 @@ public class PreferenceManager {
      * @param size Entero entre 1 y 3, donde 1=pequeño, 2=mediano, 3=grande.
      */
     public static void setFontSize(Context ctx, int size) {
-        prefs(ctx).edit()
-                .putInt(KEY_FONT_SIZE, size)
-                .apply();
+        SettingsStore.get(ctx).updateSettings(s -> s.withFontSize(size));
     }
 
     /** 3) Theme Color (almacena el índice de color) */
@@ -99,7 +89,7 @@ public class PreferenceManager {
      *         Por defecto 0.
      */
     public static int getThemeColorIndex(Context ctx) {
-        return prefs(ctx).getInt(KEY_THEME_COLOR_IDX, 0);
+        return snapshot(ctx).themeColorIndex;
     }
 
     /**
@@ -109,9 +99,7 @@ public class PreferenceManager {
      * @param idx Índice entero (0, 1 o 2) para seleccionar el tema.
      */
     public static void setThemeColorIndex(Context ctx, int idx) {
-        prefs(ctx).edit()
-                .putInt(KEY_THEME_COLOR_IDX, idx)
-                .apply();
+        SettingsStore.get(ctx).updateSettings(s -> s.withThemeColorIndex(idx));
     }
 
     /** 4) Language */
@@ -124,7 +112,7 @@ public class PreferenceManager {
      *         Por defecto, el idioma predeterminado del dispositivo.
      */
     public static String getLanguage(Context ctx) {
-        return prefs(ctx).getString(KEY_LANGUAGE, Locale.getDefault().getLanguage());
+        return snapshot(ctx).getLanguage();
     }
 
     /**
@@ -134,9 +122,7 @@ public class PreferenceManager {
      * @param language Código ISO del idioma a establecer (p. ej., "es", "en").
      */
     public static void setLanguage(Context ctx, String language) {
-        prefs(ctx).edit()
-                .putString(KEY_LANGUAGE, language)
-                .apply();
+        SettingsStore.get(ctx).updateSettings(s -> s.withLanguage(language));
     }
 
     /** 5) Usar tema del sistema */
@@ -149,7 +135,7 @@ public class PreferenceManager {
      *         Por defecto {@code true}.
      */
     public static boolean isUseSystemTheme(Context ctx) {
-        return prefs(ctx).getBoolean(KEY_USE_SYSTEM_THEME, true);
+        return snapshot(ctx).useSystemTheme;
     }
 
     /**
@@ -159,9 +145,7 @@ public class PreferenceManager {
      * @param use {@code true} para usar el tema del sistema, {@code false} para ignorarlo.
      */
     public static void setUseSystemTheme(Context ctx, boolean use) {
-        prefs(ctx).edit()
-                .putBoolean(KEY_USE_SYSTEM_THEME, use)
-                .apply();
+        SettingsStore.get(ctx).updateSettings(s -> s.withUseSystemTheme(use));
     }
 
     /**
@@ -174,7 +158,6 @@ public class PreferenceManager {
      * @param ctx Contexto de la aplicación.
      */
     public static void clearAll(Context ctx) {
-        prefs(ctx).edit().clear().apply();
-        setThemeColorIndex(ctx, 0);
+        SettingsStore.get(ctx).updateSettings(s -> SettingsStore.Settings.DEFAULTS);
     }
 }
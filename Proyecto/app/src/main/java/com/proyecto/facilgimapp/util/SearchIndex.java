@@ -0,0 +1,384 @@
+package com.proyecto.facilgimapp.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda por texto sobre una lista inmutable de elementos.
+ * <p>
+ * Los textos se normalizan una sola vez al construir el índice (minúsculas y sin tildes),
+ * de modo que "Press Banca" se encuentra con "press", "BANCA" o "bánca". Cada palabra de la
+ * consulta debe aparecer en el texto del elemento:
+ * </p>
+ * <ul>
+ *     <li>Las palabras de 1 o 2 letras se buscan como prefijo de alguna palabra del texto,
+ *     con una búsqueda binaria sobre el vocabulario ordenado.</li>
+ *     <li>Las de 3 o más letras se buscan como subcadena: los trigramas de la palabra dan
+ *     los candidatos y solo estos se comprueban contra el texto normalizado.</li>
+ * </ul>
+ * <p>
+ * Los resultados de {@link #query(String)} conservan el orden original de la lista.
+ * {@link #rankedQuery(String)} tolera erratas y ordena por relevancia. El índice no es
+ * mutable y se puede consultar desde cualquier hilo.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos indexados.
+ * @author Francisco Santana
+ */
+public final class SearchIndex<T> {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Puntuaciones de una palabra de la consulta según cómo coincide. */
+    private static final float EXACT_SCORE = 1.0f;
+    private static final float PREFIX_SCORE = 0.9f;
+    private static final float FUZZY_SCORE = 0.8f;
+    private static final float EDIT_PENALTY = 0.15f;
+    private static final float SUBSTRING_SCORE = 0.6f;
+    /** Extra para los elementos que contienen la consulta completa. */
+    private static final float PHRASE_BONUS = 0.5f;
+
+    private static final String[] NO_ALIASES = new String[0];
+
+    /** Términos en inglés frecuentes y su equivalente en los nombres del catálogo. */
+    private static final Map<String, String[]> ALIASES = new HashMap<>();
+
+    static {
+        ALIASES.put("bench", new String[]{"banca"});
+        ALIASES.put("squat", new String[]{"sentadilla", "sentadillas"});
+        ALIASES.put("deadlift", new String[]{"muerto"});
+        ALIASES.put("row", new String[]{"remo"});
+        ALIASES.put("pullup", new String[]{"dominada", "dominadas"});
+        ALIASES.put("pullups", new String[]{"dominada", "dominadas"});
+        ALIASES.put("lunge", new String[]{"zancada", "zancadas"});
+        ALIASES.put("lunges", new String[]{"zancada", "zancadas"});
+        ALIASES.put("dip", new String[]{"fondos"});
+        ALIASES.put("dips", new String[]{"fondos"});
+        ALIASES.put("fly", new String[]{"aperturas"});
+        ALIASES.put("chest", new String[]{"pecho"});
+        ALIASES.put("shoulder", new String[]{"hombro", "hombros"});
+        ALIASES.put("leg", new String[]{"pierna", "piernas"});
+        ALIASES.put("legs", new String[]{"pierna", "piernas"});
+        ALIASES.put("calf", new String[]{"gemelos"});
+        ALIASES.put("incline", new String[]{"inclinado", "inclinada"});
+        ALIASES.put("military", new String[]{"militar"});
+    }
+
+    private final List<T> items;
+    private final String[] normalized;
+
+    /** Vocabulario ordenado y, para cada palabra, los elementos que la contienen. */
+    private final String[] tokens;
+    private final int[][] tokenPostings;
+
+    /** Elementos que contienen cada trigrama, en orden ascendente. */
+    private final Map<String, int[]> trigrams;
+
+    /** Posiciones en {@link #tokens} agrupadas por longitud de palabra. */
+    private final int[][] tokensByLength;
+
+    /**
+     * Construye el índice. Es una operación costosa y no debe hacerse en el hilo principal.
+     *
+     * @param items Elementos a indexar.
+     * @param text  Función que devuelve el texto buscable de cada elemento.
+     */
+    public SearchIndex(List<T> items, Function<T, String> text) {
+        this.items = new ArrayList<>(items);
+        int n = this.items.size();
+        normalized = new String[n];
+
+        TreeMap<String, IntList> vocabulary = new TreeMap<>();
+        Map<String, IntList> grams = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String norm = normalize(text.apply(this.items.get(i)));
+            normalized[i] = norm;
+            for (String token : SEPARATORS.split(norm)) {
+                if (token.isEmpty()) continue;
+                IntList list = vocabulary.get(token);
+                if (list == null) {
+                    list = new IntList();
+                    vocabulary.put(token, list);
+                }
+                list.addDistinct(i);
+            }
+            for (int j = 0; j + 3 <= norm.length(); j++) {
+                String gram = norm.substring(j, j + 3);
+                IntList list = grams.get(gram);
+                if (list == null) {
+                    list = new IntList();
+                    grams.put(gram, list);
+                }
+                list.addDistinct(i);
+            }
+        }
+
+        tokens = vocabulary.keySet().toArray(new String[0]);
+        tokenPostings = new int[tokens.length][];
+        int t = 0;
+        for (IntList list : vocabulary.values()) {
+            tokenPostings[t++] = list.toArray();
+        }
+        trigrams = new HashMap<>(grams.size() * 2);
+        for (Map.Entry<String, IntList> e : grams.entrySet()) {
+            trigrams.put(e.getKey(), e.getValue().toArray());
+        }
+
+        int maxLength = 0;
+        for (String token : tokens) maxLength = Math.max(maxLength, token.length());
+        IntList[] byLength = new IntList[maxLength + 1];
+        for (int j = 0; j < tokens.length; j++) {
+            int len = tokens[j].length();
+            if (byLength[len] == null) byLength[len] = new IntList();
+            byLength[len].addDistinct(j);
+        }
+        tokensByLength = new int[maxLength + 1][];
+        for (int len = 0; len <= maxLength; len++) {
+            tokensByLength[len] = byLength[len] == null ? new int[0] : byLength[len].toArray();
+        }
+    }
+
+    /**
+     * Pasa un texto a minúsculas y le quita tildes y diacríticos.
+     *
+     * @param s Texto original; puede ser null.
+     * @return texto normalizado, vacío si {@code s} es null.
+     */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Número de elementos indexados.
+     *
+     * @return tamaño de la lista indexada.
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Busca los elementos que contienen todas las palabras de la consulta.
+     *
+     * @param query Consulta; si es null o vacía se devuelven todos los elementos.
+     * @return lista nueva con los elementos que coinciden, en su orden original.
+     */
+    public List<T> query(String query) {
+        String norm = normalize(query);
+        if (norm.isEmpty()) return new ArrayList<>(items);
+
+        BitSet result = null;
+        for (String word : SEPARATORS.split(norm)) {
+            if (word.isEmpty()) continue;
+            BitSet matches = word.length() < 3 ? matchPrefix(word) : matchSubstring(word);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) break;
+        }
+        if (result == null) return new ArrayList<>(items);
+
+        List<T> out = new ArrayList<>(result.cardinality());
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            out.add(items.get(i));
+        }
+        return out;
+    }
+
+    private BitSet matchPrefix(String prefix) {
+        BitSet bits = new BitSet(items.size());
+        int pos = Arrays.binarySearch(tokens, prefix);
+        if (pos < 0) pos = -pos - 1;
+        for (; pos < tokens.length && tokens[pos].startsWith(prefix); pos++) {
+            for (int i : tokenPostings[pos]) bits.set(i);
+        }
+        return bits;
+    }
+
+    private BitSet matchSubstring(String word) {
+        BitSet bits = new BitSet(items.size());
+        // La lista de candidatos más corta entre los trigramas de la palabra
+        int[] candidates = null;
+        for (int j = 0; j + 3 <= word.length(); j++) {
+            int[] posting = trigrams.get(word.substring(j, j + 3));
+            if (posting == null) return bits;
+            if (candidates == null || posting.length < candidates.length) candidates = posting;
+        }
+        for (int i : candidates) {
+            if (normalized[i].contains(word)) bits.set(i);
+        }
+        return bits;
+    }
+
+    /**
+     * Busca los elementos que se parecen a la consulta, tolerando erratas, y los ordena
+     * por relevancia.
+     * <p>
+     * Cada palabra de la consulta se compara con el vocabulario del índice: cuenta como
+     * coincidencia si es igual, prefijo o subcadena de una palabra del texto, o si está a
+     * pocas ediciones de ella (ninguna hasta 3 letras, una hasta 7 y dos a partir de 8,
+     * contando la transposición de dos letras como una sola edición). Las palabras en
+     * inglés más habituales en el gimnasio se buscan también por su equivalente en
+     * español ("bench" encuentra "banca").
+     * </p>
+     * <p>
+     * Los elementos se ordenan por número de palabras de la consulta que contienen, después
+     * por la similitud acumulada, y ganan si contienen la consulta completa tal cual. Los
+     * empates conservan el orden original. Basta con que coincida una palabra para aparecer.
+     * </p>
+     *
+     * @param query Consulta; si es null o vacía se devuelven todos los elementos.
+     * @return lista nueva con los elementos que coinciden, de más a menos relevante.
+     */
+    public List<T> rankedQuery(String query) {
+        String norm = normalize(query);
+        if (norm.isEmpty()) return new ArrayList<>(items);
+
+        int n = items.size();
+        int[] matchedWords = new int[n];
+        float[] score = new float[n];
+        float[] best = new float[n];
+        for (String word : SEPARATORS.split(norm)) {
+            if (word.isEmpty()) continue;
+            Arrays.fill(best, 0f);
+            scoreWord(word, best);
+            for (String alias : ALIASES.getOrDefault(word, NO_ALIASES)) {
+                scoreWord(alias, best);
+            }
+            for (int i = 0; i < n; i++) {
+                if (best[i] > 0f) {
+                    matchedWords[i]++;
+                    score[i] += best[i];
+                }
+            }
+        }
+
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (matchedWords[i] == 0) continue;
+            if (normalized[i].contains(norm)) score[i] += PHRASE_BONUS;
+            hits.add(i);
+        }
+        Collections.sort(hits, (a, b) -> {
+            if (matchedWords[a] != matchedWords[b]) return matchedWords[b] - matchedWords[a];
+            int byScore = Float.compare(score[b], score[a]);
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+
+        List<T> out = new ArrayList<>(hits.size());
+        for (int i : hits) out.add(items.get(i));
+        return out;
+    }
+
+    /**
+     * Puntúa una palabra de la consulta contra el vocabulario y guarda en {@code best}
+     * la mejor puntuación obtenida por cada elemento.
+     */
+    private void scoreWord(String word, float[] best) {
+        int len = word.length();
+
+        // Coincidencia exacta o prefijo: búsqueda binaria sobre el vocabulario ordenado
+        int pos = Arrays.binarySearch(tokens, word);
+        if (pos < 0) pos = -pos - 1;
+        for (; pos < tokens.length && tokens[pos].startsWith(word); pos++) {
+            float s = tokens[pos].length() == len ? EXACT_SCORE : PREFIX_SCORE;
+            raise(best, tokenPostings[pos], s);
+        }
+
+        // Subcadena dentro de una palabra del texto
+        if (len >= 3) {
+            BitSet contained = matchSubstring(word);
+            for (int i = contained.nextSetBit(0); i >= 0; i = contained.nextSetBit(i + 1)) {
+                if (best[i] < SUBSTRING_SCORE) best[i] = SUBSTRING_SCORE;
+            }
+        }
+
+        // Erratas: solo palabras del vocabulario con longitud parecida
+        int maxEdits = len <= 3 ? 0 : len <= 7 ? 1 : 2;
+        if (maxEdits == 0) return;
+        int from = Math.max(1, len - maxEdits);
+        int to = Math.min(tokensByLength.length - 1, len + maxEdits);
+        for (int l = from; l <= to; l++) {
+            for (int t : tokensByLength[l]) {
+                int d = editDistance(word, tokens[t], maxEdits);
+                if (d > 0 && d <= maxEdits) {
+                    raise(best, tokenPostings[t], FUZZY_SCORE - EDIT_PENALTY * d);
+                }
+            }
+        }
+    }
+
+    private static void raise(float[] best, int[] posting, float s) {
+        for (int i : posting) {
+            if (best[i] < s) best[i] = s;
+        }
+    }
+
+    /**
+     * Distancia de edición entre dos palabras, contando inserciones, borrados,
+     * sustituciones y transposiciones de letras contiguas. Abandona en cuanto la distancia
+     * supera {@code max}.
+     *
+     * @return la distancia, o {@code max + 1} si es mayor que {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > max) return max + 1;
+        int[] prev2 = new int[lb + 1];
+        int[] prev = new int[lb + 1];
+        int[] cur = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) prev[j] = j;
+        for (int i = 1; i <= la; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= lb; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int v = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return Math.min(prev[lb], max + 1);
+    }
+
+    /** Lista creciente de enteros sin repetición consecutiva. */
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void addDistinct(int value) {
+            if (size > 0 && data[size - 1] == value) return;
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
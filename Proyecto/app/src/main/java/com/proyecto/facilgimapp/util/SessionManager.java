@@ -1,42 +1,32 @@
 package com.proyecto.facilgimapp.util;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
-import com.proyecto.facilgimapp.R;
-
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 /**
- * Gestor de sesión y credenciales de usuario, almacenadas en SharedPreferences.
+ * Gestor de sesión y credenciales de usuario.
  * <p>
  * Permite guardar y recuperar datos de autenticación (token JWT, nombre de usuario,
  * roles e ID), así como credenciales para “recordar usuario y contraseña” y correo.
  * Proporciona métodos para limpiar la sesión o sólo las credenciales.
  * </p>
+ * <p>
+ * Los datos se leen de la instantánea en memoria de {@link SettingsStore}, sin acceder a
+ * disco; los cambios se aplican en memoria al momento y se guardan en segundo plano.
+ * </p>
  * 
  * Autor: Francisco Santana
  */
 public class SessionManager {
-    private static final String PREFS_NAME       = "facilgim_session";
-    private static final String KEY_TOKEN        = "key_token";
-    private static final String KEY_USERNAME     = "key_username";
-    private static final String KEY_AUTHORITIES  = "key_authorities";
-    private static final String KEY_USER_ID      = "key_user_id";
-    private static final String KEY_SAVED_USER   = "key_saved_user";
-    private static final String KEY_SAVED_PASS   = "key_saved_pass";
-    private static final String KEY_USER_EMAIL   = "key_user_email";
-
     /**
-     * Obtiene la instancia de SharedPreferences con nombre {@link #PREFS_NAME} en modo privado.
+     * Obtiene la instantánea actual de la sesión.
      *
      * @param ctx Contexto de la aplicación.
-     * @return Objeto {@link SharedPreferences} asociado a la sesión.
+     * @return Sesión en memoria.
      */
-    private static SharedPreferences prefs(Context ctx) {
-        return ctx.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    private static SettingsStore.Session session(Context ctx) {
+        return SettingsStore.get(ctx).getSession();
     }
 
     /**
@@ -53,12 +43,7 @@ public class SessionManager {
                                      String username,
                                      List<String> authorities,
                                      int userId) {
-        prefs(ctx).edit()
-                .putString(KEY_TOKEN, token)
-                .putString(KEY_USERNAME, username)
-                .putString(KEY_AUTHORITIES, String.join(",", authorities))
-                .putInt(KEY_USER_ID, userId)
-                .apply();
+        SettingsStore.get(ctx).updateSession(s -> s.withLogin(token, username, authorities, userId));
     }
 
     /**
@@ -68,7 +53,7 @@ public class SessionManager {
      * @return Token JWT o null si no existe.
      */
     public static String getToken(Context ctx) {
-        return prefs(ctx).getString(KEY_TOKEN, null);
+        return session(ctx).token;
     }
 
     /**
@@ -78,19 +63,17 @@ public class SessionManager {
      * @return Nombre de usuario o null si no existe.
      */
     public static String getUsername(Context ctx) {
-        return prefs(ctx).getString(KEY_USERNAME, null);
+        return session(ctx).username;
     }
 
     /**
      * Recupera la lista de roles (authorities) almacenada en preferencias.
      *
      * @param ctx Contexto de la aplicación.
-     * @return Lista de cadenas con cada rol; devuelve lista vacía si no hay roles.
+     * @return Lista no modificable con cada rol; devuelve lista vacía si no hay roles.
      */
     public static List<String> getAuthorities(Context ctx) {
-        String csv = prefs(ctx).getString(KEY_AUTHORITIES, "");
-        if (csv.isEmpty()) return Collections.emptyList();
-        return Arrays.asList(csv.split(","));
+        return session(ctx).authorities;
     }
 
     /**
@@ -100,7 +83,7 @@ public class SessionManager {
      * @return Entero con el ID de usuario, o -1 si no existe.
      */
     public static int getUserId(Context ctx) {
-        return prefs(ctx).getInt(KEY_USER_ID, -1);
+        return session(ctx).userId;
     }
 
     /**
@@ -110,24 +93,16 @@ public class SessionManager {
      * @return {@code true} si entre las autoridades se encuentra un rol de administrador.
      */
     public static boolean isAdmin(Context ctx) {
-        for (String role : getAuthorities(ctx)) {
-            if ("ROLE_ADMIN".equals(role) || "ADMIN".equals(role)) {
-                return true;
-            }
-        }
-        return false;
+        return session(ctx).admin;
     }
 
     /**
      * Elimina todos los datos de sesión y credenciales almacenados.
-     * <p>
-     * Equivale a llamar a {@link SharedPreferences.Editor#clear} y aplicar.
-     * </p>
      *
      * @param ctx Contexto de la aplicación.
      */
     public static void clearSession(Context ctx) {
-        prefs(ctx).edit().clear().apply();
+        SettingsStore.get(ctx).updateSession(s -> SettingsStore.Session.EMPTY);
     }
 
     /**
@@ -137,12 +112,7 @@ public class SessionManager {
      * @param ctx Contexto de la aplicación.
      */
     public static void clearLoginOnly(Context ctx) {
-        prefs(ctx).edit()
-                .remove(KEY_TOKEN)
-                .remove(KEY_USERNAME)
-                .remove(KEY_AUTHORITIES)
-                .remove(KEY_USER_ID)
-                .apply();
+        SettingsStore.get(ctx).updateSession(SettingsStore.Session::withoutLogin);
     }
 
     // ————— Métodos para “Recordar credenciales” —————
@@ -155,10 +125,7 @@ public class SessionManager {
      * @param pass Cadena con la contraseña.
      */
     public static void saveCredentials(Context ctx, String user, String pass) {
-        prefs(ctx).edit()
-                .putString(KEY_SAVED_USER, user)
-                .putString(KEY_SAVED_PASS, pass)
-                .apply();
+        SettingsStore.get(ctx).updateSession(s -> s.withCredentials(user, pass));
     }
 
     /**
@@ -168,10 +135,7 @@ public class SessionManager {
      * @param ctx Contexto de la aplicación.
      */
     public static void clearCredentials(Context ctx) {
-        prefs(ctx).edit()
-                .remove(KEY_SAVED_USER)
-                .remove(KEY_SAVED_PASS)
-                .apply();
+        SettingsStore.get(ctx).updateSession(s -> s.withCredentials(null, null));
     }
 
     /**
@@ -181,7 +145,7 @@ public class SessionManager {
      * @return Cadena con el nombre de usuario o null si no existe.
      */
     public static String getSavedUsername(Context ctx) {
-        return prefs(ctx).getString(KEY_SAVED_USER, null);
+        return session(ctx).savedUser;
     }
 
     /**
@@ -191,7 +155,7 @@ public class SessionManager {
      * @return Cadena con la contraseña o null si no existe.
      */
     public static String getSavedPassword(Context ctx) {
-        return prefs(ctx).getString(KEY_SAVED_PASS, null);
+        return session(ctx).savedPass;
     }
 
     /**
@@ -201,8 +165,7 @@ public class SessionManager {
      * @param email   Cadena con el correo electrónico a almacenar.
      */
     public static void saveUserEmail(Context context, String email) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putString(KEY_USER_EMAIL, email).apply();
+        SettingsStore.get(context).updateSession(s -> s.withEmail(email));
     }
 
     /**
@@ -212,8 +175,7 @@ public class SessionManager {
      * @return Cadena con el correo electrónico o cadena vacía si no existe.
      */
     public static String getUserEmail(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getString(KEY_USER_EMAIL, "");
+        return session(context).email;
     }
 
     /**
@@ -223,7 +185,6 @@ public class SessionManager {
      * @return {@code true} si existe un token válido, {@code false} en caso contrario.
      */
     public static boolean isLoggedIn(Context context) {
-        String token = getToken(context);
-        return token != null && !token.isEmpty();
+        return session(context).isLoggedIn();
     }
 }
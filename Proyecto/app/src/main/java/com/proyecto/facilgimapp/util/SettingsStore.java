@@ -0,0 +1,569 @@
+package com.proyecto.facilgimapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copia en memoria de las preferencias y de la sesión, respaldada por SharedPreferences.
+ * <p>
+ * Los dos ficheros de preferencias se leen una sola vez, en un hilo propio, en cuanto
+ * arranca el proceso (ver {@link com.proyecto.facilgimapp.FacilGimApplication}). A partir
+ * de ahí las lecturas devuelven instantáneas inmutables ({@link Settings} y
+ * {@link Session}) sin tocar disco ni volver a interpretar valores (p. ej. los roles se
+ * separan una sola vez). Si alguien lee antes de que termine la carga, espera a ella.
+ * </p>
+ * <p>
+ * Las actividades no pueden esperar a la carga antes de su primer fotograma, así que las
+ * preferencias de la interfaz y si hay sesión iniciada se guardan además en un fichero de
+ * una línea ({@link #STARTUP_FILE}) que se lee al crear el almacén;
+ * {@link #getStartupSettings()} y {@link #isLoggedInAtStartup()} lo devuelven mientras la
+ * carga no ha terminado.
+ * </p>
+ * <p>
+ * Los cambios se aplican en memoria al momento y se publican en {@link #observeSettings()}
+ * y {@link #observeSession()}; la escritura en disco se hace en el hilo del almacén,
+ * agrupando en una sola escritura los cambios que llegan en menos de
+ * {@link #FLUSH_DELAY_MS}. {@link #flush()} adelanta la escritura pendiente (se llama al
+ * pasar la actividad a segundo plano).
+ * </p>
+ * <p>
+ * Las escrituras se hacen a través de {@link SessionManager} y {@link PreferenceManager},
+ * que conservan las mismas claves, así que los datos guardados por versiones anteriores se
+ * leen sin migración.
+ * </p>
+ *
+ * @author Francisco Santana
+ */
+public final class SettingsStore {
+    private static final String TAG = "SettingsStore";
+
+    /** Espera antes de escribir, para agrupar los cambios seguidos en una sola escritura. */
+    public static final long FLUSH_DELAY_MS = 250;
+
+    static final String SESSION_PREFS = "facilgim_session";
+    static final String SETTINGS_PREFS = "facilgim_prefs";
+    /** Copia compacta de las preferencias de la interfaz, en {@code getNoBackupFilesDir()}. */
+    static final String STARTUP_FILE = "facilgim_startup";
+    /**
+     * Tamaño máximo que se lee de {@link #STARTUP_FILE}; la línea ocupa unas decenas de
+     * bytes, así que la lectura en el hilo principal es de un solo bloque.
+     */
+    private static final int MAX_STARTUP_BYTES = 256;
+
+    private static final String KEY_TOKEN        = "key_token";
+    private static final String KEY_USERNAME     = "key_username";
+    private static final String KEY_AUTHORITIES  = "key_authorities";
+    private static final String KEY_USER_ID      = "key_user_id";
+    private static final String KEY_SAVED_USER   = "key_saved_user";
+    private static final String KEY_SAVED_PASS   = "key_saved_pass";
+    private static final String KEY_USER_EMAIL   = "key_user_email";
+
+    private static final String KEY_DARK_MODE        = "dark_mode";
+    private static final String KEY_FONT_SIZE        = "font_size";
+    private static final String KEY_THEME_COLOR_IDX  = "theme_color_idx";
+    private static final String KEY_LANGUAGE         = "language";
+    private static final String KEY_USE_SYSTEM_THEME = "use_system_theme";
+
+    /**
+     * Preferencias de la interfaz. Inmutable.
+     */
+    public static final class Settings {
+        /** Valores por defecto, sin nada guardado. */
+        public static final Settings DEFAULTS = new Settings(false, 2, 0, null, true);
+
+        /** Modo oscuro manual. */
+        public final boolean darkMode;
+        /** Tamaño de fuente: 1=pequeño, 2=mediano, 3=grande. */
+        public final int fontSize;
+        /** Índice del color de tema (0, 1 o 2). */
+        public final int themeColorIndex;
+        /** Seguir el modo oscuro del sistema. */
+        public final boolean useSystemTheme;
+        /** Idioma elegido, o null para el del dispositivo. */
+        @Nullable
+        private final String language;
+
+        Settings(boolean darkMode, int fontSize, int themeColorIndex,
+                 @Nullable String language, boolean useSystemTheme) {
+            this.darkMode = darkMode;
+            this.fontSize = fontSize;
+            this.themeColorIndex = themeColorIndex;
+            this.language = language;
+            this.useSystemTheme = useSystemTheme;
+        }
+
+        /**
+         * Código ISO del idioma de la interfaz.
+         *
+         * @return el idioma elegido o, si no hay ninguno, el del dispositivo.
+         */
+        @NonNull
+        public String getLanguage() {
+            return language != null ? language : Locale.getDefault().getLanguage();
+        }
+
+        Settings withDarkMode(boolean value) {
+            return new Settings(value, fontSize, themeColorIndex, language, useSystemTheme);
+        }
+
+        Settings withFontSize(int value) {
+            return new Settings(darkMode, value, themeColorIndex, language, useSystemTheme);
+        }
+
+        Settings withThemeColorIndex(int value) {
+            return new Settings(darkMode, fontSize, value, language, useSystemTheme);
+        }
+
+        Settings withLanguage(String value) {
+            return new Settings(darkMode, fontSize, themeColorIndex, value, useSystemTheme);
+        }
+
+        Settings withUseSystemTheme(boolean value) {
+            return new Settings(darkMode, fontSize, themeColorIndex, language, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Settings)) return false;
+            Settings other = (Settings) o;
+            return darkMode == other.darkMode && fontSize == other.fontSize
+                    && themeColorIndex == other.themeColorIndex
+                    && useSystemTheme == other.useSystemTheme
+                    && Objects.equals(language, other.language);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(darkMode, fontSize, themeColorIndex, useSystemTheme, language);
+        }
+    }
+
+    /**
+     * Datos de la sesión iniciada y credenciales recordadas. Inmutable.
+     */
+    public static final class Session {
+        /** Sin sesión ni credenciales. */
+        public static final Session EMPTY =
+                new Session(null, null, Collections.emptyList(), -1, null, null, "");
+
+        /** Token JWT, o null sin sesión. */
+        @Nullable
+        public final String token;
+        /** Nombre del usuario, o null sin sesión. */
+        @Nullable
+        public final String username;
+        /** Roles del usuario; lista vacía sin sesión. No modificable. */
+        @NonNull
+        public final List<String> authorities;
+        /** Si entre los roles hay uno de administrador ("ROLE_ADMIN" o "ADMIN"). */
+        public final boolean admin;
+        /** Id del usuario, o -1 sin sesión. */
+        public final int userId;
+        /** Correo del usuario, o cadena vacía. */
+        @NonNull
+        public final String email;
+        @Nullable
+        final String savedUser;
+        @Nullable
+        final String savedPass;
+
+        Session(@Nullable String token, @Nullable String username, List<String> authorities,
+                int userId, @Nullable String savedUser, @Nullable String savedPass,
+                @Nullable String email) {
+            this.token = token;
+            this.username = username;
+            this.authorities = Collections.unmodifiableList(new ArrayList<>(authorities));
+            this.admin = authorities.contains("ROLE_ADMIN") || authorities.contains("ADMIN");
+            this.userId = userId;
+            this.savedUser = savedUser;
+            this.savedPass = savedPass;
+            this.email = email != null ? email : "";
+        }
+
+        /**
+         * Indica si hay un usuario autenticado.
+         *
+         * @return {@code true} si hay token.
+         */
+        public boolean isLoggedIn() {
+            return token != null && !token.isEmpty();
+        }
+
+        Session withLogin(String token, String username, List<String> authorities, int userId) {
+            return new Session(token, username, authorities, userId, savedUser, savedPass, email);
+        }
+
+        Session withoutLogin() {
+            return new Session(null, null, Collections.emptyList(), -1, savedUser, savedPass, email);
+        }
+
+        Session withCredentials(@Nullable String user, @Nullable String pass) {
+            return new Session(token, username, authorities, userId, user, pass, email);
+        }
+
+        Session withEmail(String value) {
+            return new Session(token, username, authorities, userId, savedUser, savedPass, value);
+        }
+    }
+
+    private static volatile SettingsStore instance;
+
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "settings-store");
+        t.setDaemon(true);
+        return t;
+    });
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final AtomicFile startupFile;
+    /** Preferencias leídas de {@link #STARTUP_FILE} al crear el almacén, o null si no había copia. */
+    @Nullable
+    private final Settings startup;
+    /** Si la copia compacta indicaba sesión iniciada; false sin copia o con una anterior. */
+    private final boolean startupLoggedIn;
+    /** Última línea leída o escrita en {@link #STARTUP_FILE}; solo se usa en el hilo del almacén. */
+    @Nullable
+    private String startupLine;
+    private final MutableLiveData<Settings> settingsLive = new MutableLiveData<>();
+    private final MutableLiveData<Session> sessionLive = new MutableLiveData<>();
+
+    private volatile Settings settings = Settings.DEFAULTS;
+    private volatile Session session = Session.EMPTY;
+
+    // Solo se usan en el hilo del almacén
+    private SharedPreferences settingsPrefs;
+    private SharedPreferences sessionPrefs;
+
+    // Protegidos por this
+    private boolean settingsDirty;
+    private boolean sessionDirty;
+    @Nullable
+    private ScheduledFuture<?> pendingFlush;
+
+    private SettingsStore(Context context) {
+        Context app = context.getApplicationContext();
+        startupFile = new AtomicFile(new File(app.getNoBackupFilesDir(), STARTUP_FILE));
+        // Lectura acotada a MAX_STARTUP_BYTES: la necesita el primer fotograma y no puede esperar
+        String line = readStartupLine(startupFile);
+        String[] f = line != null ? line.split(";", -1) : new String[0];
+        startup = parseStartup(f);
+        startupLoggedIn = startup != null && f.length > 5 && "1".equals(f[5]);
+        startupLine = line;
+        io.execute(() -> load(app));
+    }
+
+    /**
+     * Devuelve la instancia única; la primera llamada lanza la carga en segundo plano.
+     *
+     * @param context Contexto de la aplicación.
+     * @return la instancia de SettingsStore.
+     */
+    public static SettingsStore get(Context context) {
+        if (instance == null) {
+            synchronized (SettingsStore.class) {
+                if (instance == null) instance = new SettingsStore(context);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Preferencias actuales; espera a la carga inicial si aún no ha terminado.
+     *
+     * @return la instantánea de preferencias.
+     */
+    @NonNull
+    public Settings getSettings() {
+        awaitLoaded();
+        return settings;
+    }
+
+    /**
+     * Preferencias con las que configurar una actividad antes de su primer fotograma, sin
+     * esperar a la carga: las cargadas si ya ha terminado o, si no, las de la copia
+     * compacta. Sin copia (la primera vez tras instalar o actualizar) se devuelven los
+     * valores por defecto.
+     *
+     * @return la instantánea de preferencias.
+     */
+    @NonNull
+    public Settings getStartupSettings() {
+        if (isLoaded()) return settings;
+        return startup != null ? startup : Settings.DEFAULTS;
+    }
+
+    /**
+     * Indica si hay sesión iniciada sin esperar a la carga: la sesión cargada si ya ha
+     * terminado o, si no, lo que diga la copia compacta. Sin copia, o con una de una
+     * versión anterior que no lo guardaba, devuelve {@code false}; quien necesite la
+     * respuesta segura debe observar {@link #observeSession()}.
+     *
+     * @return {@code true} si hay (o había al cerrar la app) un usuario autenticado.
+     */
+    public boolean isLoggedInAtStartup() {
+        if (isLoaded()) return session.isLoggedIn();
+        return startupLoggedIn;
+    }
+
+    /**
+     * Indica si ya ha terminado la carga inicial.
+     *
+     * @return {@code true} si las lecturas ya no esperan.
+     */
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    /**
+     * Sesión actual; espera a la carga inicial si aún no ha terminado.
+     *
+     * @return la instantánea de sesión.
+     */
+    @NonNull
+    public Session getSession() {
+        awaitLoaded();
+        return session;
+    }
+
+    /**
+     * Observa las preferencias: recibe la instantánea cargada y cada cambio posterior.
+     *
+     * @return LiveData con las preferencias.
+     */
+    public LiveData<Settings> observeSettings() {
+        return settingsLive;
+    }
+
+    /**
+     * Observa la sesión: recibe la instantánea cargada y cada cambio posterior.
+     *
+     * @return LiveData con la sesión.
+     */
+    public LiveData<Session> observeSession() {
+        return sessionLive;
+    }
+
+    /** Escribe ya los cambios pendientes, sin esperar a {@link #FLUSH_DELAY_MS}. */
+    public synchronized void flush() {
+        if (settingsDirty || sessionDirty) scheduleFlush(0);
+    }
+
+    /** Aplica un cambio a las preferencias y programa su escritura. */
+    void updateSettings(UnaryOperator<Settings> change) {
+        awaitLoaded();
+        synchronized (this) {
+            settings = change.apply(settings);
+            settingsDirty = true;
+            settingsLive.postValue(settings);
+            scheduleFlush(FLUSH_DELAY_MS);
+        }
+    }
+
+    /** Aplica un cambio a la sesión y programa su escritura. */
+    void updateSession(UnaryOperator<Session> change) {
+        awaitLoaded();
+        synchronized (this) {
+            session = change.apply(session);
+            sessionDirty = true;
+            sessionLive.postValue(session);
+            scheduleFlush(FLUSH_DELAY_MS);
+        }
+    }
+
+    private void load(Context app) {
+        try {
+            settingsPrefs = app.getSharedPreferences(SETTINGS_PREFS, Context.MODE_PRIVATE);
+            sessionPrefs = app.getSharedPreferences(SESSION_PREFS, Context.MODE_PRIVATE);
+            settings = readSettings(settingsPrefs);
+            session = readSession(sessionPrefs);
+            writeStartup(settings, session);
+        } catch (RuntimeException e) {
+            // Un valor con tipo inesperado no debe impedir arrancar: se usan los valores por defecto
+            Log.e(TAG, "No se pudieron leer las preferencias", e);
+        } finally {
+            synchronized (this) {
+                settingsLive.postValue(settings);
+                sessionLive.postValue(session);
+            }
+            loaded.countDown();
+        }
+    }
+
+    private void awaitLoaded() {
+        if (isLoaded()) return;
+        long start = SystemClock.elapsedRealtime();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Log.w(TAG, "El hilo principal esperó " + (SystemClock.elapsedRealtime() - start)
+                    + " ms a la carga de preferencias");
+        }
+    }
+
+    /** Programa la escritura; llamar con el monitor tomado. */
+    private void scheduleFlush(long delayMs) {
+        if (pendingFlush != null && !pendingFlush.isDone()) {
+            if (delayMs > 0) return;
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = io.schedule(this::flushNow, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushNow() {
+        Settings st;
+        Session s;
+        boolean writeSettings, writeSession;
+        synchronized (this) {
+            st = settings;
+            s = session;
+            writeSettings = settingsDirty;
+            writeSession = sessionDirty;
+            settingsDirty = false;
+            sessionDirty = false;
+        }
+        if (writeSettings && !writeSettings(st)) Log.w(TAG, "No se pudieron guardar las preferencias");
+        if (writeSession && !writeSession(s)) Log.w(TAG, "No se pudo guardar la sesión");
+        // Después de la sesión, para que la copia no diga que hay sesión antes de guardarla
+        if (writeSettings || writeSession) writeStartup(st, s);
+    }
+
+    private static Settings readSettings(SharedPreferences p) {
+        return new Settings(
+                p.getBoolean(KEY_DARK_MODE, Settings.DEFAULTS.darkMode),
+                p.getInt(KEY_FONT_SIZE, Settings.DEFAULTS.fontSize),
+                p.getInt(KEY_THEME_COLOR_IDX, Settings.DEFAULTS.themeColorIndex),
+                p.getString(KEY_LANGUAGE, null),
+                p.getBoolean(KEY_USE_SYSTEM_THEME, Settings.DEFAULTS.useSystemTheme));
+    }
+
+    private static Session readSession(SharedPreferences p) {
+        String csv = p.getString(KEY_AUTHORITIES, "");
+        List<String> authorities = csv.isEmpty()
+                ? Collections.emptyList() : Arrays.asList(csv.split(","));
+        return new Session(
+                p.getString(KEY_TOKEN, null),
+                p.getString(KEY_USERNAME, null),
+                authorities,
+                p.getInt(KEY_USER_ID, -1),
+                p.getString(KEY_SAVED_USER, null),
+                p.getString(KEY_SAVED_PASS, null),
+                p.getString(KEY_USER_EMAIL, ""));
+    }
+
+    private boolean writeSettings(Settings st) {
+        if (settingsPrefs == null) return false;
+        SharedPreferences.Editor e = settingsPrefs.edit()
+                .putBoolean(KEY_DARK_MODE, st.darkMode)
+                .putInt(KEY_FONT_SIZE, st.fontSize)
+                .putInt(KEY_THEME_COLOR_IDX, st.themeColorIndex)
+                .putBoolean(KEY_USE_SYSTEM_THEME, st.useSystemTheme);
+        putOrRemove(e, KEY_LANGUAGE, st.language);
+        return e.commit();
+    }
+
+    /**
+     * Lee la copia compacta, de como mucho {@link #MAX_STARTUP_BYTES}.
+     *
+     * @return la línea, o null si no hay copia o es más larga de lo esperado.
+     */
+    @Nullable
+    private static String readStartupLine(AtomicFile file) {
+        try (FileInputStream in = file.openRead()) {
+            byte[] buf = new byte[MAX_STARTUP_BYTES + 1];
+            int n = 0;
+            int r;
+            while (n < buf.length && (r = in.read(buf, n, buf.length - n)) != -1) n += r;
+            return n <= MAX_STARTUP_BYTES ? new String(buf, 0, n, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            // FileNotFoundException la primera vez: se usan los valores por defecto
+            return null;
+        }
+    }
+
+    /**
+     * Interpreta la copia compacta: {@code oscuro;fuente;color;sistema;idioma;sesion}. Las
+     * copias de versiones anteriores no llevan el último campo.
+     *
+     * @return las preferencias, o null si no se entiende.
+     */
+    @Nullable
+    private static Settings parseStartup(String[] f) {
+        if (f.length != 5 && f.length != 6) return null;
+        try {
+            return new Settings("1".equals(f[0]), Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                    f[4].isEmpty() ? null : f[4], "1".equals(f[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Actualiza la copia compacta si ha cambiado; solo en el hilo del almacén. */
+    private void writeStartup(Settings st, Session s) {
+        String line = (st.darkMode ? "1" : "0") + ";" + st.fontSize + ";" + st.themeColorIndex
+                + ";" + (st.useSystemTheme ? "1" : "0") + ";" + (st.language != null ? st.language : "")
+                + ";" + (s.isLoggedIn() ? "1" : "0");
+        if (line.equals(startupLine)) return;
+        FileOutputStream out = null;
+        try {
+            out = startupFile.startWrite();
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            startupFile.finishWrite(out);
+            startupLine = line;
+        } catch (IOException e) {
+            if (out != null) startupFile.failWrite(out);
+            Log.w(TAG, "No se pudo guardar la copia de las preferencias", e);
+        }
+    }
+
+    private boolean writeSession(Session s) {
+        if (sessionPrefs == null) return false;
+        SharedPreferences.Editor e = sessionPrefs.edit();
+        putOrRemove(e, KEY_TOKEN, s.token);
+        putOrRemove(e, KEY_USERNAME, s.username);
+        putOrRemove(e, KEY_AUTHORITIES, s.authorities.isEmpty() ? null : String.join(",", s.authorities));
+        if (s.userId >= 0) e.putInt(KEY_USER_ID, s.userId); else e.remove(KEY_USER_ID);
+        putOrRemove(e, KEY_SAVED_USER, s.savedUser);
+        putOrRemove(e, KEY_SAVED_PASS, s.savedPass);
+        putOrRemove(e, KEY_USER_EMAIL, s.email.isEmpty() ? null : s.email);
+        return e.commit();
+    }
+
+    private static void putOrRemove(SharedPreferences.Editor e, String key, @Nullable String value) {
+        if (value != null) e.putString(key, value); else e.remove(key);
+    }
+}
@@ -12,7 +12,10 @@ import com.proyecto.facilgimapp.model.dto.LoginRequest;
 import com.proyecto.facilgimapp.model.dto.LoginResponse;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
 import com.proyecto.facilgimapp.model.dto.UsuarioRequestDTO;
+import com.proyecto.facilgimapp.network.AuthState;
 import com.proyecto.facilgimapp.repository.AuthRepository;
+import com.proyecto.facilgimapp.repository.PrefetchCoordinator;
+import com.proyecto.facilgimapp.repository.RepositoryCache;
 
 import java.io.IOException;
 
@@ -60,6 +63,8 @@ public class AuthViewModel extends AndroidViewModel {
      * <p>
      * Se envía la petición al repositorio y se publica el {@link LoginResponse} en
      * {@link #loginResult} si la llamada fue exitosa, o null en caso de fallo.
+     * Un login correcto vacía la {@link RepositoryCache} de la sesión anterior, guarda la
+     * sesión en {@link AuthState} y lanza la precarga de {@link PrefetchCoordinator}.
      * </p>
      *
      * @param req DTO con usuario y contraseña para el login.
@@ -69,6 +74,16 @@ public class AuthViewModel extends AndroidViewModel {
         repository.login(req).enqueue(new Callback<LoginResponse>() {
             @Override
             public void onResponse(Call<LoginResponse> call, Response<LoginResponse> resp) {
+                LoginResponse body = resp.body();
+                if (resp.isSuccessful() && body != null && body.getToken() != null) {
+                    // Nueva sesión: no reutilizamos datos cacheados de otro usuario
+                    RepositoryCache.get().clear();
+                    AuthState.get(getApplication()).onLogin(body);
+                    // Mientras se navega al Home se van cargando las demás pestañas
+                    if (body.getUserId() != null) {
+                        PrefetchCoordinator.get(getApplication()).start(body.getUserId());
+                    }
+                }
                 loginResult.setValue(resp.isSuccessful() ? resp.body() : null);
             }
             @Override
@@ -1,6 +1,7 @@
 package com.proyecto.facilgimapp.viewmodel;
 
 import android.app.Application;
+import android.net.Uri;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
@@ -8,9 +9,11 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.repository.ChunkedImageUploader;
 import com.proyecto.facilgimapp.repository.EjercicioRepository;
+import com.proyecto.facilgimapp.repository.PagedLoader;
+import com.proyecto.facilgimapp.repository.PagedSearch;
 
-import java.io.File;
 import java.util.List;
 
 import retrofit2.Call;
@@ -25,6 +28,9 @@ import retrofit2.Response;
  * <ul>
  *   <li>Listado de ejercicios asociados a un entrenamiento específico.</li>
  *   <li>Catálogo completo de ejercicios disponibles.</li>
+ *   <li>Catálogo paginado, que se carga a medida que el usuario se desplaza. La búsqueda
+ *   se hace sobre el catálogo completo y sus resultados también se paginan
+ *   (ver {@link PagedSearch}).</li>
  * </ul>
  * Además, ofrece métodos para borrar o crear/actualizar ejercicios,
  * notificando éxito o error mediante callbacks.
@@ -45,6 +51,24 @@ public class ExercisesViewModel extends AndroidViewModel {
      */
     private final MutableLiveData<List<EjercicioDTO>> allExercises = new MutableLiveData<>();
 
+    /**
+     * Cargador paginado del catálogo de ejercicios.
+     */
+    private final PagedLoader<EjercicioDTO> catalogLoader;
+
+    /**
+     * Búsqueda por nombre sobre el catálogo completo.
+     */
+    private final PagedSearch<EjercicioDTO> catalogSearch;
+
+    /** Valor de {@link #getUploadProgress()} cuando no hay ninguna subida en curso. */
+    public static final int NO_UPLOAD = -1;
+
+    /**
+     * LiveData con el porcentaje de la subida de imagen en curso.
+     */
+    private final MutableLiveData<Integer> uploadProgress = new MutableLiveData<>(NO_UPLOAD);
+
     /**
      * Constructor que inicializa el repositorio de ejercicios.
      *
@@ -53,6 +77,20 @@ public class ExercisesViewModel extends AndroidViewModel {
     public ExercisesViewModel(@NonNull Application application) {
         super(application);
         repo = new EjercicioRepository(application);
+        catalogLoader = new PagedLoader<>(PagedLoader.Config.DEFAULT,
+                repo::listExercisesPage, repo::listAllExercises, null);
+        catalogSearch = new PagedSearch<>(PagedLoader.Config.DEFAULT, catalogLoader.getItems(),
+                repo::listAllExercises, EjercicioDTO::getNombre, true);
+        repo.resumePendingUploads(progressListener(this::loadCatalog, () -> { }));
+    }
+
+    /**
+     * Progreso de la subida de imagen en curso, incluidas las reanudadas al abrir la pantalla.
+     *
+     * @return LiveData con el porcentaje (0-100) o {@link #NO_UPLOAD}.
+     */
+    public LiveData<Integer> getUploadProgress() {
+        return uploadProgress;
     }
 
     /**
@@ -73,6 +111,46 @@ public class ExercisesViewModel extends AndroidViewModel {
         return allExercises;
     }
 
+    /**
+     * Obtiene la ventana cargada del catálogo paginado de ejercicios o, si hay una
+     * búsqueda activa, la de sus resultados.
+     *
+     * @return LiveData con la lista de {@link EjercicioDTO} cargados.
+     */
+    public LiveData<List<EjercicioDTO>> getCatalog() {
+        return catalogSearch.getItems();
+    }
+
+    /**
+     * Cargador paginado de la lista mostrada, para avisarle del desplazamiento.
+     *
+     * @return el cargador del catálogo o, si hay una búsqueda activa, el de sus resultados
+     *         ({@code null} mientras se calculan).
+     */
+    public PagedLoader<EjercicioDTO> getCatalogLoader() {
+        return catalogSearch.isActive() ? catalogSearch.getLoader() : catalogLoader;
+    }
+
+    /**
+     * Carga la primera página del catálogo o, si ya hay páginas cargadas, las vuelve
+     * a pedir conservando la posición. Si hay una búsqueda activa, se repite sobre el
+     * catálogo actualizado.
+     */
+    public void loadCatalog() {
+        catalogLoader.refresh();
+        catalogSearch.invalidate();
+    }
+
+    /**
+     * Busca ejercicios por nombre en todo el catálogo, sin distinguir mayúsculas ni tildes,
+     * tolerando erratas y ordenando por relevancia. Una consulta vacía vuelve al catálogo.
+     *
+     * @param query Texto buscado; puede ser null o vacío.
+     */
+    public void searchCatalog(String query) {
+        catalogSearch.search(query);
+    }
+
     /**
      * Carga la lista de ejercicios asociados a un entrenamiento específico
      * identificado por {@code trainingId} y el nombre de usuario.
@@ -150,33 +228,52 @@ public class ExercisesViewModel extends AndroidViewModel {
 
     /**
      * Crea o actualiza un ejercicio en el servidor, enviando el objeto
-     * {@link EjercicioDTO} y un archivo de imagen opcional.
+     * {@link EjercicioDTO} y una imagen opcional, que se lee directamente del {@link Uri}
+     * y se reduce y recomprime antes de subirla por trozos. El avance se publica en
+     * {@link #getUploadProgress()}.
      * <p>
      * Ejecuta {@code onSuccess} si la llamada fue exitosa,
-     * o {@code onError} en caso de fallo (HTTP o red).
+     * o {@code onError} en caso de fallo (HTTP o red). Si la subida se interrumpe, se
+     * reanuda desde el último trozo confirmado al volver a guardar la misma imagen o al
+     * volver a abrir la pantalla.
      * </p>
      *
      * @param ejercicio  DTO con los datos del ejercicio a crear o actualizar.
-     * @param imagen     Archivo de imagen, puede ser null si no se desea actualizar.
+     * @param imagen     Uri de la imagen, puede ser null si no se desea actualizar.
+     * @param imageName  Nombre con extensión de la imagen.
      * @param onSuccess  Runnable que se ejecuta si la operación es exitosa.
      * @param onError    Runnable que se ejecuta si ocurre un error.
      */
-    public void updateExercise(EjercicioDTO ejercicio, File imagen,
+    public void updateExercise(EjercicioDTO ejercicio, Uri imagen, String imageName,
                                Runnable onSuccess, Runnable onError) {
-        repo.createOrUpdateExercise(ejercicio, imagen)
-            .enqueue(new Callback<EjercicioDTO>() {
-                @Override
-                public void onResponse(@NonNull Call<EjercicioDTO> call,
-                                       @NonNull Response<EjercicioDTO> response) {
-                    if (response.isSuccessful()) {
-                        onSuccess.run();
-                    } else {
-                        onError.run();
-                    }
-                }
-                @Override public void onFailure(@NonNull Call<EjercicioDTO> call, @NonNull Throwable t) {
+        repo.saveExercise(ejercicio, imagen, imageName, progressListener(onSuccess, onError));
+    }
+
+    private ChunkedImageUploader.Listener progressListener(Runnable onSuccess, Runnable onError) {
+        return new ChunkedImageUploader.Listener() {
+            @Override
+            public void onProgress(long sent, long total) {
+                uploadProgress.setValue(total <= 0 ? 0 : (int) (sent * 100 / total));
+            }
+
+            @Override
+            public void onComplete(EjercicioDTO saved, String error) {
+                uploadProgress.setValue(NO_UPLOAD);
+                if (error == null) {
+                    onSuccess.run();
+                } else {
                     onError.run();
                 }
-            });
+            }
+        };
+    }
+
+    /**
+     * Cancela la carga paginada y la búsqueda en curso al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        catalogLoader.cancel();
+        catalogSearch.cancel();
     }
 }
@@ -8,9 +8,13 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.repository.MutationOutbox;
+import com.proyecto.facilgimapp.repository.SeriesBatchWriter;
 import com.proyecto.facilgimapp.repository.SeriesRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -30,6 +34,11 @@ public class SeriesViewModel extends AndroidViewModel {
      */
     private final SeriesRepository repository;
 
+    /**
+     * Cola persistente por la que se envían las altas, ediciones y borrados.
+     */
+    private final MutationOutbox outbox;
+
     /**
      * LiveData que contiene la lista de {@link SerieDTO} asociadas a una relación.
      */
@@ -48,6 +57,7 @@ public class SeriesViewModel extends AndroidViewModel {
     public SeriesViewModel(@NonNull Application application) {
         super(application);
         repository = new SeriesRepository(application.getApplicationContext());
+        outbox = MutationOutbox.get(application);
     }
 
     /**
@@ -111,68 +121,90 @@ public class SeriesViewModel extends AndroidViewModel {
     }
 
     /**
-     * Crea una nueva serie en el backend usando los datos de {@code dto}. 
-     * Tras la creación exitosa, recarga todas las series de la relación {@code relacionId}.
+     * Crea una nueva serie a través de {@link MutationOutbox}.
+     * Si se envía, recarga todas las series de la relación {@code relacionId}; si queda
+     * pendiente por falta de conexión, la añade ya a {@link #_seriesList}.
      *
      * @param dto         DTO con los datos de la nueva serie a crear.
      * @param relacionId  ID de la relación a la que pertenece la serie.
      */
     public void addSeries(SerieDTO dto, int relacionId) {
-        repository.createSeries(dto).enqueue(new Callback<SerieDTO>() {
-            @Override
-            public void onResponse(Call<SerieDTO> call, Response<SerieDTO> response) {
-                if (response.isSuccessful()) {
-                    loadSeries(relacionId);
-                }
+        outbox.createSeries(dto, result -> {
+            if (result == MutationOutbox.Result.SENT) {
+                loadSeries(relacionId);
+            } else if (result == MutationOutbox.Result.QUEUED) {
+                List<SerieDTO> current = new ArrayList<>();
+                if (_seriesList.getValue() != null) current.addAll(_seriesList.getValue());
+                current.add(dto);
+                _seriesList.setValue(current);
             }
-            @Override
-            public void onFailure(Call<SerieDTO> call, Throwable t) {
-                // No se actualiza si hay error
+        });
+    }
+
+    /**
+     * Guarda de una vez varias series de la relación {@code relacionId} (crea las que no
+     * tienen ID y actualiza las demás) con peticiones en bloque, en lugar de una petición
+     * por serie. Al terminar recarga las series de la relación y entrega a
+     * {@code onFailed} las que no se pudieron guardar tras los reintentos (vacía si
+     * se guardaron todas).
+     *
+     * @param relacionId ID de la relación a la que pertenecen las series.
+     * @param series     Series a guardar.
+     * @param onFailed   Receptor de los resultados de las series que fallaron.
+     */
+    public void saveSeries(int relacionId, List<SerieDTO> series,
+                           Consumer<List<SeriesBatchWriter.ItemResult>> onFailed) {
+        repository.createMultipleSeries(relacionId, series, results -> {
+            List<SeriesBatchWriter.ItemResult> failed = new ArrayList<>();
+            for (SeriesBatchWriter.ItemResult r : results) {
+                if (!r.isSuccess()) failed.add(r);
             }
+            loadSeries(relacionId);
+            onFailed.accept(failed);
         });
     }
 
     /**
-     * Actualiza una serie existente en el backend con los datos de {@code dto}. 
-     * Tras la actualización exitosa, recarga todas las series de la relación {@code relacionId}.
+     * Actualiza una serie existente a través de {@link MutationOutbox}.
+     * Si se envía, recarga todas las series de la relación {@code relacionId}; si queda
+     * pendiente por falta de conexión, sustituye ya la serie en {@link #_seriesList}.
      *
      * @param id          ID de la serie a actualizar.
      * @param dto         DTO con los datos actualizados de la serie.
      * @param relacionId  ID de la relación a la que pertenece la serie.
      */
     public void updateSeries(int id, SerieDTO dto, int relacionId) {
-        repository.updateSeries(id, dto).enqueue(new Callback<SerieDTO>() {
-            @Override
-            public void onResponse(Call<SerieDTO> call, Response<SerieDTO> response) {
-                if (response.isSuccessful()) {
-                    loadSeries(relacionId);
+        outbox.updateSeries(id, dto, result -> {
+            if (result == MutationOutbox.Result.SENT) {
+                loadSeries(relacionId);
+            } else if (result == MutationOutbox.Result.QUEUED && _seriesList.getValue() != null) {
+                List<SerieDTO> current = new ArrayList<>();
+                for (SerieDTO s : _seriesList.getValue()) {
+                    current.add(s.getId() != null && s.getId() == id ? dto : s);
                 }
-            }
-            @Override
-            public void onFailure(Call<SerieDTO> call, Throwable t) {
-                // No se actualiza si hay error
+                _seriesList.setValue(current);
             }
         });
     }
 
     /**
-     * Elimina la serie identificada por {@code id} en el backend.
-     * Tras la eliminación exitosa, recarga todas las series de la relación {@code relacionId}.
+     * Elimina la serie identificada por {@code id} a través de {@link MutationOutbox}.
+     * Si se envía, recarga todas las series de la relación {@code relacionId}; si queda
+     * pendiente por falta de conexión, la quita ya de {@link #_seriesList}.
      *
      * @param id          ID de la serie a eliminar.
      * @param relacionId  ID de la relación a la que pertenece la serie.
      */
     public void deleteSeries(int id, int relacionId) {
-        repository.deleteSeries(id).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    loadSeries(relacionId);
+        outbox.deleteSeries(id, result -> {
+            if (result == MutationOutbox.Result.SENT) {
+                loadSeries(relacionId);
+            } else if (result == MutationOutbox.Result.QUEUED && _seriesList.getValue() != null) {
+                List<SerieDTO> current = new ArrayList<>();
+                for (SerieDTO s : _seriesList.getValue()) {
+                    if (s.getId() == null || s.getId() != id) current.add(s);
                 }
-            }
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                // No se actualiza si hay error
+                _seriesList.setValue(current);
             }
         });
     }
@@ -9,6 +9,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+import com.proyecto.facilgimapp.repository.PagedLoader;
 import com.proyecto.facilgimapp.repository.UserRepository;
 
 import java.io.IOException;
@@ -25,7 +26,7 @@ import retrofit2.Response;
  * <p>
  * Expone LiveData para:
  * <ul>
- *   <li>Lista de usuarios.</li>
+ *   <li>Lista de usuarios, cargada por páginas a medida que se desplaza.</li>
  *   <li>Resultado de validación de la contraseña actual.</li>
  *   <li>Resultado de cambio de contraseña.</li>
  *   <li>Indicador de éxito o error en operaciones CRUD de usuario.</li>
@@ -41,16 +42,25 @@ public class UserViewModel extends AndroidViewModel {
     private final UserRepository repository;
 
     /**
-     * LiveData que contiene la lista de {@link UsuarioDTO} obtenida del servidor.
+     * Cargador paginado de la lista de {@link UsuarioDTO} obtenida del servidor.
      */
-    private final MutableLiveData<List<UsuarioDTO>> _usuarios = new MutableLiveData<>();
+    private final PagedLoader<UsuarioDTO> usersLoader;
     /**
-     * LiveData público para observar la lista de usuarios.
+     * LiveData público para observar la ventana cargada de la lista de usuarios.
      *
      * @return LiveData con List<UsuarioDTO>.
      */
     public LiveData<List<UsuarioDTO>> getUsers() {
-        return _usuarios;
+        return usersLoader.getItems();
+    }
+
+    /**
+     * Cargador paginado de usuarios, para avisarle del desplazamiento.
+     *
+     * @return el cargador de usuarios.
+     */
+    public PagedLoader<UsuarioDTO> getUsersLoader() {
+        return usersLoader;
     }
 
     /**
@@ -117,29 +127,18 @@ public class UserViewModel extends AndroidViewModel {
     public UserViewModel(@NonNull Application application) {
         super(application);
         repository = new UserRepository(application.getApplicationContext());
+        usersLoader = new PagedLoader<>(PagedLoader.Config.DEFAULT,
+                repository::listUsersPage, repository::listUsers, null);
     }
 
     /**
-     * Carga la lista completa de usuarios desde el servidor.
-     * <p>
-     * Al recibir la respuesta, actualiza {@link #_usuarios} con la lista. En caso
-     * de fallo, establece el valor en null.
-     * </p>
+     * Carga la primera página de usuarios desde el servidor o, si ya hay páginas
+     * cargadas, las vuelve a pedir conservando la posición. Las páginas siguientes se
+     * cargan con {@link PagedLoader#onScrolled(int, int, int)}. En caso de fallo se
+     * publica una lista vacía si no había nada cargado.
      */
     public void loadUsers() {
-        repository.listUsers().enqueue(new Callback<List<UsuarioDTO>>() {
-            @Override
-            public void onResponse(Call<List<UsuarioDTO>> call,
-                                   Response<List<UsuarioDTO>> response) {
-                if (response.isSuccessful()) {
-                    _usuarios.setValue(response.body());
-                }
-            }
-            @Override
-            public void onFailure(Call<List<UsuarioDTO>> call, Throwable t) {
-                _usuarios.setValue(null);
-            }
-        });
+        usersLoader.refresh();
     }
 
     /**
@@ -290,4 +289,12 @@ public class UserViewModel extends AndroidViewModel {
                     }
                 });
     }
+
+    /**
+     * Cancela la carga paginada en curso al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        usersLoader.cancel();
+    }
 }
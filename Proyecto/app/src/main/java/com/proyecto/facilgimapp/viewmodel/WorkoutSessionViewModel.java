@@ -12,42 +12,40 @@ import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
 import com.proyecto.facilgimapp.model.dto.SerieDTO;
-import com.proyecto.facilgimapp.repository.WorkoutRepository;
+import com.proyecto.facilgimapp.repository.MutationOutbox;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.UUID;
 
 /**
  * ViewModel encargado de guardar la sesión de entrenamiento completada por el usuario.
  * <p>
  * Se encarga de construir la lista de relaciones entre ejercicios y sus series,
  * validar campos esenciales en el DTO de entrenamiento y enviar la información al backend
- * a través de {@link WorkoutRepository}. Permite pasar callbacks de éxito/error
- * para que la UI solo navegue cuando realmente se haya guardado.
+ * a través de {@link MutationOutbox}, de modo que la sesión no se pierde aunque no haya
+ * conexión. Permite pasar callbacks de éxito/pendiente/error para que la UI informe
+ * al usuario de si el entrenamiento ya está en el servidor.
  * </p>
  *
  * Autor: Francisco Santana
  */
 public class WorkoutSessionViewModel extends AndroidViewModel {
-    /**
-     * Repositorio que provee métodos para crear entrenamientos en el servidor.
-     */
-    private final WorkoutRepository workoutRepo;
-
     /**
      * LiveData que emite mensajes de error cuando ocurre alguna falla
      * al intentar guardar la sesión de entrenamiento.
      */
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
+    /**
+     * Clave de idempotencia de la sesión: guardar varias veces la misma sesión
+     * no crea varios entrenamientos.
+     */
+    private final String saveKey = UUID.randomUUID().toString();
+
     public WorkoutSessionViewModel(@NonNull Application application) {
         super(application);
-        workoutRepo = new WorkoutRepository(application.getApplicationContext());
     }
 
     /**
@@ -70,21 +68,24 @@ public class WorkoutSessionViewModel extends AndroidViewModel {
      *   <li>Debe haber un tipo de entrenamiento asignado en {@code workoutDTO}.</li>
      * </ul>
      * Si falta alguno de esos campos, emite un mensaje de error en {@link #errorMessage}
-     * y llama a onError.run(). De lo contrario, envía la petición a través de
-     * {@link WorkoutRepository#createWorkout(EntrenamientoDTO)} y, según la respuesta,
-     * invoca onSuccess.run() o onError.run().
+     * y llama a onError.run(). De lo contrario, guarda el entrenamiento en
+     * {@link MutationOutbox}, que lo envía en segundo plano, y según el resultado
+     * invoca onSuccess.run(), onQueued.run() u onError.run().
      *
      * @param workoutDTO  DTO de entrenamiento que contiene datos generales (nombre, descripción,
      *                    fecha, tipo, usuario, etc.). Se le asignarán las relaciones ejercicio–series.
      * @param seriesMap   Mapa donde cada clave es un {@link EjercicioDTO} y el valor es
      *                    la lista de {@link SerieDTO} asociadas a ese ejercicio.
      * @param onSuccess   Runnable que se ejecuta si la llamada finaliza con éxito.
+     * @param onQueued    Runnable que se ejecuta si no se pudo enviar todavía y queda
+     *                    guardado en {@link MutationOutbox} para reintentarlo.
      * @param onError     Runnable que se ejecuta si hay un error de validación o en la llamada HTTP.
      */
     public void saveWorkoutSession(
             EntrenamientoDTO workoutDTO,
             Map<EjercicioDTO, List<SerieDTO>> seriesMap,
             Runnable onSuccess,
+            Runnable onQueued,
             Runnable onError
     ) {
         // Construimos lista de EntrenamientoEjercicioDTO
@@ -110,32 +111,21 @@ public class WorkoutSessionViewModel extends AndroidViewModel {
             return;
         }
 
-        // Enviamos la petición al backend
-        workoutRepo.createWorkout(workoutDTO)
-                .enqueue(new Callback<EntrenamientoDTO>() {
-                    @Override
-                    public void onResponse(
-                            Call<EntrenamientoDTO> call,
-                            Response<EntrenamientoDTO> response
-                    ) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            onSuccess.run();
-                        } else {
-                            errorMessage.setValue(
-                                    getApplication().getString(R.string.error_guardar_entrenamiento)
-                            );
-                            onError.run();
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<EntrenamientoDTO> call, Throwable t) {
-                        errorMessage.setValue(
-                                getApplication().getString(R.string.error_guardar_entrenamiento)
-                                        + ": " + t.getMessage()
-                        );
-                        onError.run();
-                    }
-                });
+        // Lo dejamos en la cola persistente: si no hay red se enviará más tarde
+        MutationOutbox.get(getApplication()).createWorkout(workoutDTO, saveKey, result -> {
+            switch (result) {
+                case SENT:
+                    onSuccess.run();
+                    break;
+                case QUEUED:
+                    onQueued.run();
+                    break;
+                default:
+                    errorMessage.setValue(
+                            getApplication().getString(R.string.error_guardar_entrenamiento)
+                    );
+                    onError.run();
+            }
+        });
     }
 }
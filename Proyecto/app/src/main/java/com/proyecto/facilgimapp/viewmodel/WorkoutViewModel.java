@@ -6,14 +6,19 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.proyecto.facilgimapp.R;
 import com.proyecto.facilgimapp.model.entity.Entrenamiento;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
 import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.repository.MutationOutbox;
+import com.proyecto.facilgimapp.repository.PagedLoader;
+import com.proyecto.facilgimapp.repository.PagedSearch;
 import com.proyecto.facilgimapp.repository.TrainingExerciseRepository;
 import com.proyecto.facilgimapp.repository.WorkoutRepository;
+import com.proyecto.facilgimapp.repository.WorkoutSync;
 
 import java.util.Collections;
 import java.util.List;
@@ -29,7 +34,14 @@ import retrofit2.Response;
  * entre entrenamientos y ejercicios.
  * <p>
  * Expone LiveData para que la interfaz observe cambios en la lista de entrenamientos
- * y mensajes de error.
+ * y mensajes de error. El historial se sincroniza con {@link WorkoutSync}, que solo
+ * descarga los cambios desde la última visita y los guarda en la réplica local, y se
+ * muestra por páginas leídas de la réplica con {@link PagedLoader} a medida que el
+ * usuario se desplaza; si el servidor no ofrece sincronización incremental, las páginas
+ * se piden al servidor. En ambos casos solo se mantiene en memoria una ventana de
+ * páginas. La búsqueda por nombre
+ * se hace sobre el historial completo del usuario y sus resultados también se paginan
+ * (ver {@link PagedSearch}).
  * </p>
  *
  * Autor: Francisco Santana
@@ -41,9 +53,39 @@ public class WorkoutViewModel extends AndroidViewModel {
     private final WorkoutRepository repo;
 
     /**
-     * LiveData que contiene la lista de EntrenamientoDTO para el usuario actual.
+     * Sincronización incremental del historial del usuario.
      */
-    private final MutableLiveData<List<EntrenamientoDTO>> _workouts = new MutableLiveData<>();
+    private final WorkoutSync sync;
+
+    /**
+     * LiveData que contiene la ventana cargada de EntrenamientoDTO para el usuario actual.
+     */
+    private final MediatorLiveData<List<EntrenamientoDTO>> _workouts = new MediatorLiveData<>();
+
+    /**
+     * Cargador paginado de los entrenamientos del usuario {@link #pagedUserId}.
+     */
+    private PagedLoader<EntrenamientoDTO> workoutLoader;
+
+    /**
+     * Usuario cuyos entrenamientos carga {@link #workoutLoader}.
+     */
+    private int pagedUserId = -1;
+
+    /**
+     * Si {@link #workoutLoader} lee las páginas de la réplica sincronizada.
+     */
+    private boolean pagedFromStore;
+
+    /**
+     * Usuario de la última carga, sobre cuyo historial se busca.
+     */
+    private int currentUserId = -1;
+
+    /**
+     * Búsqueda por nombre sobre el historial completo de {@link #currentUserId}.
+     */
+    private final PagedSearch<EntrenamientoDTO> workoutSearch;
 
     /**
      * LiveData que contiene mensajes de error en caso de fallos en las operaciones.
@@ -58,15 +100,39 @@ public class WorkoutViewModel extends AndroidViewModel {
     public WorkoutViewModel(@NonNull Application application) {
         super(application);
         repo = new WorkoutRepository(application.getApplicationContext());
+        sync = WorkoutSync.get(application);
+        workoutSearch = new PagedSearch<>(PagedLoader.Config.DEFAULT, _workouts,
+                () -> repo.getWorkoutsByUserId(currentUserId), EntrenamientoDTO::getNombre, false);
     }
 
     /**
-     * Proporciona un LiveData que emite la lista de entrenamientos cargada para el usuario.
+     * Proporciona un LiveData que emite la lista de entrenamientos cargada para el usuario
+     * o, si hay una búsqueda activa, sus resultados.
      *
      * @return LiveData con List<EntrenamientoDTO> obtenidos del servidor.
      */
     public LiveData<List<EntrenamientoDTO>> getWorkouts() {
-        return _workouts;
+        return workoutSearch.getItems();
+    }
+
+    /**
+     * Cargador paginado de la lista mostrada, para avisarle del desplazamiento.
+     *
+     * @return el cargador de los resultados si hay una búsqueda activa; si no, el de la
+     *         lista, o {@code null} si todavía no se ha cargado ningún usuario.
+     */
+    public PagedLoader<EntrenamientoDTO> getWorkoutLoader() {
+        return workoutSearch.isActive() ? workoutSearch.getLoader() : workoutLoader;
+    }
+
+    /**
+     * Busca entrenamientos por nombre en todo el historial del usuario cargado, sin
+     * distinguir mayúsculas ni tildes. Una consulta vacía vuelve a la lista.
+     *
+     * @param query Texto buscado; puede ser null o vacío.
+     */
+    public void searchWorkouts(String query) {
+        workoutSearch.search(query);
     }
 
     /**
@@ -80,44 +146,98 @@ public class WorkoutViewModel extends AndroidViewModel {
     }
 
     /**
-     * Carga del servidor todos los entrenamientos asociados al usuario cuyo ID se recibe.
+     * Carga los entrenamientos del usuario cuyo ID se recibe.
      * <p>
-     * Si la llamada es exitosa y retorna al menos un entrenamiento,
-     * publica la lista en {@link #_workouts}. Si la lista está vacía o ocurre un
-     * fallo HTTP, se asigna una lista vacía y se publica un mensaje de error.
+     * Se muestran enseguida las páginas de la copia que ya se tenía y se pide al servidor
+     * solo lo que ha cambiado desde la última sincronización; las páginas de la ventana
+     * solo se vuelven a leer si hay cambios. Si el servidor no ofrece sincronización
+     * incremental, se piden las páginas al servidor. Si ocurre un fallo, se publica un
+     * mensaje de error.
      * </p>
      *
      * @param userId ID del usuario cuyas sesiones de entrenamiento se desean obtener.
      */
     public void loadWorkoutsByUserId(int userId) {
-        repo.getWorkoutsByUserId(userId).enqueue(new Callback<List<EntrenamientoDTO>>() {
+        currentUserId = userId;
+        workoutSearch.invalidate();
+        if (!sync.isAvailable()) {
+            loadWorkoutPages(userId, false);
+            return;
+        }
+        sync.sync(userId, syncListener(userId));
+    }
+
+    /**
+     * Oyente de la sincronización de un usuario.
+     *
+     * @param userId ID del usuario sincronizado.
+     * @return el oyente, que lee de la réplica las páginas de la ventana cuando cambian.
+     */
+    private WorkoutSync.Listener syncListener(int userId) {
+        return new WorkoutSync.Listener() {
             @Override
-            public void onResponse(Call<List<EntrenamientoDTO>> call,
-                                   Response<List<EntrenamientoDTO>> response) {
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    _workouts.setValue(response.body());
-                    Log.d("DEBUG", "Entrenamientos cargados: " + response.body());
-                } else {
-                    _workouts.setValue(Collections.emptyList());
-                    errorMessage.setValue(getApplication().getString(R.string.error_cargar_entrenamientos));
-                }
+            public void onChanged() {
+                if (userId == currentUserId) loadWorkoutPages(userId, true);
+            }
+
+            @Override
+            public void onUnsupported() {
+                if (userId == currentUserId) loadWorkoutPages(userId, false);
             }
 
             @Override
-            public void onFailure(Call<List<EntrenamientoDTO>> call, Throwable t) {
-                _workouts.setValue(Collections.emptyList());
+            public void onError(Throwable error) {
+                // Sin datos que mostrar, se publica una lista vacía para salir del estado de carga
+                if (_workouts.getValue() == null) _workouts.setValue(Collections.emptyList());
                 errorMessage.setValue(
                         getApplication().getString(R.string.error_cargar_entrenamientos)
-                                + ": " + t.getMessage()
-                );
+                                + ": " + error.getMessage());
             }
-        });
+        };
     }
 
     /**
-     * Elimina el entrenamiento identificado por {@code workoutId} en el servidor.
+     * Carga los entrenamientos del usuario página a página.
      * <p>
-     * Si la eliminación es exitosa, ejecuta {@code onSuccess.run()}. En caso contrario,
+     * La primera llamada para un usuario pide la primera página; las siguientes vuelven a
+     * pedir las páginas de la ventana actual, conservando la posición. Las páginas
+     * siguientes se cargan con {@link PagedLoader#onScrolled(int, int, int)}.
+     * </p>
+     *
+     * @param userId    ID del usuario cuyas sesiones de entrenamiento se desean obtener.
+     * @param fromStore {@code true} para leer las páginas de la réplica sincronizada por
+     *                  {@link WorkoutSync}; {@code false} para pedirlas al servidor.
+     */
+    private void loadWorkoutPages(int userId, boolean fromStore) {
+        if (workoutLoader != null && pagedUserId == userId && pagedFromStore == fromStore) {
+            workoutLoader.refresh();
+            return;
+        }
+        if (workoutLoader != null) {
+            workoutLoader.cancel();
+            _workouts.removeSource(workoutLoader.getItems());
+        }
+        pagedUserId = userId;
+        pagedFromStore = fromStore;
+        Consumer<Throwable> onError = t -> errorMessage.setValue(
+                getApplication().getString(R.string.error_cargar_entrenamientos)
+                        + ": " + t.getMessage());
+        workoutLoader = fromStore
+                ? new PagedLoader<>(PagedLoader.Config.DEFAULT, sync.pages(userId), null, onError)
+                : new PagedLoader<>(PagedLoader.Config.DEFAULT,
+                        (page, size) -> repo.getWorkoutsByUserIdPage(userId, page, size),
+                        () -> repo.getWorkoutsByUserId(userId),
+                        onError);
+        _workouts.addSource(workoutLoader.getItems(), _workouts::setValue);
+        workoutLoader.start();
+    }
+
+    /**
+     * Elimina el entrenamiento identificado por {@code workoutId} a través de
+     * {@link MutationOutbox}, que lo quita ya de la réplica local y lo envía al servidor
+     * en cuanto haya conexión.
+     * <p>
+     * Si se ha enviado o queda pendiente, ejecuta {@code onSuccess.run()}. Si el servidor lo rechaza,
      * publica un mensaje de error en {@link #errorMessage} y ejecuta {@code onFailure.run()}.
      * </p>
      *
@@ -126,26 +246,20 @@ public class WorkoutViewModel extends AndroidViewModel {
      * @param onFailure Runnable que se ejecuta si ocurre un error.
      */
     public void deleteWorkout(int workoutId, Runnable onSuccess, Runnable onFailure) {
-        repo.deleteWorkout(workoutId).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    onSuccess.run();
-                } else {
-                    errorMessage.setValue(
-                            getApplication().getString(R.string.error_eliminar_entrenamiento)
-                    );
-                    onFailure.run();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
+        MutationOutbox.get(getApplication()).deleteWorkout(workoutId, result -> {
+            if (result == MutationOutbox.Result.REJECTED) {
                 errorMessage.setValue(
                         getApplication().getString(R.string.error_eliminar_entrenamiento)
-                                + ": " + t.getMessage()
                 );
                 onFailure.run();
+            } else {
+                workoutSearch.invalidate();
+                if (pagedFromStore) {
+                    sync.discard(workoutId, syncListener(pagedUserId));
+                } else if (workoutLoader != null) {
+                    workoutLoader.refresh();
+                }
+                onSuccess.run();
             }
         });
     }
@@ -167,6 +281,7 @@ public class WorkoutViewModel extends AndroidViewModel {
             @Override
             public void onResponse(Call<Entrenamiento> call, Response<Entrenamiento> response) {
                 if (response.isSuccessful()) {
+                    workoutSearch.invalidate();
                     onSuccess.run();
                 } else {
                     errorMessage.setValue(
@@ -219,4 +334,13 @@ public class WorkoutViewModel extends AndroidViewModel {
                 }
             });
     }
+
+    /**
+     * Cancela la carga paginada y la búsqueda en curso al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        if (workoutLoader != null) workoutLoader.cancel();
+        workoutSearch.cancel();
+    }
 }
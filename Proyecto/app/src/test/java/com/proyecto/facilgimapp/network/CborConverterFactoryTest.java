@@ -0,0 +1,257 @@
+package com.proyecto.facilgimapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoEjercicioDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.model.dto.TipoEntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.UsuarioDTO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Pruebas de {@link CborConverterFactory} y de la lectura de JSON y CBOR contra un
+ * servidor local que negocia el formato por la cabecera {@code Accept}.
+ *
+ * @author Francisco Santana
+ */
+public class CborConverterFactoryTest {
+    private static final Type HISTORY = new TypeToken<List<EntrenamientoDTO>>() {}.getType();
+    private static final int WORKOUTS = 300;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 20;
+
+    private final Gson gson = RetrofitClient.getGson();
+    private MockWebServer server;
+    private byte[] json;
+    private byte[] cbor;
+    /** Si el servidor responde en CBOR a quien lo acepte. */
+    private volatile boolean serverSpeaksCbor = true;
+
+    @Before
+    public void setUp() throws IOException {
+        List<EntrenamientoDTO> history = history(WORKOUTS);
+        json = gson.toJson(history, HISTORY).getBytes(StandardCharsets.UTF_8);
+        cbor = Cbor.toBytes(gson.toJsonTree(history, HISTORY));
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String accept = request.getHeader("Accept");
+                boolean useCbor = serverSpeaksCbor && accept != null && accept.contains(Cbor.MEDIA_TYPE);
+                return new MockResponse()
+                        .setHeader("Content-Type", useCbor ? Cbor.MEDIA_TYPE : "application/json; charset=utf-8")
+                        .setBody(new Buffer().write(useCbor ? cbor : json));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void decodesSameHistoryFromCborAndJson() throws Exception {
+        List<EntrenamientoDTO> fromCbor = api().getWorkoutsByUserId(1).execute().body();
+        assertTrue(server.takeRequest().getHeader("Accept").startsWith(Cbor.MEDIA_TYPE));
+        serverSpeaksCbor = false;
+        List<EntrenamientoDTO> fromJson = api().getWorkoutsByUserId(1).execute().body();
+
+        assertNotNull(fromCbor);
+        assertEquals(WORKOUTS, fromCbor.size());
+        assertEquals(gson.toJson(fromJson, HISTORY), gson.toJson(fromCbor, HISTORY));
+    }
+
+    @Test
+    public void streamingReaderHandlesIndefiniteLengthsTagsAndUnknownFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x9f);                          // array indefinido
+        out.write(0xbf);                          // mapa indefinido
+        text(out, "idEjercicio");
+        out.write(0x18);
+        out.write(42);                            // 42
+        text(out, "ignorado");
+        out.write(0xa2);                          // {"a": [1, 2.5], "b": h'0102'}
+        text(out, "a");
+        out.write(0x82);
+        out.write(0x01);
+        out.write(0xf9);
+        out.write(0x41);
+        out.write(0x00);
+        text(out, "b");
+        out.write(0x42);
+        out.write(0x01);
+        out.write(0x02);
+        text(out, "nombre");
+        out.write(0x7f);                          // texto por trozos
+        text(out, "Press ");
+        text(out, "banca");
+        out.write(0xff);
+        text(out, "imagenUrl");
+        out.write(0xc0);                          // etiqueta que se ignora
+        out.write(0xf6);                          // null
+        out.write(0xff);
+        out.write(0xff);
+
+        Type type = new TypeToken<List<EjercicioDTO>>() {}.getType();
+        Converter<ResponseBody, ?> converter = CborConverterFactory.create(gson)
+                .responseBodyConverter(type, new Annotation[0], null);
+        @SuppressWarnings("unchecked")
+        List<EjercicioDTO> list = (List<EjercicioDTO>) converter.convert(ResponseBody.create(
+                out.toByteArray(), MediaType.get(Cbor.MEDIA_TYPE)));
+
+        assertEquals(1, list.size());
+        assertEquals(Integer.valueOf(42), list.get(0).getIdEjercicio());
+        assertEquals("Press banca", list.get(0).getNombre());
+        assertNull(list.get(0).getImagenUrl());
+    }
+
+    @Test
+    public void cborIsSmallerThanJson() {
+        assertTrue("CBOR debería ocupar menos que JSON", cbor.length < json.length);
+    }
+
+    /**
+     * Compara la memoria reservada por la lectura en streaming del CBOR con la lectura a
+     * través del árbol que hacía antes el convertidor. Depende de la JVM y del JIT, así
+     * que no se ejecuta con las demás pruebas; el tiempo y la memoria por la ruta completa
+     * de Retrofit se miden en el dispositivo con
+     * {@link com.proyecto.facilgimapp.util.JsonBenchmark#compareWireFormats(int, int)}.
+     */
+    @Ignore("Medición manual: depende de la JVM y de la asignación de memoria")
+    @Test
+    public void streamingAllocatesLessThanTree() throws Exception {
+        Decode tree = () -> gson.fromJson(Cbor.read(new ByteArrayInputStream(cbor)), HISTORY);
+        Decode streaming = () -> {
+            try (CborReader reader = new CborReader(new Buffer().write(cbor))) {
+                return gson.getAdapter(TypeToken.get(HISTORY)).read(reader);
+            }
+        };
+        // Se calientan las dos rutas antes de medir para que el JIT no favorezca a la última
+        for (int i = 0; i < WARMUP; i++) {
+            assertNotNull(tree.run());
+            assertNotNull(streaming.run());
+        }
+        long treeBytes = allocatedPerRead(tree);
+        long streamBytes = allocatedPerRead(streaming);
+
+        assumeTrue("La JVM no informa de la memoria reservada", treeBytes >= 0 && streamBytes >= 0);
+        assertTrue(String.format(Locale.ROOT,
+                        "La lectura en streaming debería reservar menos que el árbol (%d KB frente a %d KB)",
+                        streamBytes / 1024, treeBytes / 1024),
+                streamBytes < treeBytes);
+    }
+
+    private ApiService api() {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(CborConverterFactory.create(gson))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(ApiService.class);
+    }
+
+    private interface Decode {
+        Object run() throws IOException;
+    }
+
+    /** @return bytes reservados por lectura (-1 si no se conoce). */
+    private static long allocatedPerRead(Decode decode) throws IOException {
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) assertNotNull(decode.run());
+        long after = allocatedBytes();
+        return before < 0 || after < 0 ? -1 : (after - before) / ITERATIONS;
+    }
+
+    /** Bytes reservados por el hilo actual, si la JVM lo permite. */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        return ((com.sun.management.ThreadMXBean) threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void text(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(0x60 | bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /** Historial con 6 ejercicios de 4 series por entrenamiento, como el de JsonBenchmark. */
+    private static List<EntrenamientoDTO> history(int workouts) {
+        List<EntrenamientoDTO> list = new ArrayList<>(workouts);
+        UsuarioDTO usuario = new UsuarioDTO();
+        usuario.setIdUsuario(1);
+        usuario.setUsername("prueba");
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        for (int w = 0; w < workouts; w++) {
+            EntrenamientoDTO e = new EntrenamientoDTO();
+            e.setId(w + 1);
+            e.setNombre("Entrenamiento " + (w + 1));
+            e.setFechaEntrenamiento(first.plusDays(w));
+            e.setDescripcion("Sesión de prueba " + (w + 1));
+            e.setDuracion(45 + w % 30);
+            e.setTipoEntrenamiento(new TipoEntrenamientoDTO(1 + w % 3, "Tipo " + (1 + w % 3)));
+            e.setUsuario(usuario);
+            List<EntrenamientoEjercicioDTO> relaciones = new ArrayList<>();
+            for (int x = 0; x < 6; x++) {
+                EjercicioDTO ejercicio = new EjercicioDTO();
+                ejercicio.setIdEjercicio(x + 1);
+                ejercicio.setNombre("Ejercicio " + (x + 1));
+                ejercicio.setImagenUrl("https://example.org/ejercicios/" + (x + 1) + ".jpg");
+                EntrenamientoEjercicioDTO relacion = new EntrenamientoEjercicioDTO();
+                relacion.setId(w * 6 + x + 1);
+                relacion.setOrden(x);
+                relacion.setEjercicio(ejercicio);
+                List<SerieDTO> series = new ArrayList<>();
+                for (int s = 0; s < 4; s++) {
+                    SerieDTO serie = new SerieDTO(relacion.getId() * 4 + s, s + 1, 8 + s, 40.0 + 2.5 * s);
+                    serie.setCompletada(s < 3);
+                    series.add(serie);
+                }
+                relacion.setSeries(series);
+                relaciones.add(relacion);
+            }
+            e.setEntrenamientosEjercicios(relaciones);
+            list.add(e);
+        }
+        return list;
+    }
+}
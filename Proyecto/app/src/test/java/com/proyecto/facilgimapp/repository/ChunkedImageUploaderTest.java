@@ -0,0 +1,434 @@
+package com.proyecto.facilgimapp.repository;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.proyecto.facilgimapp.database.UploadStore;
+import com.proyecto.facilgimapp.model.dto.EjercicioDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartReader;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link ChunkedImageUploader} contra un servidor local que implementa el
+ * protocolo de subidas por trozos.
+ *
+ * @author Francisco Santana
+ */
+public class ChunkedImageUploaderTest {
+    private static final int CHUNK = ChunkedImageUploader.CHUNK_SIZE;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private UploadServer uploads;
+    private MemoryState state;
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        uploads = new UploadServer();
+        server = new MockWebServer();
+        server.setDispatcher(uploads);
+        server.start();
+        state = new MemoryState();
+        dir = tmp.newFolder("subidas");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void uploadsInChunksAndSavesExercise() throws Exception {
+        byte[] image = image(2 * CHUNK + CHUNK / 2);
+        Result result = new Result();
+
+        uploader().upload(exercise(7, "Press banca"), new ByteArrayInputStream(image),
+                "press.jpg", "image/jpeg", result);
+
+        result.await();
+        assertNull(result.error);
+        assertEquals(Integer.valueOf(7), result.saved.getIdEjercicio());
+        assertEquals(3, uploads.puts.get());
+        assertEquals(image.length, result.lastSent);
+        assertArrayEquals(image, uploads.finishedBytes(7));
+        assertTrue("Queda estado de una subida terminada", state.entries.isEmpty());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void resumesFromLastConfirmedChunk() throws Exception {
+        byte[] image = image(3 * CHUNK);
+        File copy = new File(dir, "copia");
+        try (OutputStream out = new FileOutputStream(copy)) {
+            out.write(image);
+        }
+        // El servidor ya recibió dos trozos antes de que se interrumpiera la subida
+        String id = uploads.create(image.length);
+        uploads.received.get(id).write(image, 0, 2 * CHUNK);
+        state.save(new UploadStore.Entry("pendiente", id, copy.getPath(), "press.jpg",
+                "image/jpeg", image.length, 2 * CHUNK, json(exercise(7, "Press banca"))));
+        Result result = new Result();
+
+        uploader().resumePending(result);
+
+        result.await();
+        assertNull(result.error);
+        assertEquals("Solo se envía el trozo pendiente", 1, uploads.puts.get());
+        assertArrayEquals(image, uploads.finishedBytes(7));
+    }
+
+    @Test
+    public void retriesTransientFailureWithoutRestarting() throws Exception {
+        byte[] image = image(2 * CHUNK);
+        uploads.failPuts.set(1);
+        Result result = new Result();
+
+        uploader().upload(exercise(7, "Press banca"), new ByteArrayInputStream(image),
+                "press.jpg", "image/jpeg", result);
+
+        result.await();
+        assertNull(result.error);
+        assertEquals(1, uploads.starts.get());
+        assertEquals(3, uploads.puts.get());
+        assertArrayEquals(image, uploads.finishedBytes(7));
+    }
+
+    @Test
+    public void sameImageForTwoExercisesSavesBoth() throws Exception {
+        byte[] image = image(CHUNK + 10);
+        uploads.gate = new CountDownLatch(1);
+        ChunkedImageUploader uploader = uploader();
+        Result first = new Result();
+        Result second = new Result();
+
+        uploader.upload(exercise(1, "Sentadilla"), new ByteArrayInputStream(image),
+                "pierna.jpg", "image/jpeg", first);
+        uploader.upload(exercise(2, "Zancada"), new ByteArrayInputStream(image),
+                "pierna.jpg", "image/jpeg", second);
+        uploads.gate.countDown();
+
+        first.await();
+        second.await();
+        assertEquals(Integer.valueOf(1), first.saved.getIdEjercicio());
+        assertEquals(Integer.valueOf(2), second.saved.getIdEjercicio());
+        assertArrayEquals(image, uploads.finishedBytes(1));
+        assertArrayEquals(image, uploads.finishedBytes(2));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void sendsWholeImageWhenServerHasNoChunkedUploads() throws Exception {
+        byte[] image = image(CHUNK + 10);
+        uploads.chunked = false;
+        Result result = new Result();
+
+        uploader().upload(exercise(7, "Press banca"), new ByteArrayInputStream(image),
+                "press.jpg", "image/jpeg", result);
+
+        result.await();
+        assertNull(result.error);
+        assertEquals(0, uploads.puts.get());
+        assertEquals(image.length, result.lastSent);
+        assertArrayEquals(image, uploads.finishedBytes(7));
+    }
+
+    @Test
+    public void lostSaveResponseIsRetriedWithoutDuplicatingExercise() throws Exception {
+        byte[] image = image(CHUNK + 10);
+        uploads.dropFinishes.set(1);
+        Result result = new Result();
+
+        uploader().upload(exercise(null, "Remo"), new ByteArrayInputStream(image),
+                "remo.jpg", "image/jpeg", result);
+
+        result.await();
+        assertNull(result.error);
+        assertTrue(uploads.finishRequests.get() >= 2);
+        assertEquals("El ejercicio se creó dos veces", 1, uploads.saves.get());
+        assertArrayEquals(image, uploads.finishedBytes(result.saved.getIdEjercicio()));
+    }
+
+    @Test
+    public void forgottenUploadRestartsWithoutDisablingChunks() throws Exception {
+        byte[] image = image(2 * CHUNK);
+        uploads.forgetNext = true;
+        ChunkedImageUploader uploader = uploader();
+        Result first = new Result();
+
+        uploader.upload(exercise(7, "Press banca"), new ByteArrayInputStream(image),
+                "press.jpg", "image/jpeg", first);
+
+        first.await();
+        assertNull(first.error);
+        assertEquals("La subida olvidada se vuelve a crear", 2, uploads.starts.get());
+        assertArrayEquals(image, uploads.finishedBytes(7));
+
+        int puts = uploads.puts.get();
+        Result second = new Result();
+        uploader.upload(exercise(8, "Press inclinado"), new ByteArrayInputStream(image(CHUNK)),
+                "inclinado.jpg", "image/jpeg", second);
+
+        second.await();
+        assertNull(second.error);
+        assertEquals("Se sigue subiendo por trozos", puts + 1, uploads.puts.get());
+    }
+
+    private ChunkedImageUploader uploader() {
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(RetrofitClient.getGson()))
+                .build()
+                .create(ApiService.class);
+        return new ChunkedImageUploader(new ChunkedImageUploader.RemoteEndpoint(api),
+                state, dir, Runnable::run);
+    }
+
+    private static EjercicioDTO exercise(Integer id, String name) {
+        EjercicioDTO e = new EjercicioDTO();
+        e.setIdEjercicio(id);
+        e.setNombre(name);
+        return e;
+    }
+
+    private static String json(EjercicioDTO e) {
+        return RetrofitClient.getGson().toJson(e);
+    }
+
+    private static byte[] image(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** Oyente que guarda el resultado y permite esperarlo. */
+    private static final class Result implements ChunkedImageUploader.Listener {
+        private final CountDownLatch done = new CountDownLatch(1);
+        volatile long lastSent;
+        volatile EjercicioDTO saved;
+        volatile String error;
+
+        @Override
+        public void onProgress(long sent, long total) {
+            lastSent = sent;
+        }
+
+        @Override
+        public void onComplete(EjercicioDTO saved, String error) {
+            this.saved = saved;
+            this.error = error;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("La subida no terminó", done.await(20, TimeUnit.SECONDS));
+        }
+    }
+
+    /** Estado de las subidas en memoria. */
+    private static final class MemoryState implements ChunkedImageUploader.UploadState {
+        final Map<String, UploadStore.Entry> entries = new LinkedHashMap<>();
+
+        @Override
+        public synchronized UploadStore.Entry find(String key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public synchronized List<UploadStore.Entry> all() {
+            return new ArrayList<>(entries.values());
+        }
+
+        @Override
+        public synchronized void save(UploadStore.Entry entry) {
+            entries.put(entry.key, entry);
+        }
+
+        @Override
+        public synchronized void updateProgress(String key, String uploadId, long confirmed) {
+            UploadStore.Entry e = entries.get(key);
+            if (e == null) return;
+            entries.put(key, new UploadStore.Entry(key, uploadId, e.path, e.fileName,
+                    e.contentType, e.total, confirmed, e.exerciseJson));
+        }
+
+        @Override
+        public synchronized void remove(String key) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Servidor local con el protocolo de subidas: crea subidas, acepta trozos en su
+     * desplazamiento y guarda el ejercicio con los bytes recibidos.
+     */
+    private static final class UploadServer extends Dispatcher {
+        final Map<String, Buffer> received = new LinkedHashMap<>();
+        /** Bytes de la imagen con la que se guardó cada ejercicio. */
+        final Map<Integer, byte[]> finished = new LinkedHashMap<>();
+        /** Respuesta de cada guardado por clave de idempotencia, para repetirla. */
+        private final Map<String, String> byKey = new ConcurrentHashMap<>();
+        private final AtomicInteger ids = new AtomicInteger(100);
+        final AtomicInteger starts = new AtomicInteger();
+        final AtomicInteger puts = new AtomicInteger();
+        final AtomicInteger finishRequests = new AtomicInteger();
+        /** Ejercicios guardados de verdad, sin contar las repeticiones por clave. */
+        final AtomicInteger saves = new AtomicInteger();
+        /** Guardados cuya respuesta se perderá. */
+        final AtomicInteger dropFinishes = new AtomicInteger();
+        /** Si es {@code true}, el siguiente trozo encuentra la subida olvidada. */
+        volatile boolean forgetNext;
+        /** Trozos que se responderán con 503 antes de aceptar. */
+        final AtomicInteger failPuts = new AtomicInteger();
+        volatile boolean chunked = true;
+        /** Si no es nulo, los trozos esperan a que se abra. */
+        volatile CountDownLatch gate;
+
+        synchronized String create(long total) {
+            String id = "s" + (received.size() + 1);
+            received.put(id, new Buffer());
+            return id;
+        }
+
+        synchronized byte[] finishedBytes(int exerciseId) {
+            return finished.get(exerciseId);
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getRequestUrl().encodedPath();
+            try {
+                if (path.equals("/api/subidas") && request.getMethod().equals("POST")) {
+                    starts.incrementAndGet();
+                    if (!chunked) return new MockResponse().setResponseCode(404);
+                    String id = create(Long.parseLong(request.getRequestUrl().queryParameter("total")));
+                    return upload(id, 0);
+                }
+                if (path.startsWith("/api/subidas/")) {
+                    String id = path.substring("/api/subidas/".length());
+                    if (request.getMethod().equals("GET")) return upload(id, size(id));
+                    return putChunk(request, id);
+                }
+                if (path.equals("/api/ejercicios")) return finish(request);
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+            return new MockResponse().setResponseCode(404);
+        }
+
+        private MockResponse putChunk(RecordedRequest request, String id) throws InterruptedException {
+            CountDownLatch g = gate;
+            if (g != null) g.await(10, TimeUnit.SECONDS);
+            puts.incrementAndGet();
+            if (failPuts.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return new MockResponse().setResponseCode(503);
+            }
+            long offset = Long.parseLong(request.getHeader("Upload-Offset"));
+            synchronized (this) {
+                if (forgetNext) {
+                    forgetNext = false;
+                    received.remove(id);
+                }
+                Buffer buffer = received.get(id);
+                if (buffer == null) return new MockResponse().setResponseCode(404);
+                if (offset != buffer.size()) return upload(id, buffer.size()).setResponseCode(409);
+                buffer.write(request.getBody(), request.getBodySize());
+            }
+            return upload(id, size(id));
+        }
+
+        private MockResponse finish(RecordedRequest request) throws IOException {
+            finishRequests.incrementAndGet();
+            String key = request.getHeader("Idempotency-Key");
+            String body = byKey.get(key);
+            if (body == null) {
+                body = save(request);
+                byKey.put(key, body);
+            }
+            MockResponse response = new MockResponse().setBody(body);
+            if (dropFinishes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            return response;
+        }
+
+        private String save(RecordedRequest request) throws IOException {
+            saves.incrementAndGet();
+            String boundary = MediaType.get(request.getHeader("Content-Type")).parameter("boundary");
+            String exercise = null;
+            byte[] image = null;
+            try (MultipartReader reader = new MultipartReader(request.getBody(), boundary)) {
+                MultipartReader.Part part;
+                while ((part = reader.nextPart()) != null) {
+                    String disposition = part.headers().get("Content-Disposition");
+                    byte[] bytes = part.body().readByteArray();
+                    if (disposition.contains("name=\"ejercicio\"")) {
+                        exercise = new String(bytes, "UTF-8");
+                    } else if (disposition.contains("name=\"subidaId\"")) {
+                        synchronized (this) {
+                            image = received.get(new String(bytes, "UTF-8")).snapshot().toByteArray();
+                        }
+                    } else if (disposition.contains("name=\"imagen\"")) {
+                        image = bytes;
+                    }
+                }
+            }
+            JsonObject saved = new JsonParser().parse(exercise).getAsJsonObject();
+            if (!saved.has("idEjercicio")) saved.addProperty("idEjercicio", ids.incrementAndGet());
+            synchronized (this) {
+                finished.put(saved.get("idEjercicio").getAsInt(), image);
+            }
+            saved.addProperty("imagenUrl", "/imagenes/" + saved.get("idEjercicio").getAsInt());
+            return saved.toString();
+        }
+
+        private synchronized long size(String id) {
+            Buffer buffer = received.get(id);
+            return buffer == null ? -1 : buffer.size();
+        }
+
+        private MockResponse upload(String id, long offset) {
+            if (offset < 0) return new MockResponse().setResponseCode(404);
+            return new MockResponse().setBody(
+                    "{\"id\":\"" + id + "\",\"offset\":" + offset + "}");
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.proyecto.facilgimapp.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.proyecto.facilgimapp.model.dto.SerieBulkResultDTO;
+import com.proyecto.facilgimapp.model.dto.SerieDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link SeriesBatchWriter} contra un servidor local con el endpoint de series
+ * en bloque, que responde con un resultado por serie.
+ *
+ * @author Francisco Santana
+ */
+public class SeriesBatchWriterTest {
+    private MockWebServer server;
+    private BulkServer bulk;
+    private SeriesBatchWriter writer;
+
+    @Before
+    public void setUp() throws IOException {
+        bulk = new BulkServer();
+        server = new MockWebServer();
+        server.setDispatcher(bulk);
+        server.start();
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(RetrofitClient.getGson()))
+                .build()
+                .create(ApiService.class);
+        writer = new SeriesBatchWriter(
+                (relacionId, keys, series) -> api.saveSeriesBulk(
+                        SeriesBatchWriter.requestKey(keys), relacionId, series).execute(),
+                new SeriesBatchWriter.PerItemEndpoint(api),
+                Runnable::run, 10);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void groupsByRelationInBoundedChunks() throws Exception {
+        Map<Integer, List<SerieDTO>> byRelation = new LinkedHashMap<>();
+        byRelation.put(1, series(60));
+        byRelation.put(2, series(10));
+        byRelation.put(3, series(30));
+
+        List<SeriesBatchWriter.ItemResult> results = submit(byRelation);
+
+        assertEquals(100, results.size());
+        for (SeriesBatchWriter.ItemResult r : results) assertTrue(r.isSuccess());
+        // 60 -> 25+25+10, 10 -> 10, 30 -> 25+5
+        assertEquals(6, bulk.requests.get());
+        assertTrue("Más peticiones simultáneas de las permitidas",
+                bulk.maxConcurrent.get() <= SeriesBatchWriter.MAX_CONCURRENT_REQUESTS);
+        assertEquals(60, bulk.saved(1));
+        assertEquals(10, bulk.saved(2));
+        assertEquals(30, bulk.saved(3));
+        // Resultados en el orden de entrega, con la relación de cada serie
+        assertEquals(1, results.get(59).relacionId);
+        assertEquals(2, results.get(60).relacionId);
+        assertEquals(Integer.valueOf(1), results.get(0).request.getNumeroSerie());
+    }
+
+    @Test
+    public void retriesOnlyTransientFailuresAndReportsRejections() throws Exception {
+        List<SerieDTO> list = series(5);
+        list.get(1).setRepeticiones(-1);        // rechazada por el servidor
+        bulk.flaky.add(4);                      // 503 la primera vez
+
+        List<SeriesBatchWriter.ItemResult> results = submit(Collections.singletonMap(7, list));
+
+        assertEquals(400, results.get(1).code);
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals(2, bulk.requests.get());
+        assertEquals("El reintento solo lleva la serie fallida", 1, bulk.lastSize.get());
+        assertEquals(4, bulk.saved(7));
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() throws Exception {
+        List<SerieDTO> list = series(2);
+        bulk.alwaysFailing.add(2);
+
+        List<SeriesBatchWriter.ItemResult> results = submit(Collections.singletonMap(7, list));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(503, results.get(1).code);
+        assertEquals(SeriesBatchWriter.MAX_ATTEMPTS, bulk.requests.get());
+    }
+
+    @Test
+    public void lostResponseIsRetriedWithSameKeyWithoutDuplicates() throws Exception {
+        bulk.dropResponses.set(1);
+
+        List<SeriesBatchWriter.ItemResult> results = submit(Collections.singletonMap(7, series(3)));
+
+        for (SeriesBatchWriter.ItemResult r : results) assertTrue(r.isSuccess());
+        assertEquals(2, bulk.requests.get());
+        assertEquals("Las series se guardaron dos veces", 3, bulk.saved(7));
+    }
+
+    @Test
+    public void fallsBackToPerItemRequestsWithoutBulkEndpoint() throws Exception {
+        bulk.bulkAvailable = false;
+        List<SerieDTO> list = series(3);
+        list.get(2).setId(500);
+
+        List<SeriesBatchWriter.ItemResult> results = submit(Collections.singletonMap(7, list));
+
+        for (SeriesBatchWriter.ItemResult r : results) assertTrue(r.isSuccess());
+        assertEquals(2, bulk.singleCreates.get());
+        assertEquals(1, bulk.singleUpdates.get());
+        assertEquals("Cada creación lleva su clave", 2, bulk.singleKeys.size());
+    }
+
+    private List<SeriesBatchWriter.ItemResult> submit(Map<Integer, List<SerieDTO>> byRelation)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<List<SeriesBatchWriter.ItemResult>> out = new ArrayList<>();
+        writer.submit(byRelation, results -> {
+            out.add(results);
+            done.countDown();
+        });
+        assertTrue("El envío no terminó", done.await(20, TimeUnit.SECONDS));
+        return out.get(0);
+    }
+
+    private static List<SerieDTO> series(int count) {
+        List<SerieDTO> list = new ArrayList<>();
+        for (int i = 1; i <= count; i++) list.add(new SerieDTO(i, 10, 50.0));
+        return list;
+    }
+
+    /**
+     * Servidor local con el endpoint en bloque y los de una serie. Guarda las respuestas
+     * por clave de idempotencia y repite la misma si la clave vuelve a llegar.
+     */
+    private static final class BulkServer extends Dispatcher {
+        private static final Type SERIES = new TypeToken<List<SerieDTO>>() {}.getType();
+        private final Gson gson = RetrofitClient.getGson();
+        private final Map<String, String> byKey = new ConcurrentHashMap<>();
+        private final Map<Integer, Integer> savedByRelation = new HashMap<>();
+        private final AtomicInteger ids = new AtomicInteger(1000);
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final AtomicInteger lastSize = new AtomicInteger();
+        final AtomicInteger dropResponses = new AtomicInteger();
+        final AtomicInteger singleCreates = new AtomicInteger();
+        final AtomicInteger singleUpdates = new AtomicInteger();
+        final Set<String> singleKeys = ConcurrentHashMap.newKeySet();
+        /** Números de serie que fallan con 503 la primera vez. */
+        final Set<Integer> flaky = ConcurrentHashMap.newKeySet();
+        /** Números de serie que fallan siempre con 503. */
+        final Set<Integer> alwaysFailing = ConcurrentHashMap.newKeySet();
+        volatile boolean bulkAvailable = true;
+
+        synchronized int saved(int relacionId) {
+            return savedByRelation.getOrDefault(relacionId, 0);
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getRequestUrl().encodedPath();
+            if (path.endsWith("/bulk")) {
+                if (!bulkAvailable) return new MockResponse().setResponseCode(404);
+                return bulk(request, Integer.parseInt(path.split("/")[4]));
+            }
+            SerieDTO serie = gson.fromJson(request.getBody().readUtf8(), SerieDTO.class);
+            if (request.getMethod().equals("POST")) {
+                singleCreates.incrementAndGet();
+                singleKeys.add(request.getHeader("Idempotency-Key"));
+                serie.setId(ids.incrementAndGet());
+            } else {
+                singleUpdates.incrementAndGet();
+            }
+            return json(gson.toJson(serie));
+        }
+
+        private MockResponse bulk(RecordedRequest request, int relacionId) throws InterruptedException {
+            int now = inFlight.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(20);
+                requests.incrementAndGet();
+                String key = request.getHeader("Idempotency-Key");
+                String body = byKey.get(key);
+                if (body == null) {
+                    body = save(relacionId, gson.fromJson(request.getBody().readUtf8(), SERIES));
+                    byKey.put(key, body);
+                }
+                MockResponse response = json(body);
+                if (dropResponses.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+                }
+                return response;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private synchronized String save(int relacionId, List<SerieDTO> series) {
+            lastSize.set(series.size());
+            List<SerieBulkResultDTO> results = new ArrayList<>();
+            for (int i = 0; i < series.size(); i++) {
+                SerieDTO s = series.get(i);
+                SerieBulkResultDTO r = new SerieBulkResultDTO();
+                r.setIndex(i);
+                if (s.getRepeticiones() != null && s.getRepeticiones() < 0) {
+                    r.setStatus(400);
+                    r.setMensaje("Repeticiones no válidas");
+                } else if (alwaysFailing.contains(s.getNumeroSerie()) || flaky.remove(s.getNumeroSerie())) {
+                    r.setStatus(503);
+                } else {
+                    if (s.getId() == null) s.setId(ids.incrementAndGet());
+                    savedByRelation.merge(relacionId, 1, Integer::sum);
+                    r.setStatus(200);
+                    r.setSerie(s);
+                }
+                results.add(r);
+            }
+            return gson.toJson(results);
+        }
+
+        private static MockResponse json(String body) {
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+        }
+    }
+}
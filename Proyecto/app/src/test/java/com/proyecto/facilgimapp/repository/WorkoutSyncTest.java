@@ -0,0 +1,356 @@
+package com.proyecto.facilgimapp.repository;
+
+import com.google.gson.Gson;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoCambiosDTO;
+import com.proyecto.facilgimapp.model.dto.EntrenamientoDTO;
+import com.proyecto.facilgimapp.model.dto.PageDTO;
+import com.proyecto.facilgimapp.network.ApiService;
+import com.proyecto.facilgimapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link WorkoutSync} contra un servidor local que implementa el endpoint de
+ * cambios con tokens, y una réplica en memoria.
+ *
+ * @author Francisco Santana
+ */
+public class WorkoutSyncTest {
+    private static final int USER = 1;
+    private static final int PAGE = 30;
+
+    private MockWebServer server;
+    private ChangesServer changes;
+    private MemoryStore store;
+    private WorkoutSync sync;
+
+    @Before
+    public void setUp() throws IOException {
+        changes = new ChangesServer();
+        server = new MockWebServer();
+        server.setDispatcher(changes);
+        server.start();
+        store = new MemoryStore();
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(RetrofitClient.getGson()))
+                .build()
+                .create(ApiService.class);
+        sync = new WorkoutSync(new WorkoutSync.RemoteEndpoint(api), store, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstSyncStoresSnapshotAndPagesFromStore() throws Exception {
+        for (int id = 1; id <= 70; id++) changes.put(id, "Entrenamiento " + id);
+        Events events = new Events();
+
+        sync.sync(USER, events);
+
+        assertEquals("changed", events.next());
+        assertNull("La primera sincronización no lleva token", changes.lastSince);
+        PageDTO<EntrenamientoDTO> first = page(0);
+        assertEquals(PAGE, first.getContent().size());
+        assertEquals(70, first.getTotalElements());
+        assertEquals(Integer.valueOf(1), first.getContent().get(0).getId());
+        PageDTO<EntrenamientoDTO> last = page(2);
+        assertEquals(10, last.getContent().size());
+        assertTrue(last.isLast(PAGE));
+    }
+
+    @Test
+    public void pageOfNeverSyncedHistoryIsNotFound() throws Exception {
+        assertEquals(404, sync.pages(USER).page(0, PAGE).execute().code());
+    }
+
+    @Test
+    public void incrementalSyncAppliesOnlyChanges() throws Exception {
+        for (int id = 1; id <= 5; id++) changes.put(id, "Entrenamiento " + id);
+        Events events = new Events();
+        sync.sync(USER, events);
+        assertEquals("changed", events.next());
+        String token = store.tokens.get("entrenamientos:" + USER);
+
+        changes.put(3, "Pierna");
+        changes.delete(4);
+        changes.put(6, "Nuevo");
+        sync.sync(USER, events);
+
+        assertEquals("Se muestra la copia guardada", "changed", events.next());
+        assertEquals("Y de nuevo tras aplicar los cambios", "changed", events.next());
+        assertEquals(token, changes.lastSince);
+        assertEquals(3, changes.lastSent);
+        assertEquals("[1, 2, 3, 5, 6]", ids(page(0)).toString());
+        assertEquals("Pierna", page(0).getContent().get(2).getNombre());
+    }
+
+    @Test
+    public void syncWithoutChangesDoesNotNotifyAgain() throws Exception {
+        changes.put(1, "Entrenamiento 1");
+        Events events = new Events();
+        sync.sync(USER, events);
+        assertEquals("changed", events.next());
+
+        sync.sync(USER, events);
+        sync.discard(99, events);
+
+        assertEquals("changed", events.next());
+        // El único aviso siguiente es el de discard, que va después de la sincronización
+        assertEquals("changed", events.next());
+        assertNull(events.poll());
+        assertEquals(0, changes.lastSent);
+    }
+
+    @Test
+    public void snapshotSkipsWorkoutsWithPendingDelete() throws Exception {
+        for (int id = 1; id <= 3; id++) changes.put(id, "Entrenamiento " + id);
+        store.pending.add(2);
+        Events events = new Events();
+
+        sync.sync(USER, events);
+
+        assertEquals("changed", events.next());
+        assertEquals("[1, 3]", ids(page(0)).toString());
+    }
+
+    @Test
+    public void expiredTokenSnapshotSkipsWorkoutsWithPendingDelete() throws Exception {
+        for (int id = 1; id <= 3; id++) changes.put(id, "Entrenamiento " + id);
+        Events events = new Events();
+        sync.sync(USER, events);
+        assertEquals("changed", events.next());
+
+        // Borrado en local, aún sin confirmar, y el servidor ha olvidado el token
+        store.pending.add(3);
+        store.deleteWorkout(3);
+        changes.expired = true;
+        sync.sync(USER, events);
+
+        assertEquals("changed", events.next());
+        assertEquals("changed", events.next());
+        assertNull("La copia completa se pide sin token", changes.lastSince);
+        assertEquals("[1, 2]", ids(page(0)).toString());
+    }
+
+    @Test
+    public void discardRemovesFromStoreAndNotifies() throws Exception {
+        for (int id = 1; id <= 3; id++) changes.put(id, "Entrenamiento " + id);
+        Events events = new Events();
+        sync.sync(USER, events);
+        assertEquals("changed", events.next());
+
+        sync.discard(2, events);
+
+        assertEquals("changed", events.next());
+        assertEquals("[1, 3]", ids(page(0)).toString());
+    }
+
+    @Test
+    public void missingEndpointReportsUnsupported() throws Exception {
+        changes.available = false;
+        Events events = new Events();
+
+        sync.sync(USER, events);
+
+        assertEquals("unsupported", events.next());
+        assertFalse(sync.isAvailable());
+        sync.sync(USER, events);
+        assertEquals("unsupported", events.next());
+        assertEquals("No se vuelve a preguntar", 1, server.getRequestCount());
+    }
+
+    @Test
+    public void serverErrorKeepsStoredCopy() throws Exception {
+        changes.put(1, "Entrenamiento 1");
+        Events events = new Events();
+        sync.sync(USER, events);
+        assertEquals("changed", events.next());
+
+        changes.failing = true;
+        sync.sync(USER, events);
+
+        assertEquals("changed", events.next());
+        assertEquals("error", events.next());
+        assertEquals("[1]", ids(page(0)).toString());
+    }
+
+    private PageDTO<EntrenamientoDTO> page(int number) throws IOException {
+        return sync.pages(USER).page(number, PAGE).execute().body();
+    }
+
+    private static List<Integer> ids(PageDTO<EntrenamientoDTO> page) {
+        List<Integer> ids = new ArrayList<>();
+        for (EntrenamientoDTO w : page.getContent()) ids.add(w.getId());
+        return ids;
+    }
+
+    private static EntrenamientoDTO workout(int id, String name) {
+        EntrenamientoDTO w = new EntrenamientoDTO();
+        w.setId(id);
+        w.setNombre(name);
+        return w;
+    }
+
+    /** Oyente que anota los avisos en orden y permite esperarlos. */
+    private static final class Events implements WorkoutSync.Listener {
+        private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onChanged() {
+            queue.add("changed");
+        }
+
+        @Override
+        public void onUnsupported() {
+            queue.add("unsupported");
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            queue.add("error");
+        }
+
+        String next() throws InterruptedException {
+            String event = queue.poll(10, TimeUnit.SECONDS);
+            assertTrue("No llegó el aviso", event != null);
+            return event;
+        }
+
+        String poll() throws InterruptedException {
+            return queue.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Réplica en memoria, ordenada por ID como la local. */
+    private static final class MemoryStore implements WorkoutSync.WorkoutStore {
+        final TreeMap<Integer, EntrenamientoDTO> workouts = new TreeMap<>();
+        final Map<String, String> tokens = new TreeMap<>();
+        final Set<Integer> pending = new HashSet<>();
+        boolean saved;
+
+        @Override
+        public synchronized String loadSyncToken(String syncKey) {
+            return tokens.get(syncKey);
+        }
+
+        @Override
+        public synchronized void replaceWorkouts(int userId, List<EntrenamientoDTO> list,
+                                                 String syncKey, String token) {
+            workouts.clear();
+            for (EntrenamientoDTO w : list) workouts.put(w.getId(), w);
+            tokens.put(syncKey, token);
+            saved = true;
+        }
+
+        @Override
+        public synchronized void applyChanges(int userId, List<EntrenamientoDTO> changed,
+                                              List<Integer> deleted, String syncKey, String token) {
+            for (EntrenamientoDTO w : changed) workouts.put(w.getId(), w);
+            for (Integer id : deleted) workouts.remove(id);
+            tokens.put(syncKey, token);
+        }
+
+        @Override
+        public synchronized void deleteWorkout(int workoutId) {
+            workouts.remove(workoutId);
+        }
+
+        @Override
+        public synchronized PageDTO<EntrenamientoDTO> loadPage(int userId, int page, int size) {
+            if (!saved) return null;
+            List<EntrenamientoDTO> all = new ArrayList<>(workouts.values());
+            int from = Math.min(page * size, all.size());
+            int to = Math.min(from + size, all.size());
+            return new PageDTO<>(new ArrayList<>(all.subList(from, to)), page, size, all.size());
+        }
+
+        @Override
+        public synchronized Set<Integer> pendingDeletes() {
+            return new HashSet<>(pending);
+        }
+    }
+
+    /**
+     * Servidor local con el endpoint de cambios: cada escritura avanza una versión y el
+     * token es la versión de la última respuesta.
+     */
+    private static final class ChangesServer extends Dispatcher {
+        private final Gson gson = RetrofitClient.getGson();
+        /** Versión en la que cambió por última vez cada entrenamiento (null si se borró). */
+        private final Map<Integer, Integer> changedAt = new TreeMap<>();
+        private final Map<Integer, EntrenamientoDTO> workouts = new TreeMap<>();
+        private int version;
+
+        volatile boolean available = true;
+        volatile boolean expired;
+        volatile boolean failing;
+        volatile String lastSince;
+        /** Entrenamientos modificados y eliminados enviados en la última respuesta. */
+        volatile int lastSent;
+
+        synchronized void put(int id, String name) {
+            workouts.put(id, workout(id, name));
+            changedAt.put(id, ++version);
+        }
+
+        synchronized void delete(int id) {
+            workouts.remove(id);
+            changedAt.put(id, ++version);
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            if (!available) return new MockResponse().setResponseCode(404);
+            if (failing) return new MockResponse().setResponseCode(500);
+            String since = request.getRequestUrl().queryParameter("desde");
+            lastSince = since;
+            if (since != null && expired) return new MockResponse().setResponseCode(410);
+            int from = since == null ? 0 : Integer.parseInt(since.substring(1));
+            List<EntrenamientoDTO> modified = new ArrayList<>();
+            List<Integer> deleted = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> e : changedAt.entrySet()) {
+                if (e.getValue() <= from) continue;
+                EntrenamientoDTO w = workouts.get(e.getKey());
+                if (w != null) {
+                    modified.add(w);
+                } else if (since != null) {
+                    deleted.add(e.getKey());
+                }
+            }
+            lastSent = modified.size() + deleted.size();
+            EntrenamientoCambiosDTO body = new EntrenamientoCambiosDTO(modified, deleted, "v" + version);
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(gson.toJson(body));
+        }
+    }
+}